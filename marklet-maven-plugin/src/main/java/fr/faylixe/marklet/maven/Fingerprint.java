@@ -0,0 +1,180 @@
+package fr.faylixe.marklet.maven;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Digest of every input of a generation. Files are
+ * identified by their path, size and last modification
+ * time, so computing a fingerprint does not read them.
+ * Directories are walked in a stable order.
+ *
+ * @author fv
+ */
+public final class Fingerprint {
+
+	/** Digest algorithm used for building fingerprint. **/
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/** Separator written between digested values. **/
+	private static final byte SEPARATOR = 0;
+
+	/** Digest that values are added to. **/
+	private final MessageDigest digest;
+
+	/**
+	 * Default constructor.
+	 */
+	public Fingerprint() {
+		try {
+			this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Adds the given ``value`` to this fingerprint.
+	 *
+	 * @param value Value to add, ``null`` allowed.
+	 * @return This fingerprint.
+	 */
+	public Fingerprint add(final String value) {
+		if (value != null) {
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		digest.update(SEPARATOR);
+		return this;
+	}
+
+	/**
+	 * Adds the file denoted by the given ``path`` to this
+	 * fingerprint, or every file of it if it is a directory.
+	 *
+	 * @param path Path of the file or directory to add.
+	 * @return This fingerprint.
+	 * @throws IOException If any error occurs while reading file attributes.
+	 */
+	public Fingerprint addFile(final Path path) throws IOException {
+		add(path.toString());
+		if (Files.isDirectory(path)) {
+			try (final Stream<Path> stream = Files.walk(path)) {
+				final Iterator<Path> iterator = stream
+						.filter(Files::isRegularFile)
+						.sorted()
+						.iterator();
+				while (iterator.hasNext()) {
+					addAttributes(iterator.next());
+				}
+			}
+		}
+		else if (Files.exists(path)) {
+			addAttributes(path);
+		}
+		return this;
+	}
+
+	/**
+	 * Retrieves the jar file or class directory the given
+	 * ``type`` is loaded from, so it could be added to a
+	 * fingerprint. Its location URL is decoded, as it
+	 * escapes characters such as spaces.
+	 *
+	 * @param type Class to get location of.
+	 * @return Path of the jar file or class directory.
+	 * @throws IOException If the location is unknown, not a file, or could not be read.
+	 */
+	public static Path getLocation(final Class<?> type) throws IOException {
+		final CodeSource source = type.getProtectionDomain().getCodeSource();
+		final URL location = source == null ? null : source.getLocation();
+		if (location == null) {
+			throw new IOException("Unknown location of " + type.getName());
+		}
+		final Path path;
+		try {
+			path = Paths.get(location.toURI());
+		}
+		catch (final URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+			throw new IOException("Unsupported location of " + type.getName() + " : " + location, e);
+		}
+		if (!Files.isReadable(path)) {
+			throw new IOException("Unable to read " + path + " that " + type.getName() + " is loaded from");
+		}
+		return path;
+	}
+
+	/**
+	 * Adds path, size and last modification time of the
+	 * given regular ``file`` to this fingerprint.
+	 *
+	 * @param file File to add.
+	 * @throws IOException If any error occurs while reading file attributes.
+	 */
+	private void addAttributes(final Path file) throws IOException {
+		add(file.toString());
+		add(String.valueOf(Files.size(file)));
+		add(String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+	}
+
+	/**
+	 * Builds the hexadecimal representation of this fingerprint.
+	 * This fingerprint should not be used anymore afterwards.
+	 *
+	 * @return Hexadecimal fingerprint.
+	 */
+	public String toHex() {
+		final StringBuffer buffer = new StringBuffer();
+		for (final byte value : digest.digest()) {
+			buffer.append(String.format("%02x", value & 0xFF));
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Indicates if the file denoted by the given ``path``
+	 * holds the given ``fingerprint``.
+	 *
+	 * @param path Path of the fingerprint file.
+	 * @param fingerprint Expected fingerprint.
+	 * @return ``true`` if fingerprints are equal, ``false`` otherwise.
+	 * @throws IOException If any error occurs while reading file.
+	 */
+	public static boolean matches(final Path path, final String fingerprint) throws IOException {
+		if (!Files.isRegularFile(path)) {
+			return false;
+		}
+		final String previous = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+		return previous.equals(fingerprint);
+	}
+
+	/**
+	 * Writes the given ``fingerprint`` into the file denoted
+	 * by the given ``path``. File is written next to its target
+	 * then moved, so a concurrent reader never sees it partially.
+	 *
+	 * @param path Path of the fingerprint file.
+	 * @param fingerprint Fingerprint to write.
+	 * @throws IOException If any error occurs while writing file.
+	 */
+	public static void write(final Path path, final String fingerprint) throws IOException {
+		final Path directory = path.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		final Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		Files.write(temporary, fingerprint.getBytes(StandardCharsets.UTF_8));
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,203 @@
+package fr.faylixe.marklet.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import fr.faylixe.marklet.Marklet;
+import fr.faylixe.marklet.MarkletRunner;
+
+/**
+ * Goal that generates **Marklet** documentation of
+ * the current module. Sources, class path, options and
+ * **Marklet** itself are fingerprinted, and generation
+ * is skipped when none of them changed since the last
+ * one. Javadoc runs within the build process, so modules
+ * of a parallel build are generated concurrently.
+ *
+ * @author fv
+ */
+@Mojo(
+		name = "generate",
+		defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+		requiresDependencyResolution = ResolutionScope.COMPILE,
+		threadSafe = true)
+public final class MarkletMojo extends AbstractMojo {
+
+	/** Javadoc option that gives output directory. **/
+	private static final String OUTPUT_DIRECTORY_OPTION = "-d";
+
+	/** Javadoc option that gives source files encoding. **/
+	private static final String ENCODING_OPTION = "-encoding";
+
+	/** Current module. **/
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	/** Source roots to document. **/
+	@Parameter(defaultValue = "${project.compileSourceRoots}", required = true)
+	private List<String> sourceRoots;
+
+	/** Directory to write documentation in. **/
+	@Parameter(property = "marklet.outputDirectory", defaultValue = "${project.basedir}/javadoc", required = true)
+	private File outputDirectory;
+
+	/** Encoding of source files. **/
+	@Parameter(property = "marklet.encoding", defaultValue = "${project.build.sourceEncoding}")
+	private String encoding;
+
+	/** Additional javadoc and **Marklet** options. **/
+	@Parameter
+	private List<String> options;
+
+	/** File that holds the fingerprint of the last generation. **/
+	@Parameter(defaultValue = "${project.build.directory}/marklet.fingerprint", required = true)
+	private File fingerprintFile;
+
+	/** Generates documentation even if nothing changed. **/
+	@Parameter(property = "marklet.force", defaultValue = "false")
+	private boolean force;
+
+	/** Skips documentation generation. **/
+	@Parameter(property = "marklet.skip", defaultValue = "false")
+	private boolean skip;
+
+	/**
+	 * Retrieves existing source roots.
+	 *
+	 * @return Source roots to document.
+	 */
+	private List<Path> getSourceRoots() {
+		return sourceRoots
+				.stream()
+				.map(Paths::get)
+				.filter(Files::isDirectory)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Retrieves compile class path, without module own classes.
+	 *
+	 * @return Class path entries.
+	 * @throws MojoExecutionException If dependencies have not been resolved.
+	 */
+	private List<Path> getClassPath() throws MojoExecutionException {
+		try {
+			final String outputClasses = project.getBuild().getOutputDirectory();
+			return project
+					.getCompileClasspathElements()
+					.stream()
+					.filter(element -> !element.equals(outputClasses))
+					.map(Paths::get)
+					.collect(Collectors.toList());
+		}
+		catch (final DependencyResolutionRequiredException e) {
+			throw new MojoExecutionException("Compile dependencies are not resolved", e);
+		}
+	}
+
+	/**
+	 * Builds javadoc options for this module.
+	 *
+	 * @return Javadoc options.
+	 */
+	private List<String> getOptions() {
+		final List<String> arguments = new ArrayList<>();
+		// NOTE : Marklet appends package path to the output directory as is.
+		arguments.add(OUTPUT_DIRECTORY_OPTION);
+		arguments.add(outputDirectory.getAbsolutePath() + File.separator);
+		if (encoding != null) {
+			arguments.add(ENCODING_OPTION);
+			arguments.add(encoding);
+		}
+		if (options != null) {
+			arguments.addAll(options);
+		}
+		return arguments;
+	}
+
+	/**
+	 * Computes fingerprint of every generation input.
+	 *
+	 * @param roots Source roots to document.
+	 * @param classPath Class path entries.
+	 * @param arguments Javadoc options.
+	 * @return Fingerprint of generation inputs.
+	 * @throws IOException If any error occurs while reading file attributes, or if Marklet jar could not be read.
+	 */
+	private String fingerprint(final List<Path> roots, final List<Path> classPath, final List<String> arguments) throws IOException {
+		final Fingerprint fingerprint = new Fingerprint();
+		fingerprint.addFile(Fingerprint.getLocation(Marklet.class));
+		for (final String argument : arguments) {
+			fingerprint.add(argument);
+		}
+		for (final Path root : roots) {
+			fingerprint.addFile(root);
+		}
+		for (final Path entry : classPath) {
+			fingerprint.addFile(entry);
+		}
+		return fingerprint.toHex();
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void execute() throws MojoExecutionException {
+		if (skip) {
+			getLog().info("Marklet generation is skipped");
+			return;
+		}
+		final List<Path> roots = getSourceRoots();
+		if (roots.isEmpty()) {
+			getLog().info("No source to document");
+			return;
+		}
+		final List<Path> classPath = getClassPath();
+		final List<String> arguments = getOptions();
+		try {
+			final String fingerprint = fingerprint(roots, classPath, arguments);
+			final Path fingerprintPath = fingerprintFile.toPath();
+			if (!force && outputDirectory.isDirectory() && Fingerprint.matches(fingerprintPath, fingerprint)) {
+				getLog().info("Marklet documentation is up to date");
+				return;
+			}
+			final MarkletRunner.Result result;
+			try (final MarkletRunner runner = new MarkletRunner(1)) {
+				final MarkletRunner.Module module = new MarkletRunner.Module(project.getArtifactId(), roots, classPath, arguments);
+				result = runner.run(Collections.singletonList(module)).get(0);
+			}
+			for (final String line : result.getOutput().split("\\R")) {
+				if (!line.isEmpty()) {
+					getLog().info(line);
+				}
+			}
+			if (!result.isSuccess()) {
+				throw new MojoExecutionException("Marklet generation failed for " + project.getArtifactId());
+			}
+			Fingerprint.write(fingerprintPath, fingerprint);
+			getLog().info("Marklet documentation generated in " + result.getDuration() + " ms");
+		}
+		catch (final IOException e) {
+			throw new MojoExecutionException("Unable to generate Marklet documentation", e);
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Marklet generation has been interrupted", e);
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package fr.faylixe.marklet.maven;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of generation input fingerprints.
+ *
+ * @author fv
+ */
+public final class FingerprintTest {
+
+	/** Temporary directory of the test, which name has a space. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("marklet plugin");
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		try (final Stream<Path> stream = Files.walk(directory)) {
+			for (final Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * Ensures that a class loaded from a directory which
+	 * path has to be escaped is located in that directory.
+	 *
+	 * @throws Exception If any error occurs while loading class.
+	 */
+	@Test
+	public void testLocationIsDecoded() throws Exception {
+		final String resource = Fingerprint.class.getName().replace('.', '/') + ".class";
+		final Path target = directory.resolve(resource);
+		Files.createDirectories(target.getParent());
+		try (final InputStream stream = Fingerprint.class.getClassLoader().getResourceAsStream(resource)) {
+			Files.copy(stream, target);
+		}
+		try (final URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, null)) {
+			final Class<?> type = loader.loadClass(Fingerprint.class.getName());
+			assertEquals(directory, Fingerprint.getLocation(type));
+		}
+	}
+
+	/**
+	 * Ensures that a class without location could not be
+	 * added to a fingerprint.
+	 *
+	 * @throws Exception If the location is unknown, as expected.
+	 */
+	@Test(expected = IOException.class)
+	public void testUnknownLocationFails() throws Exception {
+		Fingerprint.getLocation(String.class);
+	}
+
+	/**
+	 * Ensures that a fingerprint changes once a file
+	 * of a fingerprinted directory is modified.
+	 *
+	 * @throws Exception If any error occurs while writing file.
+	 */
+	@Test
+	public void testFileChangeIsDetected() throws Exception {
+		final Path file = directory.resolve("Source.java");
+		Files.write(file, "class Source {}".getBytes());
+		final String before = new Fingerprint().addFile(directory).toHex();
+		assertEquals(before, new Fingerprint().addFile(directory).toHex());
+		Files.write(file, "class Source { int value; }".getBytes());
+		assertNotEquals(before, new Fingerprint().addFile(directory).toHex());
+	}
+
+}
@@ -0,0 +1,100 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builder that aims to create the API changes page
+ * at the root of the output directory, from the
+ * {@link ApiSignatures.Difference} between the current
+ * API and the one of a previous generation.
+ *
+ * @author fv
+ */
+public final class ApiDiffPageBuilder extends MarkletDocumentBuilder {
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param context Shared generation state.
+	 */
+	private ApiDiffPageBuilder(final MarkletContext context) {
+		super(context, null);
+	}
+
+	/**
+	 * Appends to the current document a link to
+	 * the page section of the given ``entry``.
+	 *
+	 * @param entry Element to link.
+	 */
+	private void entryLink(final ApiSignatures.Entry entry) {
+		final String url = new StringBuffer()
+			.append(getPath(getSourceName(), entry.getPackageName()))
+			.append(entry.getClassName())
+			.append(MarkdownDocumentBuilder.LINK_EXTENSION)
+			.append(entry.getAnchor())
+			.toString();
+		link(entry.getLabel(), url);
+	}
+
+	/**
+	 * Appends the given ``entries`` section, as a markdown
+	 * list. Removed elements are not linked as their page
+	 * no longer exists, and changed ones show their previous
+	 * signature along with the current one.
+	 *
+	 * @param title Title of the section.
+	 * @param entries Elements to list.
+	 * @param linked ``true`` if elements have a page to link to, ``false`` otherwise.
+	 */
+	private void section(final String title, final List<ApiSignatures.Entry> entries, final boolean linked) {
+		header(2);
+		text(title);
+		newLine();
+		if (entries.isEmpty()) {
+			text(MarkletConstant.NO_CHANGE);
+			newLine();
+		}
+		for (final ApiSignatures.Entry entry : entries) {
+			item();
+			if (linked) {
+				entryLink(entry);
+			}
+			else {
+				italic(entry.getPackageName() + '.' + entry.getLabel());
+			}
+			text(" : ");
+			if (entry.getPreviousSignature() != null) {
+				code(entry.getPreviousSignature());
+				text(MarkletConstant.CHANGED_TO);
+			}
+			code(entry.getSignature());
+			newLine();
+		}
+		newLine();
+	}
+
+	/**
+	 * Builds and writes the API changes page from the
+	 * given ``difference`` into the directory denoted by
+	 * the given ``directoryPath``.
+	 *
+	 * @param context Shared generation state.
+	 * @param difference Differences to write.
+	 * @param directoryPath Path of the output directory.
+	 * @throws IOException If any error occurs while writing page.
+	 */
+	public static void build(final MarkletContext context, final ApiSignatures.Difference difference, final Path directoryPath) throws IOException {
+		final ApiDiffPageBuilder builder = new ApiDiffPageBuilder(context);
+		builder.header(1);
+		builder.text(MarkletConstant.API_CHANGES);
+		builder.newLine();
+		builder.section(MarkletConstant.ADDED, difference.getAdded(), true);
+		builder.section(MarkletConstant.REMOVED, difference.getRemoved(), false);
+		builder.section(MarkletConstant.CHANGED, difference.getChanged(), true);
+		builder.build(directoryPath.resolve(MarkletConstant.API_CHANGES_FILE));
+	}
+
+}
@@ -0,0 +1,504 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.ExecutableMemberDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.ProgramElementDoc;
+import com.sun.javadoc.Type;
+
+/**
+ * Hashed signatures of the documented API. Each class,
+ * field, constructor and method is identified by a hash
+ * of its qualified name and erased parameter types, and
+ * described by a hash of its full signature, which covers
+ * modifiers, types and parameter lists. The full signature
+ * is kept as well, so changes could be shown.
+ *
+ * Entries are kept sorted by identifier, so that two
+ * signature files are compared in a single linear pass,
+ * the previous one being streamed from disk.
+ *
+ * @author fv
+ */
+public final class ApiSignatures {
+
+	/** Name of the signature file, relative to the index directory. **/
+	public static final String FILE_NAME = "api.signatures";
+
+	/** Magic number of the signature file (``MKSG``). **/
+	private static final int MAGIC = 0x4D4B5347;
+
+	/** Signature file format version. **/
+	private static final int VERSION = 2;
+
+	/** FNV-1a 64 bits offset basis. **/
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	/** FNV-1a 64 bits prime. **/
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** Entries ordering, by identifier. **/
+	private static final Comparator<Entry> KEY_ORDER = (a, b) -> Long.compare(a.key, b.key);
+
+	/**
+	 * Signature of a single API element.
+	 */
+	public static final class Entry {
+
+		/** Hash of the element identity. **/
+		private final long key;
+
+		/** Hash of the element full signature. **/
+		private final long hash;
+
+		/** Name of the package the element belongs to. **/
+		private final String packageName;
+
+		/** Name of the class page, or sub page, the element is documented in. **/
+		private final String className;
+
+		/** Anchor of the element into its class page, empty for a class. **/
+		private final String anchor;
+
+		/** Human readable element name. **/
+		private final String label;
+
+		/** Full signature. **/
+		private final String signature;
+
+		/** Full signature in the previous API, ``null`` unless the signature changed. **/
+		private final String previousSignature;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param key Hash of the element identity.
+		 * @param hash Hash of the element full signature.
+		 * @param packageName Name of the package the element belongs to.
+		 * @param className Name of the class page, or sub page, the element is documented in.
+		 * @param anchor Anchor of the element into its class page, empty for a class.
+		 * @param label Human readable element name.
+		 * @param signature Full signature.
+		 * @param previousSignature Full signature in the previous API, ``null`` unless the signature changed.
+		 */
+		private Entry(
+				final long key,
+				final long hash,
+				final String packageName,
+				final String className,
+				final String anchor,
+				final String label,
+				final String signature,
+				final String previousSignature) {
+			this.key = key;
+			this.hash = hash;
+			this.packageName = packageName;
+			this.className = className;
+			this.anchor = anchor;
+			this.label = label;
+			this.signature = signature;
+			this.previousSignature = previousSignature;
+		}
+
+		/**
+		 * Package name getter.
+		 *
+		 * @return Name of the package the element belongs to.
+		 */
+		public String getPackageName() {
+			return packageName;
+		}
+
+		/**
+		 * Class name getter.
+		 *
+		 * @return Name of the class page, or sub page, the element is documented in.
+		 */
+		public String getClassName() {
+			return className;
+		}
+
+		/**
+		 * Anchor getter.
+		 *
+		 * @return Anchor of the element into its class page, empty for a class.
+		 */
+		public String getAnchor() {
+			return anchor;
+		}
+
+		/**
+		 * Label getter.
+		 *
+		 * @return Human readable element name.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Signature getter.
+		 *
+		 * @return Full signature.
+		 */
+		public String getSignature() {
+			return signature;
+		}
+
+		/**
+		 * Previous signature getter.
+		 *
+		 * @return Full signature in the previous API, ``null`` unless the signature changed.
+		 */
+		public String getPreviousSignature() {
+			return previousSignature;
+		}
+
+		/**
+		 * Creates a copy of this entry, as changed
+		 * from the given ``previous`` entry.
+		 *
+		 * @param previous Entry of the element in the previous API.
+		 * @return Changed entry.
+		 */
+		private Entry changedFrom(final Entry previous) {
+			return new Entry(key, hash, packageName, className, anchor, label, signature, previous.signature);
+		}
+
+	}
+
+	/**
+	 * Differences between two signature sets.
+	 */
+	public static final class Difference {
+
+		/** Elements only available in the current API. **/
+		private final List<Entry> added;
+
+		/** Elements only available in the previous API. **/
+		private final List<Entry> removed;
+
+		/** Elements which signature changed, as available in the current API along with their previous signature. **/
+		private final List<Entry> changed;
+
+		/**
+		 * Default constructor.
+		 */
+		private Difference() {
+			this.added = new ArrayList<>();
+			this.removed = new ArrayList<>();
+			this.changed = new ArrayList<>();
+		}
+
+		/**
+		 * Added elements getter.
+		 *
+		 * @return Elements only available in the current API.
+		 */
+		public List<Entry> getAdded() {
+			return added;
+		}
+
+		/**
+		 * Removed elements getter.
+		 *
+		 * @return Elements only available in the previous API.
+		 */
+		public List<Entry> getRemoved() {
+			return removed;
+		}
+
+		/**
+		 * Changed elements getter.
+		 *
+		 * @return Elements which signature changed, as available in the current API along with their previous signature.
+		 */
+		public List<Entry> getChanged() {
+			return changed;
+		}
+
+		/**
+		 * Indicates if both API are identical.
+		 *
+		 * @return ``true`` if no difference has been found, ``false`` otherwise.
+		 */
+		public boolean isEmpty() {
+			return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+		}
+
+	}
+
+	/** Signature entries, sorted by identifier. **/
+	private final List<Entry> entries;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param entries Signature entries, sorted by identifier.
+	 */
+	private ApiSignatures(final List<Entry> entries) {
+		this.entries = entries;
+	}
+
+	/**
+	 * Entries getter.
+	 *
+	 * @return Signature entries, sorted by identifier.
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * Hashes the given ``text`` using FNV-1a.
+	 *
+	 * @param text Text to hash.
+	 * @return 64 bits hash.
+	 */
+	private static long hash(final String text) {
+		long hash = FNV_OFFSET;
+		for (int i = 0; i < text.length(); i++) {
+			hash ^= text.charAt(i);
+			hash *= FNV_PRIME;
+		}
+		return hash;
+	}
+
+	/**
+	 * Builds the signature of the given ``classDoc``, made of
+	 * its modifiers, name, type parameters and super types.
+	 *
+	 * @param classDoc Class to build signature for.
+	 * @return Built signature.
+	 */
+	private static String classSignature(final ClassDoc classDoc) {
+		final StringBuffer buffer = new StringBuffer()
+			.append(classDoc.modifiers())
+			.append(' ')
+			.append(classDoc.toString());
+		final Type superclass = classDoc.superclassType();
+		if (superclass != null) {
+			buffer.append(" extends ").append(superclass.toString());
+		}
+		final Type [] interfaces = classDoc.interfaceTypes();
+		for (int i = 0; i < interfaces.length; i++) {
+			buffer.append(i == 0 ? " implements " : ", ").append(interfaces[i].toString());
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Builds the signature of the given ``member``, made of its
+	 * modifiers, type, name and parameter types.
+	 *
+	 * @param member Member to build signature for.
+	 * @return Built signature.
+	 */
+	private static String memberSignature(final ProgramElementDoc member) {
+		final StringBuffer buffer = new StringBuffer()
+			.append(member.modifiers())
+			.append(' ');
+		if (member.isMethod()) {
+			buffer.append(((MethodDoc) member).returnType().toString()).append(' ');
+		}
+		else if (member.isField() || member.isEnumConstant()) {
+			buffer.append(((FieldDoc) member).type().toString()).append(' ');
+		}
+		buffer.append(member.name());
+		if (member instanceof ExecutableMemberDoc) {
+			final Parameter [] parameters = ((ExecutableMemberDoc) member).parameters();
+			buffer.append('(');
+			for (int i = 0; i < parameters.length; i++) {
+				buffer.append(parameters[i].type().toString());
+				if (i < parameters.length - 1) {
+					buffer.append(", ");
+				}
+			}
+			buffer.append(')');
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Creates the entry of the given ``member`` of the given ``classDoc``.
+	 *
+	 * @param layout Page layout of the class.
+	 * @param classDoc Class the member is documented in.
+	 * @param member Member to create entry for.
+	 * @return Created entry.
+	 */
+	private static Entry memberEntry(final ClassPageLayout layout, final ClassDoc classDoc, final ProgramElementDoc member) {
+		final StringBuffer identity = new StringBuffer()
+			.append(classDoc.qualifiedName())
+			.append('#')
+			.append(member.name());
+		final StringBuffer label = new StringBuffer()
+			.append(classDoc.name())
+			.append('.')
+			.append(member.name());
+		if (member instanceof ExecutableMemberDoc) {
+			final ExecutableMemberDoc executable = (ExecutableMemberDoc) member;
+			identity.append(executable.signature());
+			label.append(executable.flatSignature());
+		}
+		final String signature = memberSignature(member);
+		return new Entry(
+				hash(identity.toString()),
+				hash(signature),
+				classDoc.containingPackage().name(),
+				layout.getPageName(member),
+				MarkletDocumentBuilder.getAnchor(member),
+				label.toString(),
+				signature,
+				null);
+	}
+
+	/**
+	 * Static factory that collects signatures of the
+	 * given ``classes`` and of their members.
+	 *
+	 * @param context Shared generation state, giving class page layouts.
+	 * @param classes Documented classes.
+	 * @return Collected signatures.
+	 */
+	public static ApiSignatures collect(final MarkletContext context, final ClassDoc [] classes) {
+		final List<Entry> entries = new ArrayList<>();
+		for (final ClassDoc classDoc : classes) {
+			final ClassPageLayout layout = context.getLayout(classDoc);
+			final String signature = classSignature(classDoc);
+			entries.add(new Entry(
+					hash(classDoc.qualifiedName()),
+					hash(signature),
+					classDoc.containingPackage().name(),
+					layout.getMainPage(),
+					"",
+					classDoc.name(),
+					signature,
+					null));
+			for (final FieldDoc field : classDoc.fields()) {
+				entries.add(memberEntry(layout, classDoc, field));
+			}
+			for (final FieldDoc constant : classDoc.enumConstants()) {
+				entries.add(memberEntry(layout, classDoc, constant));
+			}
+			for (final ExecutableMemberDoc constructor : classDoc.constructors()) {
+				entries.add(memberEntry(layout, classDoc, constructor));
+			}
+			for (final ExecutableMemberDoc method : classDoc.methods()) {
+				entries.add(memberEntry(layout, classDoc, method));
+			}
+		}
+		entries.sort(KEY_ORDER);
+		return new ApiSignatures(entries);
+	}
+
+	/**
+	 * Writes signatures into the file denoted by the given ``path``.
+	 * Content is written to a temporary file first, which then
+	 * replaces the target file.
+	 *
+	 * @param path Path of the file to write.
+	 * @throws IOException If any error occurs while writing signatures.
+	 */
+	public void write(final Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(entries.size());
+			for (final Entry entry : entries) {
+				output.writeLong(entry.key);
+				output.writeLong(entry.hash);
+				output.writeUTF(entry.packageName);
+				output.writeUTF(entry.className);
+				output.writeUTF(entry.anchor);
+				output.writeUTF(entry.label);
+				output.writeUTF(entry.signature);
+			}
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the next entry from the given ``input``.
+	 *
+	 * @param input Input to read entry from.
+	 * @return Read entry.
+	 * @throws IOException If any error occurs while reading entry.
+	 */
+	private static Entry readEntry(final DataInputStream input) throws IOException {
+		final long key = input.readLong();
+		final long hash = input.readLong();
+		return new Entry(key, hash, input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(), null);
+	}
+
+	/**
+	 * Compares these signatures with the ones from the
+	 * file denoted by the given ``previous`` path. Both
+	 * sorted sequences are merged in a single pass, and
+	 * the previous file is never fully loaded.
+	 *
+	 * @param previous Path of the previous signature file.
+	 * @return Found differences.
+	 * @throws IOException If any error occurs while reading previous signatures.
+	 */
+	public Difference compare(final Path previous) throws IOException {
+		final Difference difference = new Difference();
+		try (final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(previous)))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new IOException("Invalid or outdated signature file " + previous);
+			}
+			final int count = input.readInt();
+			int read = 0;
+			Entry old = count > 0 ? readEntry(input) : null;
+			int i = 0;
+			while (old != null || i < entries.size()) {
+				final Entry current = i < entries.size() ? entries.get(i) : null;
+				final int order = old == null ? 1 : current == null ? -1 : Long.compare(old.key, current.key);
+				if (order < 0) {
+					difference.removed.add(old);
+				}
+				else if (order > 0) {
+					difference.added.add(current);
+				}
+				else if (old.hash != current.hash) {
+					difference.changed.add(current.changedFrom(old));
+				}
+				if (order <= 0) {
+					old = ++read < count ? readEntry(input) : null;
+				}
+				if (order >= 0) {
+					i++;
+				}
+			}
+		}
+		catch (final EOFException e) {
+			throw new IOException("Truncated signature file " + previous, e);
+		}
+		final Comparator<Entry> labelOrder = Comparator
+				.comparing(Entry::getPackageName)
+				.thenComparing(Entry::getLabel);
+		difference.added.sort(labelOrder);
+		difference.removed.sort(labelOrder);
+		difference.changed.sort(labelOrder);
+		return difference;
+	}
+
+}
@@ -0,0 +1,145 @@
+package fr.faylixe.marklet;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of {@link StringBuffer} that document builders render
+ * pages into. Buffers are given back once their page has been
+ * written, so the next page reuses their grown capacity instead
+ * of regrowing a fresh buffer from scratch.
+ *
+ * A single pool is shared by every thread, as a document
+ * rendered on a worker thread could be appended to, and
+ * released by, a document of another thread. Buffers that
+ * grew too large are not pooled, and the number of pooled
+ * buffers is bounded, in order to keep retained memory
+ * bounded. Counters could be updated concurrently.
+ *
+ * @author fv
+ */
+public final class BufferPool {
+
+	/** Capacity of a buffer allocated without any size hint. **/
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/** Maximum number of pooled buffers. **/
+	private static final int MAXIMUM_POOLED = 128;
+
+	/** Maximum capacity of a pooled buffer, larger ones are left to the garbage collector. **/
+	private static final int MAXIMUM_CAPACITY = 1 << 20;
+
+	/** Pooled buffers, most recently released first, guarded by itself. **/
+	private final ArrayDeque<StringBuffer> buffers;
+
+	/** Number of acquired buffers. **/
+	private final LongAdder acquired;
+
+	/** Number of acquired buffers that were taken from the pool without being grown. **/
+	private final LongAdder reused;
+
+	/** Number of released buffers that were not pooled. **/
+	private final LongAdder dropped;
+
+	/**
+	 * Default constructor.
+	 */
+	public BufferPool() {
+		this.buffers = new ArrayDeque<>();
+		this.acquired = new LongAdder();
+		this.reused = new LongAdder();
+		this.dropped = new LongAdder();
+	}
+
+	/**
+	 * Acquires an empty buffer of at least the given ``capacity``.
+	 * A pooled buffer that is already large enough is preferred,
+	 * otherwise the most recently released one is grown once,
+	 * which reallocates it so it does not count as reused.
+	 *
+	 * @param capacity Expected number of characters, ``0`` if unknown.
+	 * @return Acquired buffer.
+	 */
+	public StringBuffer acquire(final int capacity) {
+		acquired.increment();
+		StringBuffer buffer = null;
+		synchronized (buffers) {
+			if (buffers.isEmpty()) {
+				return new StringBuffer(Math.max(capacity, DEFAULT_CAPACITY));
+			}
+			final Iterator<StringBuffer> iterator = buffers.iterator();
+			while (buffer == null && iterator.hasNext()) {
+				final StringBuffer candidate = iterator.next();
+				if (candidate.capacity() >= capacity) {
+					iterator.remove();
+					buffer = candidate;
+				}
+			}
+			if (buffer == null) {
+				buffer = buffers.removeFirst();
+				buffer.ensureCapacity(capacity);
+				return buffer;
+			}
+		}
+		reused.increment();
+		return buffer;
+	}
+
+	/**
+	 * Gives the given ``buffer`` back to the pool, from
+	 * any thread. Buffer should not be used anymore.
+	 *
+	 * @param buffer Buffer to release.
+	 */
+	public void release(final StringBuffer buffer) {
+		if (buffer.capacity() <= MAXIMUM_CAPACITY) {
+			buffer.setLength(0);
+			synchronized (buffers) {
+				if (buffers.size() < MAXIMUM_POOLED) {
+					buffers.addFirst(buffer);
+					return;
+				}
+			}
+		}
+		dropped.increment();
+	}
+
+	/**
+	 * Drops pooled buffers, so their memory could be reclaimed.
+	 */
+	public void trim() {
+		synchronized (buffers) {
+			dropped.add(buffers.size());
+			buffers.clear();
+		}
+	}
+
+	/**
+	 * Acquired buffers getter.
+	 *
+	 * @return Number of acquired buffers.
+	 */
+	public long getAcquired() {
+		return acquired.sum();
+	}
+
+	/**
+	 * Reused buffers getter.
+	 *
+	 * @return Number of acquired buffers that were taken from the pool.
+	 */
+	public long getReused() {
+		return reused.sum();
+	}
+
+	/**
+	 * Dropped buffers getter.
+	 *
+	 * @return Number of released buffers that were not pooled.
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+}
@@ -2,20 +2,28 @@ package fr.faylixe.marklet;
 
 import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.AnnotationTypeElementDoc;
+import com.sun.javadoc.AnnotationValue;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.Doc;
+import com.sun.javadoc.ExecutableMemberDoc;
 import com.sun.javadoc.FieldDoc;
 import com.sun.javadoc.MethodDoc;
 import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.Type;
 
 /**
@@ -32,17 +40,85 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 	/** Separator used in the class hierarchy.**/
 	private static final String HIERARCHY_SEPARATOR = " > ";
 
+	/** Estimated size of an enumeration constant row, constants are not part of the page layout. **/
+	private static final int CONSTANT_ROW_OVERHEAD = 64;
+
+	/** Page sections, in rendering order. **/
+	private static final List<Consumer<ClassPageBuilder>> SECTIONS = Arrays.asList(
+			ClassPageBuilder::header,
+			ClassPageBuilder::enumConstants,
+			ClassPageBuilder::elements,
+			ClassPageBuilder::summary,
+			ClassPageBuilder::constructors,
+			ClassPageBuilder::fields,
+			ClassPageBuilder::methods);
+
+	/** Template operation by placeholder name. **/
+	private static final Map<String, PageTemplate.Operation<ClassPageBuilder>> PLACEHOLDERS = new HashMap<>();
+
+	static {
+		PLACEHOLDERS.put("name", builder -> builder.text(builder.classDoc.name()));
+		PLACEHOLDERS.put("qualifiedName", builder -> builder.text(builder.classDoc.qualifiedName()));
+		PLACEHOLDERS.put("package", builder -> builder.text(builder.classDoc.containingPackage().name()));
+		PLACEHOLDERS.put("kind", builder -> builder.text(getKind(builder.classDoc)));
+		PLACEHOLDERS.put("header", ClassPageBuilder::header);
+		PLACEHOLDERS.put("constants", ClassPageBuilder::enumConstants);
+		PLACEHOLDERS.put("elements", ClassPageBuilder::elements);
+		PLACEHOLDERS.put("summary", builder -> {
+			if (builder.layout != null) {
+				builder.pageIndex(builder.layout);
+			}
+			else {
+				builder.summary();
+			}
+		});
+		PLACEHOLDERS.put("constructors", builder -> {
+			if (builder.layout == null) {
+				builder.constructors();
+			}
+		});
+		PLACEHOLDERS.put("fields", builder -> {
+			if (builder.layout == null) {
+				builder.fields();
+			}
+		});
+		PLACEHOLDERS.put("methods", builder -> {
+			if (builder.layout == null) {
+				builder.methods();
+			}
+		});
+	}
+
 	/** Target class that page is built from. **/
 	private final ClassDoc classDoc;
 
+	/** Name of the page that is built, without extension. **/
+	private final String pageName;
+
+	/** Layout of a class split into sub pages, ``null`` if not split. **/
+	private ClassPageLayout layout;
+
 	/**
 	 * Default constructor. 
 	 * 
+	 * @param context Shared generation state.
+	 * @param classDoc Target class that page is built from.
+	 */
+	private ClassPageBuilder(final MarkletContext context, final ClassDoc classDoc) {
+		this(context, classDoc, classDoc.simpleTypeName());
+	}
+
+	/**
+	 * Constructor for a class sub page.
+	 * 
+	 * @param context Shared generation state.
 	 * @param classDoc Target class that page is built from.
+	 * @param pageName Name of the page that is built, without extension.
 	 */
-	private ClassPageBuilder(final ClassDoc classDoc) {
-		super(classDoc.containingPackage());
+	private ClassPageBuilder(final MarkletContext context, final ClassDoc classDoc, final String pageName) {
+		super(context, classDoc.containingPackage());
 		this.classDoc = classDoc;
+		this.pageName = pageName;
 	}
 	
 	/**
@@ -72,6 +148,18 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 		return classDoc.constructors().length > 0;
 	}
 
+	/** {@inheritDoc} **/
+	@Override
+	protected ClassDoc getDocumentedClass() {
+		return classDoc;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	protected String getPageName() {
+		return pageName;
+	}
+
 	/**
 	 * 
 	 * @param methodDoc
@@ -95,6 +183,7 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 		}
 
 		for (int i = hierarchy.size() - 1; i >= 0; i--) {
+			recordUsage(hierarchy.get(i));
 			classLink(getSource(), hierarchy.get(i));
 			if (i > 0) {
 				text(HIERARCHY_SEPARATOR);
@@ -108,7 +197,7 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 	 * implemented interface.
 	 */
 	private void interfaceHierarchy() {
-		final Set<Type> implementedInterfaces = new HashSet<Type>();
+		final Set<Type> implementedInterfaces = new LinkedHashSet<Type>();
 		ClassDoc current = classDoc;
 		while (current != null) {
 			implementedInterfaces.addAll(Arrays.asList(current.interfaceTypes()));
@@ -138,22 +227,31 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 	private void title() {
 		header(1);
 		final StringBuilder builder = new StringBuilder();
+		builder
+			.append(getKind(classDoc))
+			.append(' ')
+			.append(classDoc.name());
+		text(builder.toString());
+	}
+
+	/**
+	 * Retrieves the type of the given ``classDoc``, either
+	 * interface, enumeration, annotation or class.
+	 * 
+	 * @param classDoc Class to get type label for.
+	 * @return Label of the class type.
+	 */
+	public static String getKind(final ClassDoc classDoc) {
 		if (classDoc.isInterface()) {
-			builder.append(MarkletConstant.INTERFACE);
+			return MarkletConstant.INTERFACE;
 		}
 		else if (classDoc.isEnum()) {
-			builder.append(MarkletConstant.ENUMERATION);
+			return MarkletConstant.ENUMERATION;
 		}
 		else if (classDoc.isAnnotationType()) {
-			builder.append(MarkletConstant.ANNOTATION);
+			return MarkletConstant.ANNOTATION;
 		}
-		else {
-			builder.append(MarkletConstant.CLASS);
-		}
-		builder
-			.append(' ')
-			.append(classDoc.name());
-		text(builder.toString());
+		return MarkletConstant.CLASS;
 	}
 
 	/**
@@ -163,6 +261,7 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 	 * the comment text.
 	 */
 	private void header() {
+		collectTags(classDoc);
 		title();
 		newLine();
 		newLine();
@@ -174,6 +273,13 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 		character(' ');
 		link(packageName, MarkletConstant.README_LINK);
 		newLine();
+		if (getContext().getUsageIndex() != null) {
+			item();
+			text(MarkletConstant.USED_BY);
+			character(' ');
+			link(classDoc.name(), MarkletConstant.USAGE_LINK + '#' + classDoc.name().toLowerCase().replace(".", ""));
+			newLine();
+		}
 		item();
 		classHierarchy();
 		interfaceHierarchy();
@@ -289,6 +395,123 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 		}
 	}
 
+	/**
+	 * Appends to the current document an anchor to the
+	 * given ``element``, for elements listed into a table
+	 * rather than documented under their own header.
+	 * 
+	 * @param element Element to append anchor of.
+	 */
+	private void anchor(final ProgramElementDoc element) {
+		raw("<a name=\"" + getAnchor(element).substring(1) + "\"></a>");
+	}
+
+	/**
+	 * Appends to the current document the constants of
+	 * target enumeration, if any, as a single table in
+	 * declaration order. Constants have no other detail
+	 * than their description, so a table row is enough.
+	 */
+	private void enumConstants() {
+		final FieldDoc [] constants = classDoc.enumConstants();
+		if (constants.length > 0) {
+			newLine();
+			header(2);
+			text(MarkletConstant.ENUM_CONSTANTS);
+			newLine();
+			tableHeader(MarkletConstant.ENUM_CONSTANTS_HEADERS);
+			for (final FieldDoc constant : constants) {
+				collectTags(constant);
+				recordAnnotationUsages(constant);
+				startTableRow();
+				anchor(constant);
+				code(constant.name());
+				cell();
+				summary(constant);
+				endTableRow();
+				newLine();
+			}
+			newLine();
+		}
+	}
+
+	/**
+	 * Appends to the current document the elements of
+	 * target annotation type, if any, as a single table
+	 * in declaration order. Elements without default
+	 * value are required.
+	 */
+	private void elements() {
+		if (!classDoc.isAnnotationType()) {
+			return;
+		}
+		final AnnotationTypeElementDoc [] elements = ((AnnotationTypeDoc) classDoc).elements();
+		if (elements.length > 0) {
+			newLine();
+			header(2);
+			text(MarkletConstant.ELEMENTS);
+			newLine();
+			tableHeader(MarkletConstant.ELEMENTS_HEADERS);
+			for (final AnnotationTypeElementDoc element : elements) {
+				collectTags(element);
+				recordAnnotationUsages(element);
+				startTableRow();
+				typeLink(getSource(), element.returnType());
+				cell();
+				anchor(element);
+				code(element.name());
+				cell();
+				final AnnotationValue value = element.defaultValue();
+				if (value != null) {
+					recordValueUsages(value);
+					code(value.toString());
+				}
+				cell();
+				summary(element);
+				endTableRow();
+				newLine();
+			}
+			newLine();
+		}
+	}
+
+	/**
+	 * Records into the usage index, if enabled, annotation
+	 * types applied to the given ``element``.
+	 * 
+	 * @param element Element to record annotations of.
+	 */
+	private void recordAnnotationUsages(final ProgramElementDoc element) {
+		for (final AnnotationDesc annotation : element.annotations()) {
+			recordUsage(annotation.annotationType());
+		}
+	}
+
+	/**
+	 * Records into the usage index, if enabled, types the
+	 * given annotation ``value`` refers to, such as the enum
+	 * of a constant or a class literal.
+	 * 
+	 * @param value Annotation value to record types of.
+	 */
+	private void recordValueUsages(final AnnotationValue value) {
+		final Object content = value.value();
+		if (content instanceof Type) {
+			recordUsage(((Type) content).asClassDoc());
+		}
+		else if (content instanceof FieldDoc) {
+			recordUsage(((FieldDoc) content).containingClass());
+		}
+		else if (content instanceof AnnotationDesc) {
+			recordUsage(((AnnotationDesc) content).annotationType());
+		}
+		else if (content instanceof AnnotationValue []) {
+			for (final AnnotationValue item : (AnnotationValue []) content) {
+				recordValueUsages(item);
+			}
+		}
+	}
+
 	/**
 	 * Appends to the current document detail
 	 * about target class constructors.
@@ -338,28 +561,157 @@ public final class ClassPageBuilder extends MarkletDocumentBuilder {
 		}
 	}
 
+	/**
+	 * Appends to the current document the index of
+	 * sub pages the class documentation is split into.
+	 * 
+	 * @param layout Page layout of the class.
+	 */
+	private void pageIndex(final ClassPageLayout layout) {
+		newLine();
+		header(2);
+		text(MarkletConstant.SUMMARY);
+		newLine();
+		for (final ClassPageLayout.Page page : layout.getPages()) {
+			item();
+			text(page.getKind());
+			text(" : ");
+			link(page.getRange(), page.getName() + MarkdownDocumentBuilder.LINK_EXTENSION);
+			text(" (" + page.getMembers().size() + ")");
+			newLine();
+		}
+		newLine();
+	}
+
+	/**
+	 * Appends to the current document a class sub page,
+	 * which consists in a summary table and in the detail
+	 * of the given ``page`` members.
+	 * 
+	 * @param page Sub page to append.
+	 */
+	private void page(final ClassPageLayout.Page page) {
+		title();
+		text(" : ");
+		text(page.getKind());
+		newLine();
+		newLine();
+		item();
+		text(MarkletConstant.CLASS);
+		character(' ');
+		link(classDoc.name(), classDoc.simpleTypeName() + MarkdownDocumentBuilder.LINK_EXTENSION);
+		newLine();
+		newLine();
+		header(2);
+		text(MarkletConstant.SUMMARY);
+		newLine();
+		if (MarkletConstant.CONSTRUCTORS.equals(page.getKind())) {
+			tableHeader(MarkletConstant.CONSTRUCTOR_SUMMARY_HEADERS);
+		}
+		else if (MarkletConstant.FIELDS.equals(page.getKind())) {
+			tableHeader(MarkletConstant.FIELDS_SUMMARY_HEADERS);
+		}
+		else {
+			tableHeader(MarkletConstant.METHODS_SUMMARY_HEADERS);
+		}
+		page.getMembers().forEach(this::rowSignature);
+		newLine();
+		header(1);
+		text(page.getKind());
+		newLine();
+		for (final ProgramElementDoc member : page.getMembers()) {
+			if (member instanceof FieldDoc) {
+				field((FieldDoc) member);
+			}
+			else {
+				member((ExecutableMemberDoc) member);
+			}
+		}
+	}
+
+	/**
+	 * Builds the file name of the given page.
+	 * 
+	 * @param pageName Name of the page, without extension.
+	 * @return File name of the page.
+	 */
+	private static String getFileName(final String pageName) {
+		return new StringBuffer()
+			.append(pageName)
+			.append(MarkdownDocumentBuilder.FILE_EXTENSION)
+			.toString();
+	}
+
+	/**
+	 * Loads and compiles the class page template denoted
+	 * by the given ``path``. Available placeholders are
+	 * ``name``, ``qualifiedName``, ``package``, ``kind``,
+	 * ``header``, ``constants``, ``elements``, ``summary``,
+	 * ``constructors``, ``fields`` and ``methods``.
+	 * 
+	 * @param path Path of the template file.
+	 * @return Compiled template.
+	 * @throws IOException If any error occurs while reading the file, or if the template is invalid.
+	 */
+	public static PageTemplate<ClassPageBuilder> loadTemplate(final Path path) throws IOException {
+		return PageTemplate.load(path, PLACEHOLDERS);
+	}
+
 	/**
 	 * Builds and writes the documentation file
 	 * associated to the given ``classDoc`` into
 	 * the directory denoted by the given ``directoryPath``.
+	 * If the class exceeds page budgets, its members
+	 * are documented into sub pages. If a class template
+	 * is given, the class page follows it.
 	 * 
+	 * @param context Shared generation state.
 	 * @param classDoc Class to generated documentation for.
 	 * @param directoryPath Path of the directory to write documentation in.
 	 * @throws IOException If any error occurs while writing documentation.
 	 */
-	public static void build(final ClassDoc classDoc, final Path directoryPath) throws IOException {
-		final Path classPath = Paths.get(
-				new StringBuffer()
-					.append(classDoc.simpleTypeName())
-					.append(MarkdownDocumentBuilder.FILE_EXTENSION)
-					.toString());
-		final ClassPageBuilder builder = new ClassPageBuilder(classDoc);
-		builder.header();
-		builder.summary();
-		builder.constructors();
-		builder.fields();
-		builder.methods();
-		builder.build(directoryPath.resolve(classPath));
+	public static void build(final MarkletContext context, final ClassDoc classDoc, final Path directoryPath) throws IOException {
+		final Path classPath = directoryPath.resolve(getFileName(classDoc.simpleTypeName()));
+		final ClassPageBuilder builder = new ClassPageBuilder(context, classDoc);
+		final ClassPageLayout layout = context.getLayout(classDoc);
+		final PageTemplate<ClassPageBuilder> template = context.getClassTemplate();
+		if (layout.isSplit()) {
+			builder.layout = layout;
+		}
+		try {
+			if (template != null) {
+				template.render(builder);
+			}
+			else if (layout.isSplit()) {
+				builder.header();
+				builder.enumConstants();
+				builder.elements();
+				builder.pageIndex(layout);
+			}
+			else {
+				builder.expect(classPath, layout.getEstimatedSize() + (long) CONSTANT_ROW_OVERHEAD * classDoc.enumConstants().length);
+				SECTIONS.forEach(section -> section.accept(builder));
+			}
+			builder.build(classPath);
+		}
+		finally {
+			// NOTE : Gives pooled buffers back if rendering or writing failed.
+			builder.release();
+		}
+		if (layout.isSplit()) {
+			for (final ClassPageLayout.Page page : layout.getPages()) {
+				final Path pagePath = directoryPath.resolve(getFileName(page.getName()));
+				final ClassPageBuilder pageBuilder = new ClassPageBuilder(context, classDoc, page.getName());
+				try {
+					pageBuilder.expect(pagePath, page.getEstimatedSize());
+					pageBuilder.page(page);
+					pageBuilder.build(pagePath);
+				}
+				finally {
+					pageBuilder.release();
+				}
+			}
+		}
 	}
 
 }
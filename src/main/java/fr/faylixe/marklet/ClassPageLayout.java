@@ -0,0 +1,311 @@
+package fr.faylixe.marklet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.ProgramElementDoc;
+
+/**
+ * Distribution of a class documentation over pages. A class
+ * which exceeds the member or size budget is split into sub
+ * pages, one per member kind, which are themselves split in
+ * alphabetical order when needed. The main page then only
+ * contains the class header and an index of sub pages.
+ *
+ * Layout only depends on the documentation model and on
+ * budgets, so any page could compute where a member is
+ * documented without the class page being rendered first.
+ * Page size is estimated from member comments, as the
+ * rendered size is not known in advance.
+ *
+ * @author fv
+ */
+public final class ClassPageLayout {
+
+	/** Estimated size in bytes of a member section, without its comment. **/
+	private static final int MEMBER_OVERHEAD = 256;
+
+	/** Separator between class name and sub page suffix. **/
+	private static final char PAGE_SEPARATOR = '-';
+
+	/** Members ordering, by name. **/
+	private static final Comparator<ProgramElementDoc> NAME_ORDER = Comparator.comparing(ProgramElementDoc::name);
+
+	/**
+	 * Sub page that documents a range of members of the same kind.
+	 */
+	public static final class Page {
+
+		/** Name of the page, without extension. **/
+		private final String name;
+
+		/** Label of the member kind. **/
+		private final String kind;
+
+		/** Documented members, ordered by name. **/
+		private final List<ProgramElementDoc> members;
+
+		/** Estimated size of the page. **/
+		private final long size;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param name Name of the page, without extension.
+		 * @param kind Label of the member kind.
+		 * @param members Documented members, ordered by name.
+		 * @param size Estimated size of the page.
+		 */
+		private Page(final String name, final String kind, final List<ProgramElementDoc> members, final long size) {
+			this.name = name;
+			this.kind = kind;
+			this.members = members;
+			this.size = size;
+		}
+
+		/**
+		 * Name getter.
+		 *
+		 * @return Name of the page, without extension.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Kind getter.
+		 *
+		 * @return Label of the member kind.
+		 */
+		public String getKind() {
+			return kind;
+		}
+
+		/**
+		 * Members getter.
+		 *
+		 * @return Documented members, ordered by name.
+		 */
+		public List<ProgramElementDoc> getMembers() {
+			return members;
+		}
+
+		/**
+		 * Size getter.
+		 *
+		 * @return Estimated size of the page.
+		 */
+		public long getEstimatedSize() {
+			return size;
+		}
+
+		/**
+		 * Builds a label for the range of documented members.
+		 *
+		 * @return First and last member names.
+		 */
+		public String getRange() {
+			final String first = members.get(0).name();
+			final String last = members.get(members.size() - 1).name();
+			return first.equals(last) ? first : first + " - " + last;
+		}
+
+	}
+
+	/** Name of the main page, without extension. **/
+	private final String mainPage;
+
+	/** Sub pages, empty if the class is documented in a single page. **/
+	private final List<Page> pages;
+
+	/** Sub page name by member. **/
+	private final Map<ProgramElementDoc, String> memberPages;
+
+	/** Estimated size of the class documented in a single page. **/
+	private final long size;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param mainPage Name of the main page, without extension.
+	 * @param pages Sub pages, empty if the class is documented in a single page.
+	 * @param size Estimated size of the class documented in a single page.
+	 */
+	private ClassPageLayout(final String mainPage, final List<Page> pages, final long size) {
+		this.mainPage = mainPage;
+		this.pages = pages;
+		this.size = size;
+		this.memberPages = new HashMap<>();
+		for (final Page page : pages) {
+			for (final ProgramElementDoc member : page.members) {
+				memberPages.put(member, page.name);
+			}
+		}
+	}
+
+	/**
+	 * Indicates if the class is split over several pages.
+	 *
+	 * @return ``true`` if sub pages are used, ``false`` otherwise.
+	 */
+	public boolean isSplit() {
+		return !pages.isEmpty();
+	}
+
+	/**
+	 * Sub pages getter.
+	 *
+	 * @return Sub pages, empty if the class is documented in a single page.
+	 */
+	public List<Page> getPages() {
+		return Collections.unmodifiableList(pages);
+	}
+
+	/**
+	 * Size getter.
+	 *
+	 * @return Estimated size of the class documented in a single page.
+	 */
+	public long getEstimatedSize() {
+		return size;
+	}
+
+	/**
+	 * Main page name getter.
+	 *
+	 * @return Name of the main page, without extension.
+	 */
+	public String getMainPage() {
+		return mainPage;
+	}
+
+	/**
+	 * Retrieves the name of the main page the page with the
+	 * given ``name`` belongs to, without computing any layout.
+	 *
+	 * @param name Name of a main page or of a sub page, without extension.
+	 * @return Name of the main page, without extension.
+	 */
+	public static String getMainPage(final String name) {
+		final int index = name.indexOf(PAGE_SEPARATOR);
+		return index < 0 ? name : name.substring(0, index);
+	}
+
+	/**
+	 * Retrieves the name of the page the given ``member`` is documented in.
+	 *
+	 * @param member Member to get page for.
+	 * @return Name of the page, without extension.
+	 */
+	public String getPageName(final ProgramElementDoc member) {
+		return memberPages.getOrDefault(member, mainPage);
+	}
+
+	/**
+	 * Estimates the size in bytes of the given ``member`` section.
+	 *
+	 * @param member Member to estimate section size for.
+	 * @return Estimated size.
+	 */
+	private static long estimate(final ProgramElementDoc member) {
+		return MEMBER_OVERHEAD + member.commentText().length();
+	}
+
+	/**
+	 * Splits the given ``members`` of the same kind into pages,
+	 * so that each page fits into the given budgets.
+	 *
+	 * @param pages Page list to add created pages to.
+	 * @param mainPage Name of the main page.
+	 * @param kind Label of the member kind.
+	 * @param members Members to split, ordered by name.
+	 * @param memberBudget Maximum number of members per page, ``0`` if unbounded.
+	 * @param byteBudget Maximum estimated size in bytes per page, ``0`` if unbounded.
+	 */
+	private static void split(
+			final List<Page> pages,
+			final String mainPage,
+			final String kind,
+			final List<ProgramElementDoc> members,
+			final int memberBudget,
+			final long byteBudget) {
+		final String prefix = mainPage + PAGE_SEPARATOR + kind.toLowerCase();
+		List<ProgramElementDoc> current = new ArrayList<>();
+		long size = 0;
+		int index = 1;
+		for (final ProgramElementDoc member : members) {
+			final long memberSize = estimate(member);
+			final boolean full = (memberBudget > 0 && current.size() >= memberBudget)
+					|| (byteBudget > 0 && size + memberSize > byteBudget);
+			if (full && !current.isEmpty()) {
+				pages.add(new Page(index == 1 ? prefix : prefix + PAGE_SEPARATOR + index, kind, current, size));
+				current = new ArrayList<>();
+				size = 0;
+				index++;
+			}
+			current.add(member);
+			size += memberSize;
+		}
+		if (!current.isEmpty()) {
+			pages.add(new Page(index == 1 ? prefix : prefix + PAGE_SEPARATOR + index, kind, current, size));
+		}
+	}
+
+	/**
+	 * Sorts the given ``members`` by name.
+	 *
+	 * @param members Members to sort.
+	 * @return Sorted members.
+	 */
+	private static List<ProgramElementDoc> sorted(final ProgramElementDoc [] members) {
+		return Arrays
+				.stream(members)
+				.sorted(NAME_ORDER)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Static factory that computes the layout of the given ``classDoc``.
+	 * Methods that override another one are not documented, so they
+	 * are not taken into account.
+	 *
+	 * @param classDoc Class to compute layout for.
+	 * @param memberBudget Maximum number of members per page, ``0`` if unbounded.
+	 * @param byteBudget Maximum estimated size in bytes per page, ``0`` if unbounded.
+	 * @return Computed layout.
+	 */
+	public static ClassPageLayout of(final ClassDoc classDoc, final int memberBudget, final long byteBudget) {
+		final String mainPage = classDoc.simpleTypeName();
+		final List<ProgramElementDoc> constructors = sorted(classDoc.constructors());
+		final List<ProgramElementDoc> fields = sorted(classDoc.fields());
+		final List<ProgramElementDoc> methods = Arrays
+				.stream(classDoc.methods())
+				.filter(method -> method.overriddenMethod() == null)
+				.sorted(NAME_ORDER)
+				.collect(Collectors.toList());
+		final int count = constructors.size() + fields.size() + methods.size();
+		long size = classDoc.commentText().length();
+		for (final List<ProgramElementDoc> members : Arrays.asList(constructors, fields, methods)) {
+			for (final ProgramElementDoc member : members) {
+				size += estimate(member);
+			}
+		}
+		final boolean overMembers = memberBudget > 0 && count > memberBudget;
+		final boolean overSize = byteBudget > 0 && size > byteBudget;
+		final List<Page> pages = new ArrayList<>();
+		if (overMembers || overSize) {
+			split(pages, mainPage, MarkletConstant.CONSTRUCTORS, constructors, memberBudget, byteBudget);
+			split(pages, mainPage, MarkletConstant.FIELDS, fields, memberBudget, byteBudget);
+			split(pages, mainPage, MarkletConstant.METHODS, methods, memberBudget, byteBudget);
+		}
+		return new ClassPageLayout(mainPage, pages, size);
+	}
+
+}
@@ -0,0 +1,60 @@
+package fr.faylixe.marklet;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sink that discards pages, only counting them and
+ * their encoded size. Used for measuring rendering
+ * cost without any disk access. Counters could be
+ * updated concurrently.
+ *
+ * @author fv
+ */
+public final class CountingPageSink implements PageSink {
+
+	/** Number of written pages. **/
+	private final LongAdder pages;
+
+	/** Encoded size of written pages, in bytes. **/
+	private final LongAdder bytes;
+
+	/**
+	 * Default constructor.
+	 */
+	public CountingPageSink() {
+		this.pages = new LongAdder();
+		this.bytes = new LongAdder();
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void write(final Path path, final ByteBuffer [] buffers) {
+		long size = 0;
+		for (final ByteBuffer buffer : buffers) {
+			size += buffer.remaining();
+		}
+		pages.increment();
+		bytes.add(size);
+	}
+
+	/**
+	 * Pages getter.
+	 *
+	 * @return Number of written pages.
+	 */
+	public long getPages() {
+		return pages.sum();
+	}
+
+	/**
+	 * Bytes getter.
+	 *
+	 * @return Encoded size of written pages, in bytes.
+	 */
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+}
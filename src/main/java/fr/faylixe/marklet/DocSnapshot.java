@@ -0,0 +1,973 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Tag;
+
+/**
+ * Snapshot of the documentation model, as read by page builders.
+ *
+ * When recording, each doclet API object is wrapped into a proxy
+ * that records every value it returns. Once generation is done, the
+ * recorded graph is written into a compact binary file. Such file
+ * could then be read back into proxies that answer from recorded
+ * values, allowing to render pages again without running javadoc.
+ *
+ * Before being written, every accessor without argument of recorded
+ * objects is exported as well, along with tags by name, so pages could
+ * be rendered again with options that read more of the model than the
+ * recording execution did. Elements that are not documented, and plain
+ * text tags, only export accessors which do not return arrays, in order
+ * to keep the snapshot bounded to the documented API. A builder that reads anything else from
+ * a snapshot will fail with an {@link UnsupportedOperationException}.
+ *
+ * @author fv
+ */
+public final class DocSnapshot {
+
+	/** Magic number of snapshot file (``MKSN``). **/
+	private static final int MAGIC = 0x4D4B534E;
+
+	/** Snapshot file format version. **/
+	private static final int VERSION = 2;
+
+	/** Name of the return tag, the only tag read by name. **/
+	private static final String RETURN_TAG = "return";
+
+	/** Maximum number of accessors followed from an element to objects that are not elements. **/
+	private static final int MAXIMUM_DEPTH = 4;
+
+	/** Kind of plain text tags. **/
+	private static final String TEXT_KIND = "Text";
+
+	/** Package prefix of doclet API interfaces. **/
+	private static final String DOCLET_PACKAGE = "com.sun.javadoc.";
+
+	/** Value tag for ``null``. **/
+	private static final int NULL_TAG = 0;
+
+	/** Value tag for string. **/
+	private static final int STRING_TAG = 1;
+
+	/** Value tag for integer. **/
+	private static final int INTEGER_TAG = 2;
+
+	/** Value tag for long. **/
+	private static final int LONG_TAG = 3;
+
+	/** Value tag for boolean. **/
+	private static final int BOOLEAN_TAG = 4;
+
+	/** Value tag for character. **/
+	private static final int CHARACTER_TAG = 5;
+
+	/** Value tag for double. **/
+	private static final int DOUBLE_TAG = 6;
+
+	/** Value tag for float. **/
+	private static final int FLOAT_TAG = 7;
+
+	/** Value tag for short. **/
+	private static final int SHORT_TAG = 8;
+
+	/** Value tag for byte. **/
+	private static final int BYTE_TAG = 9;
+
+	/** Value tag for doclet API object. **/
+	private static final int NODE_TAG = 10;
+
+	/** Value tag for array. **/
+	private static final int ARRAY_TAG = 11;
+
+	/** Value tag for file. **/
+	private static final int FILE_TAG = 12;
+
+	/** Value tag for enumeration constant. **/
+	private static final int ENUM_TAG = 13;
+
+	/** Value tag for value that could not be recorded. **/
+	private static final int UNSUPPORTED_TAG = 14;
+
+	/** Recorded value for ``null``. **/
+	private static final Object NULL = new Object();
+
+	/** Recorded value for value that could not be recorded. **/
+	private static final Object UNSUPPORTED = new Object();
+
+	/** Primitive types by name. **/
+	private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+	static {
+		for (final Class<?> type : new Class<?>[] {
+				boolean.class, byte.class, char.class, short.class,
+				int.class, long.class, float.class, double.class }) {
+			PRIMITIVES.put(type.getName(), type);
+		}
+	}
+
+	/**
+	 * Recorded reference to a doclet API object.
+	 */
+	private static final class NodeReference {
+
+		/** Referenced node. **/
+		private final Node node;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param node Referenced node.
+		 */
+		private NodeReference(final Node node) {
+			this.node = node;
+		}
+
+	}
+
+	/**
+	 * Recorded array value.
+	 */
+	private static final class ArrayValue {
+
+		/** Name of the array component type. **/
+		private final String componentType;
+
+		/** Recorded elements. **/
+		private final Object [] elements;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param componentType Name of the array component type.
+		 * @param elements Recorded elements.
+		 */
+		private ArrayValue(final String componentType, final Object [] elements) {
+			this.componentType = componentType;
+			this.elements = elements;
+		}
+
+	}
+
+	/**
+	 * Recorded doclet API object.
+	 */
+	private static final class Node {
+
+		/** Identifier of this node. **/
+		private final int id;
+
+		/** Doclet API interfaces implemented by this object. **/
+		private final Class<?> [] interfaces;
+
+		/** Recorded values by invocation key. **/
+		private final Map<String, Object> values;
+
+		/** Proxy that stands for this object. **/
+		private Object proxy;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param id Identifier of this node.
+		 * @param interfaces Doclet API interfaces implemented by this object.
+		 */
+		private Node(final int id, final Class<?> [] interfaces) {
+			this.id = id;
+			this.interfaces = interfaces;
+			this.values = new ConcurrentHashMap<>();
+		}
+
+	}
+
+	/**
+	 * Handler for proxies that record values returned by a doclet API object.
+	 */
+	private final class RecordingHandler implements InvocationHandler {
+
+		/** Recorded node. **/
+		private final Node node;
+
+		/** Doclet API object to record values from. **/
+		private final Object target;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param node Recorded node.
+		 * @param target Doclet API object to record values from.
+		 */
+		private RecordingHandler(final Node node, final Object target) {
+			this.node = node;
+			this.target = target;
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object [] args) throws Throwable {
+			if (isIdentityMethod(method)) {
+				return identity(proxy, method, args);
+			}
+			final String key = key(method, args);
+			final Object recorded = node.values.get(key);
+			if (recorded != null) {
+				// NOTE : Ensures doclet API objects that are created on demand
+				//        keep the identity of the recorded ones.
+				return decode(recorded, method.getReturnType());
+			}
+			final Object result;
+			try {
+				result = method.invoke(target, unwrap(args));
+			}
+			catch (final InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (method.getReturnType() == void.class) {
+				return null;
+			}
+			final Object wrapped = wrap(result, method.getReturnType());
+			node.values.putIfAbsent(key, encode(wrapped));
+			return wrapped;
+		}
+
+	}
+
+	/**
+	 * Handler for proxies that answer from recorded values.
+	 */
+	private final class ReplayHandler implements InvocationHandler {
+
+		/** Replayed node. **/
+		private final Node node;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param node Replayed node.
+		 */
+		private ReplayHandler(final Node node) {
+			this.node = node;
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object [] args) throws Throwable {
+			if (isIdentityMethod(method)) {
+				return identity(proxy, method, args);
+			}
+			if (method.getReturnType() == void.class) {
+				report(method, args);
+				return null;
+			}
+			final String key = key(method, args);
+			final Object value = node.values.get(key);
+			if (value == null) {
+				if ("toString()".equals(key)) {
+					return "#" + node.id;
+				}
+				throw new UnsupportedOperationException("Snapshot has no recorded value for " + key);
+			}
+			return decode(value, method.getReturnType());
+		}
+
+	}
+
+	/** Recorded nodes, indexed by identifier. **/
+	private final List<Node> nodes;
+
+	/** Proxy of recorded doclet API objects. **/
+	private final Map<Object, Object> proxies;
+
+	/** Doclet API interfaces by implementation class. **/
+	private final Map<Class<?>, Class<?> []> interfaces;
+
+	/**
+	 * Default constructor.
+	 */
+	private DocSnapshot() {
+		this.nodes = new ArrayList<>();
+		this.proxies = new IdentityHashMap<>();
+		this.interfaces = new HashMap<>();
+	}
+
+	/**
+	 * Root getter.
+	 *
+	 * @return Proxy of the documentation root.
+	 */
+	public RootDoc getRoot() {
+		return (RootDoc) nodes.get(0).proxy;
+	}
+
+	/**
+	 * Indicates if the given ``method`` relies on object identity.
+	 *
+	 * @param method Method to check.
+	 * @return ``true`` if the method is ``equals`` or ``hashCode``, ``false`` otherwise.
+	 */
+	private static boolean isIdentityMethod(final Method method) {
+		final String name = method.getName();
+		return (name.equals("equals") && method.getParameterCount() == 1)
+				|| (name.equals("hashCode") && method.getParameterCount() == 0);
+	}
+
+	/**
+	 * Proxies share object identity, as there is a single proxy per object.
+	 *
+	 * @param proxy Proxy the method is invoked on.
+	 * @param method Identity method invoked.
+	 * @param args Invocation arguments.
+	 * @return Identity method result.
+	 */
+	private static Object identity(final Object proxy, final Method method, final Object [] args) {
+		if (method.getName().equals("equals")) {
+			return proxy == args[0];
+		}
+		return System.identityHashCode(proxy);
+	}
+
+	/**
+	 * Reports a message from a void doclet API method, such as
+	 * {@link RootDoc#printNotice(String)}, on the standard streams.
+	 *
+	 * @param method Method invoked.
+	 * @param args Invocation arguments.
+	 */
+	private static void report(final Method method, final Object [] args) {
+		if (args != null && args.length > 0 && args[args.length - 1] instanceof String) {
+			final String message = (String) args[args.length - 1];
+			if (method.getName().equals("printNotice")) {
+				System.out.println(message);
+			}
+			else {
+				System.err.println(message);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the node the given object stands for if it is a proxy.
+	 *
+	 * @param object Object to get node from.
+	 * @return Node if the given object is a proxy, ``null`` otherwise.
+	 */
+	private static Node nodeOf(final Object object) {
+		if (object != null && Proxy.isProxyClass(object.getClass())) {
+			final InvocationHandler handler = Proxy.getInvocationHandler(object);
+			if (handler instanceof RecordingHandler) {
+				return ((RecordingHandler) handler).node;
+			}
+			if (handler instanceof ReplayHandler) {
+				return ((ReplayHandler) handler).node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the recording key of an invocation.
+	 *
+	 * @param method Method invoked.
+	 * @param args Invocation arguments.
+	 * @return Built key.
+	 */
+	private static String key(final Method method, final Object [] args) {
+		final StringBuilder builder = new StringBuilder(method.getName()).append('(');
+		if (args != null) {
+			for (int i = 0; i < args.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				final Node node = nodeOf(args[i]);
+				if (node != null) {
+					builder.append('#').append(node.id);
+				}
+				else {
+					builder.append(args[i]);
+				}
+			}
+		}
+		return builder.append(')').toString();
+	}
+
+	/**
+	 * Replaces recording proxies from the given ``args`` by
+	 * the doclet API object they stand for.
+	 *
+	 * @param args Invocation arguments.
+	 * @return Unwrapped arguments.
+	 */
+	private Object [] unwrap(final Object [] args) {
+		if (args == null) {
+			return null;
+		}
+		final Object [] unwrapped = new Object[args.length];
+		for (int i = 0; i < args.length; i++) {
+			final Object arg = args[i];
+			unwrapped[i] = nodeOf(arg) != null
+					? ((RecordingHandler) Proxy.getInvocationHandler(arg)).target
+					: arg;
+		}
+		return unwrapped;
+	}
+
+	/**
+	 * Retrieves doclet API interfaces implemented by the given ``type``.
+	 *
+	 * @param type Implementation class to get interfaces from.
+	 * @return Implemented doclet API interfaces.
+	 */
+	private Class<?> [] docletInterfaces(final Class<?> type) {
+		synchronized (interfaces) {
+			return interfaces.computeIfAbsent(type, key -> {
+				final Set<Class<?>> implemented = new LinkedHashSet<>();
+				for (Class<?> current = key; current != null; current = current.getSuperclass()) {
+					for (final Class<?> candidate : current.getInterfaces()) {
+						if (candidate.getName().startsWith(DOCLET_PACKAGE)) {
+							implemented.add(candidate);
+						}
+					}
+				}
+				return implemented.toArray(new Class<?>[implemented.size()]);
+			});
+		}
+	}
+
+	/**
+	 * Wraps the given ``value`` returned by a doclet API object,
+	 * so that any doclet API object it contains is recorded too.
+	 *
+	 * @param value Returned value to wrap.
+	 * @param type Declared type of the returned value.
+	 * @return Wrapped value.
+	 */
+	private Object wrap(final Object value, final Class<?> type) {
+		if (value == null) {
+			return null;
+		}
+		final Class<?> valueType = value.getClass();
+		if (valueType.isArray()) {
+			if (valueType.getComponentType().isPrimitive()) {
+				return value;
+			}
+			Class<?> component = type.isArray() ? type.getComponentType() : valueType.getComponentType();
+			if (!component.isInterface() && !component.isArray() && component != String.class) {
+				component = Object.class;
+			}
+			final int length = Array.getLength(value);
+			final Object array = Array.newInstance(component, length);
+			for (int i = 0; i < length; i++) {
+				Array.set(array, i, wrap(Array.get(value, i), component));
+			}
+			return array;
+		}
+		final Class<?> [] implemented = docletInterfaces(valueType);
+		if (implemented.length == 0) {
+			return value;
+		}
+		synchronized (proxies) {
+			Object proxy = proxies.get(value);
+			if (proxy == null) {
+				final Node node = new Node(nodes.size(), implemented);
+				final RecordingHandler handler = new RecordingHandler(node, value);
+				proxy = Proxy.newProxyInstance(DocSnapshot.class.getClassLoader(), implemented, handler);
+				node.proxy = proxy;
+				nodes.add(node);
+				proxies.put(value, proxy);
+			}
+			return proxy;
+		}
+	}
+
+	/**
+	 * Encodes the given wrapped ``value`` as a recorded value.
+	 *
+	 * @param value Wrapped value to encode.
+	 * @return Recorded value.
+	 */
+	private Object encode(final Object value) {
+		if (value == null) {
+			return NULL;
+		}
+		final Node node = nodeOf(value);
+		if (node != null) {
+			return new NodeReference(node);
+		}
+		final Class<?> type = value.getClass();
+		if (type.isArray()) {
+			final Object [] elements = new Object[Array.getLength(value)];
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = encode(Array.get(value, i));
+			}
+			return new ArrayValue(type.getComponentType().getName(), elements);
+		}
+		if (value instanceof String || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof File || value instanceof Enum) {
+			return value;
+		}
+		return UNSUPPORTED;
+	}
+
+	/**
+	 * Decodes the given recorded ``value``.
+	 *
+	 * @param value Recorded value to decode.
+	 * @param type Declared type of the value.
+	 * @return Decoded value.
+	 * @throws ClassNotFoundException If an array component type could not be found.
+	 */
+	private Object decode(final Object value, final Class<?> type) throws ClassNotFoundException {
+		if (value == NULL) {
+			return null;
+		}
+		if (value == UNSUPPORTED) {
+			throw new UnsupportedOperationException("Snapshot could not record value of type " + type.getName());
+		}
+		if (value instanceof NodeReference) {
+			return ((NodeReference) value).node.proxy;
+		}
+		if (value instanceof ArrayValue) {
+			final ArrayValue arrayValue = (ArrayValue) value;
+			final Class<?> component = loadClass(arrayValue.componentType);
+			final Object array = Array.newInstance(component, arrayValue.elements.length);
+			for (int i = 0; i < arrayValue.elements.length; i++) {
+				Array.set(array, i, decode(arrayValue.elements[i], component));
+			}
+			return array;
+		}
+		return value;
+	}
+
+	/**
+	 * Loads the class denoted by the given ``name``, which could be a primitive one.
+	 *
+	 * @param name Name of the class to load.
+	 * @return Loaded class.
+	 * @throws ClassNotFoundException If no such class could be found.
+	 */
+	private static Class<?> loadClass(final String name) throws ClassNotFoundException {
+		final Class<?> primitive = PRIMITIVES.get(name);
+		if (primitive != null) {
+			return primitive;
+		}
+		return Class.forName(name, false, DocSnapshot.class.getClassLoader());
+	}
+
+	/**
+	 * Retrieves accessors of the given ``node`` that are exported :
+	 * public methods without argument which return a value, and are
+	 * not deprecated.
+	 *
+	 * @param node Node to get accessors of.
+	 * @param expanded ``true`` if accessors that return arrays are exported too.
+	 * @return Exported accessors.
+	 */
+	private static List<Method> accessors(final Node node, final boolean expanded) {
+		final Map<String, Method> accessors = new HashMap<>();
+		for (final Class<?> type : node.interfaces) {
+			for (final Method method : type.getMethods()) {
+				final Class<?> returnType = method.getReturnType();
+				if (method.getParameterCount() == 0
+						&& returnType != void.class
+						&& (expanded || !returnType.isArray())
+						&& !method.isAnnotationPresent(Deprecated.class)) {
+					accessors.putIfAbsent(method.getName(), method);
+				}
+			}
+		}
+		return new ArrayList<>(accessors.values());
+	}
+
+	/**
+	 * Indicates if accessors of the given ``proxy`` that return arrays
+	 * are exported. Undocumented elements would lead to the whole class
+	 * path, and text tags create new inline tags on each call.
+	 *
+	 * @param proxy Recording proxy to check.
+	 * @return ``true`` if arrays are exported, ``false`` otherwise.
+	 */
+	private static boolean isExpanded(final Object proxy) {
+		if (proxy instanceof Doc) {
+			return ((Doc) proxy).isIncluded();
+		}
+		if (proxy instanceof Tag) {
+			return !TEXT_KIND.equals(((Tag) proxy).kind());
+		}
+		return true;
+	}
+
+	/**
+	 * Records every accessor of recorded objects, including objects
+	 * that are reached by doing so. Elements are unique, but types and
+	 * tags are created on each call, so recursive ones such as bounds
+	 * of ``E extends Enum<E>`` are only followed up to a given depth
+	 * from the closest element. Accessors that fail are left unrecorded,
+	 * as they would have failed while rendering too.
+	 */
+	private void export() {
+		final List<Integer> depths = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++) {
+			depths.add(0);
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			final Object proxy = nodes.get(i).proxy;
+			final int depth = depths.get(i);
+			if (depth > MAXIMUM_DEPTH) {
+				continue;
+			}
+			final boolean expanded = isExpanded(proxy);
+			for (final Method method : accessors(nodes.get(i), expanded)) {
+				try {
+					method.invoke(proxy);
+				}
+				catch (final InvocationTargetException | IllegalAccessException | RuntimeException e) {
+					// NOTE : Value stays unavailable from the snapshot.
+				}
+			}
+			proxy.toString();
+			if (proxy instanceof Doc && expanded) {
+				final Doc doc = (Doc) proxy;
+				final Set<String> names = new LinkedHashSet<>();
+				names.add(RETURN_TAG);
+				for (final Tag tag : doc.tags()) {
+					names.add(tag.name().startsWith("@") ? tag.name().substring(1) : tag.name());
+				}
+				for (final String name : names) {
+					doc.tags(name);
+				}
+			}
+			for (int j = depths.size(); j < nodes.size(); j++) {
+				depths.add(nodes.get(j).proxy instanceof Doc ? 0 : depth + 1);
+			}
+		}
+	}
+
+	/**
+	 * Writes this snapshot into the file denoted by the given ``path``,
+	 * once every accessor of recorded objects has been exported.
+	 *
+	 * @param path Path of the snapshot file to write.
+	 * @throws IOException If any error occurs while writing snapshot.
+	 */
+	public void write(final Path path) throws IOException {
+		export();
+		try (final DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))))) {
+			final Map<String, Integer> strings = new HashMap<>();
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			synchronized (proxies) {
+				writeVarInt(output, nodes.size());
+				for (final Node node : nodes) {
+					writeVarInt(output, node.interfaces.length);
+					for (final Class<?> type : node.interfaces) {
+						writeString(output, strings, type.getName());
+					}
+				}
+				for (final Node node : nodes) {
+					writeVarInt(output, node.values.size());
+					for (final Map.Entry<String, Object> entry : node.values.entrySet()) {
+						writeString(output, strings, entry.getKey());
+						writeValue(output, strings, entry.getValue());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the given recorded ``value``.
+	 *
+	 * @param output Output to write value into.
+	 * @param strings Identifier of strings that have been written already.
+	 * @param value Recorded value to write.
+	 * @throws IOException If any error occurs while writing value.
+	 */
+	private static void writeValue(final DataOutputStream output, final Map<String, Integer> strings, final Object value) throws IOException {
+		if (value == NULL) {
+			output.writeByte(NULL_TAG);
+		}
+		else if (value instanceof String) {
+			output.writeByte(STRING_TAG);
+			writeString(output, strings, (String) value);
+		}
+		else if (value instanceof Integer) {
+			output.writeByte(INTEGER_TAG);
+			output.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			output.writeByte(LONG_TAG);
+			output.writeLong((Long) value);
+		}
+		else if (value instanceof Boolean) {
+			output.writeByte(BOOLEAN_TAG);
+			output.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Character) {
+			output.writeByte(CHARACTER_TAG);
+			output.writeChar((Character) value);
+		}
+		else if (value instanceof Double) {
+			output.writeByte(DOUBLE_TAG);
+			output.writeDouble((Double) value);
+		}
+		else if (value instanceof Float) {
+			output.writeByte(FLOAT_TAG);
+			output.writeFloat((Float) value);
+		}
+		else if (value instanceof Short) {
+			output.writeByte(SHORT_TAG);
+			output.writeShort((Short) value);
+		}
+		else if (value instanceof Byte) {
+			output.writeByte(BYTE_TAG);
+			output.writeByte((Byte) value);
+		}
+		else if (value instanceof NodeReference) {
+			output.writeByte(NODE_TAG);
+			writeVarInt(output, ((NodeReference) value).node.id);
+		}
+		else if (value instanceof ArrayValue) {
+			final ArrayValue array = (ArrayValue) value;
+			output.writeByte(ARRAY_TAG);
+			writeString(output, strings, array.componentType);
+			writeVarInt(output, array.elements.length);
+			for (final Object element : array.elements) {
+				writeValue(output, strings, element);
+			}
+		}
+		else if (value instanceof File) {
+			output.writeByte(FILE_TAG);
+			writeString(output, strings, ((File) value).getPath());
+		}
+		else if (value instanceof Enum) {
+			final Enum<?> constant = (Enum<?>) value;
+			output.writeByte(ENUM_TAG);
+			writeString(output, strings, constant.getDeclaringClass().getName());
+			writeString(output, strings, constant.name());
+		}
+		else {
+			output.writeByte(UNSUPPORTED_TAG);
+		}
+	}
+
+	/**
+	 * Reads a recorded value.
+	 *
+	 * @param input Input to read value from.
+	 * @param strings Strings that have been read already.
+	 * @param nodes Nodes of the snapshot being read.
+	 * @return Read value.
+	 * @throws IOException If any error occurs while reading value.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object readValue(final DataInputStream input, final List<String> strings, final List<Node> nodes) throws IOException {
+		final int tag = input.readByte();
+		switch (tag) {
+			case NULL_TAG:
+				return NULL;
+			case STRING_TAG:
+				return readString(input, strings);
+			case INTEGER_TAG:
+				return input.readInt();
+			case LONG_TAG:
+				return input.readLong();
+			case BOOLEAN_TAG:
+				return input.readBoolean();
+			case CHARACTER_TAG:
+				return input.readChar();
+			case DOUBLE_TAG:
+				return input.readDouble();
+			case FLOAT_TAG:
+				return input.readFloat();
+			case SHORT_TAG:
+				return input.readShort();
+			case BYTE_TAG:
+				return input.readByte();
+			case NODE_TAG:
+				return new NodeReference(nodes.get(readVarInt(input)));
+			case ARRAY_TAG:
+				final String componentType = readString(input, strings);
+				final Object [] elements = new Object[readVarInt(input)];
+				for (int i = 0; i < elements.length; i++) {
+					elements[i] = readValue(input, strings, nodes);
+				}
+				return new ArrayValue(componentType, elements);
+			case FILE_TAG:
+				return new File(readString(input, strings));
+			case ENUM_TAG:
+				final String type = readString(input, strings);
+				final String name = readString(input, strings);
+				try {
+					return Enum.valueOf((Class<? extends Enum>) loadClass(type), name);
+				}
+				catch (final ClassNotFoundException e) {
+					throw new IOException(e);
+				}
+			case UNSUPPORTED_TAG:
+				return UNSUPPORTED;
+			default:
+				throw new IOException("Invalid snapshot value tag " + tag);
+		}
+	}
+
+	/**
+	 * Writes the given ``text``, as a reference if it has been written already.
+	 *
+	 * @param output Output to write string into.
+	 * @param strings Identifier of strings that have been written already.
+	 * @param text String to write.
+	 * @throws IOException If any error occurs while writing string.
+	 */
+	private static void writeString(final DataOutputStream output, final Map<String, Integer> strings, final String text) throws IOException {
+		final Integer id = strings.get(text);
+		if (id != null) {
+			writeVarInt(output, id + 1);
+		}
+		else {
+			strings.put(text, strings.size());
+			final byte [] bytes = text.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(output, 0);
+			writeVarInt(output, bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	/**
+	 * Reads a string written by {@link #writeString(DataOutputStream, Map, String)}.
+	 *
+	 * @param input Input to read string from.
+	 * @param strings Strings that have been read already.
+	 * @return Read string.
+	 * @throws IOException If any error occurs while reading string.
+	 */
+	private static String readString(final DataInputStream input, final List<String> strings) throws IOException {
+		final int id = readVarInt(input);
+		if (id > 0) {
+			return strings.get(id - 1);
+		}
+		final byte [] bytes = new byte[readVarInt(input)];
+		input.readFully(bytes);
+		final String text = new String(bytes, StandardCharsets.UTF_8);
+		strings.add(text);
+		return text;
+	}
+
+	/**
+	 * Writes the given positive ``value`` using a variable length encoding.
+	 *
+	 * @param output Output to write value into.
+	 * @param value Value to write.
+	 * @throws IOException If any error occurs while writing value.
+	 */
+	private static void writeVarInt(final DataOutputStream output, final int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			output.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		output.writeByte(remaining);
+	}
+
+	/**
+	 * Reads a value written by {@link #writeVarInt(DataOutputStream, int)}.
+	 *
+	 * @param input Input to read value from.
+	 * @return Read value.
+	 * @throws IOException If any error occurs while reading value.
+	 */
+	private static int readVarInt(final DataInputStream input) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int current;
+		do {
+			current = input.readUnsignedByte();
+			value |= (current & 0x7F) << shift;
+			shift += 7;
+		} while ((current & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Static factory that starts recording the given ``root``.
+	 * Generation should then use {@link #getRoot()} instead of it.
+	 *
+	 * @param root Documentation root to record.
+	 * @return Created snapshot.
+	 */
+	public static DocSnapshot record(final RootDoc root) {
+		final DocSnapshot snapshot = new DocSnapshot();
+		snapshot.wrap(root, RootDoc.class);
+		// NOTE : Options are read before recording starts.
+		snapshot.getRoot().options();
+		return snapshot;
+	}
+
+	/**
+	 * Static factory that reads the snapshot file denoted
+	 * by the given ``path``.
+	 *
+	 * @param path Path of the snapshot file to read.
+	 * @return Read snapshot.
+	 * @throws IOException If any error occurs while reading snapshot.
+	 */
+	public static DocSnapshot read(final Path path) throws IOException {
+		final DocSnapshot snapshot = new DocSnapshot();
+		try (final DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+			if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+				throw new IOException("Unsupported snapshot file " + path);
+			}
+			final List<String> strings = new ArrayList<>();
+			final int count = readVarInt(input);
+			for (int i = 0; i < count; i++) {
+				final Class<?> [] implemented = new Class<?>[readVarInt(input)];
+				for (int j = 0; j < implemented.length; j++) {
+					implemented[j] = loadClass(readString(input, strings));
+				}
+				final Node node = new Node(i, implemented);
+				node.proxy = Proxy.newProxyInstance(
+						DocSnapshot.class.getClassLoader(),
+						implemented,
+						snapshot.new ReplayHandler(node));
+				snapshot.nodes.add(node);
+			}
+			for (final Node node : snapshot.nodes) {
+				final int size = readVarInt(input);
+				for (int j = 0; j < size; j++) {
+					final String key = readString(input, strings);
+					node.values.put(key, readValue(input, strings, snapshot.nodes));
+				}
+			}
+		}
+		catch (final ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+		return snapshot;
+	}
+
+}
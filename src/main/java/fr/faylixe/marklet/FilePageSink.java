@@ -0,0 +1,49 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sink that writes each page into its file,
+ * using a single gathering write.
+ *
+ * @author fv
+ */
+public final class FilePageSink implements PageSink {
+
+	/** Shared instance, as the sink holds no state. **/
+	public static final FilePageSink INSTANCE = new FilePageSink();
+
+	/** Options used for opening written document. **/
+	private static final OpenOption [] WRITE_OPTIONS = {
+		StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING,
+		StandardOpenOption.WRITE
+	};
+
+	/**
+	 * Default constructor.
+	 */
+	private FilePageSink() {
+		// Use shared instance.
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void write(final Path path, final ByteBuffer [] buffers) throws IOException {
+		long remaining = 0;
+		for (final ByteBuffer buffer : buffers) {
+			remaining += buffer.remaining();
+		}
+		try (final FileChannel channel = FileChannel.open(path, WRITE_OPTIONS)) {
+			while (remaining > 0) {
+				remaining -= channel.write(buffers);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.SeeTag;
+import com.sun.javadoc.Tag;
+
+/**
+ * Persistent cache of rendered description fragments.
+ * Fragments are keyed by a hash of the raw inline tags
+ * and of the source package they are rendered from, since
+ * generated links are relative to it.
+ *
+ * Cache file is read at once when loaded, and fragments from
+ * a previous run are only decoded when hit. The file is not
+ * kept mapped, as it is replaced when the cache is saved back.
+ * The cache is bounded in size, and least recently used
+ * fragments are evicted first, both in memory and when saved.
+ *
+ * @author fv
+ */
+public final class FragmentCache {
+
+	/** Name of the cache file in the cache directory. **/
+	public static final String FILE_NAME = "fragments.cache";
+
+	/** Magic number of the cache file (``MKFC``). **/
+	private static final int MAGIC = 0x4D4B4643;
+
+	/** Cache file format version, to increase when rendering changes. **/
+	private static final int VERSION = 2;
+
+	/** Size in bytes of an entry key. **/
+	private static final int KEY_LENGTH = 20;
+
+	/** Size in bytes of an entry header (key and value length). **/
+	private static final int ENTRY_OVERHEAD = KEY_LENGTH + 4;
+
+	/** Digest algorithm used for building key. **/
+	private static final String DIGEST_ALGORITHM = "SHA-1";
+
+	/** Digest instance per thread. **/
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	/**
+	 * Cached fragment, either still encoded into the
+	 * loaded cache file content or rendered during this run.
+	 */
+	private static final class Entry {
+
+		/** Offset of the value into the loaded content, ``-1`` if rendered during this run. **/
+		private final int offset;
+
+		/** Size in bytes of the encoded value. **/
+		private final int length;
+
+		/** Decoded value, ``null`` until first read for loaded entries. **/
+		private String value;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param offset Offset of the value into the loaded content, ``-1`` if rendered during this run.
+		 * @param length Size in bytes of the encoded value.
+		 * @param value Decoded value if any.
+		 */
+		private Entry(final int offset, final int length, final String value) {
+			this.offset = offset;
+			this.length = length;
+			this.value = value;
+		}
+
+	}
+
+	/** Path of the cache file. **/
+	private final Path path;
+
+	/** Maximum size in bytes of cached entries. **/
+	private final long maximumSize;
+
+	/** Cached entries, in access order. **/
+	private final LinkedHashMap<ByteBuffer, Entry> entries;
+
+	/** Content of the cache file, ``null`` if none was loaded. **/
+	private final ByteBuffer content;
+
+	/** Current size in bytes of cached entries. **/
+	private long size;
+
+	/** Number of fragment retrieved from cache. **/
+	private long hits;
+
+	/** Number of fragment that needed to be rendered. **/
+	private long misses;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param path Path of the cache file.
+	 * @param maximumSize Maximum size in bytes of cached entries.
+	 * @param content Content of the cache file, ``null`` if none was loaded.
+	 */
+	private FragmentCache(final Path path, final long maximumSize, final ByteBuffer content) {
+		this.path = path;
+		this.maximumSize = maximumSize;
+		this.content = content;
+		this.entries = new LinkedHashMap<>(1024, 0.75f, true);
+	}
+
+	/**
+	 * Builds the cache key for the given ``inlineTags``
+	 * rendered from the given ``source`` package. Referenced
+	 * classes are keyed by whether they are linked, as decided
+	 * by the given ``context``, which depends on the session.
+	 *
+	 * @param context Shared generation state, that decides which classes are documented.
+	 * @param source Name of the source package fragment is rendered from.
+	 * @param inlineTags Inline tags fragment is rendered from.
+	 * @return Built key.
+	 */
+	public ByteBuffer key(final MarkletContext context, final String source, final Tag [] inlineTags) {
+		final MessageDigest digest = DIGEST.get();
+		digest.reset();
+		update(digest, source);
+		for (final Tag tag : inlineTags) {
+			update(digest, tag.name());
+			update(digest, tag.text());
+			if (tag instanceof SeeTag) {
+				final ClassDoc classDoc = ((SeeTag) tag).referencedClass();
+				if (classDoc != null) {
+					update(digest, classDoc.containingPackage().name());
+					update(digest, classDoc.simpleTypeName());
+					digest.update(context.isDocumented(classDoc) ? (byte) 1 : (byte) 0);
+				}
+			}
+		}
+		return ByteBuffer.wrap(digest.digest());
+	}
+
+	/**
+	 * Appends the given ``text`` to the given ``digest``,
+	 * followed by a separator.
+	 *
+	 * @param digest Digest to update.
+	 * @param text Text to append.
+	 */
+	private static void update(final MessageDigest digest, final String text) {
+		digest.update(text.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	/**
+	 * Retrieves the fragment associated to the given ``key``.
+	 *
+	 * @param key Key of the fragment to retrieve.
+	 * @return Cached fragment if any, ``null`` otherwise.
+	 */
+	public synchronized String get(final ByteBuffer key) {
+		final Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (entry.value == null) {
+			final ByteBuffer slice = content.duplicate();
+			slice.position(entry.offset);
+			slice.limit(entry.offset + entry.length);
+			entry.value = StandardCharsets.UTF_8.decode(slice).toString();
+		}
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Stores the given ``fragment`` for the given ``key``, evicting
+	 * least recently used fragments if the cache is full.
+	 *
+	 * @param key Key of the fragment to store.
+	 * @param fragment Rendered fragment to store.
+	 */
+	public synchronized void put(final ByteBuffer key, final String fragment) {
+		final int length = fragment.getBytes(StandardCharsets.UTF_8).length;
+		final Entry previous = entries.put(key, new Entry(-1, length, fragment));
+		if (previous != null) {
+			size -= previous.length + ENTRY_OVERHEAD;
+		}
+		size += length + ENTRY_OVERHEAD;
+		final Iterator<Map.Entry<ByteBuffer, Entry>> iterator = entries.entrySet().iterator();
+		while (size > maximumSize && iterator.hasNext()) {
+			size -= iterator.next().getValue().length + ENTRY_OVERHEAD;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Number of hits getter.
+	 *
+	 * @return Number of fragment retrieved from cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Number of misses getter.
+	 *
+	 * @return Number of fragment that needed to be rendered.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Writes cached entries back to the cache file, from
+	 * the least to the most recently used one. Content is
+	 * written to a temporary file first, which then replaces
+	 * the cache file.
+	 *
+	 * @throws IOException If any error occurs while writing cache file.
+	 */
+	public synchronized void save() throws IOException {
+		final Path temporary = path.resolveSibling(FILE_NAME + ".tmp");
+		try (final OutputStream stream = Files.newOutputStream(temporary);
+				final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(entries.size());
+			for (final Map.Entry<ByteBuffer, Entry> entry : entries.entrySet()) {
+				final Entry value = entry.getValue();
+				output.write(entry.getKey().array());
+				output.writeInt(value.length);
+				if (value.offset >= 0) {
+					final byte [] bytes = new byte[value.length];
+					final ByteBuffer slice = content.duplicate();
+					slice.position(value.offset);
+					slice.get(bytes);
+					output.write(bytes);
+				}
+				else {
+					output.write(value.value.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Static factory that loads the cache file from the
+	 * given ``directory`` if any. An unreadable or outdated
+	 * cache file is ignored.
+	 *
+	 * @param directory Directory the cache file is stored in.
+	 * @param maximumSize Maximum size in bytes of cached entries.
+	 * @return Loaded cache instance.
+	 * @throws IOException If any error occurs while reading cache file.
+	 */
+	public static FragmentCache load(final Path directory, final long maximumSize) throws IOException {
+		if (!Files.exists(directory)) {
+			Files.createDirectories(directory);
+		}
+		final Path path = directory.resolve(FILE_NAME);
+		if (!Files.exists(path) || Files.size(path) < 12) {
+			return new FragmentCache(path, maximumSize, null);
+		}
+		// NOTE : A mapped file could not be replaced on Windows, when saved back.
+		final ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (content.getInt() != MAGIC || content.getInt() != VERSION) {
+			return new FragmentCache(path, maximumSize, null);
+		}
+		final FragmentCache cache = new FragmentCache(path, maximumSize, content);
+		final int count = content.getInt();
+		for (int i = 0; i < count && content.remaining() >= ENTRY_OVERHEAD; i++) {
+			final byte [] key = new byte[KEY_LENGTH];
+			content.get(key);
+			final int length = content.getInt();
+			if (length < 0 || length > content.remaining()) {
+				break;
+			}
+			cache.entries.put(ByteBuffer.wrap(key), new Entry(content.position(), length, null));
+			cache.size += length + ENTRY_OVERHEAD;
+			content.position(content.position() + length);
+		}
+		final Iterator<Entry> iterator = cache.entries.values().iterator();
+		while (cache.size > maximumSize && iterator.hasNext()) {
+			cache.size -= iterator.next().length + ENTRY_OVERHEAD;
+			iterator.remove();
+		}
+		return cache;
+	}
+
+}
@@ -0,0 +1,243 @@
+package fr.faylixe.marklet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.sun.javadoc.ClassDoc;
+
+/**
+ * Cost of a dry run generation, measured per phase :
+ * pages and bytes rendered into a {@link CountingPageSink},
+ * elapsed time and, when the JVM supports it, bytes allocated
+ * by the generation thread. Class pages could be rendered for a
+ * sample of classes only, in which case the class phase is
+ * extrapolated to every class, weighted by class size.
+ *
+ * @author fv
+ */
+public final class GenerationCost {
+
+	/** Bytes in a kilobyte. **/
+	private static final long KILOBYTE = 1024;
+
+	/** Bytes in a megabyte. **/
+	private static final double MEGABYTE = 1024 * 1024;
+
+	/** Nanoseconds in a millisecond. **/
+	private static final long MILLISECOND = 1000000;
+
+	/**
+	 * Measured generation phase.
+	 */
+	private static final class Phase {
+
+		/** Name of the phase. **/
+		private final String name;
+
+		/** Number of rendered pages. **/
+		private long pages;
+
+		/** Encoded size of rendered pages, in bytes. **/
+		private long bytes;
+
+		/** Elapsed time, in nanoseconds. **/
+		private long time;
+
+		/** Allocated bytes, ``-1`` if not supported. **/
+		private long allocated;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param name Name of the phase.
+		 */
+		private Phase(final String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds measures of the given ``phase`` to this one.
+		 *
+		 * @param phase Phase to add measures of.
+		 * @param factor Factor to apply to added measures.
+		 */
+		private void add(final Phase phase, final double factor) {
+			pages += Math.round(phase.pages * factor);
+			bytes += Math.round(phase.bytes * factor);
+			time += Math.round(phase.time * factor);
+			allocated = phase.allocated < 0 ? -1 : allocated + Math.round(phase.allocated * factor);
+		}
+
+		/**
+		 * Formats this phase measures.
+		 *
+		 * @return Formatted phase.
+		 */
+		private String format() {
+			final StringBuilder builder = new StringBuilder()
+				.append(pages).append(" pages, ")
+				.append(bytes / KILOBYTE).append(" KB, ")
+				.append(time / MILLISECOND).append(" ms");
+			if (allocated >= 0) {
+				builder
+					.append(", ")
+					.append(String.format("%.1f", allocated / MEGABYTE))
+					.append(" MB allocated");
+			}
+			return builder.toString();
+		}
+
+	}
+
+	/** Sink pages are counted by. **/
+	private final CountingPageSink sink;
+
+	/** Thread management bean, ``null`` if allocations could not be measured. **/
+	private final com.sun.management.ThreadMXBean threads;
+
+	/** Measured phases, in order. **/
+	private final List<Phase> phases;
+
+	/** Phase being measured, ``null`` if none. **/
+	private Phase current;
+
+	/** Number of pages rendered when the current phase started. **/
+	private long startPages;
+
+	/** Size of pages rendered when the current phase started. **/
+	private long startBytes;
+
+	/** Time at which the current phase started, in nanoseconds. **/
+	private long startTime;
+
+	/** Bytes allocated when the current phase started. **/
+	private long startAllocated;
+
+	/** Percentage of classes which pages are rendered. **/
+	private final int sample;
+
+	/** Total size of documented classes. **/
+	private long totalWeight;
+
+	/** Total size of sampled classes. **/
+	private long sampledWeight;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param sink Sink pages are counted by.
+	 * @param sample Percentage of classes which pages are rendered.
+	 */
+	public GenerationCost(final CountingPageSink sink, final int sample) {
+		this.sink = sink;
+		this.sample = sample;
+		this.phases = new ArrayList<>();
+		final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			this.threads = (com.sun.management.ThreadMXBean) bean;
+			this.threads.setThreadAllocatedMemoryEnabled(true);
+		}
+		else {
+			this.threads = null;
+		}
+	}
+
+	/**
+	 * Retrieves bytes allocated so far by the current thread.
+	 *
+	 * @return Allocated bytes, ``-1`` if not supported.
+	 */
+	private long getAllocated() {
+		return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Starts measuring the phase with the given ``name``,
+	 * ending the current one if any.
+	 *
+	 * @param name Name of the phase.
+	 */
+	public void start(final String name) {
+		stop();
+		current = new Phase(name);
+		startPages = sink.getPages();
+		startBytes = sink.getBytes();
+		startAllocated = getAllocated();
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * Ends measuring the current phase, if any.
+	 */
+	public void stop() {
+		if (current == null) {
+			return;
+		}
+		current.time = System.nanoTime() - startTime;
+		current.allocated = threads == null ? -1 : getAllocated() - startAllocated;
+		current.pages = sink.getPages() - startPages;
+		current.bytes = sink.getBytes() - startBytes;
+		phases.add(current);
+		current = null;
+	}
+
+	/**
+	 * Retrieves the size of the given ``classDoc``, used as
+	 * weight when extrapolating from sampled classes.
+	 *
+	 * @param classDoc Class to get weight of.
+	 * @return Weight of the class.
+	 */
+	private static long getWeight(final ClassDoc classDoc) {
+		return 1L
+				+ classDoc.fields().length
+				+ classDoc.enumConstants().length
+				+ classDoc.constructors().length
+				+ classDoc.methods().length;
+	}
+
+	/**
+	 * Indicates if the page of the given ``classDoc`` belongs
+	 * to the sample. Selection depends on the class name only,
+	 * so the same classes are sampled across executions.
+	 *
+	 * @param classDoc Class to check.
+	 * @return ``true`` if the class page should be rendered, ``false`` otherwise.
+	 */
+	public boolean isSampled(final ClassDoc classDoc) {
+		final long weight = getWeight(classDoc);
+		totalWeight += weight;
+		if (Math.floorMod(classDoc.qualifiedName().hashCode(), 100) < sample) {
+			sampledWeight += weight;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reports measured phases, and the estimated cost of
+	 * a full generation if classes have been sampled.
+	 *
+	 * @param output Consumer of report lines.
+	 * @param classPhase Name of the phase that renders class pages.
+	 */
+	public void report(final Consumer<String> output, final String classPhase) {
+		stop();
+		final double factor = sample < 100 && sampledWeight > 0 ? (double) totalWeight / sampledWeight : 1;
+		final Phase total = new Phase("total");
+		final Phase estimate = new Phase("estimated");
+		for (final Phase phase : phases) {
+			output.accept("Dry run, " + phase.name + " : " + phase.format());
+			total.add(phase, 1);
+			estimate.add(phase, phase.name.equals(classPhase) ? factor : 1);
+		}
+		output.accept("Dry run, total : " + total.format());
+		if (factor != 1) {
+			output.accept("Dry run, " + sample + "% of classes sampled, estimated full run : " + estimate.format());
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Journal of pages completed by a generation, written
+ * into the output directory as pages are generated. When
+ * a generation is interrupted or some pages failed, the
+ * next one could resume from the journal, skipping pages
+ * that are already done.
+ *
+ * The journal starts with a fingerprint of the options it
+ * has been written with, and is discarded if resumed with
+ * other options. It is deleted once a generation completes
+ * without failure.
+ *
+ * @author fv
+ */
+public final class GenerationJournal implements Closeable {
+
+	/** Entry kind for package pages. **/
+	public static final String PACKAGE = "package";
+
+	/** Entry kind for class pages, including their sub pages. **/
+	public static final String CLASS = "class";
+
+	/** Entry kind of the options fingerprint. **/
+	private static final String OPTIONS = "options";
+
+	/** Prefix of journal file name. **/
+	private static final String FILE_PREFIX = "generation";
+
+	/** Suffix of journal file name. **/
+	private static final String FILE_SUFFIX = ".journal";
+
+	/** Field separator. **/
+	private static final char SEPARATOR = '\t';
+
+	/** Path of the journal file. **/
+	private final Path path;
+
+	/** Completed entries, as ``kind`` and ``name`` joined by separator. **/
+	private final Set<String> completed;
+
+	/** Number of entries loaded from a previous generation. **/
+	private final int resumed;
+
+	/** Writer that appends entries to the journal file. **/
+	private final BufferedWriter writer;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param path Path of the journal file.
+	 * @param completed Entries loaded from a previous generation.
+	 * @param writer Writer that appends entries to the journal file.
+	 */
+	private GenerationJournal(final Path path, final Set<String> completed, final BufferedWriter writer) {
+		this.path = path;
+		this.completed = completed;
+		this.resumed = completed.size();
+		this.writer = writer;
+	}
+
+	/**
+	 * Builds the journal file name. Each shard has its
+	 * own journal, as shards share the output directory.
+	 *
+	 * @param shardIndex Index of the shard, starting from 1.
+	 * @param shardCount Total number of shards.
+	 * @return Journal file name.
+	 */
+	public static String getFileName(final int shardIndex, final int shardCount) {
+		if (shardCount == 1) {
+			return FILE_PREFIX + FILE_SUFFIX;
+		}
+		return FILE_PREFIX + "-" + shardIndex + "-of-" + shardCount + FILE_SUFFIX;
+	}
+
+	/**
+	 * Builds a journal entry.
+	 *
+	 * @param kind Kind of the entry.
+	 * @param name Name of the documented element.
+	 * @return Built entry.
+	 */
+	private static String entry(final String kind, final String name) {
+		return kind + SEPARATOR + name;
+	}
+
+	/**
+	 * Reads entries of the journal file denoted by the
+	 * given ``path``, if written with the same options.
+	 *
+	 * @param path Path of the journal file.
+	 * @param fingerprint Fingerprint of current options.
+	 * @return Completed entries, empty if options differ.
+	 * @throws IOException If any error occurs while reading journal.
+	 */
+	private static Set<String> read(final Path path, final String fingerprint) throws IOException {
+		final Set<String> completed = new HashSet<>();
+		try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			if (!entry(OPTIONS, fingerprint).equals(reader.readLine())) {
+				return completed;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				completed.add(line);
+			}
+		}
+		return completed;
+	}
+
+	/**
+	 * Opens the journal file denoted by the given ``path``.
+	 * Unless resumed, any previous journal is discarded.
+	 *
+	 * @param path Path of the journal file.
+	 * @param fingerprint Fingerprint of current options.
+	 * @param resume ``true`` if entries of a previous generation should be loaded.
+	 * @return Opened journal.
+	 * @throws IOException If any error occurs while reading or writing journal.
+	 */
+	public static GenerationJournal open(final Path path, final String fingerprint, final boolean resume) throws IOException {
+		final Set<String> completed = resume && Files.isRegularFile(path) ? read(path, fingerprint) : new HashSet<>();
+		Files.createDirectories(path.getParent());
+		final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+		try {
+			writer.write(entry(OPTIONS, fingerprint));
+			writer.newLine();
+			for (final String entry : completed) {
+				writer.write(entry);
+				writer.newLine();
+			}
+			writer.flush();
+		}
+		catch (final IOException e) {
+			writer.close();
+			throw e;
+		}
+		return new GenerationJournal(path, completed, writer);
+	}
+
+	/**
+	 * Indicates if the given element has been completed.
+	 *
+	 * @param kind Kind of the entry.
+	 * @param name Name of the documented element.
+	 * @return ``true`` if the page is already done, ``false`` otherwise.
+	 */
+	public synchronized boolean isCompleted(final String kind, final String name) {
+		return completed.contains(entry(kind, name));
+	}
+
+	/**
+	 * Records that the given element has been completed. The
+	 * entry is flushed at once, so it survives an interruption.
+	 *
+	 * @param kind Kind of the entry.
+	 * @param name Name of the documented element.
+	 * @throws IOException If any error occurs while writing journal.
+	 */
+	public synchronized void complete(final String kind, final String name) throws IOException {
+		final String entry = entry(kind, name);
+		if (completed.add(entry)) {
+			writer.write(entry);
+			writer.newLine();
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Getter for the number of entries loaded from a previous generation.
+	 *
+	 * @return Number of resumed entries.
+	 * @see #resumed
+	 */
+	public int getResumed() {
+		return resumed;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+
+	/**
+	 * Closes and deletes this journal, once generation
+	 * has completed without failure.
+	 *
+	 * @throws IOException If any error occurs while deleting journal.
+	 */
+	public synchronized void delete() throws IOException {
+		writer.close();
+		Files.deleteIfExists(path);
+	}
+
+}
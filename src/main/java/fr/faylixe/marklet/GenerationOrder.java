@@ -0,0 +1,158 @@
+package fr.faylixe.marklet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.ConstructorDoc;
+import com.sun.javadoc.ExecutableMemberDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.Type;
+
+/**
+ * Order in which class pages are generated when time is
+ * bounded, so the most useful pages are written first.
+ * Public classes always come before other ones, and are
+ * then ordered according to a {@link Priority}.
+ *
+ * @author fv
+ */
+public final class GenerationOrder {
+
+	/**
+	 * Priority of classes of a same visibility.
+	 */
+	public enum Priority {
+
+		/** Most referenced classes first, by other documented classes. **/
+		REFERENCES,
+
+		/** Classes with most members first. **/
+		SIZE,
+
+		/** Javadoc order. **/
+		SOURCE;
+
+		/**
+		 * Retrieves the priority with the given option ``value``.
+		 *
+		 * @param value Option value, case insensitive.
+		 * @return Matching priority.
+		 * @throws IllegalArgumentException If no priority matches.
+		 */
+		public static Priority parse(final String value) {
+			return valueOf(value.toUpperCase(Locale.ROOT));
+		}
+
+	}
+
+	/**
+	 * Default constructor.
+	 */
+	private GenerationOrder() {
+		// Do nothing.
+	}
+
+	/**
+	 * Counts references to the given ``type``, if documented
+	 * and not the given ``user`` class itself.
+	 *
+	 * @param counts Reference count by qualified class name.
+	 * @param user Class that refers to the type.
+	 * @param type Referenced type.
+	 */
+	private static void count(final Map<String, Integer> counts, final ClassDoc user, final Type type) {
+		final ClassDoc classDoc = type == null ? null : type.asClassDoc();
+		if (classDoc != null && classDoc != user && classDoc.isIncluded()) {
+			counts.merge(classDoc.qualifiedName(), 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Counts references of the given executable ``member``
+	 * parameters and thrown exceptions.
+	 *
+	 * @param counts Reference count by qualified class name.
+	 * @param user Class that declares the member.
+	 * @param member Member to count references of.
+	 */
+	private static void count(final Map<String, Integer> counts, final ClassDoc user, final ExecutableMemberDoc member) {
+		for (final Parameter parameter : member.parameters()) {
+			count(counts, user, parameter.type());
+		}
+		for (final Type exception : member.thrownExceptionTypes()) {
+			count(counts, user, exception);
+		}
+	}
+
+	/**
+	 * Counts, for each documented class, the number of times it is
+	 * used as super type or in a member signature of another one.
+	 *
+	 * @param classes Documented classes.
+	 * @return Reference count by qualified class name.
+	 */
+	private static Map<String, Integer> countReferences(final ClassDoc [] classes) {
+		final Map<String, Integer> counts = new HashMap<>();
+		for (final ClassDoc classDoc : classes) {
+			count(counts, classDoc, classDoc.superclassType());
+			for (final Type type : classDoc.interfaceTypes()) {
+				count(counts, classDoc, type);
+			}
+			for (final FieldDoc field : classDoc.fields()) {
+				count(counts, classDoc, field.type());
+			}
+			for (final ConstructorDoc constructor : classDoc.constructors()) {
+				count(counts, classDoc, constructor);
+			}
+			for (final MethodDoc method : classDoc.methods()) {
+				count(counts, classDoc, method.returnType());
+				count(counts, classDoc, method);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Retrieves the number of documented members of the given ``classDoc``.
+	 *
+	 * @param classDoc Class to get size of.
+	 * @return Number of members.
+	 */
+	private static int getSize(final ClassDoc classDoc) {
+		return classDoc.fields().length
+				+ classDoc.enumConstants().length
+				+ classDoc.constructors().length
+				+ classDoc.methods().length;
+	}
+
+	/**
+	 * Sorts the given ``classes`` in generation order. Sort is
+	 * stable, so classes of equal priority keep javadoc order.
+	 *
+	 * @param classes Documented classes, in javadoc order.
+	 * @param priority Priority of classes of a same visibility.
+	 * @return Classes in generation order.
+	 */
+	public static List<ClassDoc> sort(final ClassDoc [] classes, final Priority priority) {
+		final List<ClassDoc> ordered = new ArrayList<>(Arrays.asList(classes));
+		Comparator<ClassDoc> comparator = Comparator.comparing(classDoc -> !classDoc.isPublic());
+		if (priority == Priority.REFERENCES) {
+			final Map<String, Integer> counts = countReferences(classes);
+			comparator = comparator.thenComparing(classDoc -> -counts.getOrDefault(classDoc.qualifiedName(), 0));
+		}
+		else if (priority == Priority.SIZE) {
+			comparator = comparator.thenComparing(classDoc -> -getSize(classDoc));
+		}
+		ordered.sort(comparator);
+		return ordered;
+	}
+
+}
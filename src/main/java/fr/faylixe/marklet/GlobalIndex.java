@@ -0,0 +1,646 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.ProgramElementDoc;
+
+/**
+ * Alphabetical index of every documented class and
+ * member. Entries are collected package by package into
+ * a bounded buffer. Once the buffer is full, it is sorted
+ * and spilled into a temporary run file, so memory use
+ * does not depend on the size of the documented API.
+ * Runs are then read back through a k-way merge, which
+ * streams entries in alphabetical order.
+ *
+ * In a sharded generation, each shard writes its entries
+ * as a single sorted partial run, and the merge step reads
+ * partial runs of every shard as runs of its own index.
+ *
+ * @author fv
+ */
+public final class GlobalIndex implements Closeable {
+
+	/**
+	 * Indexed class or member.
+	 */
+	public static final class Entry {
+
+		/** Simple name of the element. **/
+		private final String name;
+
+		/** Kind of the element, such as ``Method``. **/
+		private final String kind;
+
+		/** Qualified name of the element container, class or package. **/
+		private final String container;
+
+		/** Name of the package the element is documented in. **/
+		private final String packageName;
+
+		/** Name of the class page, or sub page, the element is documented in. **/
+		private final String page;
+
+		/** Anchor of the element into its page, empty for a class. **/
+		private final String anchor;
+
+		/** First sentence of the element description, rendered from the output root. **/
+		private final String summary;
+
+		/** Index letter of the element name. **/
+		private final String letter;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param name Simple name of the element.
+		 * @param kind Kind of the element, such as ``Method``.
+		 * @param container Qualified name of the element container, class or package.
+		 * @param packageName Name of the package the element is documented in.
+		 * @param page Name of the class page, or sub page, the element is documented in.
+		 * @param anchor Anchor of the element into its page, empty for a class.
+		 * @param summary First sentence of the element description, rendered from the output root.
+		 */
+		private Entry(
+				final String name,
+				final String kind,
+				final String container,
+				final String packageName,
+				final String page,
+				final String anchor,
+				final String summary) {
+			this.name = name;
+			this.kind = kind;
+			this.container = container;
+			this.packageName = packageName;
+			this.page = page;
+			this.anchor = anchor;
+			this.summary = summary;
+			this.letter = GlobalIndex.getLetter(name);
+		}
+
+		/**
+		 * Name getter.
+		 *
+		 * @return Simple name of the element.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Kind getter.
+		 *
+		 * @return Kind of the element, such as ``Method``.
+		 */
+		public String getKind() {
+			return kind;
+		}
+
+		/**
+		 * Container getter.
+		 *
+		 * @return Qualified name of the element container, class or package.
+		 */
+		public String getContainer() {
+			return container;
+		}
+
+		/**
+		 * Package name getter.
+		 *
+		 * @return Name of the package the element is documented in.
+		 */
+		public String getPackageName() {
+			return packageName;
+		}
+
+		/**
+		 * Page getter.
+		 *
+		 * @return Name of the class page, or sub page, the element is documented in.
+		 */
+		public String getPage() {
+			return page;
+		}
+
+		/**
+		 * Anchor getter.
+		 *
+		 * @return Anchor of the element into its page, empty for a class.
+		 */
+		public String getAnchor() {
+			return anchor;
+		}
+
+		/**
+		 * Summary getter.
+		 *
+		 * @return First sentence of the element description, rendered from the output root.
+		 */
+		public String getSummary() {
+			return summary;
+		}
+
+		/**
+		 * Letter getter.
+		 *
+		 * @return Index letter of the element name.
+		 */
+		public String getLetter() {
+			return letter;
+		}
+
+		/**
+		 * Estimates the memory used by this entry.
+		 *
+		 * @return Estimated size in bytes.
+		 */
+		private long size() {
+			return ENTRY_OVERHEAD + 2L * (name.length() + kind.length() + container.length() + packageName.length() + page.length() + anchor.length() + summary.length());
+		}
+
+		/**
+		 * Writes this entry into the given ``output``.
+		 *
+		 * @param output Stream to write entry to.
+		 * @throws IOException If any error occurs while writing entry.
+		 */
+		private void write(final DataOutputStream output) throws IOException {
+			output.writeUTF(name);
+			output.writeUTF(kind);
+			output.writeUTF(container);
+			output.writeUTF(packageName);
+			output.writeUTF(page);
+			output.writeUTF(anchor);
+			output.writeUTF(summary);
+		}
+
+		/**
+		 * Reads an entry from the given ``input``.
+		 *
+		 * @param input Stream to read entry from.
+		 * @return Read entry.
+		 * @throws IOException If any error occurs while reading entry.
+		 */
+		private static Entry read(final DataInputStream input) throws IOException {
+			return new Entry(
+					input.readUTF(),
+					input.readUTF(),
+					input.readUTF(),
+					input.readUTF(),
+					input.readUTF(),
+					input.readUTF(),
+					input.readUTF());
+		}
+
+	}
+
+	/**
+	 * Cursor over a sorted run, either spilled or in memory.
+	 */
+	private static final class Run implements Closeable {
+
+		/** Stream the run is read from, ``null`` for the in memory run. **/
+		private final DataInputStream input;
+
+		/** Entries of the in memory run, ``null`` for a spilled run. **/
+		private final Iterator<Entry> iterator;
+
+		/** Current entry of the run, ``null`` once exhausted. **/
+		private Entry current;
+
+		/**
+		 * Constructor for a spilled run.
+		 *
+		 * @param input Stream the run is read from.
+		 */
+		private Run(final DataInputStream input) {
+			this.input = input;
+			this.iterator = null;
+		}
+
+		/**
+		 * Constructor for the in memory run.
+		 *
+		 * @param iterator Entries of the run.
+		 */
+		private Run(final Iterator<Entry> iterator) {
+			this.input = null;
+			this.iterator = iterator;
+		}
+
+		/**
+		 * Moves this cursor to the next entry of the run.
+		 *
+		 * @return ``true`` if an entry is available, ``false`` if the run is exhausted.
+		 * @throws IOException If any error occurs while reading run.
+		 */
+		private boolean advance() throws IOException {
+			if (iterator != null) {
+				current = iterator.hasNext() ? iterator.next() : null;
+			}
+			else {
+				try {
+					current = Entry.read(input);
+				}
+				catch (final EOFException e) {
+					current = null;
+				}
+			}
+			return current != null;
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void close() throws IOException {
+			if (input != null) {
+				input.close();
+			}
+		}
+
+	}
+
+	/** Estimated memory overhead of an entry, in bytes. **/
+	private static final long ENTRY_OVERHEAD = 160;
+
+	/** Maximum length of a spilled summary, longer ones are left out of the index. **/
+	private static final int MAXIMUM_SUMMARY = 4096;
+
+	/** Prefix of the temporary directory runs are spilled in. **/
+	private static final String DIRECTORY_PREFIX = "marklet-index";
+
+	/** Suffix of partial runs written by shards. **/
+	public static final String PARTIAL_SUFFIX = ".entries";
+
+	/** Order of index letters, names that do not start with a letter last. **/
+	public static final Comparator<String> LETTER_ORDER = Comparator
+			.comparing((final String letter) -> MarkletConstant.OTHER.equals(letter))
+			.thenComparing(Comparator.naturalOrder());
+
+	/** Alphabetical order of entries, grouped by index letter, case insensitive first. **/
+	public static final Comparator<Entry> ORDER = Comparator
+			.comparing(Entry::getLetter, LETTER_ORDER)
+			.thenComparing(Entry::getName, String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(Entry::getName)
+			.thenComparing(Entry::getContainer)
+			.thenComparing(Entry::getKind)
+			.thenComparing(Entry::getAnchor);
+
+	/** Size in bytes from which buffered entries are spilled. **/
+	private final long bufferSize;
+
+	/** Entries that have not been spilled yet. **/
+	private final List<Entry> buffer;
+
+	/** Files of spilled runs. **/
+	private final List<Path> runs;
+
+	/** Files of partial runs written by shards, which are not deleted. **/
+	private final List<Path> partials;
+
+	/** Fingerprint of the generation partial runs belong to, ``null`` if none. **/
+	private String fingerprint;
+
+	/** Estimated size in bytes of buffered entries. **/
+	private long size;
+
+	/** Number of indexed entries. **/
+	private long count;
+
+	/** Index letters of indexed entries. **/
+	private final Set<String> letters;
+
+	/** Temporary directory runs are spilled in, created on first spill. **/
+	private Path directory;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param bufferSize Size in bytes from which buffered entries are spilled.
+	 */
+	public GlobalIndex(final long bufferSize) {
+		this.bufferSize = bufferSize;
+		this.buffer = new ArrayList<>();
+		this.runs = new ArrayList<>();
+		this.partials = new ArrayList<>();
+		this.letters = new TreeSet<>(LETTER_ORDER);
+	}
+
+	/**
+	 * Retrieves the index letter of the given ``name``,
+	 * either its first letter in upper case or
+	 * {@link MarkletConstant#OTHER}.
+	 *
+	 * @param name Name to get index letter for.
+	 * @return Index letter.
+	 */
+	public static String getLetter(final String name) {
+		final char first = name.isEmpty() ? ' ' : Character.toUpperCase(name.charAt(0));
+		if (first >= 'A' && first <= 'Z') {
+			return String.valueOf(first);
+		}
+		return MarkletConstant.OTHER;
+	}
+
+	/**
+	 * Adds the given ``entry`` to the buffer,
+	 * spilling it if it is full.
+	 *
+	 * @param entry Entry to add.
+	 * @throws IOException If any error occurs while spilling entries.
+	 */
+	private void add(final Entry entry) throws IOException {
+		buffer.add(entry);
+		letters.add(entry.getLetter());
+		size += entry.size();
+		count++;
+		if (size >= bufferSize) {
+			spill();
+		}
+	}
+
+	/**
+	 * Adds the given ``classDoc`` and its documented
+	 * members to this index.
+	 *
+	 * @param context Shared generation state, that gives page layouts.
+	 * @param classDoc Class to index.
+	 * @throws IOException If any error occurs while spilling entries.
+	 */
+	public void add(final MarkletContext context, final ClassDoc classDoc) throws IOException {
+		final String packageName = classDoc.containingPackage().name();
+		final ClassPageLayout layout = context.getLayout(classDoc);
+		add(new Entry(
+				classDoc.name(),
+				ClassPageBuilder.getKind(classDoc),
+				packageName,
+				packageName,
+				layout.getMainPage(),
+				"",
+				getSummary(context, classDoc)));
+		for (final ProgramElementDoc member : classDoc.constructors()) {
+			add(context, member, MarkletConstant.CONSTRUCTOR, layout);
+		}
+		for (final ProgramElementDoc member : classDoc.fields()) {
+			add(context, member, MarkletConstant.FIELD, layout);
+		}
+		for (final ProgramElementDoc member : classDoc.methods()) {
+			add(context, member, MarkletConstant.METHOD, layout);
+		}
+		for (final ProgramElementDoc member : classDoc.enumConstants()) {
+			add(context, member, MarkletConstant.ENUM_CONSTANT, layout);
+		}
+		if (classDoc.isAnnotationType()) {
+			for (final ProgramElementDoc member : ((AnnotationTypeDoc) classDoc).elements()) {
+				add(context, member, MarkletConstant.ELEMENT, layout);
+			}
+		}
+	}
+
+	/**
+	 * Renders the summary of the given ``doc`` for index pages,
+	 * which are written at the output root. It is not memoized,
+	 * as no other page renders summaries from the output root.
+	 *
+	 * @param context Shared generation state, that renders summaries.
+	 * @param doc Element to get summary of.
+	 * @return Rendered summary, empty if too long to be spilled.
+	 */
+	private static String getSummary(final MarkletContext context, final Doc doc) {
+		final String summary = MarkletDocumentBuilder.renderSummary(context, doc, null);
+		return summary.length() > MAXIMUM_SUMMARY ? "" : summary;
+	}
+
+	/**
+	 * Adds the given ``member`` to this index.
+	 *
+	 * @param context Shared generation state, that gives summaries.
+	 * @param member Member to index.
+	 * @param kind Kind of the member.
+	 * @param layout Page layout of the member class.
+	 * @throws IOException If any error occurs while spilling entries.
+	 */
+	private void add(final MarkletContext context, final ProgramElementDoc member, final String kind, final ClassPageLayout layout) throws IOException {
+		final ClassDoc classDoc = member.containingClass();
+		add(new Entry(
+				member.name(),
+				kind,
+				classDoc.qualifiedName(),
+				classDoc.containingPackage().name(),
+				layout.getPageName(member),
+				MarkletDocumentBuilder.getAnchor(member),
+				getSummary(context, member)));
+	}
+
+	/**
+	 * Sorts and writes buffered entries into a new run file.
+	 * Also used before the buffer is full, when memory is
+	 * needed elsewhere.
+	 *
+	 * @throws IOException If any error occurs while writing run.
+	 */
+	public void spill() throws IOException {
+		if (buffer.isEmpty()) {
+			return;
+		}
+		if (directory == null) {
+			directory = Files.createTempDirectory(DIRECTORY_PREFIX);
+		}
+		buffer.sort(ORDER);
+		final Path run = directory.resolve(runs.size() + ".run");
+		try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			for (final Entry entry : buffer) {
+				entry.write(output);
+			}
+		}
+		runs.add(run);
+		buffer.clear();
+		size = 0;
+	}
+
+	/**
+	 * Writes every entry, in alphabetical order, as a partial
+	 * run into the file denoted by the given ``path``.
+	 *
+	 * @param path Path of the file to write.
+	 * @param fingerprint Fingerprint of the generation.
+	 * @throws IOException If any error occurs while writing file.
+	 */
+	public void write(final Path path, final String fingerprint) throws IOException {
+		try (final DataOutputStream output = ShardIndex.createPartial(path, fingerprint)) {
+			output.writeLong(count);
+			output.writeInt(letters.size());
+			for (final String letter : letters) {
+				output.writeUTF(letter);
+			}
+			merge(entry -> entry.write(output));
+		}
+	}
+
+	/**
+	 * Opens the partial run denoted by the given ``path``,
+	 * and reads its header into this index if requested.
+	 *
+	 * @param path Path of the partial run to open.
+	 * @param header ``true`` if count and letters should be added to this index, ``false`` otherwise.
+	 * @return Stream positioned on the first entry.
+	 * @throws IOException If any error occurs while reading file, or if it comes from another generation.
+	 */
+	private DataInputStream openPartial(final Path path, final boolean header) throws IOException {
+		final DataInputStream input = ShardIndex.openPartial(path, fingerprint);
+		final long entries = input.readLong();
+		final int size = input.readInt();
+		for (int i = 0; i < size; i++) {
+			final String letter = input.readUTF();
+			if (header) {
+				letters.add(letter);
+			}
+		}
+		if (header) {
+			count += entries;
+		}
+		return input;
+	}
+
+	/**
+	 * Static factory that creates an index from partial
+	 * runs written by every shard of a generation.
+	 *
+	 * @param paths Paths of partial runs.
+	 * @param fingerprint Expected fingerprint of the generation.
+	 * @return Created index.
+	 * @throws IOException If any error occurs while reading runs, or if one comes from another generation.
+	 */
+	public static GlobalIndex read(final List<Path> paths, final String fingerprint) throws IOException {
+		final GlobalIndex index = new GlobalIndex(Long.MAX_VALUE);
+		index.fingerprint = fingerprint;
+		for (final Path path : paths) {
+			index.openPartial(path, true).close();
+			index.partials.add(path);
+		}
+		return index;
+	}
+
+	/**
+	 * Number of entries getter.
+	 *
+	 * @return Number of indexed entries.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Letters getter.
+	 *
+	 * @return Index letters of indexed entries, in {@link #LETTER_ORDER}.
+	 */
+	public Set<String> getLetters() {
+		return Collections.unmodifiableSet(letters);
+	}
+
+	/**
+	 * Number of runs getter.
+	 *
+	 * @return Number of runs that have been spilled to disk.
+	 */
+	public int getSpilledRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Visitor of merged entries.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+
+		/**
+		 * Visits the given ``entry``.
+		 *
+		 * @param entry Entry to visit.
+		 * @throws IOException If any error occurs while visiting entry.
+		 */
+		void visit(Entry entry) throws IOException;
+
+	}
+
+	/**
+	 * Visits every entry in alphabetical order, using a
+	 * k-way merge of spilled runs and of buffered entries.
+	 * Only one entry per run is held in memory.
+	 *
+	 * @param visitor Visitor to give entries to.
+	 * @throws IOException If any error occurs while reading runs.
+	 */
+	public void merge(final Visitor visitor) throws IOException {
+		buffer.sort(ORDER);
+		final List<Run> cursors = new ArrayList<>();
+		final PriorityQueue<Run> queue = new PriorityQueue<>(
+				Math.max(1, runs.size() + partials.size() + 1),
+				(a, b) -> ORDER.compare(a.current, b.current));
+		try {
+			for (final Path run : runs) {
+				cursors.add(new Run(new DataInputStream(new BufferedInputStream(Files.newInputStream(run)))));
+			}
+			for (final Path partial : partials) {
+				cursors.add(new Run(openPartial(partial, false)));
+			}
+			cursors.add(new Run(buffer.iterator()));
+			for (final Run cursor : cursors) {
+				if (cursor.advance()) {
+					queue.add(cursor);
+				}
+			}
+			while (!queue.isEmpty()) {
+				final Run cursor = queue.poll();
+				visitor.visit(cursor.current);
+				if (cursor.advance()) {
+					queue.add(cursor);
+				}
+			}
+		}
+		finally {
+			for (final Run cursor : cursors) {
+				cursor.close();
+			}
+		}
+	}
+
+	/**
+	 * Deletes spilled runs.
+	 *
+	 * @throws IOException If any error occurs while deleting runs.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (final Path run : runs) {
+			Files.deleteIfExists(run);
+		}
+		runs.clear();
+		if (directory != null) {
+			Files.deleteIfExists(directory);
+			directory = null;
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package fr.faylixe.marklet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Sink that writes pages through another sink, along with
+ * a precompressed ``.gz`` sidecar next to each of them, so a
+ * static server could serve them without compressing every
+ * request on the fly.
+ *
+ * Sidecars are compressed from the encoded page buffers while
+ * they are in memory, so written files are never read back, and
+ * are written through the other sink as well, so a page store
+ * stores and lists them like any page.
+ * Each thread reuses its own {@link Deflater}, and sidecars do
+ * not embed any timestamp, so they only change along with their
+ * page. Counters could be updated concurrently.
+ *
+ * @author fv
+ */
+public final class GzipPageSink implements PageSink, Closeable {
+
+	/** Extension of sidecar files. **/
+	public static final String EXTENSION = ".gz";
+
+	/** Gzip member header : magic, deflate method, no flag, no time, unknown system. **/
+	private static final byte [] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+	/** Size in bytes of the gzip member trailer (checksum and size). **/
+	private static final int TRAILER_LENGTH = 8;
+
+	/** Size in bytes of the compression output chunk. **/
+	private static final int CHUNK_LENGTH = 64 * 1024;
+
+	/** Sink pages are written through. **/
+	private final PageSink delegate;
+
+	/** Deflater of the current thread. **/
+	private final ThreadLocal<Deflater> deflaters;
+
+	/** Compression output chunk of the current thread. **/
+	private final ThreadLocal<byte []> chunks;
+
+	/** Every created deflater, released on close. **/
+	private final Queue<Deflater> created;
+
+	/** Number of written sidecars. **/
+	private final LongAdder pages;
+
+	/** Size in bytes of compressed pages. **/
+	private final LongAdder inputBytes;
+
+	/** Size in bytes of written sidecars. **/
+	private final LongAdder outputBytes;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param delegate Sink pages are written through.
+	 * @param level Compression level, from ``1`` to ``9``.
+	 */
+	public GzipPageSink(final PageSink delegate, final int level) {
+		this.delegate = delegate;
+		this.created = new ConcurrentLinkedQueue<>();
+		this.deflaters = ThreadLocal.withInitial(() -> {
+			// NOTE : Raw deflate, as the gzip header and trailer are written here.
+			final Deflater deflater = new Deflater(level, true);
+			created.add(deflater);
+			return deflater;
+		});
+		this.chunks = ThreadLocal.withInitial(() -> new byte[CHUNK_LENGTH]);
+		this.pages = new LongAdder();
+		this.inputBytes = new LongAdder();
+		this.outputBytes = new LongAdder();
+	}
+
+	/**
+	 * Builds the path of the sidecar of the given page ``path``.
+	 *
+	 * @param path Path of the page.
+	 * @return Path of the sidecar.
+	 */
+	public static Path getSidecar(final Path path) {
+		return path.resolveSibling(path.getFileName().toString() + EXTENSION);
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void write(final Path path, final ByteBuffer [] buffers) throws IOException {
+		final ByteBuffer [] contents = new ByteBuffer[buffers.length];
+		for (int i = 0; i < buffers.length; i++) {
+			contents[i] = buffers[i].duplicate();
+		}
+		delegate.write(path, buffers);
+		compress(getSidecar(path), contents);
+	}
+
+	/**
+	 * Compresses the given ``contents`` into a gzip member,
+	 * and writes it through the delegate as the page denoted
+	 * by the given ``path``.
+	 *
+	 * @param path Path of the sidecar.
+	 * @param contents Encoded page content, in order.
+	 * @throws IOException If any error occurs while writing sidecar.
+	 */
+	private void compress(final Path path, final ByteBuffer [] contents) throws IOException {
+		final Deflater deflater = deflaters.get();
+		final byte [] chunk = chunks.get();
+		final CRC32 checksum = new CRC32();
+		final List<ByteBuffer> output = new ArrayList<>();
+		output.add(ByteBuffer.wrap(HEADER.clone()));
+		deflater.reset();
+		long size = 0;
+		long written = HEADER.length + TRAILER_LENGTH;
+		try {
+			for (final ByteBuffer content : contents) {
+				final byte [] input;
+				final int offset;
+				final int length = content.remaining();
+				if (content.hasArray()) {
+					input = content.array();
+					offset = content.arrayOffset() + content.position();
+				}
+				else {
+					input = new byte[length];
+					content.get(input);
+					offset = 0;
+				}
+				checksum.update(input, offset, length);
+				size += length;
+				deflater.setInput(input, offset, length);
+				while (!deflater.needsInput()) {
+					written += deflate(output, deflater, chunk);
+				}
+			}
+			deflater.finish();
+			while (!deflater.finished()) {
+				written += deflate(output, deflater, chunk);
+			}
+		}
+		finally {
+			// NOTE : Drops the reference to page content held by the reused deflater.
+			deflater.reset();
+		}
+		final ByteBuffer trailer = ByteBuffer
+				.allocate(TRAILER_LENGTH)
+				.order(ByteOrder.LITTLE_ENDIAN)
+				.putInt((int) checksum.getValue())
+				.putInt((int) size);
+		trailer.flip();
+		output.add(trailer);
+		delegate.write(path, output.toArray(new ByteBuffer[output.size()]));
+		pages.increment();
+		inputBytes.add(size);
+		outputBytes.add(written);
+	}
+
+	/**
+	 * Deflates pending input into the given ``chunk``,
+	 * and adds a copy of produced bytes to the given ``output``.
+	 *
+	 * @param output Compressed buffers, in order.
+	 * @param deflater Deflater to use.
+	 * @param chunk Output chunk.
+	 * @return Number of produced bytes.
+	 */
+	private static int deflate(final List<ByteBuffer> output, final Deflater deflater, final byte [] chunk) {
+		final int length = deflater.deflate(chunk, 0, chunk.length, Deflater.NO_FLUSH);
+		if (length > 0) {
+			output.add(ByteBuffer.wrap(Arrays.copyOf(chunk, length)));
+		}
+		return length;
+	}
+
+	/**
+	 * Pages getter.
+	 *
+	 * @return Number of written sidecars.
+	 */
+	public long getPages() {
+		return pages.sum();
+	}
+
+	/**
+	 * Input bytes getter.
+	 *
+	 * @return Size in bytes of compressed pages.
+	 */
+	public long getInputBytes() {
+		return inputBytes.sum();
+	}
+
+	/**
+	 * Output bytes getter.
+	 *
+	 * @return Size in bytes of written sidecars.
+	 */
+	public long getOutputBytes() {
+		return outputBytes.sum();
+	}
+
+	/**
+	 * Releases native resources of every created deflater.
+	 * Sink should not be used anymore.
+	 */
+	@Override
+	public void close() {
+		Deflater deflater;
+		while ((deflater = created.poll()) != null) {
+			deflater.end();
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Builder that aims to create the alphabetical index
+ * of documented classes and members, at the root of the
+ * output directory, with one page per letter.
+ *
+ * Index pages are written while entries are merged
+ * from a {@link GlobalIndex}, so only the page being
+ * written is held in memory. A letter page is split
+ * into numbered pages when it exceeds the page member
+ * budget.
+ *
+ * @author fv
+ */
+public final class IndexPageBuilder extends MarkletDocumentBuilder {
+
+	/** Separator between index page name and page number. **/
+	private static final char PAGE_SEPARATOR = '-';
+
+	/** Separator between letter links. **/
+	private static final String LETTER_SEPARATOR = " | ";
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param context Shared generation state.
+	 */
+	private IndexPageBuilder(final MarkletContext context) {
+		super(context, null);
+	}
+
+	/**
+	 * Builds the name of an index page.
+	 *
+	 * @param letter Index letter of the page.
+	 * @param part Number of the page for this letter, starting at ``1``.
+	 * @return Page name, without extension.
+	 */
+	static String getPageName(final String letter, final int part) {
+		final StringBuffer name = new StringBuffer()
+			.append(MarkletConstant.INDEX_PREFIX)
+			.append(letter);
+		if (part > 1) {
+			name.append(PAGE_SEPARATOR).append(part);
+		}
+		return name.toString();
+	}
+
+	/**
+	 * Appends to the current document links
+	 * to the first page of each index letter.
+	 *
+	 * @param builder Builder to append links to.
+	 * @param letters Index letters.
+	 */
+	static void letters(final MarkdownDocumentBuilder builder, final Set<String> letters) {
+		boolean first = true;
+		for (final String letter : letters) {
+			if (!first) {
+				builder.text(LETTER_SEPARATOR);
+			}
+			builder.link(letter, getPageName(letter, 1) + MarkdownDocumentBuilder.LINK_EXTENSION);
+			first = false;
+		}
+		builder.newLine();
+		builder.newLine();
+	}
+
+	/**
+	 * Appends the given index ``entry`` as a table row.
+	 *
+	 * @param entry Entry to append.
+	 */
+	private void entryRow(final GlobalIndex.Entry entry) {
+		final String url = new StringBuffer()
+			.append(getPath(getSourceName(), entry.getPackageName()))
+			.append(entry.getPage())
+			.append(MarkdownDocumentBuilder.LINK_EXTENSION)
+			.append(entry.getAnchor())
+			.toString();
+		startTableRow();
+		link(entry.getName(), url);
+		cell();
+		text(entry.getKind());
+		cell();
+		text(entry.getContainer());
+		cell();
+		raw(entry.getSummary());
+		endTableRow();
+		newLine();
+	}
+
+	/**
+	 * Writer of index pages, that receives merged
+	 * entries in alphabetical order.
+	 */
+	private static final class PageWriter implements GlobalIndex.Visitor {
+
+		/** Shared generation state. **/
+		private final MarkletContext context;
+
+		/** Index letters, for navigation. **/
+		private final Set<String> letters;
+
+		/** Path of the directory to write pages in. **/
+		private final Path directoryPath;
+
+		/** Maximum number of entries per page, ``0`` if unbounded. **/
+		private final int budget;
+
+		/** Page being written, ``null`` before first entry. **/
+		private IndexPageBuilder builder;
+
+		/** Index letter of the page being written. **/
+		private String letter;
+
+		/** Number of the page being written for its letter. **/
+		private int part;
+
+		/** Number of entries into the page being written. **/
+		private int rows;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param context Shared generation state.
+		 * @param letters Index letters, for navigation.
+		 * @param directoryPath Path of the directory to write pages in.
+		 */
+		private PageWriter(final MarkletContext context, final Set<String> letters, final Path directoryPath) {
+			this.context = context;
+			this.letters = letters;
+			this.directoryPath = directoryPath;
+			this.budget = context.getOptions().getPageMembers();
+		}
+
+		/**
+		 * Starts a new page for the current letter and part.
+		 */
+		private void start() {
+			builder = new IndexPageBuilder(context);
+			builder.header(1);
+			builder.text(MarkletConstant.INDEX + " : " + letter);
+			if (part > 1) {
+				builder.text(" (" + part + ")");
+			}
+			builder.newLine();
+			letters(builder, letters);
+			builder.tableHeader(MarkletConstant.NAME, MarkletConstant.KIND, MarkletConstant.CONTAINER, MarkletConstant.DESCRIPTION);
+			rows = 0;
+		}
+
+		/**
+		 * Writes the current page, if any.
+		 *
+		 * @param continued ``true`` if the current letter continues on a next page.
+		 * @throws IOException If any error occurs while writing page.
+		 */
+		private void finish(final boolean continued) throws IOException {
+			if (builder == null) {
+				return;
+			}
+			builder.newLine();
+			if (continued) {
+				builder.link(MarkletConstant.INDEX + " : " + letter + " (" + (part + 1) + ")", getPageName(letter, part + 1) + MarkdownDocumentBuilder.LINK_EXTENSION);
+				builder.newLine();
+			}
+			builder.build(directoryPath.resolve(getPageName(letter, part) + MarkdownDocumentBuilder.FILE_EXTENSION));
+			builder = null;
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void visit(final GlobalIndex.Entry entry) throws IOException {
+			if (!entry.getLetter().equals(letter)) {
+				finish(false);
+				letter = entry.getLetter();
+				part = 1;
+				start();
+			}
+			else if (budget > 0 && rows >= budget) {
+				finish(true);
+				part++;
+				start();
+			}
+			builder.entryRow(entry);
+			rows++;
+		}
+
+	}
+
+	/**
+	 * Builds and writes the alphabetical index pages into
+	 * the directory denoted by the given ``directoryPath``.
+	 *
+	 * @param context Shared generation state.
+	 * @param index Index of documented classes and members.
+	 * @param directoryPath Path of the output directory.
+	 * @throws IOException If any error occurs while writing pages.
+	 */
+	public static void build(final MarkletContext context, final GlobalIndex index, final Path directoryPath) throws IOException {
+		final PageWriter writer = new PageWriter(context, index.getLetters(), directoryPath);
+		index.merge(writer);
+		writer.finish(false);
+	}
+
+}
@@ -1,11 +1,32 @@
 package fr.faylixe.marklet;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class aims to build Markdown document.
  * It is built in a top of a {@link StringBuffer}
  * instance which will contains our document
  * content.
  * 
+ * Document is stored as a list of segments, so that
+ * documents rendered separately could be joined using {@link #append(MarkdownDocumentBuilder)}
+ * without copying their content.
+ * 
+ * When references are enabled, a link target that is
+ * repeated often enough to pay for its definition is
+ * written as a reference style link, earlier inline
+ * occurrences included, which definition is appended
+ * by {@link #definitions()}.
+ * 
+ * When built with a {@link BufferPool}, segment buffers
+ * are acquired from it and given back by {@link #release()}
+ * once the document has been written.
+ * 
  * @author fv
  */
 public class MarkdownDocumentBuilder {
@@ -37,6 +58,15 @@ public class MarkdownDocumentBuilder {
 	/** Horizontal rule sequence. **/
 	private static final String HR = "---";
 
+	/** Code block fence. **/
+	private static final String CODE_BLOCK = "```";
+
+	/** Minimum link target length for using references, shorter ones hardly pay for their definition. **/
+	private static final int MINIMUM_REFERENCE_LENGTH = 16;
+
+	/** Number of characters a reference definition adds besides its identifier and target. **/
+	private static final int DEFINITION_OVERHEAD = 5;
+
 	/** Table row start prefix. **/
 	private static final String ROW_START = "| ";
 
@@ -58,15 +88,150 @@ public class MarkdownDocumentBuilder {
 	/** HTML paragraph closing tag. **/
 	private static final String PARAGRAPH_CLOSE = "</p>";
 
-	/** Buffer in which markdown document is stored. **/
-	private final StringBuffer buffer;
+	/** Segments of the document that have been completed. **/
+	private final List<CharSequence> segments;
+
+	/** Buffer in which current document segment is stored. **/
+	private StringBuffer buffer;
+
+	/** Pool buffers are acquired from, ``null`` if not pooled. **/
+	private final BufferPool pool;
+
+	/** Buffers acquired from the pool, including segments of appended documents. **/
+	private final List<StringBuffer> owned;
+
+	/** Capacity reserved for the document, ``0`` if none. **/
+	private int reserved;
+
+	/** Reference identifier by link target, or map itself ``null`` if disabled. **/
+	private Map<String, String> references;
+
+	/** Inline occurrences by link target not referenced yet, in writing order. **/
+	private final Map<String, List<Occurrence>> inlined;
+
+	/** Link target by reference identifier, in definition order. **/
+	private final Map<String, String> definitions;
+
+	/** Prefix of reference identifiers, making them unique across joined documents. **/
+	private String referencePrefix;
+
+	/** Indicates if references are temporarily not used. **/
+	private boolean referencesSuspended;
+
+	/** Number of characters saved by using references. **/
+	private long savedCharacters;
 
 	/**
 	 * Default constructor.
 	 * Initializes internal buffer.
 	 */
 	public MarkdownDocumentBuilder() {
-		this.buffer = new StringBuffer();
+		this(null);
+	}
+
+	/**
+	 * Constructor that acquires buffers from the given ``pool``.
+	 * 
+	 * @param pool Pool buffers are acquired from, ``null`` if not pooled.
+	 */
+	protected MarkdownDocumentBuilder(final BufferPool pool) {
+		this.segments = new ArrayList<>();
+		this.pool = pool;
+		this.owned = new ArrayList<>();
+		this.buffer = acquire(0);
+		this.definitions = new LinkedHashMap<>();
+		this.inlined = new HashMap<>();
+		this.referencePrefix = "";
+	}
+
+	/**
+	 * Acquires a new segment buffer.
+	 * 
+	 * @param capacity Expected number of characters, ``0`` if unknown.
+	 * @return Acquired buffer.
+	 */
+	private StringBuffer acquire(final int capacity) {
+		if (pool == null) {
+			return capacity > 0 ? new StringBuffer(capacity) : new StringBuffer();
+		}
+		final StringBuffer acquired = pool.acquire(capacity);
+		owned.add(acquired);
+		return acquired;
+	}
+
+	/**
+	 * Ensures the current segment buffer could hold the given
+	 * number of characters, so it does not grow while the
+	 * document is rendered. Should be called before anything
+	 * is written.
+	 * 
+	 * @param capacity Expected number of characters.
+	 */
+	protected final void reserve(final int capacity) {
+		if (pool != null && buffer.length() == 0 && buffer.capacity() < capacity) {
+			// NOTE : Another pooled buffer could already be large enough.
+			owned.remove(buffer);
+			pool.release(buffer);
+			buffer = acquire(capacity);
+		}
+		else {
+			buffer.ensureCapacity(capacity);
+		}
+		reserved = capacity;
+	}
+
+	/**
+	 * Reserved capacity getter.
+	 * 
+	 * @return Capacity reserved for the document, ``0`` if none.
+	 */
+	protected final int getReserved() {
+		return reserved;
+	}
+
+	/**
+	 * Gives buffers of this document, and of documents appended
+	 * to it, back to the pool. Document is empty afterward, and
+	 * previously returned segments should not be used anymore.
+	 */
+	protected final void release() {
+		segments.clear();
+		inlined.clear();
+		buffer = new StringBuffer();
+		if (pool != null) {
+			owned.forEach(pool::release);
+			owned.clear();
+		}
+	}
+
+	/**
+	 * Enables reference style links for repeated link
+	 * targets, using the given identifier ``prefix``.
+	 * 
+	 * @param prefix Prefix of reference identifiers.
+	 */
+	protected final void enableReferences(final String prefix) {
+		this.references = new HashMap<>();
+		this.referencePrefix = prefix;
+	}
+
+	/**
+	 * Suspends or resumes reference style links, for content
+	 * that should not depend on this document references.
+	 * 
+	 * @param suspended ``true`` to write inline links only, ``false`` to resume.
+	 */
+	protected final void suspendReferences(final boolean suspended) {
+		this.referencesSuspended = suspended;
+	}
+
+	/**
+	 * Number of characters saved by using references getter.
+	 * 
+	 * @return Characters saved, including joined documents, minus definitions cost.
+	 */
+	public final long getSavedCharacters() {
+		return savedCharacters;
 	}
 	
 	/**
@@ -99,6 +264,37 @@ public class MarkdownDocumentBuilder {
 		buffer.append(filterParagraph(text));
 	}
 	
+	/**
+	 * Appends the given already rendered ``content``
+	 * to the current document, without any filtering.
+	 * 
+	 * @param content Rendered content to append to the document.
+	 */
+	public final void raw(final String content) {
+		buffer.append(content);
+	}
+
+	/**
+	 * Returns the current length of the document segment,
+	 * that could be used as a mark for {@link #since(int)}.
+	 * 
+	 * @return Current document segment length.
+	 */
+	protected final int length() {
+		return buffer.length();
+	}
+
+	/**
+	 * Returns the document segment content that has
+	 * been appended since the given ``mark``.
+	 * 
+	 * @param mark Document length to start content from.
+	 * @return Content appended since the given mark.
+	 */
+	protected final String since(final int mark) {
+		return buffer.substring(mark);
+	}
+
 	/**
 	 * Appends the given ``character`` to the current
 	 * document.
@@ -146,6 +342,24 @@ public class MarkdownDocumentBuilder {
 			.append(ITALIC);
 	}
 
+	/**
+	 * Appends the given ``text`` to the current document
+	 * as a code block, highlighted for the given ``language``.
+	 * 
+	 * @param language Language of the code snippet.
+	 * @param text Code snippet to append to the document.
+	 */
+	public final void codeBlock(final String language, final String text) {
+		buffer
+			.append(CODE_BLOCK)
+			.append(language)
+			.append('\n')
+			.append(text)
+			.append('\n')
+			.append(CODE_BLOCK)
+			.append('\n');
+	}
+
 	/**
 	 * Starts a quote in the current document.
 	 */
@@ -219,9 +433,74 @@ public class MarkdownDocumentBuilder {
 	 * @param url Target URL of the built link.
 	 */
 	public final void link(final String label, final String url) {
-		buffer
-			.append('[').append(label).append(']')
-			.append('(').append(url).append(')');
+		buffer.append('[').append(label).append(']');
+		if (references == null || referencesSuspended || url.length() < MINIMUM_REFERENCE_LENGTH) {
+			buffer.append('(').append(url).append(')');
+			return;
+		}
+		String identifier = references.get(url);
+		if (identifier != null) {
+			savedCharacters += url.length() - identifier.length();
+		}
+		else {
+			final List<Occurrence> occurrences = inlined.computeIfAbsent(url, target -> new ArrayList<>());
+			identifier = referencePrefix + (definitions.size() + 1);
+			final long saving = (long) (occurrences.size() + 1) * (url.length() - identifier.length());
+			final long cost = identifier.length() + url.length() + DEFINITION_OVERHEAD;
+			if (saving <= cost) {
+				occurrences.add(new Occurrence(buffer, buffer.length()));
+				buffer.append('(').append(url).append(')');
+				return;
+			}
+			inlined.remove(url);
+			// NOTE : Latest occurrences first, so that rewriting one does not move the others.
+			for (int i = occurrences.size() - 1; i >= 0; i--) {
+				rewrite(occurrences.get(i), url, identifier);
+			}
+			references.put(url, identifier);
+			definitions.put(identifier, url);
+			savedCharacters += saving - cost;
+		}
+		buffer.append('[').append(identifier).append(']');
+	}
+
+	/**
+	 * Rewrites the given inline ``occurrence`` of the given
+	 * ``url`` as a reference to the given ``identifier``.
+	 * Inline occurrences of other targets written after it
+	 * in the same buffer are moved accordingly.
+	 * 
+	 * @param occurrence Occurrence to rewrite.
+	 * @param url Target URL of the occurrence.
+	 * @param identifier Reference identifier to use.
+	 */
+	private void rewrite(final Occurrence occurrence, final String url, final String identifier) {
+		occurrence.buffer.replace(occurrence.start, occurrence.start + url.length() + 2, "[" + identifier + "]");
+		final int shift = url.length() - identifier.length();
+		for (final List<Occurrence> occurrences : inlined.values()) {
+			for (final Occurrence other : occurrences) {
+				if (other.buffer == occurrence.buffer && other.start > occurrence.start) {
+					other.start -= shift;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends to the current document definitions of
+	 * every reference that has been used, including
+	 * references from joined documents.
+	 */
+	public final void definitions() {
+		if (!definitions.isEmpty()) {
+			newLine();
+			for (final Map.Entry<String, String> definition : definitions.entrySet()) {
+				buffer
+					.append('[').append(definition.getKey()).append("]: ")
+					.append(definition.getValue());
+				newLine();
+			}
+		}
 	}
 	
 	/**
@@ -285,6 +564,56 @@ public class MarkdownDocumentBuilder {
 		newLine();
 	}
 
+	/**
+	 * Appends the given ``document`` to the current one.
+	 * Segments of the given document are shared rather
+	 * than copied, so it should not be modified anymore.
+	 * 
+	 * @param document Document to append.
+	 */
+	public final void append(final MarkdownDocumentBuilder document) {
+		seal();
+		document.seal();
+		segments.addAll(document.segments);
+		owned.addAll(document.owned);
+		document.owned.clear();
+		definitions.putAll(document.definitions);
+		savedCharacters += document.savedCharacters;
+	}
+
+	/**
+	 * Appends the given constant ``content`` to the current
+	 * document as its own segment. Content is shared rather
+	 * than copied, so it should be immutable.
+	 * 
+	 * @param content Rendered content to append to the document.
+	 */
+	public final void segment(final CharSequence content) {
+		seal();
+		segments.add(content);
+	}
+
+	/**
+	 * Completes the current segment, if not empty,
+	 * and starts a new one.
+	 */
+	private void seal() {
+		if (buffer.length() > 0) {
+			segments.add(buffer);
+			buffer = acquire(0);
+		}
+	}
+
+	/**
+	 * Returns segments this document is made of.
+	 * 
+	 * @return Document segments.
+	 */
+	public final List<CharSequence> getSegments() {
+		seal();
+		return Collections.unmodifiableList(segments);
+	}
+
 	/**
 	 * Builds and returns the document content.
 	 * 
@@ -292,7 +621,36 @@ public class MarkdownDocumentBuilder {
 	 * @see StringBuffer#toString()
 	 */
 	public final String build() {
-		return buffer.toString();
+		final StringBuffer content = new StringBuffer();
+		for (final CharSequence segment : getSegments()) {
+			content.append(segment);
+		}
+		return content.toString();
+	}
+
+	/**
+	 * Position of an inline link target, which could
+	 * be rewritten as a reference later on.
+	 */
+	private static final class Occurrence {
+
+		/** Buffer the target is written in. **/
+		private final StringBuffer buffer;
+
+		/** Offset of the opening parenthesis of the target. **/
+		private int start;
+
+		/**
+		 * Default constructor.
+		 * 
+		 * @param buffer Buffer the target is written in.
+		 * @param start Offset of the opening parenthesis of the target.
+		 */
+		private Occurrence(final StringBuffer buffer, final int start) {
+			this.buffer = buffer;
+			this.start = start;
+		}
+
 	}
 
 }
@@ -1,11 +1,20 @@
 package fr.faylixe.marklet;
 
 import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.sun.javadoc.*;
 
@@ -25,15 +34,124 @@ public final class Marklet {
 	/** Documentation root provided by the doclet API. **/
 	private final RootDoc root;
 
+	/** Snapshot that records the documentation model, ``null`` if disabled. **/
+	private final DocSnapshot snapshot;
+
+	/** Index of rendered packages. **/
+	private final ShardIndex shardIndex;
+
+	/** Session this execution belongs to, ``null`` if standalone. **/
+	private final MarkletSession session;
+
+	/** Shared generation state, created when generation starts. **/
+	private MarkletContext context;
+
+	/** Index of documented classes and members, ``null`` if not generated. **/
+	private GlobalIndex globalIndex;
+
+	/** Journal of completed pages, ``null`` within a session. **/
+	private GenerationJournal journal;
+
+	/** State that skipped class pages are rendered with, for collecting usages and tags only. **/
+	private MarkletContext replayContext;
+
+	/** Number of pages that could not be generated. **/
+	private int failures;
+
+	/** Time at which generation should stop, in nanoseconds, only relevant if a deadline is set. **/
+	private long deadline;
+
+	/** Pages skipped once the deadline has been reached. **/
+	private final List<String> skipped;
+
+	/** Cost of the generation, ``null`` unless in dry run. **/
+	private GenerationCost cost;
+
+	/** Sink that writes gzip sidecars, ``null`` if disabled. **/
+	private GzipPageSink gzip;
+
+	/** Memory governor held by the generation, ``null`` if disabled. **/
+	private MemoryGovernor governor;
+
+	/** Number of recorded memory governor decisions when generation started. **/
+	private int governorMark;
+
+	/** Number of memory pressures that have been handled. **/
+	private long pressures;
+
+	/** Number of skipped pages by package. **/
+	private final Map<String, Integer> skippedPackages;
+
+	/** Name of the file that lists skipped pages, into index directory. **/
+	private static final String SKIPPED_FILE = "skipped.list";
+
+	/** Name of the package pages phase, in dry run report. **/
+	private static final String PACKAGES_PHASE = "package pages";
+
+	/** Name of the class pages phase, in dry run report. **/
+	private static final String CLASSES_PHASE = "class pages";
+
+	/** Name of the global pages phase, in dry run report. **/
+	private static final String GLOBAL_PHASE = "global pages";
+
 	/**
 	 * Default constructor.
 	 * 
 	 * @param options Command line options that have been parsed.
 	 * @param root Documentation root provided by the doclet API.
+	 * @param snapshot Snapshot that records the documentation model, ``null`` if disabled.
 	 */
-	private Marklet(final MarkletOptions options, final RootDoc root) {
+	private Marklet(final MarkletOptions options, final RootDoc root, final DocSnapshot snapshot) {
 		this.root = root;
 		this.options = options;
+		this.snapshot = snapshot;
+		this.shardIndex = new ShardIndex(ShardIndex.getFingerprint(root));
+		this.session = MarkletSession.current();
+		this.skipped = new ArrayList<>();
+		this.skippedPackages = new TreeMap<>();
+	}
+
+	/**
+	 * Indicates if the generation time budget, if any, is exhausted.
+	 * It is checked between pages, so every written page is complete.
+	 * 
+	 * @return ``true`` if remaining pages should be skipped, ``false`` otherwise.
+	 */
+	private boolean isExpired() {
+		return options.getDeadline() > 0 && System.nanoTime() - deadline >= 0;
+	}
+
+	/**
+	 * Starts measuring the generation phase with the
+	 * given ``name``, if in dry run.
+	 * 
+	 * @param name Name of the phase.
+	 */
+	private void startPhase(final String name) {
+		if (cost != null) {
+			cost.start(name);
+		}
+	}
+
+	/**
+	 * Records that the given ``page`` has been skipped.
+	 * 
+	 * @param packageName Name of the package the page belongs to.
+	 * @param page Description of the skipped page.
+	 */
+	private void skip(final String packageName, final String page) {
+		skipped.add(page);
+		skippedPackages.merge(packageName, 1, Integer::sum);
+	}
+
+	/**
+	 * Indicates if the whole documentation is generated, rather
+	 * than a part of it within a session.
+	 * 
+	 * @return ``true`` if every page is generated, ``false`` otherwise.
+	 */
+	private boolean isFullGeneration() {
+		return session == null || session.getMode() == MarkletSession.Mode.FULL;
 	}
 
 	/**
@@ -46,11 +164,23 @@ public final class Marklet {
 	 */
 	private Path getPackageDirectory(final String packageName) {
 		final String directory = packageName.replace('.', '/');
-		final String path = new StringBuilder()
-			.append(options.getOutputDirectory())
-			.append(directory)
-			.toString();
-		return Paths.get(path);
+		return Paths.get(options.getOutputDirectory()).resolve(directory);
+	}
+
+	/**
+	 * Indicates if the given ``packageDoc`` belongs to the
+	 * shard to render. Packages are partitioned using their
+	 * name hash, which is stable across executions.
+	 * 
+	 * @param packageDoc Package to check.
+	 * @return ``true`` if the package should be rendered, ``false`` otherwise.
+	 */
+	private boolean isInShard(final PackageDoc packageDoc) {
+		if (!options.isSharded()) {
+			return true;
+		}
+		final int shard = Math.floorMod(packageDoc.name().hashCode(), options.getShardCount());
+		return shard == options.getShardIndex() - 1;
 	}
 
 	/**
@@ -65,15 +195,56 @@ public final class Marklet {
 		root.printNotice("Generates package documentation for " + name);
 		if (!name.isEmpty()) {
 			final Path directoryPath = getPackageDirectory(name);
-			if (!Files.exists(directoryPath)) {
+			if (!options.isDryRun() && !Files.exists(directoryPath)) {
 				Files.createDirectories(directoryPath);
 			}
-			PackagePageBuilder.build(packageDoc, directoryPath);
+			PackagePageBuilder.build(context, packageDoc, directoryPath);
 			return directoryPath;
 		}
 		return Paths.get(".");
 	}
 
+	/**
+	 * Generates package documentation for the given ``packageDoc``,
+	 * unless already journaled. A failure is reported and does not
+	 * stop the generation.
+	 * 
+	 * @param packageDoc Package to generate documentation for.
+	 * @throws IOException If any error occurs while writing journal.
+	 */
+	private void buildPackage(final PackageDoc packageDoc) throws IOException {
+		final String name = packageDoc.name();
+		if (journal != null && journal.isCompleted(GenerationJournal.PACKAGE, name)) {
+			return;
+		}
+		if (isExpired()) {
+			skip(name, GenerationJournal.PACKAGE + ' ' + name);
+			return;
+		}
+		try {
+			generatePackage(packageDoc);
+		}
+		catch (final IOException | RuntimeException e) {
+			reportFailure("package " + name, e);
+			return;
+		}
+		if (journal != null) {
+			journal.complete(GenerationJournal.PACKAGE, name);
+		}
+	}
+
+	/**
+	 * Reports that the page of the given ``element`` could not be
+	 * generated, so it is retried when generation is resumed.
+	 * 
+	 * @param element Description of the documented element.
+	 * @param e Cause of the failure.
+	 */
+	private void reportFailure(final String element, final Exception e) {
+		failures++;
+		root.printError("Unable to generate documentation for " + element + " : " + e);
+	}
+
 	/**
 	 * Generates documentation file for each package.
 	 * 
@@ -81,12 +252,17 @@ public final class Marklet {
 	 */
 	private void buildPackages() throws IOException {
 		// TODO : Consider method root.specifiedPackages();
-		final Set<PackageDoc> packages = new HashSet<PackageDoc>(); // TODO : Ensures 
+		final Set<PackageDoc> visited = new HashSet<PackageDoc>(); // TODO : Ensures 
 		for (final ClassDoc classDoc : root.classes()) {
 			final PackageDoc packageDoc = classDoc.containingPackage();
-			if (!packages.contains(packageDoc)) {
-				packages.add(packageDoc);
-				generatePackage(packageDoc);
+			if (!visited.contains(packageDoc)) {
+				visited.add(packageDoc);
+				if (isInShard(packageDoc)) {
+					if (session == null || session.getMode() != MarkletSession.Mode.CLASSES) {
+						buildPackage(packageDoc);
+					}
+					shardIndex.add(packageDoc);
+				}
 			}
 		}
 	}
@@ -96,14 +272,506 @@ public final class Marklet {
 	 *	enumerations, interfaces, or annotations.
 	 * 
 	 * @throws IOException If any error occurs during generation process.
+	 * @throws InterruptedException If interrupted while waiting for memory.
 	 */
-	private void buildClasses() throws IOException {
-		for (final ClassDoc classDoc : root.classes()) {
+	private void buildClasses() throws IOException, InterruptedException {
+		final List<ClassDoc> classes = options.getDeadline() > 0
+				? GenerationOrder.sort(root.classes(), options.getPriority())
+				: Arrays.asList(root.classes());
+		for (final ClassDoc classDoc : classes) {
 			final PackageDoc packageDoc = classDoc.containingPackage();
+			if (!isInShard(packageDoc)) {
+				continue;
+			}
+			if (isExpired() && (journal == null || !journal.isCompleted(GenerationJournal.CLASS, classDoc.qualifiedName()))) {
+				skip(packageDoc.name(), GenerationJournal.CLASS + ' ' + classDoc.qualifiedName());
+				continue;
+			}
 			final String packageName = packageDoc.name();
 			final Path packageDirectory = getPackageDirectory(packageName);
+			if (cost == null || cost.isSampled(classDoc)) {
+				buildClass(classDoc, packageDirectory);
+			}
+			if (globalIndex != null) {
+				globalIndex.add(context, classDoc);
+			}
+			relieveMemory();
+		}
+	}
+
+	/**
+	 * Releases memory held by this generation once the heap
+	 * went under pressure since the last check : pooled page
+	 * buffers are dropped and buffered index entries are spilled.
+	 * 
+	 * @throws IOException If any error occurs while spilling index entries.
+	 */
+	private void relieveMemory() throws IOException {
+		final MemoryGovernor governor = context.getGovernor();
+		if (governor == null || governor.getPressures() == pressures) {
+			return;
+		}
+		pressures = governor.getPressures();
+		context.getBufferPool().trim();
+		if (globalIndex != null) {
+			globalIndex.spill();
+		}
+	}
+
+	/**
+	 * Generates documentation for the given ``classDoc``, unless
+	 * already journaled. A skipped class is still rendered without
+	 * being written when usages or tags are collected, as global pages
+	 * need them. A failure is reported and does not stop the generation.
+	 * When memory is governed, rendering waits until the page is
+	 * allowed in flight.
+	 * 
+	 * @param classDoc Class to generate documentation for.
+	 * @param packageDirectory Directory of the class package.
+	 * @throws IOException If any error occurs while writing journal.
+	 * @throws InterruptedException If interrupted while waiting for memory.
+	 */
+	private void buildClass(final ClassDoc classDoc, final Path packageDirectory) throws IOException, InterruptedException {
+		final String name = classDoc.qualifiedName();
+		final boolean completed = journal != null && journal.isCompleted(GenerationJournal.CLASS, name);
+		if (completed && replayContext == null) {
+			return;
+		}
+		if (!completed) {
 			root.printNotice("Generates documentation for " + classDoc.name());
-			ClassPageBuilder.build(classDoc, packageDirectory);				
+		}
+		final MemoryGovernor governor = context.getGovernor();
+		if (governor != null) {
+			governor.acquire();
+		}
+		try {
+			ClassPageBuilder.build(completed ? replayContext : context, classDoc, packageDirectory);
+		}
+		catch (final IOException | RuntimeException e) {
+			reportFailure("class " + name, e);
+			return;
+		}
+		finally {
+			if (governor != null) {
+				governor.release();
+			}
+		}
+		if (journal != null) {
+			journal.complete(GenerationJournal.CLASS, name);
+		}
+	}
+
+	/**
+	 * Opens the generation journal, resuming the previous one if
+	 * requested. The journal is bound to Marklet options, except
+	 * the resume option itself.
+	 * 
+	 * @param outputDirectory Output directory to write journal in.
+	 * @throws IOException If any error occurs while reading or writing journal.
+	 */
+	private void openJournal(final Path outputDirectory) throws IOException {
+		final String [][] rawOptions = Arrays
+				.stream(root.options())
+				.filter(option -> !MarkletOptions.isResumeOption(option[0]))
+				.toArray(String [][]::new);
+		final String fingerprint = Integer.toHexString(Arrays.deepHashCode(rawOptions));
+		final String name = GenerationJournal.getFileName(options.getShardIndex(), options.getShardCount());
+		journal = GenerationJournal.open(outputDirectory.resolve(ShardIndex.DIRECTORY).resolve(name), fingerprint, options.isResume());
+		if (options.isResume()) {
+			root.printNotice("Resumes generation, " + journal.getResumed() + " pages already done");
+			if (journal.getResumed() > 0 && (context.getUsageIndex() != null || context.getTagIndex() != null)) {
+				// NOTE : Usages and tags are collected while rendering, so skipped classes are rendered without being written.
+				replayContext = new MarkletContext(options, context.getFragmentCache(), context.getUsageIndex(), context.getTagIndex(), context.getSourceIndex(), null, context.getClassTemplate(), context.getPackageTemplate(), (path, buffers) -> { }, null, context.getGovernor());
+			}
+		}
+	}
+
+	/**
+	 * Reports pages skipped because of the deadline, grouped by
+	 * package, and lists them into the index directory of the
+	 * given ``outputDirectory``. A previous list is deleted if
+	 * no page has been skipped.
+	 * 
+	 * @param outputDirectory Output directory to write list in.
+	 * @throws IOException If any error occurs while writing list.
+	 */
+	private void reportSkipped(final Path outputDirectory) throws IOException {
+		final Path path = outputDirectory.resolve(ShardIndex.DIRECTORY).resolve(SKIPPED_FILE);
+		if (skipped.isEmpty()) {
+			Files.deleteIfExists(path);
+			return;
+		}
+		root.printWarning("Deadline reached, " + skipped.size() + " pages have been skipped and are listed into " + path);
+		skippedPackages.forEach((name, count) -> root.printNotice("Skipped " + count + " pages of " + (name.isEmpty() ? "root" : name)));
+		if (journal != null) {
+			root.printNotice("Use -resume in order to generate skipped pages only");
+		}
+		Files.createDirectories(path.getParent());
+		Files.write(path, skipped, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Closes the generation journal if any. It is deleted
+	 * if every page has been generated.
+	 * 
+	 * @param done ``true`` if generation has been completed, ``false`` otherwise.
+	 */
+	private void closeJournal(final boolean done) {
+		if (journal != null) {
+			try {
+				if (done && failures == 0) {
+					journal.delete();
+				}
+				else {
+					journal.close();
+				}
+			}
+			catch (final IOException e) {
+				root.printWarning("Unable to close generation journal : " + e.getMessage());
+			}
+			journal = null;
+		}
+	}
+
+	/**
+	 * Generates the overview page and the alphabetical index
+	 * pages into the given ``outputDirectory``. In a sharded
+	 * generation, they are written by {@link MarkletMerge}.
+	 * 
+	 * @param outputDirectory Output directory to write pages in.
+	 * @throws IOException If any error occurs during generation process.
+	 */
+	private void buildIndex(final Path outputDirectory) throws IOException {
+		root.printNotice("Generates overview and index pages for " + globalIndex.getCount() + " entries, " + globalIndex.getSpilledRuns() + " spilled runs");
+		IndexPageBuilder.build(context, globalIndex, outputDirectory);
+		OverviewPageBuilder.build(context, shardIndex.getPackages(), globalIndex.getLetters(), outputDirectory);
+	}
+
+	/**
+	 * Writes partial files of this shard into the index directory
+	 * of the given ``outputDirectory`` : the index of rendered
+	 * packages, alphabetical index entries, and usages and tags
+	 * if enabled, which are merged by {@link MarkletMerge} into
+	 * global pages. Partial files of a disabled feature that a
+	 * previous generation may have left are deleted.
+	 * 
+	 * @param outputDirectory Output directory to write partial files in.
+	 * @throws IOException If any error occurs while writing partial files.
+	 */
+	private void writePartials(final Path outputDirectory) throws IOException {
+		final Path directory = outputDirectory.resolve(ShardIndex.DIRECTORY);
+		final int index = options.getShardIndex();
+		final int count = options.getShardCount();
+		final String fingerprint = shardIndex.getFingerprint();
+		shardIndex.write(directory.resolve(ShardIndex.getFileName(index, count)));
+		globalIndex.write(directory.resolve(ShardIndex.getFileName(index, count, GlobalIndex.PARTIAL_SUFFIX)), fingerprint);
+		final Path usages = directory.resolve(ShardIndex.getFileName(index, count, UsageIndex.PARTIAL_SUFFIX));
+		if (context.getUsageIndex() != null) {
+			context.getUsageIndex().write(usages, fingerprint);
+		}
+		else {
+			Files.deleteIfExists(usages);
+		}
+		final Path tags = directory.resolve(ShardIndex.getFileName(index, count, TagIndex.PARTIAL_SUFFIX));
+		if (context.getTagIndex() != null) {
+			context.getTagIndex().write(tags, fingerprint);
+		}
+		else {
+			Files.deleteIfExists(tags);
+		}
+	}
+
+	/**
+	 * Retrieves the charset of source files, from the
+	 * javadoc ``-encoding`` option if provided.
+	 * 
+	 * @return Charset of source files.
+	 */
+	private Charset getSourceCharset() {
+		final String encoding = options.getEncoding();
+		if (encoding == null || !Charset.isSupported(encoding)) {
+			return Charset.defaultCharset();
+		}
+		return Charset.forName(encoding);
+	}
+
+	/**
+	 * Loads the persistent fragment cache if enabled.
+	 * 
+	 * @return Loaded cache, ``null`` if disabled.
+	 * @throws IOException If any error occurs while reading cache file.
+	 */
+	private FragmentCache loadFragmentCache() throws IOException {
+		final String directory = options.getCacheDirectory();
+		if (directory == null) {
+			return null;
+		}
+		final FragmentCache cache = FragmentCache.load(Paths.get(directory), options.getCacheSize());
+		root.printNotice("Using fragment cache from " + directory);
+		return cache;
+	}
+
+	/**
+	 * Loads the class page template if given.
+	 * 
+	 * @return Compiled template, ``null`` for built-in layout.
+	 * @throws IOException If any error occurs while reading template, or if it is invalid.
+	 */
+	private PageTemplate<ClassPageBuilder> loadClassTemplate() throws IOException {
+		final String file = options.getClassTemplate();
+		return file == null ? null : ClassPageBuilder.loadTemplate(Paths.get(file));
+	}
+
+	/**
+	 * Loads the package page template if given.
+	 * 
+	 * @return Compiled template, ``null`` for built-in layout.
+	 * @throws IOException If any error occurs while reading template, or if it is invalid.
+	 */
+	private PageTemplate<PackagePageBuilder> loadPackageTemplate() throws IOException {
+		final String file = options.getPackageTemplate();
+		return file == null ? null : PackagePageBuilder.loadTemplate(Paths.get(file));
+	}
+
+	/**
+	 * Creates the content addressed page store if enabled.
+	 * 
+	 * @param outputDirectory Output directory that pages are linked into.
+	 * @return Created store, ``null`` if disabled.
+	 * @throws IOException If store directory could not be created.
+	 */
+	private PageStore createPageStore(final Path outputDirectory) throws IOException {
+		final String directory = options.getStoreDirectory();
+		if (directory == null) {
+			return null;
+		}
+		root.printNotice("Using page store from " + directory);
+		// NOTE : Resumed and sharded generations do not write every page either.
+		final boolean partial = !isFullGeneration() || options.isResume() || options.isSharded();
+		return new PageStore(Paths.get(directory), outputDirectory, partial);
+	}
+
+	/**
+	 * Saves the manifest of pages linked to the given ``store``, if enabled.
+	 * 
+	 * @param store Page store pages have been written into, ``null`` if disabled.
+	 * @throws IOException If any error occurs while writing manifest file.
+	 */
+	private void saveStoreManifest(final PageStore store) throws IOException {
+		if (store == null) {
+			return;
+		}
+		root.printNotice("Page store : " + store.getStored() + " new pages, " + store.getShared() + " shared pages");
+		if (store.getCopied() > 0) {
+			root.printWarning(store.getCopied() + " pages have been copied from the store, as they could not be linked");
+		}
+		store.save();
+	}
+
+	/**
+	 * Wraps the given ``sink`` into a sink that writes gzip
+	 * sidecars, if enabled.
+	 * 
+	 * @param sink Sink pages are written through.
+	 * @return Wrapping sink, or the given one if disabled.
+	 */
+	private PageSink createGzipSink(final PageSink sink) {
+		if (options.getGzipLevel() == 0) {
+			return sink;
+		}
+		root.printNotice("Writes gzip sidecars with compression level " + options.getGzipLevel());
+		gzip = new GzipPageSink(sink, options.getGzipLevel());
+		return gzip;
+	}
+
+	/**
+	 * Retrieves the memory governor, if enabled.
+	 * 
+	 * @return Governor of pages in flight, ``null`` if disabled.
+	 */
+	private MemoryGovernor createGovernor() {
+		if (options.getMemoryThreshold() == 0) {
+			return null;
+		}
+		root.printNotice("Throttles generation from " + options.getMemoryThreshold() + "% of heap occupancy");
+		governor = MemoryGovernor.get(options.getMemoryThreshold(), root::printWarning);
+		governorMark = governor.getDecisionCount();
+		pressures = governor.getPressures();
+		return governor;
+	}
+
+	/**
+	 * Reports written gzip sidecars, if enabled.
+	 */
+	private void reportGzip() {
+		if (gzip != null) {
+			root.printNotice("Gzip sidecars : "
+					+ gzip.getPages() + " pages, "
+					+ gzip.getInputBytes() / 1024 + " KB compressed to "
+					+ gzip.getOutputBytes() / 1024 + " KB");
+		}
+	}
+
+	/**
+	 * Releases compression resources of the gzip sidecar sink, if any.
+	 */
+	private void closeGzip() {
+		if (gzip != null) {
+			gzip.close();
+			gzip = null;
+		}
+	}
+
+	/**
+	 * Releases the memory governor held by the generation, if any.
+	 */
+	private void closeGovernor() {
+		if (governor != null) {
+			governor.close();
+			governor = null;
+		}
+	}
+
+	/**
+	 * Loads size of pages written by the previous generation
+	 * into the given ``outputDirectory``, if any.
+	 * 
+	 * @param outputDirectory Output directory to load page sizes of.
+	 * @return Loaded page sizes.
+	 * @throws IOException If any error occurs while reading sizes file.
+	 */
+	private PageSizeHints loadPageSizes(final Path outputDirectory) throws IOException {
+		final String name = PageSizeHints.getFileName(options.getShardIndex(), options.getShardCount());
+		final PageSizeHints pageSizes = PageSizeHints.load(outputDirectory, name);
+		if (pageSizes.getLoaded() > 0) {
+			root.printNotice("Using " + pageSizes.getLoaded() + " page sizes from previous generation");
+		}
+		return pageSizes;
+	}
+
+	/**
+	 * Saves size of written pages for the next generation,
+	 * unless no page has been written.
+	 * 
+	 * @throws IOException If any error occurs while writing sizes file.
+	 */
+	private void savePageSizes() throws IOException {
+		if (!options.isDryRun()) {
+			context.getPageSizes().save();
+		}
+	}
+
+	/**
+	 * Retrieves the number of garbage collections since
+	 * the JVM started, and the time they took.
+	 * 
+	 * @return Collection count and time in milliseconds.
+	 */
+	private static long [] getCollections() {
+		final long [] collections = new long[2];
+		for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			collections[0] += Math.max(0, bean.getCollectionCount());
+			collections[1] += Math.max(0, bean.getCollectionTime());
+		}
+		return collections;
+	}
+
+	/**
+	 * Reports page buffers reuse and presizing, along with
+	 * garbage collections that occurred during generation, and
+	 * memory governor decisions if enabled.
+	 * 
+	 * @param collections Collection count and time when generation started.
+	 */
+	private void reportBuffers(final long [] collections) {
+		final BufferPool pool = context.getBufferPool();
+		final MarkletMetrics metrics = context.getMetrics();
+		final long acquired = pool.getAcquired();
+		final long [] current = getCollections();
+		root.printNotice("Page buffers : "
+				+ acquired + " acquired, "
+				+ (acquired == 0 ? 0 : pool.getReused() * 100 / acquired) + "% reused, "
+				+ pool.getDropped() + " dropped");
+		root.printNotice("Page sizes : "
+				+ metrics.getHintedPages() + " hinted, "
+				+ metrics.getEstimatedPages() + " estimated, "
+				+ metrics.getUndersizedPages() + " undersized");
+		root.printNotice("Garbage collection : "
+				+ (current[0] - collections[0]) + " collections, "
+				+ (current[1] - collections[1]) + " ms");
+		if (context.getGovernor() != null) {
+			context.getGovernor().report(root::printNotice, governorMark);
+		}
+	}
+
+	/**
+	 * Saves the persistent fragment cache if enabled.
+	 * 
+	 * @throws IOException If any error occurs while writing cache file.
+	 */
+	private void saveFragmentCache() throws IOException {
+		final FragmentCache cache = context.getFragmentCache();
+		if (cache != null) {
+			root.printNotice("Fragment cache : " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+			if (!options.isDryRun()) {
+				cache.save();
+			}
+		}
+	}
+
+	/**
+	 * Generates usage page for each package, once
+	 * every class page has been generated.
+	 * 
+	 * @throws IOException If any error occurs during generation process.
+	 */
+	private void buildUsages() throws IOException {
+		for (final ShardIndex.Entry entry : shardIndex.getPackages()) {
+			if (!entry.getName().isEmpty()) {
+				root.printNotice("Generates usage page for " + entry.getName());
+				UsagePageBuilder.build(context, entry, getPackageDirectory(entry.getName()));
+			}
+		}
+	}
+
+	/**
+	 * Generates tag report pages into the given ``outputDirectory``.
+	 * In a sharded generation, they are written by {@link MarkletMerge}.
+	 * 
+	 * @param outputDirectory Output directory to write reports in.
+	 * @throws IOException If any error occurs during generation process.
+	 */
+	private void buildReports(final Path outputDirectory) throws IOException {
+		root.printNotice("Generates tag report pages");
+		ReportPageBuilder.build(context, context.getTagIndex(), outputDirectory);
+	}
+
+	/**
+	 * Writes signatures of the documented API into the index
+	 * directory, and generates the API changes page when a
+	 * previous signature file is given. Every shard sees the
+	 * whole documentation model, so only the first one does it.
+	 * 
+	 * @param outputDirectory Output directory to write signatures and page in.
+	 * @throws IOException If any error occurs during generation process.
+	 */
+	private void buildApiSignatures(final Path outputDirectory) throws IOException {
+		if (options.isSharded() && options.getShardIndex() != 1) {
+			return;
+		}
+		final ApiSignatures signatures = ApiSignatures.collect(context, root.classes());
+		final String previous = options.getApiDiffFile();
+		if (previous != null) {
+			root.printNotice("Generates API changes page against " + previous);
+			final ApiSignatures.Difference difference = signatures.compare(Paths.get(previous));
+			root.printNotice("API changes : "
+					+ difference.getAdded().size() + " added, "
+					+ difference.getRemoved().size() + " removed, "
+					+ difference.getChanged().size() + " changed");
+			ApiDiffPageBuilder.build(context, difference, outputDirectory);
+		}
+		if (!options.isDryRun()) {
+			signatures.write(outputDirectory.resolve(ShardIndex.DIRECTORY).resolve(ApiSignatures.FILE_NAME));
 		}
 	}
 
@@ -112,22 +780,138 @@ public final class Marklet {
 	 * @return <tt>true</tt> if generation was successfull, <tt>false</tt> otherwise.
 	 */
 	private boolean start() {
+		boolean done = false;
+		deadline = System.nanoTime() + options.getDeadline() * 1000000;
+		final long [] collections = getCollections();
 		try {
 			final Path outputDirectory = Paths.get(options.getOutputDirectory());
-			root.printNotice("Target output directory : " + outputDirectory.toAbsolutePath().toString());
-			if (!Files.exists(outputDirectory)) {
-				Files.createDirectories(outputDirectory);
+			if (options.isPreview()) {
+				// NOTE : Pages are rendered on request, with their own services only.
+				final PreviewServer server = new PreviewServer(root, options);
+				server.serve(new MarkletContext(options, null, null, null, null, null, loadClassTemplate(), loadPackageTemplate(), server, null, null), options.getPreviewPort());
+				return true;
 			}
+			if (options.isDryRun()) {
+				root.printNotice("Dry run, no page is written");
+			}
+			else {
+				root.printNotice("Target output directory : " + outputDirectory.toAbsolutePath().toString());
+				if (!Files.exists(outputDirectory)) {
+					Files.createDirectories(outputDirectory);
+				}
+			}
+			final UsageIndex usageIndex = options.isUsage() ? new UsageIndex(options.getUsageLimit()) : null;
+			final TagIndex tagIndex = options.isReports() ? new TagIndex() : null;
+			final SourceIndex sourceIndex = options.isExcerpts() ? new SourceIndex(getSourceCharset()) : null;
+			final PageStore store = options.isDryRun() ? null : createPageStore(outputDirectory);
+			final PageSink sink;
+			if (options.isDryRun()) {
+				final CountingPageSink counter = new CountingPageSink();
+				cost = new GenerationCost(counter, options.getDryRunSample());
+				sink = counter;
+			}
+			else {
+				sink = createGzipSink(store == null ? FilePageSink.INSTANCE : store);
+			}
+			context = new MarkletContext(options, loadFragmentCache(), usageIndex, tagIndex, sourceIndex, session, loadClassTemplate(), loadPackageTemplate(), sink, loadPageSizes(outputDirectory), createGovernor());
+			if (session != null) {
+				session.record(root.classes());
+			}
+			else if (!options.isDryRun()) {
+				openJournal(outputDirectory);
+			}
+			if (isFullGeneration()) {
+				globalIndex = new GlobalIndex(options.getIndexBuffer());
+			}
+			startPhase(PACKAGES_PHASE);
 			buildPackages();
+			startPhase(CLASSES_PHASE);
 			buildClasses();
+			startPhase(GLOBAL_PHASE);
+			saveFragmentCache();
+			if (!isFullGeneration()) {
+				// NOTE : Other pages need the whole model, they are kept as is.
+				saveStoreManifest(store);
+				reportGzip();
+				savePageSizes();
+				reportBuffers(collections);
+				return true;
+			}
+			if (isExpired()) {
+				// NOTE : Global pages would link to skipped pages, so they are skipped too.
+				skip("", "overview, index, usage, report and API pages");
+			}
+			else {
+				if (!options.isSharded()) {
+					buildIndex(outputDirectory);
+					if (usageIndex != null) {
+						buildUsages();
+					}
+					if (tagIndex != null) {
+						buildReports(outputDirectory);
+					}
+				}
+				buildApiSignatures(outputDirectory);
+			}
+			if (options.isCompact()) {
+				root.printNotice("Reference style links saved " + context.getMetrics().getSavedCharacters() + " characters over " + context.getMetrics().getPages() + " pages");
+			}
+			reportBuffers(collections);
+			if (cost != null) {
+				cost.report(root::printNotice, CLASSES_PHASE);
+				return true;
+			}
+			if (options.isSharded()) {
+				writePartials(outputDirectory);
+				root.printNotice("Shard " + options.getShardIndex() + "/" + options.getShardCount() + " done, MarkletMerge should be run once every shard is done");
+			}
+			if (snapshot != null) {
+				root.printNotice("Writes documentation model snapshot to " + options.getSnapshotFile());
+				snapshot.write(Paths.get(options.getSnapshotFile()));
+			}
+			saveStoreManifest(store);
+			reportGzip();
+			savePageSizes();
+			reportSkipped(outputDirectory);
+			done = skipped.isEmpty();
 		}
 		catch (final IOException e) {
 			root.printError(e.getMessage());
 			return false;
 		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			root.printError("Generation interrupted, use -resume in order to complete it");
+			return false;
+		}
+		finally {
+			closeGzip();
+			closeGovernor();
+			closeIndex();
+			closeJournal(done);
+		}
+		if (failures > 0) {
+			root.printError(failures + " pages could not be generated, use -resume in order to retry them only");
+			return false;
+		}
 		return true;
 	}
 
+	/**
+	 * Closes the global index if any, which deletes its spilled runs.
+	 */
+	private void closeIndex() {
+		if (globalIndex != null) {
+			try {
+				globalIndex.close();
+			}
+			catch (final IOException e) {
+				root.printWarning("Unable to delete index runs : " + e.getMessage());
+			}
+			globalIndex = null;
+		}
+	}
+
 	/**
 	 * To document.
 	 * 
@@ -165,8 +949,27 @@ public final class Marklet {
 	 * @return ``true`` if the generation went well, ``false`` otherwise.
 	 */
 	public static boolean start(final RootDoc root) {
-		final MarkletOptions options = MarkletOptions.parse(root);
-		final Marklet marklet = new Marklet(options, root);
+		return start(MarkletOptions.parse(root), root);
+	}
+
+	/**
+	 * Starts a **Marklet** execution with the given
+	 * ``options``, over the given ``root`` which could
+	 * be provided by the doclet API or by a snapshot.
+	 * 
+	 * @param options Options to use for generation.
+	 * @param root Documentation root to generate documentation from.
+	 * @return ``true`` if the generation went well, ``false`` otherwise.
+	 */
+	static boolean start(final MarkletOptions options, final RootDoc root) {
+		final Marklet marklet;
+		if (options.getSnapshotFile() != null) {
+			final DocSnapshot snapshot = DocSnapshot.record(root);
+			marklet = new Marklet(options, snapshot.getRoot(), snapshot);
+		}
+		else {
+			marklet = new Marklet(options, root, null);
+		}
 		boolean result = false;
 		try {
 			result = marklet.start();
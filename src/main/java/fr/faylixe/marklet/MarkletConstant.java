@@ -23,12 +23,24 @@ public final class MarkletConstant {
 	/** Label for enumeration. **/
 	public static final String ENUMERATION = "Enumeration";
 
+	/** Label for overview. **/
+	public static final String OVERVIEW = "Overview";
+
+	/** Label for packages. **/
+	public static final String PACKAGES = "Packages";
+
 	/** Label for interfaces. **/
 	public static final String INTERFACES = "Interfaces";
 
 	/** Label for classes. **/
 	public static final String CLASSES = "Classes";
 
+	/** Label for exceptions. **/
+	public static final String EXCEPTIONS = "Exceptions";
+
+	/** Label for errors. **/
+	public static final String ERRORS = "Errors";
+
 	/** Label for annotations. **/
 	public static final String ANNOTATIONS = "Annotations";
 
@@ -44,12 +56,96 @@ public final class MarkletConstant {
 	/** Label for fields. **/
 	public static final String FIELDS = "Fields";
 
+	/** Label for enumeration constants. **/
+	public static final String ENUM_CONSTANTS = "Enum constants";
+
+	/** Label for annotation elements. **/
+	public static final String ELEMENTS = "Elements";
+
 	/** Package index filename. **/
 	public static final String README_LINK = "README.html";
 
 	/** Package index filename. **/
 	public static final String README_FILE = "README.html.md";
 
+	/** Package index name, without extension. **/
+	public static final String README = "README";
+
+	/** Package usage page link. **/
+	public static final String USAGE_LINK = "USAGE.html";
+
+	/** Package usage page filename. **/
+	public static final String USAGE_FILE = "USAGE.html.md";
+
+	/** Label for used by. **/
+	public static final String USED_BY = "Used by";
+
+	/** Title prefix of package usage page. **/
+	public static final String USAGE_OF_PACKAGE = "Usage of package";
+
+	/** Label for type without usage. **/
+	public static final String NO_USAGE = "No usage found.";
+
+	/** Label for type with more usage than listed. **/
+	public static final String MORE_USAGE = "And more...";
+
+	/** Deprecated list page filename. **/
+	public static final String DEPRECATED_FILE = "DEPRECATED.html.md";
+
+	/** Since version page filename. **/
+	public static final String SINCE_FILE = "SINCE.html.md";
+
+	/** API inventory page filename. **/
+	public static final String INVENTORY_FILE = "INVENTORY.html.md";
+
+	/** Title of deprecated list page. **/
+	public static final String DEPRECATED_API = "Deprecated API";
+
+	/** Title of since version page. **/
+	public static final String NEW_API = "New API by version";
+
+	/** Title of API inventory page. **/
+	public static final String API_INVENTORY = "API inventory";
+
+	/** Label for tags. **/
+	public static final String TAGS = "Tags";
+
+	/** Label for authors. **/
+	public static final String AUTHORS = "Authors";
+
+	/** Label for occurrences. **/
+	public static final String OCCURRENCES = "Occurrences";
+
+	/** Label for element without description. **/
+	public static final String NO_DESCRIPTION = "No description.";
+
+	/** Label for source link. **/
+	public static final String SOURCE = "Source";
+
+	/** Language of declaration excerpts. **/
+	public static final String JAVA = "java";
+
+	/** API changes file name. **/
+	public static final String API_CHANGES_FILE = "APIDIFF.html.md";
+
+	/** Label for API changes. **/
+	public static final String API_CHANGES = "API changes";
+
+	/** Label for added elements. **/
+	public static final String ADDED = "Added";
+
+	/** Label for removed elements. **/
+	public static final String REMOVED = "Removed";
+
+	/** Label for changed elements. **/
+	public static final String CHANGED = "Changed";
+
+	/** Separator between previous and current signatures of a changed element. **/
+	public static final String CHANGED_TO = " to ";
+
+	/** Label for section without change. **/
+	public static final String NO_CHANGE = "No change.";
+
 	/** Label for name. **/
 	public static final String NAME = "Name";
 
@@ -71,19 +167,66 @@ public final class MarkletConstant {
 	/** Header labels for methods summary. **/
 	public static final String [] METHODS_SUMMARY_HEADERS = {
 		"Type and modifiers",
-		"Method signature"
+		"Method signature",
+		"Description"
 	};
 
+	/** Label for constructor. **/
+	public static final String CONSTRUCTOR = "Constructor";
+
+	/** Label for method. **/
+	public static final String METHOD = "Method";
+
+	/** Label for field. **/
+	public static final String FIELD = "Field";
+
+	/** Label for enum constant. **/
+	public static final String ENUM_CONSTANT = "Enum constant";
+
+	/** Label for annotation type element. **/
+	public static final String ELEMENT = "Element";
+
+	/** Label for the alphabetical index. **/
+	public static final String INDEX = "Index";
+
+	/** Prefix of alphabetical index page names. **/
+	public static final String INDEX_PREFIX = "INDEX-";
+
+	/** Index letter for names that do not start with a letter. **/
+	public static final String OTHER = "Other";
+
+	/** Label for a kind of element. **/
+	public static final String KIND = "Kind";
+
+	/** Label for the container of an element. **/
+	public static final String CONTAINER = "Declared in";
+
 	/** Header labels for fields summary. **/
 	public static final String [] FIELDS_SUMMARY_HEADERS = {
 		"Type and modifiers",
-		"Field name"
+		"Field name",
+		"Description"
 	};
 	
+	/** Header labels for enumeration constants table. **/
+	public static final String [] ENUM_CONSTANTS_HEADERS = {
+		"Constant",
+		"Description"
+	};
+
+	/** Header labels for annotation elements table. **/
+	public static final String [] ELEMENTS_HEADERS = {
+		"Type",
+		"Element",
+		"Default value",
+		"Description"
+	};
+
 	/** Header labels for constructors summary. **/
 	public static final String [] CONSTRUCTOR_SUMMARY_HEADERS = {
 		"Visibility",
-		"Signature"
+		"Signature",
+		"Description"
 	};
 
 	/** Marklet link using dynamic badge. **/
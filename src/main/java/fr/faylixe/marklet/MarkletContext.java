@@ -0,0 +1,295 @@
+package fr.faylixe.marklet;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.Doc;
+import com.sun.javadoc.PackageDoc;
+
+/**
+ * Shared generation state that is handed to every
+ * page builder of a **Marklet** execution. It gives
+ * access to parsed options and to the services that
+ * live across pages.
+ *
+ * @author fv
+ */
+public final class MarkletContext {
+
+	/** Maximum number of characters of memoized summaries. **/
+	private static final long SUMMARIES_SIZE = 4L * 1024 * 1024;
+
+	/** Command line options that have been parsed. **/
+	private final MarkletOptions options;
+
+	/** Persistent cache of rendered description, ``null`` if disabled. **/
+	private final FragmentCache fragmentCache;
+
+	/** Reverse reference index, ``null`` if disabled. **/
+	private final UsageIndex usageIndex;
+
+	/** Block tags aggregation, ``null`` if disabled. **/
+	private final TagIndex tagIndex;
+
+	/** Index of mapped source files, ``null`` if disabled. **/
+	private final SourceIndex sourceIndex;
+
+	/** Session this execution belongs to, ``null`` if standalone. **/
+	private final MarkletSession session;
+
+	/** Class page template, ``null`` for built-in layout. **/
+	private final PageTemplate<ClassPageBuilder> classTemplate;
+
+	/** Package page template, ``null`` for built-in layout. **/
+	private final PageTemplate<PackagePageBuilder> packageTemplate;
+
+	/** Destination of rendered pages. **/
+	private final PageSink sink;
+
+	/** Size of pages from the previous generation, ``null`` if disabled. **/
+	private final PageSizeHints pageSizes;
+
+	/** Governor of pages in flight, ``null`` if disabled. **/
+	private final MemoryGovernor governor;
+
+	/** Pool of page buffers. **/
+	private final BufferPool bufferPool;
+
+	/** Counters updated during generation. **/
+	private final MarkletMetrics metrics;
+
+	/** Page layout by class, computed on demand. **/
+	private final ConcurrentMap<ClassDoc, ClassPageLayout> layouts;
+
+	/** First sentence summary by element and source package name, in access order. **/
+	private final LinkedHashMap<Map.Entry<Doc, String>, String> summaries;
+
+	/** Number of characters of memoized summaries. **/
+	private long summariesSize;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param options Command line options that have been parsed.
+	 * @param fragmentCache Persistent cache of rendered description, ``null`` if disabled.
+	 * @param usageIndex Reverse reference index, ``null`` if disabled.
+	 * @param tagIndex Block tags aggregation, ``null`` if disabled.
+	 * @param sourceIndex Index of mapped source files, ``null`` if disabled.
+	 * @param session Session this execution belongs to, ``null`` if standalone.
+	 * @param classTemplate Class page template, ``null`` for built-in layout.
+	 * @param packageTemplate Package page template, ``null`` for built-in layout.
+	 * @param sink Destination of rendered pages.
+	 * @param pageSizes Size of pages from the previous generation, ``null`` if disabled.
+	 * @param governor Governor of pages in flight, ``null`` if disabled.
+	 */
+	public MarkletContext(
+			final MarkletOptions options,
+			final FragmentCache fragmentCache,
+			final UsageIndex usageIndex,
+			final TagIndex tagIndex,
+			final SourceIndex sourceIndex,
+			final MarkletSession session,
+			final PageTemplate<ClassPageBuilder> classTemplate,
+			final PageTemplate<PackagePageBuilder> packageTemplate,
+			final PageSink sink,
+			final PageSizeHints pageSizes,
+			final MemoryGovernor governor) {
+		this.options = options;
+		this.fragmentCache = fragmentCache;
+		this.usageIndex = usageIndex;
+		this.tagIndex = tagIndex;
+		this.sourceIndex = sourceIndex;
+		this.session = session;
+		this.classTemplate = classTemplate;
+		this.packageTemplate = packageTemplate;
+		this.sink = sink;
+		this.pageSizes = pageSizes;
+		this.governor = governor;
+		this.bufferPool = new BufferPool();
+		this.metrics = new MarkletMetrics();
+		this.layouts = new ConcurrentHashMap<>();
+		this.summaries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Options getter.
+	 *
+	 * @return Command line options that have been parsed.
+	 */
+	public MarkletOptions getOptions() {
+		return options;
+	}
+
+	/**
+	 * Fragment cache getter.
+	 *
+	 * @return Persistent cache of rendered description, ``null`` if disabled.
+	 */
+	public FragmentCache getFragmentCache() {
+		return fragmentCache;
+	}
+
+	/**
+	 * Usage index getter.
+	 *
+	 * @return Reverse reference index, ``null`` if disabled.
+	 */
+	public UsageIndex getUsageIndex() {
+		return usageIndex;
+	}
+
+	/**
+	 * Tag index getter.
+	 *
+	 * @return Block tags aggregation, ``null`` if disabled.
+	 */
+	public TagIndex getTagIndex() {
+		return tagIndex;
+	}
+
+	/**
+	 * Source index getter.
+	 *
+	 * @return Index of mapped source files, ``null`` if disabled.
+	 */
+	public SourceIndex getSourceIndex() {
+		return sourceIndex;
+	}
+
+	/**
+	 * Class template getter.
+	 *
+	 * @return Class page template, ``null`` for built-in layout.
+	 */
+	public PageTemplate<ClassPageBuilder> getClassTemplate() {
+		return classTemplate;
+	}
+
+	/**
+	 * Package template getter.
+	 *
+	 * @return Package page template, ``null`` for built-in layout.
+	 */
+	public PageTemplate<PackagePageBuilder> getPackageTemplate() {
+		return packageTemplate;
+	}
+
+	/**
+	 * Sink getter.
+	 *
+	 * @return Destination of rendered pages.
+	 */
+	public PageSink getSink() {
+		return sink;
+	}
+
+	/**
+	 * Page sizes getter.
+	 *
+	 * @return Size of pages from the previous generation, ``null`` if disabled.
+	 */
+	public PageSizeHints getPageSizes() {
+		return pageSizes;
+	}
+
+	/**
+	 * Governor getter.
+	 *
+	 * @return Governor of pages in flight, ``null`` if disabled.
+	 */
+	public MemoryGovernor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Buffer pool getter.
+	 *
+	 * @return Pool of page buffers.
+	 */
+	public BufferPool getBufferPool() {
+		return bufferPool;
+	}
+
+	/**
+	 * Session getter.
+	 *
+	 * @return Session this execution belongs to, ``null`` if standalone.
+	 */
+	public MarkletSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Indicates if the given ``classDoc`` has a documentation
+	 * page to link to. A class that is not part of this execution
+	 * could have been documented by a previous execution of the
+	 * same session.
+	 *
+	 * @param classDoc Class to check.
+	 * @return ``true`` if the class has a page, ``false`` otherwise.
+	 */
+	public boolean isDocumented(final ClassDoc classDoc) {
+		return classDoc.isIncluded() || (session != null && session.isKnown(classDoc));
+	}
+
+	/**
+	 * Metrics getter.
+	 *
+	 * @return Counters updated during generation.
+	 */
+	public MarkletMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Retrieves the page layout of the given ``classDoc``,
+	 * using page budgets from options.
+	 *
+	 * @param classDoc Class to get layout for.
+	 * @return Page layout of the class.
+	 */
+	public ClassPageLayout getLayout(final ClassDoc classDoc) {
+		return layouts.computeIfAbsent(
+				classDoc,
+				key -> ClassPageLayout.of(key, options.getPageMembers(), options.getPageBytes()));
+	}
+
+	/**
+	 * Retrieves the first sentence summary of the given ``doc``,
+	 * rendered from the given ``source`` package. Summaries are
+	 * rendered once per source package, as links are relative,
+	 * and least recently used ones are evicted once memoized
+	 * summaries exceed {@link #SUMMARIES_SIZE} characters.
+	 *
+	 * @param doc Element to get summary of.
+	 * @param source Package the summary is rendered from, ``null`` for output root.
+	 * @return Rendered summary, on a single line.
+	 */
+	public String getSummary(final Doc doc, final PackageDoc source) {
+		final Map.Entry<Doc, String> key = new AbstractMap.SimpleImmutableEntry<>(doc, source == null ? "" : source.name());
+		synchronized (summaries) {
+			final String summary = summaries.get(key);
+			if (summary != null) {
+				return summary;
+			}
+		}
+		// NOTE : Rendering may need other summaries, so it is done unlocked.
+		final String summary = MarkletDocumentBuilder.renderSummary(this, doc, source);
+		synchronized (summaries) {
+			final String previous = summaries.put(key, summary);
+			summariesSize += summary.length() - (previous == null ? 0 : previous.length());
+			final Iterator<String> eldest = summaries.values().iterator();
+			while (summariesSize > SUMMARIES_SIZE && eldest.hasNext()) {
+				summariesSize -= eldest.next().length();
+				eldest.remove();
+			}
+		}
+		return summary;
+	}
+
+}
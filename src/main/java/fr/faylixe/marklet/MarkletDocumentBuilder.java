@@ -1,11 +1,13 @@
 package fr.faylixe.marklet;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -20,6 +22,7 @@ import com.sun.javadoc.Parameter;
 import com.sun.javadoc.ParameterizedType;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.SeeTag;
+import com.sun.javadoc.SourcePosition;
 import com.sun.javadoc.Tag;
 import com.sun.javadoc.ThrowsTag;
 import com.sun.javadoc.Type;
@@ -45,16 +48,58 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	/** Separator used between parameter name and description. **/
 	private static final String PARAMETER_DETAIL_SEPARATOR = ": ";
 
+	/** Prefix of a line anchor into a source file. **/
+	private static final String SOURCE_LINE_ANCHOR = "#L";
+
+	/** Maximum capacity reserved for a page, larger pages grow as needed. **/
+	private static final long MAXIMUM_RESERVE = 1 << 22;
+
+	/** Abbreviations after which javadoc ends the first sentence, unless ``-breakiterator`` is used. **/
+	private static final List<String> ABBREVIATIONS = Arrays.asList("e.g.", "i.e.", "cf.", "vs.");
+
+	/** Whitespace sequences, collapsed in summaries. **/
+	private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+	/** Blank line that ends a paragraph. **/
+	private static final String PARAGRAPH_END = "\n\n";
+
+	/** Shared generation state. **/
+	private final MarkletContext context;
+
 	/** Target source package from which document will be written. **/
 	private final PackageDoc source;
 
 	/**
 	 * Default constructor. 
 	 * 
-	 * @param source Target source package from which document will be written. 
+	 * @param context Shared generation state.
+	 * @param source Target source package from which document will be written, ``null`` for output root. 
 	 */
-	public MarkletDocumentBuilder(final PackageDoc source) {
+	public MarkletDocumentBuilder(final MarkletContext context, final PackageDoc source) {
+		super(context.getBufferPool());
+		this.context = context;
 		this.source = source;
+		if (context.getOptions().isCompact()) {
+			enableReferences("");
+		}
+	}
+
+	/**
+	 * Source name getter.
+	 * 
+	 * @return Name of the source package, empty for document written at the output root.
+	 */
+	public final String getSourceName() {
+		return source == null ? "" : source.name();
+	}
+
+	/**
+	 * Context getter.
+	 * 
+	 * @return Shared generation state.
+	 */
+	public final MarkletContext getContext() {
+		return context;
 	}
 
 	/**
@@ -66,6 +111,54 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 		return source;
 	}
 
+	/**
+	 * Retrieves the class this document is about, if any.
+	 * Type references from such class are recorded into
+	 * the usage index when enabled.
+	 * 
+	 * @return Documented class, ``null`` by default.
+	 */
+	protected ClassDoc getDocumentedClass() {
+		return null;
+	}
+
+	/**
+	 * Retrieves the name of the page this document is written
+	 * to, if it documents class members.
+	 * 
+	 * @return Page name without extension, ``null`` by default.
+	 */
+	protected String getPageName() {
+		return null;
+	}
+
+	/**
+	 * Records into the usage index, if enabled, that the
+	 * documented class uses the given ``target`` class.
+	 * 
+	 * @param target Class that is referenced.
+	 */
+	protected final void recordUsage(final ClassDoc target) {
+		final UsageIndex index = context.getUsageIndex();
+		final ClassDoc documented = getDocumentedClass();
+		if (index != null && documented != null && target != null) {
+			index.record(documented, target);
+		}
+	}
+
+	/**
+	 * Collects block tags of the given ``element`` into
+	 * the tag index, if enabled.
+	 * 
+	 * @param element Documented element to collect tags from.
+	 */
+	protected final void collectTags(final ProgramElementDoc element) {
+		final TagIndex index = context.getTagIndex();
+		if (index != null) {
+			index.collect(context, element);
+		}
+	}
+
 	/**
 	 * Appends to the current document a valid markdown link
 	 * that aims to be the shortest one, by using the
@@ -77,14 +170,8 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	 * @param target Target class to reach from this package.
 	 */
 	public void classLink(final PackageDoc source, final ClassDoc target) {
-		if (target.isIncluded()) {
-			final String path = getPath(source.name(), target.containingPackage().name());
-			final StringBuffer urlBuilder = new StringBuffer();
-			urlBuilder
-				.append(path)
-				.append(target.simpleTypeName())
-				.append(MarkdownDocumentBuilder.LINK_EXTENSION);
-			link(target.simpleTypeName(), urlBuilder.toString());
+		if (context.isDocumented(target)) {
+			link(target.simpleTypeName(), getClassUrl(source == null ? "" : source.name(), target));
 		}
 		else {
 			// TODO : Process external link here.
@@ -110,6 +197,7 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 		}
 		else {
 			final ClassDoc classDoc = type.asClassDoc();
+			recordUsage(classDoc);
 			classLink(source, classDoc);
 			parameterLinks(source, type);
 		}
@@ -158,7 +246,7 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 				if (bounds.length > 0) {
 					text("? extends ");
 					for (int i = 0; i < bounds.length; i++) {
-						typeLink(source, bounds[i]);
+						boundLink(source, bounds[i]);
 						if (i < bounds.length - 1) {
 							text(" & ");
 						}
@@ -171,6 +259,38 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 		}
 	}
 	
+	/**
+	 * Appends to the current document the given type variable
+	 * ``bound`` as a valid markdown link. Type variables used
+	 * as bound arguments are written by name, as recursive bounds
+	 * such as ``E extends Enum<E>`` would never end otherwise.
+	 * 
+	 * @param source Source package to start URL from.
+	 * @param bound Type variable bound to reach from this package.
+	 */
+	private void boundLink(final PackageDoc source, final Type bound) {
+		final ClassDoc classDoc = bound.asClassDoc();
+		recordUsage(classDoc);
+		classLink(source, classDoc);
+		final ParameterizedType invocation = bound.asParameterizedType();
+		if (invocation != null && invocation.typeArguments().length > 0) {
+			final Type [] types = invocation.typeArguments();
+			character('<');
+			for (int i = 0; i < types.length; i++) {
+				if (types[i].asTypeVariable() != null) {
+					text(types[i].typeName());
+				}
+				else {
+					parameterLink(source, types[i]);
+				}
+				if (i < types.length - 1) {
+					text(", ");
+				}
+			}
+			character('>');
+		}
+	}
+
 	/**
 	 * To document.
 	 * 
@@ -195,11 +315,40 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	/**
 	 * This methods will process the given ``inlineTags``
 	 * comment text, by replacing each link tags
-	 * by effective markdown link.
+	 * by effective markdown link. Rendered fragment
+	 * is retrieved from the fragment cache if enabled,
+	 * in which case it only contains inline links as it
+	 * could be used in any document.
 	 * 
 	 * @param inlineTags Inline tags to generate description from.
 	 */
 	public void description(final Tag [] inlineTags) {
+		final FragmentCache cache = context.getFragmentCache();
+		if (cache == null || inlineTags.length == 0) {
+			renderDescription(inlineTags);
+			return;
+		}
+		final ByteBuffer key = cache.key(context, getSourceName(), inlineTags);
+		final String fragment = cache.get(key);
+		if (fragment != null) {
+			raw(fragment);
+		}
+		else {
+			final int mark = length();
+			suspendReferences(true);
+			renderDescription(inlineTags);
+			suspendReferences(false);
+			cache.put(key, since(mark));
+		}
+	}
+
+	/**
+	 * Renders the given ``inlineTags`` into
+	 * the current document.
+	 * 
+	 * @param inlineTags Inline tags to generate description from.
+	 */
+	private void renderDescription(final Tag [] inlineTags) {
 		for (final Tag tag : inlineTags) {
 			if (("Text").equals(tag.name())) {
 				text(tag.text());
@@ -241,11 +390,78 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	 * Appends to the current document a link that is
 	 * built from the given ``element``. Such links is
 	 * usually leading to the internal corresponding
-	 * document section
+	 * document section, or to the section of the class
+	 * sub page the element is documented in.
 	 * 
 	 * @param element Element to build link from.
 	 */
 	public void linkedName(final ProgramElementDoc element) {
+		final String page = context.getLayout(element.containingClass()).getPageName(element);
+		if (page.equals(getPageName())) {
+			link(element.name(), getAnchor(element));
+		}
+		else {
+			link(element.name(), page + MarkdownDocumentBuilder.LINK_EXTENSION + getAnchor(element));
+		}
+	}
+
+	/**
+	 * Appends to the current document a link to the
+	 * given ``member`` section, into the page of its
+	 * containing class. Such link is labelled with
+	 * both class and member names.
+	 * 
+	 * @param member Member to build link to.
+	 */
+	public void memberLink(final ProgramElementDoc member) {
+		final ClassDoc classDoc = member.containingClass();
+		link(classDoc.name() + '.' + member.name(), getMemberUrl(context, getSourceName(), member));
+	}
+
+	/**
+	 * Builds the URL of the given ``target`` class page,
+	 * from the package denoted by the given ``source`` name.
+	 * 
+	 * @param source Name of the package to start URL from, empty for output root.
+	 * @param target Class to build URL to.
+	 * @return Built URL.
+	 */
+	public static String getClassUrl(final String source, final ClassDoc target) {
+		return new StringBuffer()
+			.append(getPath(source, target.containingPackage().name()))
+			.append(target.simpleTypeName())
+			.append(MarkdownDocumentBuilder.LINK_EXTENSION)
+			.toString();
+	}
+
+	/**
+	 * Builds the URL of the given ``member`` section, into
+	 * the page of its containing class, from the package
+	 * denoted by the given ``source`` name.
+	 * 
+	 * @param context Shared generation state, that gives page layouts.
+	 * @param source Name of the package to start URL from, empty for output root.
+	 * @param member Member to build URL to.
+	 * @return Built URL.
+	 */
+	public static String getMemberUrl(final MarkletContext context, final String source, final ProgramElementDoc member) {
+		final ClassDoc classDoc = member.containingClass();
+		return new StringBuffer()
+			.append(getPath(source, classDoc.containingPackage().name()))
+			.append(context.getLayout(classDoc).getPageName(member))
+			.append(MarkdownDocumentBuilder.LINK_EXTENSION)
+			.append(getAnchor(member))
+			.toString();
+	}
+
+	/**
+	 * Builds the anchor of the given ``element`` section
+	 * into the page of its containing class.
+	 * 
+	 * @param element Element to build anchor for.
+	 * @return Built anchor, starting with ``#``.
+	 */
+	public static String getAnchor(final ProgramElementDoc element) {
 		final StringBuffer anchorBuilder = new StringBuffer()
 			.append('#')
 			.append(element.name());
@@ -262,8 +478,7 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 				}
 			}
 		}
-		final String url = anchorBuilder.toString().toLowerCase();
-		link(element.name(), url);
+		return anchorBuilder.toString().toLowerCase();
 	}
 
 	/**
@@ -299,6 +514,169 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 		text(member.flatSignature());
 	}
 
+	/**
+	 * Indicates if the given ``member`` is implicitly declared,
+	 * such as enumeration ``values`` and ``valueOf`` methods or
+	 * default constructors, which javadoc positions at the
+	 * declaration of their class.
+	 * 
+	 * @param member Member to check.
+	 * @param position Source position of the member.
+	 * @return ``true`` if the member has no declaration of its own, ``false`` otherwise.
+	 */
+	private static boolean isImplicit(final ProgramElementDoc member, final SourcePosition position) {
+		final ClassDoc containingClass = member.containingClass();
+		if (member instanceof ClassDoc || containingClass == null) {
+			return false;
+		}
+		final SourcePosition declaration = containingClass.position();
+		return declaration != null
+				&& declaration.line() == position.line()
+				&& declaration.column() == position.column()
+				&& position.file().equals(declaration.file());
+	}
+
+	/**
+	 * Appends to the current document a link to the declaration
+	 * of the given ``element`` in its source file, and its
+	 * declaration excerpt, if enabled. Implicitly declared
+	 * members have neither.
+	 * 
+	 * @param element Element to reference source from.
+	 */
+	private void sourceReference(final ProgramElementDoc element) {
+		final SourcePosition position = element.position();
+		if (position == null || position.file() == null || isImplicit(element, position)) {
+			return;
+		}
+		final String sourceLink = context.getOptions().getSourceLink();
+		if (sourceLink != null) {
+			final String packageName = element.containingPackage().name();
+			final StringBuffer urlBuilder = new StringBuffer().append(sourceLink);
+			if (!packageName.isEmpty()) {
+				urlBuilder.append(packageName.replace('.', '/')).append('/');
+			}
+			urlBuilder
+				.append(position.file().getName())
+				.append(SOURCE_LINE_ANCHOR)
+				.append(position.line());
+			link(MarkletConstant.SOURCE, urlBuilder.toString());
+			newLine();
+			newLine();
+		}
+		final SourceIndex index = context.getSourceIndex();
+		if (index != null) {
+			final String excerpt = index.excerpt(position.file(), position.line());
+			if (excerpt != null && !excerpt.isEmpty()) {
+				codeBlock(MarkletConstant.JAVA, excerpt);
+				newLine();
+			}
+		}
+	}
+
+	/**
+	 * Appends to the current document the first sentence
+	 * of the given ``doc`` description, on a single line
+	 * so it could be used as a table cell.
+	 * 
+	 * @param doc Documented element to append summary of.
+	 * @see MarkletContext#getSummary(Doc, PackageDoc)
+	 */
+	public void summary(final Doc doc) {
+		raw(context.getSummary(doc, source));
+	}
+
+	/**
+	 * Renders the first sentence of the given ``doc``
+	 * description from the given ``source`` package,
+	 * through the usual description rendering. Links
+	 * are always inline, as the summary could be used
+	 * in any document. When the first sentence computed
+	 * by javadoc ends with an abbreviation, such as "e.g.",
+	 * it is taken from the whole description instead.
+	 * 
+	 * @param context Shared generation state.
+	 * @param doc Documented element to render summary of.
+	 * @param source Package the summary is rendered from, ``null`` for output root.
+	 * @return Rendered summary, on a single line, with table cell separators escaped.
+	 */
+	static String renderSummary(final MarkletContext context, final Doc doc, final PackageDoc source) {
+		String summary = render(context, source, doc.firstSentenceTags());
+		if (isAbbreviated(summary)) {
+			summary = getFirstSentence(render(context, source, doc.inlineTags()));
+		}
+		return WHITESPACES.matcher(summary).replaceAll(" ").trim().replace("|", "\\|");
+	}
+
+	/**
+	 * Indicates if the given ``text`` ends with an abbreviation.
+	 * 
+	 * @param text Text to check.
+	 * @return ``true`` if the last word is an abbreviation, ``false`` otherwise.
+	 */
+	private static boolean isAbbreviated(final String text) {
+		final String trimmed = text.trim();
+		int start = trimmed.length();
+		while (start > 0 && !Character.isWhitespace(trimmed.charAt(start - 1)) && trimmed.charAt(start - 1) != '(') {
+			start--;
+		}
+		return ABBREVIATIONS.contains(trimmed.substring(start).toLowerCase());
+	}
+
+	/**
+	 * Retrieves the first sentence of the given ``description``,
+	 * which ends with a period followed by a whitespace that
+	 * does not follow an abbreviation, or with its first paragraph.
+	 * 
+	 * @param description Rendered description to get first sentence from.
+	 * @return First sentence.
+	 */
+	private static String getFirstSentence(final String description) {
+		final int paragraphEnd = description.indexOf(PARAGRAPH_END);
+		final String paragraph = paragraphEnd < 0 ? description : description.substring(0, paragraphEnd);
+		int index = paragraph.indexOf('.');
+		while (index >= 0) {
+			final int end = index + 1;
+			final String sentence = paragraph.substring(0, end);
+			if ((end == paragraph.length() || Character.isWhitespace(paragraph.charAt(end))) && !isAbbreviated(sentence)) {
+				return sentence;
+			}
+			index = paragraph.indexOf('.', end);
+		}
+		return paragraph;
+	}
+
+	/**
+	 * Renders the given ``tags`` description from the
+	 * output root, with inline links, so it could be kept
+	 * once the documentation model is gone.
+	 * 
+	 * @param context Shared generation state.
+	 * @param tags Inline tags to render.
+	 * @return Rendered description.
+	 */
+	static String renderDescription(final MarkletContext context, final Tag [] tags) {
+		return render(context, null, tags);
+	}
+
+	/**
+	 * Renders the given ``tags`` description from the
+	 * given ``source`` package, with inline links.
+	 * 
+	 * @param context Shared generation state.
+	 * @param source Package the description is rendered from, ``null`` for output root.
+	 * @param tags Inline tags to render.
+	 * @return Rendered description.
+	 */
+	private static String render(final MarkletContext context, final PackageDoc source, final Tag [] tags) {
+		final MarkletDocumentBuilder builder = new MarkletDocumentBuilder(context, source);
+		builder.suspendReferences(true);
+		builder.description(tags);
+		final String description = builder.build();
+		builder.release();
+		return description;
+	}
+
 	/**
 	 * Appends to the current document the signature
 	 * of the given ``member`` as a table row.
@@ -314,6 +692,8 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 			final ExecutableMemberDoc member = (ExecutableMemberDoc) element;
 			inlineParameters(member.parameters());
 		}
+		cell();
+		summary(element);
 		endTableRow();
 		newLine();
 	}
@@ -348,9 +728,11 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	 * @param fieldDoc Field documentation to append.
 	 */
 	public void field(final FieldDoc fieldDoc) {
+		collectTags(fieldDoc);
 		header(2);
 		text(fieldDoc.name());
 		newLine();
+		sourceReference(fieldDoc);
 		code(fieldDoc.modifiers());
 		character(' ');
 		typeLink(source, fieldDoc.type());
@@ -375,8 +757,10 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	 * @param member Method documentation to append.
 	 */
 	public void member(final ExecutableMemberDoc member) {
+		collectTags(member);
 		headerSignature(member);
 		newLine();
+		sourceReference(member);
 		description(member);
 		newLine();
 		newLine();
@@ -451,6 +835,7 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 			newLine();
 			for (final ThrowsTag exception : exceptions) {
 				item();
+				recordUsage(exception.exception());
 				classLink(source, exception.exception());
 				character(' ');
 				description(exception.inlineTags());
@@ -465,16 +850,57 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 	 * Finalizes document building by adding a
 	 * horizontal rule, the **marklet** generation
 	 * badge, and closing the internal writer.
+	 * Reference definitions are written before the badge.
+	 * Document segments are handed to the context
+	 * page sink, which writes them into a file by default.
+	 * The page size is recorded for the next generation, and
+	 * buffers are given back to the context pool, even if
+	 * the page could not be written.
 	 * 
 	 * @param path Path of the document to write.
 	 * @throws IOException If any error occurs while closing document.
 	 */
 	public void build(final Path path) throws IOException {
-		newLine();
-		text(MarkletConstant.BADGE);
-		final String content = super.build();
-		final InputStream stream = new ByteArrayInputStream(content.getBytes());
-		Files.copy(stream, path, StandardCopyOption.REPLACE_EXISTING);
+		try {
+			definitions();
+			newLine();
+			text(MarkletConstant.BADGE);
+			final List<CharSequence> segments = getSegments();
+			final ByteBuffer [] buffers = new ByteBuffer[segments.size()];
+			int length = 0;
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i] = Charset.defaultCharset().encode(CharBuffer.wrap(segments.get(i)));
+				length += segments.get(i).length();
+			}
+			context.getSink().write(path, buffers);
+			context.getMetrics().page(getSavedCharacters());
+			if (getReserved() > 0 && length > getReserved()) {
+				context.getMetrics().undersized();
+			}
+			final PageSizeHints hints = context.getPageSizes();
+			if (hints != null) {
+				hints.record(path, length);
+			}
+		}
+		finally {
+			release();
+		}
+	}
+
+	/**
+	 * Reserves capacity for the page that will be written
+	 * to the given ``path``, using its size from the previous
+	 * generation if known, or the given ``estimate`` otherwise.
+	 * Should be called before anything is written.
+	 * 
+	 * @param path Path of the page.
+	 * @param estimate Estimated size of the page, in characters.
+	 */
+	protected final void expect(final Path path, final long estimate) {
+		final PageSizeHints hints = context.getPageSizes();
+		final int hint = hints == null ? -1 : hints.get(path);
+		reserve((int) Math.min(hint >= 0 ? hint : estimate, MAXIMUM_RESERVE));
+		context.getMetrics().reserved(hint >= 0);
 	}
 
 	/**
@@ -493,6 +919,9 @@ public class MarkletDocumentBuilder extends MarkdownDocumentBuilder {
 		if (source.equals(target)) {
 			return "";
 		}
+		if (source.isEmpty()) {
+			return target.replace('.', '/') + '/';
+		}
 		final StringBuffer pathBuilder = new StringBuffer();
 		final String common = StringUtils.getCommonPrefix(source, target);
 		final int start = common.length();
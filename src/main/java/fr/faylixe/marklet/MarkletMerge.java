@@ -0,0 +1,153 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+
+/**
+ * Standalone entry point that completes a sharded
+ * generation. Each shard execution, started with the
+ * ``-shard i/N`` option, renders only its own packages
+ * and writes partial files : an index of its packages,
+ * its alphabetical index entries, and its usages and tags
+ * when enabled. Once all shards are done, this merge step
+ * combines partial files, ensuring they come from the same
+ * generation, and writes global pages : overview,
+ * alphabetical index, usage pages and tag reports.
+ *
+ * ```
+ * $ java fr.faylixe.marklet.MarkletMerge -d docs/
+ * ```
+ *
+ * @author fv
+ */
+public final class MarkletMerge {
+
+	/**
+	 * Reporter that prints messages on the standard streams.
+	 */
+	private static final class ConsoleReporter implements DocErrorReporter {
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printError(final String message) {
+			System.err.println(message);
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printError(final SourcePosition position, final String message) {
+			printError(message);
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printWarning(final String message) {
+			System.err.println(message);
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printWarning(final SourcePosition position, final String message) {
+			printWarning(message);
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printNotice(final String message) {
+			System.out.println(message);
+		}
+
+		/** {@inheritDoc} **/
+		@Override
+		public void printNotice(final SourcePosition position, final String message) {
+			printNotice(message);
+		}
+
+	}
+
+	/**
+	 * Private constructor for avoiding instantiation.
+	 */
+	private MarkletMerge() {
+		// Do nothing.
+	}
+
+	/**
+	 * Writes global pages from the given combined ``index``
+	 * and from partial files of every shard.
+	 *
+	 * @param options Options of the merge step.
+	 * @param index Combined index of rendered packages.
+	 * @param sink Sink that writes pages.
+	 * @param outputDirectory Output directory to write pages in.
+	 * @throws IOException If any error occurs while reading partial files or writing pages.
+	 */
+	private static void merge(final MarkletOptions options, final ShardIndex index, final PageSink sink, final Path outputDirectory) throws IOException {
+		final String fingerprint = index.getFingerprint();
+		final List<Path> usagePartials = ShardIndex.getPartials(outputDirectory, index.getCount(), UsageIndex.PARTIAL_SUFFIX);
+		final UsageIndex usageIndex = usagePartials.isEmpty() ? null : new UsageIndex(options.getUsageLimit());
+		for (final Path partial : usagePartials) {
+			usageIndex.read(partial, fingerprint);
+		}
+		final List<Path> tagPartials = ShardIndex.getPartials(outputDirectory, index.getCount(), TagIndex.PARTIAL_SUFFIX);
+		final TagIndex tagIndex = tagPartials.isEmpty() ? null : new TagIndex();
+		for (final Path partial : tagPartials) {
+			tagIndex.read(partial, fingerprint);
+		}
+		final MarkletContext context = new MarkletContext(options, null, usageIndex, tagIndex, null, null, null, null, sink, null, null);
+		final List<Path> entryPartials = ShardIndex.getPartials(outputDirectory, index.getCount(), GlobalIndex.PARTIAL_SUFFIX);
+		if (entryPartials.isEmpty()) {
+			OverviewPageBuilder.build(context, index.getPackages(), outputDirectory);
+		}
+		else {
+			try (final GlobalIndex globalIndex = GlobalIndex.read(entryPartials, fingerprint)) {
+				System.out.println("Merging index pages for " + globalIndex.getCount() + " entries");
+				IndexPageBuilder.build(context, globalIndex, outputDirectory);
+				OverviewPageBuilder.build(context, index.getPackages(), globalIndex.getLetters(), outputDirectory);
+			}
+		}
+		if (usageIndex != null) {
+			for (final ShardIndex.Entry entry : index.getPackages()) {
+				if (!entry.getName().isEmpty()) {
+					UsagePageBuilder.build(context, entry, outputDirectory.resolve(entry.getName().replace('.', '/')));
+				}
+			}
+		}
+		if (tagIndex != null) {
+			System.out.println("Merging tag report pages");
+			ReportPageBuilder.build(context, tagIndex, outputDirectory);
+		}
+	}
+
+	/**
+	 * Merge entry point.
+	 *
+	 * @param args **Marklet** options, used for output directory, page layout and gzip sidecars.
+	 * @throws IOException If any error occurs while merging partial files.
+	 */
+	public static void main(final String [] args) throws IOException {
+		final String [][] rawOptions = MarkletOptions.split(args);
+		if (!MarkletOptions.validOptions(rawOptions, new ConsoleReporter())) {
+			System.exit(1);
+		}
+		final MarkletOptions options = MarkletOptions.parse(rawOptions);
+		final GzipPageSink gzip = options.getGzipLevel() > 0 ? new GzipPageSink(FilePageSink.INSTANCE, options.getGzipLevel()) : null;
+		final Path outputDirectory = Paths.get(options.getOutputDirectory());
+		final ShardIndex index = ShardIndex.readAll(outputDirectory);
+		System.out.println("Merging " + index.getPackages().size() + " packages from " + index.getCount() + " shards into " + outputDirectory.toAbsolutePath());
+		try {
+			merge(options, index, gzip == null ? FilePageSink.INSTANCE : gzip, outputDirectory);
+		}
+		finally {
+			if (gzip != null) {
+				gzip.close();
+			}
+		}
+	}
+
+}
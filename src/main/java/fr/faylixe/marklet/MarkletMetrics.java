@@ -0,0 +1,111 @@
+package fr.faylixe.marklet;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters that are updated by page builders during
+ * a **Marklet** execution, and reported once it is done.
+ * Counters could be updated concurrently.
+ *
+ * @author fv
+ */
+public final class MarkletMetrics {
+
+	/** Number of written pages. **/
+	private final LongAdder pages;
+
+	/** Number of characters saved by reference style links. **/
+	private final LongAdder savedCharacters;
+
+	/** Number of pages presized from the previous generation. **/
+	private final LongAdder hintedPages;
+
+	/** Number of pages presized from an estimate. **/
+	private final LongAdder estimatedPages;
+
+	/** Number of presized pages that outgrew their reserved capacity. **/
+	private final LongAdder undersizedPages;
+
+	/**
+	 * Default constructor.
+	 */
+	public MarkletMetrics() {
+		this.pages = new LongAdder();
+		this.savedCharacters = new LongAdder();
+		this.hintedPages = new LongAdder();
+		this.estimatedPages = new LongAdder();
+		this.undersizedPages = new LongAdder();
+	}
+
+	/**
+	 * Records a written page.
+	 *
+	 * @param saved Number of characters saved by reference style links in this page.
+	 */
+	public void page(final long saved) {
+		pages.increment();
+		savedCharacters.add(saved);
+	}
+
+	/**
+	 * Records a page which buffer capacity has been reserved.
+	 *
+	 * @param hinted ``true`` if the size comes from the previous generation, ``false`` if estimated.
+	 */
+	public void reserved(final boolean hinted) {
+		(hinted ? hintedPages : estimatedPages).increment();
+	}
+
+	/**
+	 * Records a page that outgrew its reserved capacity.
+	 */
+	public void undersized() {
+		undersizedPages.increment();
+	}
+
+	/**
+	 * Pages getter.
+	 *
+	 * @return Number of written pages.
+	 */
+	public long getPages() {
+		return pages.sum();
+	}
+
+	/**
+	 * Saved characters getter.
+	 *
+	 * @return Number of characters saved by reference style links.
+	 */
+	public long getSavedCharacters() {
+		return savedCharacters.sum();
+	}
+
+	/**
+	 * Hinted pages getter.
+	 *
+	 * @return Number of pages presized from the previous generation.
+	 */
+	public long getHintedPages() {
+		return hintedPages.sum();
+	}
+
+	/**
+	 * Estimated pages getter.
+	 *
+	 * @return Number of pages presized from an estimate.
+	 */
+	public long getEstimatedPages() {
+		return estimatedPages.sum();
+	}
+
+	/**
+	 * Undersized pages getter.
+	 *
+	 * @return Number of presized pages that outgrew their reserved capacity.
+	 */
+	public long getUndersizedPages() {
+		return undersizedPages.sum();
+	}
+
+}
@@ -1,7 +1,13 @@
 package fr.faylixe.marklet;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.Doclet;
@@ -14,6 +20,32 @@ import com.sun.javadoc.RootDoc;
  * * `-d` specifies the output directory (default: `javadocs`)
  * * `-e` specifies the file ending for files to be created (default `md`)
  * * `-l` specifies the file ending used in internal links (default `md`)
+ * * `-cache` specifies the directory of the persistent fragment cache (default: disabled)
+ * * `-cachesize` specifies the maximum size of the fragment cache in megabytes (default `64`)
+ * * `-snapshot` specifies a file to record the documentation model into (default: disabled)
+ * * `-shard` specifies the `i/N` part of packages to render in a sharded generation (default: all)
+ * * `-usage` enables "Used by" sections and package usage pages (default: disabled)
+ * * `-usagelimit` specifies the maximum number of users listed per type (default `50`)
+ * * `-reports` enables deprecated, since version and API inventory pages (default: disabled)
+ * * `-apidiff` specifies a previous signature file to report API changes against (default: disabled)
+ * * `-sourcelink` specifies the base URL of source files, members are linked to their declaration line (default: disabled)
+ * * `-excerpts` enables declaration excerpts from source files under member headers (default: disabled)
+ * * `-compact` writes link targets repeated enough to pay for their definition as reference style links (default: disabled)
+ * * `-pagemembers` specifies the number of members or types from which a page is split into sub pages (default: disabled)
+ * * `-pagebytes` specifies the estimated size in bytes from which a page is split into sub pages (default: disabled)
+ * * `-classtemplate` specifies a template file for class pages (default: built-in layout)
+ * * `-packagetemplate` specifies a template file for package pages (default: built-in layout)
+ * * `-indexbuffer` specifies the size in kilobytes of index entries kept in memory before being spilled to disk (default `16384`)
+ * * `-gzip` specifies a compression level from `1` to `9`, a precompressed `.gz` sidecar is written next to each page (default: disabled)
+ * * `-memorythreshold` specifies a heap occupancy percentage, from which pages in flight and buffered writes are throttled (default: disabled)
+ * * `-store` specifies a content addressed store directory, pages are written once into it and hard linked into the output directory (default: disabled)
+ * * `-resume` skips pages completed by a previous generation, according to its journal (default: disabled)
+ * * `-deadline` specifies a time budget in seconds, after which remaining pages are skipped (default: disabled)
+ * * `-priority` specifies the order of class pages under a deadline, either `references`, `size` or `source` (default `references`)
+ * * `-dryrun` renders pages without writing them, and reports rendering cost (default: disabled)
+ * * `-dryrunsample` specifies the percentage of classes rendered in a dry run, the full cost being estimated from them (default `100`)
+ * * `-preview` specifies a local port to serve pages on, rendered on request rather than written (default: disabled)
+ * * `-previewcache` specifies the maximum size of rendered pages kept by the preview server in megabytes (default `32`)
  *
  * > The default options are ideal if you want to serve the documentation using GitHub's
  * > built-in README rendering. If you are using a tool like Slate, change the options as follows:
@@ -34,6 +66,90 @@ public final class MarkletOptions {
 	/** Option name for the link ending (`-l`) **/
 	private static final String LINK_ENDING_OPTION = "-l";
 
+	/** Option name for the fragment cache directory (`-cache`) **/
+	private static final String CACHE_DIRECTORY_OPTION = "-cache";
+
+	/** Option name for the fragment cache size (`-cachesize`) **/
+	private static final String CACHE_SIZE_OPTION = "-cachesize";
+
+	/** Option name for the documentation model snapshot file (`-snapshot`) **/
+	private static final String SNAPSHOT_OPTION = "-snapshot";
+
+	/** Option name for the shard to render (`-shard`) **/
+	private static final String SHARD_OPTION = "-shard";
+
+	/** Separator between shard index and shard count. **/
+	private static final String SHARD_SEPARATOR = "/";
+
+	/** Option name for enabling usage pages (`-usage`) **/
+	private static final String USAGE_OPTION = "-usage";
+
+	/** Option name for the number of users listed per type (`-usagelimit`) **/
+	private static final String USAGE_LIMIT_OPTION = "-usagelimit";
+
+	/** Option name for enabling tag report pages (`-reports`) **/
+	private static final String REPORTS_OPTION = "-reports";
+
+	/** Option name for the previous API signature file (`-apidiff`) **/
+	private static final String API_DIFF_OPTION = "-apidiff";
+
+	/** Option name for the source files base URL (`-sourcelink`) **/
+	private static final String SOURCE_LINK_OPTION = "-sourcelink";
+
+	/** Option name for enabling declaration excerpts (`-excerpts`) **/
+	private static final String EXCERPTS_OPTION = "-excerpts";
+
+	/** Option name for enabling reference style links (`-compact`) **/
+	private static final String COMPACT_OPTION = "-compact";
+
+	/** Option name for the page member budget (`-pagemembers`) **/
+	private static final String PAGE_MEMBERS_OPTION = "-pagemembers";
+
+	/** Option name for the page size budget (`-pagebytes`) **/
+	private static final String PAGE_BYTES_OPTION = "-pagebytes";
+
+	/** Option name for the class page template file (`-classtemplate`) **/
+	private static final String CLASS_TEMPLATE_OPTION = "-classtemplate";
+
+	/** Option name for the package page template file (`-packagetemplate`) **/
+	private static final String PACKAGE_TEMPLATE_OPTION = "-packagetemplate";
+
+	/** Option name for the index buffer size (`-indexbuffer`) **/
+	private static final String INDEX_BUFFER_OPTION = "-indexbuffer";
+
+	/** Option name for the page store directory (`-store`) **/
+	private static final String STORE_OPTION = "-store";
+
+	/** Option name for the gzip sidecar compression level (`-gzip`) **/
+	private static final String GZIP_OPTION = "-gzip";
+
+	/** Option name for the heap occupancy threshold (`-memorythreshold`) **/
+	private static final String MEMORY_THRESHOLD_OPTION = "-memorythreshold";
+
+	/** Option name for resuming a previous generation (`-resume`) **/
+	private static final String RESUME_OPTION = "-resume";
+
+	/** Option name for the generation time budget (`-deadline`) **/
+	private static final String DEADLINE_OPTION = "-deadline";
+
+	/** Option name for the class page priority (`-priority`) **/
+	private static final String PRIORITY_OPTION = "-priority";
+
+	/** Option name for dry run mode (`-dryrun`) **/
+	private static final String DRY_RUN_OPTION = "-dryrun";
+
+	/** Option name for the dry run sample percentage (`-dryrunsample`) **/
+	private static final String DRY_RUN_SAMPLE_OPTION = "-dryrunsample";
+
+	/** Option name for the preview server port (`-preview`) **/
+	private static final String PREVIEW_OPTION = "-preview";
+
+	/** Option name for the preview page cache size (`-previewcache`) **/
+	private static final String PREVIEW_CACHE_OPTION = "-previewcache";
+
+	/** Javadoc option name for the source files encoding (`-encoding`) **/
+	private static final String ENCODING_OPTION = "-encoding";
+
 	/** Number of token per option. **/
 	private static final Map<String, Integer> OPTIONS_COUNT = new HashMap<>();
 
@@ -41,6 +157,32 @@ public final class MarkletOptions {
 		OPTIONS_COUNT.put(OUTPUT_DIRECTORY_OPTION, 2);
 		OPTIONS_COUNT.put(FILE_ENDING_OPTION, 2);
 		OPTIONS_COUNT.put(LINK_ENDING_OPTION, 2);
+		OPTIONS_COUNT.put(CACHE_DIRECTORY_OPTION, 2);
+		OPTIONS_COUNT.put(CACHE_SIZE_OPTION, 2);
+		OPTIONS_COUNT.put(SNAPSHOT_OPTION, 2);
+		OPTIONS_COUNT.put(SHARD_OPTION, 2);
+		OPTIONS_COUNT.put(USAGE_OPTION, 1);
+		OPTIONS_COUNT.put(USAGE_LIMIT_OPTION, 2);
+		OPTIONS_COUNT.put(REPORTS_OPTION, 1);
+		OPTIONS_COUNT.put(API_DIFF_OPTION, 2);
+		OPTIONS_COUNT.put(SOURCE_LINK_OPTION, 2);
+		OPTIONS_COUNT.put(EXCERPTS_OPTION, 1);
+		OPTIONS_COUNT.put(COMPACT_OPTION, 1);
+		OPTIONS_COUNT.put(PAGE_MEMBERS_OPTION, 2);
+		OPTIONS_COUNT.put(PAGE_BYTES_OPTION, 2);
+		OPTIONS_COUNT.put(CLASS_TEMPLATE_OPTION, 2);
+		OPTIONS_COUNT.put(INDEX_BUFFER_OPTION, 2);
+		OPTIONS_COUNT.put(STORE_OPTION, 2);
+		OPTIONS_COUNT.put(GZIP_OPTION, 2);
+		OPTIONS_COUNT.put(MEMORY_THRESHOLD_OPTION, 2);
+		OPTIONS_COUNT.put(RESUME_OPTION, 1);
+		OPTIONS_COUNT.put(DEADLINE_OPTION, 2);
+		OPTIONS_COUNT.put(PRIORITY_OPTION, 2);
+		OPTIONS_COUNT.put(DRY_RUN_OPTION, 1);
+		OPTIONS_COUNT.put(DRY_RUN_SAMPLE_OPTION, 2);
+		OPTIONS_COUNT.put(PREVIEW_OPTION, 2);
+		OPTIONS_COUNT.put(PREVIEW_CACHE_OPTION, 2);
+		OPTIONS_COUNT.put(PACKAGE_TEMPLATE_OPTION, 2);
 	}
 
 	/** Default output directory to use. **/
@@ -52,6 +194,30 @@ public final class MarkletOptions {
 	/** Default ending for internal links (`md`). **/
 	private static final String DEFAULT_LINK_ENDING = "md";
 
+	/** Default fragment cache size in megabytes (`64`). **/
+	private static final String DEFAULT_CACHE_SIZE = "64";
+
+	/** Default shard, which renders all packages (`1/1`). **/
+	private static final String DEFAULT_SHARD = "1/1";
+
+	/** Default page budget, which disables page splitting (`0`). **/
+	private static final String DEFAULT_PAGE_BUDGET = "0";
+
+	/** Default index buffer size in kilobytes (`16384`). **/
+	private static final String DEFAULT_INDEX_BUFFER = "16384";
+
+	/** Default class page priority (`references`). **/
+	private static final String DEFAULT_PRIORITY = "references";
+
+	/** Default percentage of classes rendered in a dry run (`100`). **/
+	private static final String DEFAULT_DRY_RUN_SAMPLE = "100";
+
+	/** Default preview page cache size in megabytes (`32`). **/
+	private static final String DEFAULT_PREVIEW_CACHE_SIZE = "32";
+
+	/** Default number of users listed per type (`50`). **/
+	private static final String DEFAULT_USAGE_LIMIT = "50";
+
 	/** Output directory file are generated in. **/
 	private String outputDirectory;
 
@@ -61,6 +227,90 @@ public final class MarkletOptions {
 	/** Extension to use for generated link. **/
 	private String linkEnding;
 
+	/** Directory of the fragment cache, ``null`` if disabled. **/
+	private String cacheDirectory;
+
+	/** Maximum size of the fragment cache in megabytes. **/
+	private long cacheSize;
+
+	/** File the documentation model is recorded into, ``null`` if disabled. **/
+	private String snapshotFile;
+
+	/** Index of the shard to render, starting from 1. **/
+	private int shardIndex;
+
+	/** Total number of shards. **/
+	private int shardCount;
+
+	/** Indicates if usage pages are generated. **/
+	private boolean usage;
+
+	/** Maximum number of users listed per type. **/
+	private int usageLimit;
+
+	/** Indicates if tag report pages are generated. **/
+	private boolean reports;
+
+	/** Previous API signature file to compare with, ``null`` if disabled. **/
+	private String apiDiffFile;
+
+	/** Base URL of source files, ``null`` if disabled. **/
+	private String sourceLink;
+
+	/** Indicates if declaration excerpts are embedded. **/
+	private boolean excerpts;
+
+	/** Indicates if repeated link targets are written as references. **/
+	private boolean compact;
+
+	/** Number of members or types from which a page is split, ``0`` if disabled. **/
+	private int pageMembers;
+
+	/** Estimated size in bytes from which a page is split, ``0`` if disabled. **/
+	private long pageBytes;
+
+	/** Class page template file, ``null`` for built-in layout. **/
+	private String classTemplate;
+
+	/** Package page template file, ``null`` for built-in layout. **/
+	private String packageTemplate;
+
+	/** Size of index entries kept in memory before being spilled, in kilobytes. **/
+	private long indexBuffer;
+
+	/** Directory of the content addressed page store, ``null`` if disabled. **/
+	private String storeDirectory;
+
+	/** Compression level of gzip sidecars, ``0`` if disabled. **/
+	private int gzipLevel;
+
+	/** Heap occupancy percentage from which generation is throttled, ``0`` if disabled. **/
+	private int memoryThreshold;
+
+	/** Indicates if pages completed by a previous generation are skipped. **/
+	private boolean resume;
+
+	/** Time budget of the generation in seconds, ``0`` if disabled. **/
+	private long deadline;
+
+	/** Order of class pages under a deadline. **/
+	private GenerationOrder.Priority priority;
+
+	/** Indicates if pages are rendered without being written. **/
+	private boolean dryRun;
+
+	/** Percentage of classes rendered in a dry run. **/
+	private int dryRunSample;
+
+	/** Port of the preview server, ``0`` if disabled. **/
+	private int previewPort;
+
+	/** Maximum size of rendered pages kept by the preview server, in megabytes. **/
+	private long previewCacheSize;
+
+	/** Encoding of source files, ``null`` for platform default. **/
+	private String encoding;
+
 	/**
 	 * Default constructor.
 	 * Sets options with their default parameters if available.
@@ -69,6 +319,38 @@ public final class MarkletOptions {
 		this.outputDirectory = options.getOrDefault(OUTPUT_DIRECTORY_OPTION, DEFAULT_OUTPUT_DIRECTORY);
 		this.fileEnding = options.getOrDefault(FILE_ENDING_OPTION, DEFAULT_FILE_ENDING);
 		this.linkEnding = options.getOrDefault(LINK_ENDING_OPTION, DEFAULT_LINK_ENDING);
+		this.cacheDirectory = options.get(CACHE_DIRECTORY_OPTION);
+		this.cacheSize = Long.parseLong(options.getOrDefault(CACHE_SIZE_OPTION, DEFAULT_CACHE_SIZE));
+		this.snapshotFile = options.get(SNAPSHOT_OPTION);
+		final String [] shard = options.getOrDefault(SHARD_OPTION, DEFAULT_SHARD).split(SHARD_SEPARATOR);
+		this.shardIndex = Integer.parseInt(shard[0]);
+		this.shardCount = Integer.parseInt(shard[1]);
+		this.usage = options.containsKey(USAGE_OPTION);
+		this.usageLimit = Integer.parseInt(options.getOrDefault(USAGE_LIMIT_OPTION, DEFAULT_USAGE_LIMIT));
+		this.reports = options.containsKey(REPORTS_OPTION);
+		this.apiDiffFile = options.get(API_DIFF_OPTION);
+		this.sourceLink = options.get(SOURCE_LINK_OPTION);
+		if (sourceLink != null && !sourceLink.endsWith("/")) {
+			this.sourceLink = sourceLink + "/";
+		}
+		this.excerpts = options.containsKey(EXCERPTS_OPTION);
+		this.encoding = options.get(ENCODING_OPTION);
+		this.compact = options.containsKey(COMPACT_OPTION);
+		this.pageMembers = Integer.parseInt(options.getOrDefault(PAGE_MEMBERS_OPTION, DEFAULT_PAGE_BUDGET));
+		this.pageBytes = Long.parseLong(options.getOrDefault(PAGE_BYTES_OPTION, DEFAULT_PAGE_BUDGET));
+		this.classTemplate = options.get(CLASS_TEMPLATE_OPTION);
+		this.packageTemplate = options.get(PACKAGE_TEMPLATE_OPTION);
+		this.indexBuffer = Long.parseLong(options.getOrDefault(INDEX_BUFFER_OPTION, DEFAULT_INDEX_BUFFER));
+		this.storeDirectory = options.get(STORE_OPTION);
+		this.gzipLevel = Integer.parseInt(options.getOrDefault(GZIP_OPTION, "0"));
+		this.memoryThreshold = Integer.parseInt(options.getOrDefault(MEMORY_THRESHOLD_OPTION, "0"));
+		this.resume = options.containsKey(RESUME_OPTION);
+		this.deadline = Long.parseLong(options.getOrDefault(DEADLINE_OPTION, "0"));
+		this.priority = GenerationOrder.Priority.parse(options.getOrDefault(PRIORITY_OPTION, DEFAULT_PRIORITY));
+		this.dryRun = options.containsKey(DRY_RUN_OPTION);
+		this.dryRunSample = Integer.parseInt(options.getOrDefault(DRY_RUN_SAMPLE_OPTION, DEFAULT_DRY_RUN_SAMPLE));
+		this.previewPort = Integer.parseInt(options.getOrDefault(PREVIEW_OPTION, "0"));
+		this.previewCacheSize = Long.parseLong(options.getOrDefault(PREVIEW_CACHE_OPTION, DEFAULT_PREVIEW_CACHE_SIZE));
 	}
 
 	/**
@@ -101,6 +383,327 @@ public final class MarkletOptions {
 		return linkEnding;
 	}
 
+	/**
+	 * Getter for the fragment cache directory option.
+	 * 
+	 * @return Directory of the fragment cache, ``null`` if disabled.
+	 * @see #cacheDirectory
+	 */
+	public String getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	/**
+	 * Getter for the fragment cache size option.
+	 * 
+	 * @return Maximum size of the fragment cache in bytes.
+	 * @see #cacheSize
+	 */
+	public long getCacheSize() {
+		return cacheSize * 1024 * 1024;
+	}
+
+	/**
+	 * Getter for the snapshot file option.
+	 * 
+	 * @return File the documentation model is recorded into, ``null`` if disabled.
+	 * @see #snapshotFile
+	 */
+	public String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	/**
+	 * Getter for the shard index option.
+	 * 
+	 * @return Index of the shard to render, starting from 1.
+	 * @see #shardIndex
+	 */
+	public int getShardIndex() {
+		return shardIndex;
+	}
+
+	/**
+	 * Getter for the shard count option.
+	 * 
+	 * @return Total number of shards.
+	 * @see #shardCount
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Indicates if a sharded generation is performed.
+	 * 
+	 * @return ``true`` if only a part of packages should be rendered, ``false`` otherwise.
+	 */
+	public boolean isSharded() {
+		return shardCount > 1;
+	}
+
+	/**
+	 * Getter for the usage option.
+	 * 
+	 * @return ``true`` if usage pages are generated, ``false`` otherwise.
+	 * @see #usage
+	 */
+	public boolean isUsage() {
+		return usage;
+	}
+
+	/**
+	 * Getter for the usage limit option.
+	 * 
+	 * @return Maximum number of users listed per type.
+	 * @see #usageLimit
+	 */
+	public int getUsageLimit() {
+		return usageLimit;
+	}
+
+	/**
+	 * Getter for the reports option.
+	 * 
+	 * @return ``true`` if tag report pages are generated, ``false`` otherwise.
+	 * @see #reports
+	 */
+	public boolean isReports() {
+		return reports;
+	}
+
+	/**
+	 * Getter for the API diff option.
+	 * 
+	 * @return Previous API signature file to compare with, ``null`` if disabled.
+	 * @see #apiDiffFile
+	 */
+	public String getApiDiffFile() {
+		return apiDiffFile;
+	}
+
+	/**
+	 * Getter for the class template option.
+	 * 
+	 * @return Class page template file, ``null`` for built-in layout.
+	 * @see #classTemplate
+	 */
+	public String getClassTemplate() {
+		return classTemplate;
+	}
+
+	/**
+	 * Getter for the package template option.
+	 * 
+	 * @return Package page template file, ``null`` for built-in layout.
+	 * @see #packageTemplate
+	 */
+	public String getPackageTemplate() {
+		return packageTemplate;
+	}
+
+	/**
+	 * Getter for the index buffer option.
+	 * 
+	 * @return Size of index entries kept in memory before being spilled, in bytes.
+	 * @see #indexBuffer
+	 */
+	public long getIndexBuffer() {
+		return indexBuffer * 1024;
+	}
+
+	/**
+	 * Getter for the page store option.
+	 * 
+	 * @return Directory of the content addressed page store, ``null`` if disabled.
+	 * @see #storeDirectory
+	 */
+	public String getStoreDirectory() {
+		return storeDirectory;
+	}
+
+	/**
+	 * Getter for the resume option.
+	 * 
+	 * @return ``true`` if pages completed by a previous generation are skipped, ``false`` otherwise.
+	 * @see #resume
+	 */
+	public boolean isResume() {
+		return resume;
+	}
+
+	/**
+	 * Indicates if the given raw ``option`` name is the resume
+	 * option, which does not change generated pages.
+	 * 
+	 * @param option Option name to check.
+	 * @return ``true`` if the given option is the resume option, ``false`` otherwise.
+	 */
+	public static boolean isResumeOption(final String option) {
+		return RESUME_OPTION.equals(option);
+	}
+
+	/**
+	 * Indicates if the given raw ``option`` name is the shard
+	 * option, which differs between executions of a generation.
+	 * 
+	 * @param option Option name to check.
+	 * @return ``true`` if the given option is the shard option, ``false`` otherwise.
+	 */
+	public static boolean isShardOption(final String option) {
+		return SHARD_OPTION.equals(option);
+	}
+
+	/**
+	 * Getter for the deadline option.
+	 * 
+	 * @return Time budget of the generation in milliseconds, ``0`` if disabled.
+	 * @see #deadline
+	 */
+	public long getDeadline() {
+		return deadline * 1000;
+	}
+
+	/**
+	 * Getter for the priority option.
+	 * 
+	 * @return Order of class pages under a deadline.
+	 * @see #priority
+	 */
+	public GenerationOrder.Priority getPriority() {
+		return priority;
+	}
+
+	/**
+	 * Getter for the gzip option.
+	 * 
+	 * @return Compression level of gzip sidecars, ``0`` if disabled.
+	 * @see #gzipLevel
+	 */
+	public int getGzipLevel() {
+		return gzipLevel;
+	}
+
+	/**
+	 * Getter for the memory threshold option.
+	 * 
+	 * @return Heap occupancy percentage from which generation is throttled, ``0`` if disabled.
+	 * @see #memoryThreshold
+	 */
+	public int getMemoryThreshold() {
+		return memoryThreshold;
+	}
+
+	/**
+	 * Getter for the dry run option.
+	 * 
+	 * @return ``true`` if pages are rendered without being written, ``false`` otherwise.
+	 * @see #dryRun
+	 */
+	public boolean isDryRun() {
+		return dryRun;
+	}
+
+	/**
+	 * Getter for the dry run sample option.
+	 * 
+	 * @return Percentage of classes rendered in a dry run.
+	 * @see #dryRunSample
+	 */
+	public int getDryRunSample() {
+		return dryRunSample;
+	}
+
+	/**
+	 * Getter for the preview option.
+	 * 
+	 * @return Port of the preview server, ``0`` if disabled.
+	 * @see #previewPort
+	 */
+	public int getPreviewPort() {
+		return previewPort;
+	}
+
+	/**
+	 * Indicates if pages are served by a preview server
+	 * rather than written.
+	 * 
+	 * @return ``true`` if preview is enabled, ``false`` otherwise.
+	 */
+	public boolean isPreview() {
+		return previewPort > 0;
+	}
+
+	/**
+	 * Getter for the preview cache size option.
+	 * 
+	 * @return Maximum size of rendered pages kept by the preview server, in bytes.
+	 * @see #previewCacheSize
+	 */
+	public long getPreviewCacheSize() {
+		return previewCacheSize * 1024 * 1024;
+	}
+
+	/**
+	 * Getter for the source link option.
+	 * 
+	 * @return Base URL of source files, ending with ``/``, ``null`` if disabled.
+	 * @see #sourceLink
+	 */
+	public String getSourceLink() {
+		return sourceLink;
+	}
+
+	/**
+	 * Getter for the excerpts option.
+	 * 
+	 * @return ``true`` if declaration excerpts are embedded, ``false`` otherwise.
+	 * @see #excerpts
+	 */
+	public boolean isExcerpts() {
+		return excerpts;
+	}
+
+	/**
+	 * Getter for the compact option.
+	 * 
+	 * @return ``true`` if repeated link targets are written as references, ``false`` otherwise.
+	 * @see #compact
+	 */
+	public boolean isCompact() {
+		return compact;
+	}
+
+	/**
+	 * Getter for the page member budget option.
+	 * 
+	 * @return Number of members or types from which a page is split, ``0`` if disabled.
+	 * @see #pageMembers
+	 */
+	public int getPageMembers() {
+		return pageMembers;
+	}
+
+	/**
+	 * Getter for the page size budget option.
+	 * 
+	 * @return Estimated size in bytes from which a page is split, ``0`` if disabled.
+	 * @see #pageBytes
+	 */
+	public long getPageBytes() {
+		return pageBytes;
+	}
+
+	/**
+	 * Getter for the javadoc encoding option.
+	 * 
+	 * @return Encoding of source files, ``null`` for platform default.
+	 * @see #encoding
+	 */
+	public String getEncoding() {
+		return encoding;
+	}
+
 	/**
 	 * Options validation method.
 	 * 
@@ -111,9 +714,112 @@ public final class MarkletOptions {
 	 */
 	public static boolean validOptions(final String options[][], final DocErrorReporter reporter) {
 		// TODO : Perform options validation here.
+		for (final String [] option : options) {
+			if (CACHE_SIZE_OPTION.equals(option[0]) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid fragment cache size : " + option[1]);
+				return false;
+			}
+			if (USAGE_LIMIT_OPTION.equals(option[0]) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid usage limit : " + option[1]);
+				return false;
+			}
+			if ((PAGE_MEMBERS_OPTION.equals(option[0]) || PAGE_BYTES_OPTION.equals(option[0])) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid page budget : " + option[1]);
+				return false;
+			}
+			if (API_DIFF_OPTION.equals(option[0]) && !Files.isRegularFile(Paths.get(option[1]))) {
+				reporter.printError("API signature file not found : " + option[1]);
+				return false;
+			}
+			if ((CLASS_TEMPLATE_OPTION.equals(option[0]) || PACKAGE_TEMPLATE_OPTION.equals(option[0])) && !Files.isRegularFile(Paths.get(option[1]))) {
+				reporter.printError("Template file not found : " + option[1]);
+				return false;
+			}
+			if (PREVIEW_OPTION.equals(option[0]) && (!isPositiveNumber(option[1]) || Integer.parseInt(option[1]) > 65535)) {
+				reporter.printError("Invalid preview port : " + option[1]);
+				return false;
+			}
+			if (DEADLINE_OPTION.equals(option[0]) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid deadline : " + option[1]);
+				return false;
+			}
+			if (PRIORITY_OPTION.equals(option[0]) && !isValidPriority(option[1])) {
+				reporter.printError("Invalid priority, expected one of references, size or source : " + option[1]);
+				return false;
+			}
+			if (DRY_RUN_SAMPLE_OPTION.equals(option[0]) && (!isPositiveNumber(option[1]) || Long.parseLong(option[1]) > 100)) {
+				reporter.printError("Invalid dry run sample, expected a percentage : " + option[1]);
+				return false;
+			}
+			if (GZIP_OPTION.equals(option[0]) && (!isPositiveNumber(option[1]) || Long.parseLong(option[1]) > Deflater.BEST_COMPRESSION)) {
+				reporter.printError("Invalid gzip level, expected 1 to 9 : " + option[1]);
+				return false;
+			}
+			if (MEMORY_THRESHOLD_OPTION.equals(option[0]) && (!isPositiveNumber(option[1]) || Long.parseLong(option[1]) > 100)) {
+				reporter.printError("Invalid memory threshold, expected a percentage : " + option[1]);
+				return false;
+			}
+			if (INDEX_BUFFER_OPTION.equals(option[0]) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid index buffer size : " + option[1]);
+				return false;
+			}
+			if (PREVIEW_CACHE_OPTION.equals(option[0]) && !isPositiveNumber(option[1])) {
+				reporter.printError("Invalid preview cache size : " + option[1]);
+				return false;
+			}
+			if (SHARD_OPTION.equals(option[0]) && !isValidShard(option[1])) {
+				reporter.printError("Invalid shard, expected i/N with 1 <= i <= N : " + option[1]);
+				return false;
+			}
+		}
 		return true;
 	}
 	
+	/**
+	 * Indicates if the given ``value`` denotes a strictly positive number.
+	 * 
+	 * @param value Option value to check.
+	 * @return ``true`` if the given value is a strictly positive number, ``false`` otherwise.
+	 */
+	private static boolean isPositiveNumber(final String value) {
+		try {
+			return Long.parseLong(value) > 0;
+		}
+		catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Indicates if the given ``value`` denotes a class page priority.
+	 * 
+	 * @param value Option value to check.
+	 * @return ``true`` if the given value is a valid priority, ``false`` otherwise.
+	 */
+	private static boolean isValidPriority(final String value) {
+		try {
+			GenerationOrder.Priority.parse(value);
+			return true;
+		}
+		catch (final IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Indicates if the given ``value`` denotes a valid ``i/N`` shard.
+	 * 
+	 * @param value Option value to check.
+	 * @return ``true`` if the given value is a valid shard, ``false`` otherwise.
+	 */
+	private static boolean isValidShard(final String value) {
+		final String [] shard = value.split(SHARD_SEPARATOR);
+		if (shard.length != 2 || !isPositiveNumber(shard[0]) || !isPositiveNumber(shard[1])) {
+			return false;
+		}
+		return Long.parseLong(shard[0]) <= Long.parseLong(shard[1]);
+	}
+
 	/**
 	 * Computes number of arguments (as token) for the given option.
 	 * 
@@ -125,18 +831,50 @@ public final class MarkletOptions {
 		return OPTIONS_COUNT.getOrDefault(option, 0);
 	}
 
+	/**
+	 * Splits the given command line ``arguments`` into
+	 * options, using {@link #optionLength(String)}.
+	 * 
+	 * @param arguments Command line arguments to split.
+	 * @return Options as expected by {@link #parse(String[][])}.
+	 * @throws IllegalArgumentException If any argument is not a valid option.
+	 */
+	public static String [][] split(final String [] arguments) {
+		final List<String []> options = new ArrayList<>();
+		int i = 0;
+		while (i < arguments.length) {
+			final int length = optionLength(arguments[i]);
+			if (length == 0 || i + length > arguments.length) {
+				throw new IllegalArgumentException("Invalid option " + arguments[i]);
+			}
+			options.add(Arrays.copyOfRange(arguments, i, i + length));
+			i += length;
+		}
+		return options.toArray(new String[options.size()][]);
+	}
+
 	/**
 	 * Static factory.
 	 * 
-	 * @param rawOptions Raw options array to parse.
+	 * @param root Documentation root to parse options from.
 	 * @return Built options instance.
 	 */
 	public static MarkletOptions parse(final RootDoc root) {
+		return parse(root.options());
+	}
+
+	/**
+	 * Static factory.
+	 * 
+	 * @param rawOptions Raw options array to parse.
+	 * @return Built options instance.
+	 */
+	public static MarkletOptions parse(final String [][] rawOptions) {
 		final Map<String, String> options = new HashMap<>();
-		// NOTE :	Work since we only have 2D option.
-		//			Consider redesign option parsing if this predicate change.
-		for (final String [] option : root.options()) {
-			options.put(option[0], option[1]);
+		// NOTE :	Single token options, such as javadoc flags,
+		//			are stored with an empty value.
+		for (final String [] option : rawOptions) {
+			options.put(option[0], option.length > 1 ? option[1] : "");
 		}
 		return new MarkletOptions(options);
 	}
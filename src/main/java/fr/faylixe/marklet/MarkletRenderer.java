@@ -0,0 +1,96 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Standalone entry point that renders documentation
+ * pages from a documentation model snapshot, written
+ * by a previous execution with the ``-snapshot`` option.
+ * No javadoc execution is involved, only doclet API
+ * interfaces are required on the classpath.
+ *
+ * ```
+ * $ java fr.faylixe.marklet.MarkletRenderer model.snapshot -d docs/
+ * ```
+ *
+ * Options recorded in the snapshot are used, unless they
+ * are overridden from the command line.
+ *
+ * @author fv
+ */
+public final class MarkletRenderer {
+
+	/** Option name for the snapshot file, not forwarded to the renderer. **/
+	private static final String SNAPSHOT_OPTION = "-snapshot";
+
+	/**
+	 * Private constructor for avoiding instantiation.
+	 */
+	private MarkletRenderer() {
+		// Do nothing.
+	}
+
+	/**
+	 * Merges options recorded in the snapshot with the ones
+	 * provided from the command line, which take precedence.
+	 *
+	 * @param recorded Options recorded in the snapshot.
+	 * @param arguments Command line arguments, without snapshot file.
+	 * @return Merged options.
+	 */
+	private static String [][] mergeOptions(final String [][] recorded, final String [] arguments) {
+		final Map<String, String []> options = new LinkedHashMap<>();
+		for (final String [] option : recorded) {
+			if (!SNAPSHOT_OPTION.equals(option[0])) {
+				options.put(option[0], option);
+			}
+		}
+		for (final String [] option : MarkletOptions.split(arguments)) {
+			options.put(option[0], option);
+		}
+		return options.values().toArray(new String[options.size()][]);
+	}
+
+	/**
+	 * Renders pages from the snapshot and options given
+	 * by the given ``args``. Merged options are validated
+	 * as javadoc would, errors being reported on the
+	 * standard streams.
+	 *
+	 * @param args Snapshot file path followed by **Marklet** options.
+	 * @return ``true`` if pages have been rendered, ``false`` otherwise.
+	 * @throws IOException If any error occurs while reading snapshot.
+	 */
+	public static boolean run(final String [] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage : MarkletRenderer <snapshot> [options]");
+			return false;
+		}
+		final long start = System.currentTimeMillis();
+		final DocSnapshot snapshot = DocSnapshot.read(Paths.get(args[0]));
+		final RootDoc root = snapshot.getRoot();
+		final String [][] options = mergeOptions(root.options(), Arrays.copyOfRange(args, 1, args.length));
+		if (!MarkletOptions.validOptions(options, root)) {
+			return false;
+		}
+		root.printNotice("Snapshot loaded in " + (System.currentTimeMillis() - start) + " ms");
+		return Marklet.start(MarkletOptions.parse(options), root);
+	}
+
+	/**
+	 * Renderer entry point.
+	 *
+	 * @param args Snapshot file path followed by **Marklet** options.
+	 * @throws IOException If any error occurs while reading snapshot.
+	 */
+	public static void main(final String [] args) throws IOException {
+		System.exit(run(args) ? 0 : 1);
+	}
+
+}
@@ -0,0 +1,399 @@
+package fr.faylixe.marklet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Programmatic entry point, that runs javadoc with
+ * **Marklet** as doclet within the current process.
+ * Generating documentation for many modules through a
+ * single runner avoids starting a virtual machine for
+ * each of them, and modules are generated concurrently :
+ *
+ * ```
+ * try (final MarkletRunner runner = new MarkletRunner(4)) {
+ *     for (final MarkletRunner.Result result : runner.run(modules)) {
+ *         …
+ *     }
+ * }
+ * ```
+ *
+ * Each worker thread keeps its own file managers across
+ * modules, so archives of a class path shared by several
+ * modules are only opened and indexed once per thread.
+ *
+ * @author fv
+ */
+public final class MarkletRunner implements AutoCloseable {
+
+	/**
+	 * Module to generate documentation for.
+	 */
+	public static final class Module {
+
+		/** Name of the module. **/
+		private final String name;
+
+		/** Source roots of the module. **/
+		private final List<Path> sourcePath;
+
+		/** Class path entries of the module. **/
+		private final List<Path> classPath;
+
+		/** Javadoc and **Marklet** options, output directory included. **/
+		private final List<String> options;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param name Name of the module.
+		 * @param sourcePath Source roots of the module.
+		 * @param classPath Class path entries of the module.
+		 * @param options Javadoc and **Marklet** options, output directory included.
+		 */
+		public Module(final String name, final List<Path> sourcePath, final List<Path> classPath, final List<String> options) {
+			this.name = name;
+			this.sourcePath = Collections.unmodifiableList(new ArrayList<>(sourcePath));
+			this.classPath = Collections.unmodifiableList(new ArrayList<>(classPath));
+			this.options = Collections.unmodifiableList(new ArrayList<>(options));
+		}
+
+		/**
+		 * Name getter.
+		 *
+		 * @return Name of the module.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Source path getter.
+		 *
+		 * @return Source roots of the module.
+		 */
+		public List<Path> getSourcePath() {
+			return sourcePath;
+		}
+
+		/**
+		 * Class path getter.
+		 *
+		 * @return Class path entries of the module.
+		 */
+		public List<Path> getClassPath() {
+			return classPath;
+		}
+
+		/**
+		 * Options getter.
+		 *
+		 * @return Javadoc and **Marklet** options.
+		 */
+		public List<String> getOptions() {
+			return options;
+		}
+
+	}
+
+	/**
+	 * Outcome of a module generation.
+	 */
+	public static final class Result {
+
+		/** Module documentation has been generated for. **/
+		private final Module module;
+
+		/** Indicates if the generation went well. **/
+		private final boolean success;
+
+		/** Messages printed by javadoc and **Marklet**. **/
+		private final String output;
+
+		/** Generation duration in milliseconds. **/
+		private final long duration;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param module Module documentation has been generated for.
+		 * @param success Indicates if the generation went well.
+		 * @param output Messages printed by javadoc and **Marklet**.
+		 * @param duration Generation duration in milliseconds.
+		 */
+		private Result(final Module module, final boolean success, final String output, final long duration) {
+			this.module = module;
+			this.success = success;
+			this.output = output;
+			this.duration = duration;
+		}
+
+		/**
+		 * Module getter.
+		 *
+		 * @return Module documentation has been generated for.
+		 */
+		public Module getModule() {
+			return module;
+		}
+
+		/**
+		 * Success getter.
+		 *
+		 * @return ``true`` if the generation went well, ``false`` otherwise.
+		 */
+		public boolean isSuccess() {
+			return success;
+		}
+
+		/**
+		 * Output getter.
+		 *
+		 * @return Messages printed by javadoc and **Marklet**.
+		 */
+		public String getOutput() {
+			return output;
+		}
+
+		/**
+		 * Duration getter.
+		 *
+		 * @return Generation duration in milliseconds.
+		 */
+		public long getDuration() {
+			return duration;
+		}
+
+	}
+
+	/** Javadoc option that gives source files encoding. **/
+	private static final String ENCODING_OPTION = "-encoding";
+
+	/** Extension of source files to document. **/
+	private static final String SOURCE_EXTENSION = ".java";
+
+	/** Documentation tool shared by every generation. **/
+	private final DocumentationTool tool;
+
+	/** Workers that run module generations. **/
+	private final ExecutorService executor;
+
+	/** File managers of each worker thread, by source charset. **/
+	private final ThreadLocal<Map<Charset, StandardJavaFileManager>> fileManager;
+
+	/** Output of the generation running on each worker thread. **/
+	private final ThreadLocal<PrintWriter> output;
+
+	/** Every file manager created, closed with the runner. **/
+	private final List<StandardJavaFileManager> fileManagers;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param parallelism Number of modules to generate concurrently.
+	 * @throws IllegalStateException If no documentation tool is available.
+	 */
+	public MarkletRunner(final int parallelism) {
+		this.tool = ToolProvider.getSystemDocumentationTool();
+		if (tool == null) {
+			throw new IllegalStateException("No documentation tool available, a JDK is required");
+		}
+		this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		this.fileManagers = new CopyOnWriteArrayList<>();
+		this.fileManager = ThreadLocal.withInitial(HashMap::new);
+		this.output = new ThreadLocal<>();
+	}
+
+	/**
+	 * Reports the given ``diagnostic`` into the output of
+	 * the generation running on the current thread.
+	 *
+	 * @param diagnostic Diagnostic to report.
+	 */
+	private void report(final Diagnostic<? extends JavaFileObject> diagnostic) {
+		final PrintWriter writer = output.get();
+		if (writer != null) {
+			writer.println(diagnostic);
+		}
+	}
+
+	/**
+	 * Retrieves the file manager of the current thread
+	 * for the given source ``charset``, creating it if needed.
+	 * Javadoc does not apply its ``-encoding`` option to a
+	 * given file manager, so one is kept for each charset.
+	 *
+	 * @param charset Charset of source files.
+	 * @return File manager to use.
+	 */
+	private StandardJavaFileManager getFileManager(final Charset charset) {
+		return fileManager.get().computeIfAbsent(charset, key -> {
+			// NOTE : Source files are read by the file manager, which reports
+			//		 decoding errors to its own listener.
+			final StandardJavaFileManager manager = tool.getStandardFileManager(this::report, null, key);
+			fileManagers.add(manager);
+			return manager;
+		});
+	}
+
+	/**
+	 * Retrieves the source charset given by the ``-encoding``
+	 * option among the given ``options``.
+	 *
+	 * @param options Javadoc options.
+	 * @return Source charset, platform default one if not given.
+	 */
+	private static Charset getCharset(final List<String> options) {
+		final int index = options.indexOf(ENCODING_OPTION);
+		if (index >= 0 && index + 1 < options.size()) {
+			return Charset.forName(options.get(index + 1));
+		}
+		return Charset.defaultCharset();
+	}
+
+	/**
+	 * Lists source files under the given ``roots``.
+	 *
+	 * @param roots Source roots to list.
+	 * @return Source files.
+	 * @throws IOException If any error occurs while walking roots.
+	 */
+	private static List<File> listSources(final List<Path> roots) throws IOException {
+		final List<File> sources = new ArrayList<>();
+		for (final Path root : roots) {
+			try (final Stream<Path> stream = Files.walk(root)) {
+				stream
+					.filter(path -> path.getFileName().toString().endsWith(SOURCE_EXTENSION))
+					.map(Path::toFile)
+					.forEach(sources::add);
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Converts the given ``paths`` into files.
+	 *
+	 * @param paths Paths to convert.
+	 * @return Converted files.
+	 */
+	private static List<File> toFiles(final List<Path> paths) {
+		return paths
+				.stream()
+				.map(Path::toFile)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Generates documentation for the given ``module``
+	 * on the current thread.
+	 *
+	 * @param module Module to generate documentation for.
+	 * @return Generation outcome.
+	 * @throws IOException If any error occurs while listing sources.
+	 */
+	private Result generate(final Module module) throws IOException {
+		final long start = System.currentTimeMillis();
+		final StringWriter buffer = new StringWriter();
+		final StandardJavaFileManager manager = getFileManager(getCharset(module.getOptions()));
+		manager.setLocation(StandardLocation.SOURCE_PATH, toFiles(module.getSourcePath()));
+		manager.setLocation(StandardLocation.CLASS_PATH, toFiles(module.getClassPath()));
+		final Iterable<? extends JavaFileObject> units = manager.getJavaFileObjectsFromFiles(listSources(module.getSourcePath()));
+		boolean success;
+		try (final PrintWriter writer = new PrintWriter(buffer)) {
+			output.set(writer);
+			success = tool
+					.getTask(writer, manager, this::report, Marklet.class, module.getOptions(), units)
+					.call();
+		}
+		catch (final RuntimeException e) {
+			buffer.append(e.toString());
+			success = false;
+		}
+		finally {
+			output.remove();
+		}
+		return new Result(module, success, buffer.toString(), System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Submits the given ``module`` for generation.
+	 *
+	 * @param module Module to generate documentation for.
+	 * @return Future generation outcome.
+	 */
+	public Future<Result> submit(final Module module) {
+		return executor.submit(() -> generate(module));
+	}
+
+	/**
+	 * Generates documentation for the given ``modules``
+	 * concurrently, and waits for every generation to end.
+	 * Each module should be given its own output directory.
+	 *
+	 * @param modules Modules to generate documentation for.
+	 * @return Generation outcome of each module, in the given order.
+	 * @throws IOException If any error occurs while listing sources.
+	 * @throws InterruptedException If interrupted while waiting for generations.
+	 */
+	public List<Result> run(final List<Module> modules) throws IOException, InterruptedException {
+		final List<Future<Result>> futures = modules
+				.stream()
+				.map(this::submit)
+				.collect(Collectors.toList());
+		final List<Result> results = new ArrayList<>();
+		for (final Future<Result> future : futures) {
+			try {
+				results.add(future.get());
+			}
+			catch (final ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void close() throws IOException {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (final StandardJavaFileManager manager : fileManagers) {
+			manager.close();
+		}
+	}
+
+}
@@ -0,0 +1,292 @@
+package fr.faylixe.marklet;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.SourcePosition;
+import com.sun.javadoc.Tag;
+
+/**
+ * State kept across successive **Marklet** executions
+ * within the same process. The first execution of a
+ * session documents the whole tree and records every
+ * documented class. Following executions only parse a
+ * part of the tree, and rely on the session for knowing
+ * which classes have a page to link to.
+ *
+ * Javadoc calls the doclet on the thread that runs the
+ * documentation task, so the session is bound to the
+ * current thread while a task is running.
+ *
+ * @author fv
+ */
+public final class MarkletSession {
+
+	/**
+	 * Kind of execution to perform.
+	 */
+	public enum Mode {
+
+		/** Whole tree is parsed, every page is generated. **/
+		FULL,
+
+		/** Some compilation units are parsed, only their class pages are generated. **/
+		CLASSES,
+
+		/** Whole packages are parsed, their package and class pages are generated. **/
+		PACKAGES
+
+	}
+
+	/** Session bound to the current thread. **/
+	private static final ThreadLocal<MarkletSession> CURRENT = new ThreadLocal<>();
+
+	/** Qualified names of documented classes. **/
+	private final Set<String> knownClasses;
+
+	/** First sentence of documented classes, by qualified name. **/
+	private final Map<String, String> summaries;
+
+	/** Documented classes by source file path. **/
+	private final Map<String, Set<String>> sourceClasses;
+
+	/** Page path of documented classes, relative to output directory and without extension, by qualified name. **/
+	private final Map<String, String> pages;
+
+	/** Packages which page is outdated after the last execution. **/
+	private final Set<String> stalePackages;
+
+	/** Page path of classes removed from their source file by the last execution. **/
+	private final Set<String> forgottenPages;
+
+	/** Kind of the next execution. **/
+	private volatile Mode mode;
+
+	/**
+	 * Default constructor.
+	 */
+	public MarkletSession() {
+		this.knownClasses = ConcurrentHashMap.newKeySet();
+		this.summaries = new ConcurrentHashMap<>();
+		this.sourceClasses = new ConcurrentHashMap<>();
+		this.pages = new ConcurrentHashMap<>();
+		this.stalePackages = ConcurrentHashMap.newKeySet();
+		this.forgottenPages = ConcurrentHashMap.newKeySet();
+		this.mode = Mode.FULL;
+	}
+
+	/**
+	 * Retrieves the session bound to the current thread.
+	 *
+	 * @return Current session, ``null`` if none.
+	 */
+	public static MarkletSession current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds this session to the current thread, or unbinds
+	 * any session if the given ``bound`` flag is ``false``.
+	 *
+	 * @param bound ``true`` to bind this session, ``false`` to unbind it.
+	 */
+	public void bind(final boolean bound) {
+		if (bound) {
+			CURRENT.set(this);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * Mode getter.
+	 *
+	 * @return Kind of the next execution.
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Mode setter.
+	 *
+	 * @param mode Kind of the next execution.
+	 */
+	public void setMode(final Mode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Indicates if the given ``classDoc`` has a page,
+	 * either generated by this execution or a previous one.
+	 *
+	 * @param classDoc Class to check.
+	 * @return ``true`` if the class is documented, ``false`` otherwise.
+	 */
+	public boolean isKnown(final ClassDoc classDoc) {
+		return knownClasses.contains(classDoc.qualifiedName());
+	}
+
+	/**
+	 * Records the given parsed ``classes`` as documented. In a
+	 * {@link Mode#CLASSES} execution, the package of a class
+	 * which is new or which first sentence changed is marked
+	 * as stale, since its package page lists it.
+	 *
+	 * Classes that were declared into a parsed source file and
+	 * are not anymore, renamed or removed, are forgotten : their
+	 * package is marked as stale as well, and their page is left
+	 * to be deleted through {@link #drainForgottenPages()}.
+	 *
+	 * @param classes Documented classes of the execution.
+	 */
+	public void record(final ClassDoc [] classes) {
+		final Map<String, Set<String>> parsed = new HashMap<>();
+		for (final ClassDoc classDoc : classes) {
+			record(classDoc);
+			final SourcePosition position = classDoc.position();
+			if (position != null && position.file() != null) {
+				parsed
+					.computeIfAbsent(position.file().getAbsolutePath(), key -> ConcurrentHashMap.newKeySet())
+					.add(classDoc.qualifiedName());
+			}
+		}
+		final Set<String> removed = new HashSet<>();
+		for (final Map.Entry<String, Set<String>> entry : parsed.entrySet()) {
+			final Set<String> previous = sourceClasses.put(entry.getKey(), entry.getValue());
+			if (previous != null) {
+				previous.removeAll(entry.getValue());
+				removed.addAll(previous);
+			}
+		}
+		for (final String name : removed) {
+			// NOTE : A class moved to another source file is still declared.
+			if (sourceClasses.values().stream().noneMatch(names -> names.contains(name))) {
+				final String page = forget(name);
+				forgottenPages.add(page);
+				if (mode == Mode.CLASSES) {
+					final int separator = page.lastIndexOf('/');
+					stalePackages.add(separator == -1 ? "" : page.substring(0, separator).replace('/', '.'));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the given ``classDoc`` as documented.
+	 *
+	 * @param classDoc Documented class.
+	 */
+	private void record(final ClassDoc classDoc) {
+		final String name = classDoc.qualifiedName();
+		final String summary = summary(classDoc);
+		final String previous = summaries.put(name, summary);
+		knownClasses.add(name);
+		final String packageName = classDoc.containingPackage().name();
+		pages.put(name, MarkletDocumentBuilder.getPath("", packageName) + classDoc.simpleTypeName());
+		if (mode == Mode.CLASSES && !summary.equals(previous)) {
+			stalePackages.add(packageName);
+		}
+	}
+
+	/**
+	 * Forgets the class with the given qualified ``name``.
+	 *
+	 * @param name Qualified name of the class to forget.
+	 * @return Page path of the forgotten class, relative to output directory and without extension.
+	 */
+	private String forget(final String name) {
+		knownClasses.remove(name);
+		summaries.remove(name);
+		return pages.remove(name);
+	}
+
+	/**
+	 * Indicates if classes declared into the given
+	 * source ``file`` have been recorded. Editors often
+	 * save a file by replacing it, which should not be
+	 * considered as a new file.
+	 *
+	 * @param file Source file to check.
+	 * @return ``true`` if the file has been documented, ``false`` otherwise.
+	 */
+	public boolean isRecorded(final File file) {
+		return sourceClasses.containsKey(file.getAbsolutePath());
+	}
+
+	/**
+	 * Forgets classes declared into the given source ``file``.
+	 *
+	 * @param file Source file that has been deleted.
+	 * @return Page path of forgotten classes, relative to output directory and without extension.
+	 */
+	public Set<String> forget(final File file) {
+		final Set<String> classes = sourceClasses.remove(file.getAbsolutePath());
+		if (classes == null) {
+			return Collections.emptySet();
+		}
+		final Set<String> forgotten = new HashSet<>();
+		for (final String name : classes) {
+			forgotten.add(forget(name));
+		}
+		return forgotten;
+	}
+
+	/**
+	 * Retrieves source files which classes have been recorded.
+	 *
+	 * @return Recorded source files.
+	 */
+	public Set<File> getRecordedFiles() {
+		final Set<File> files = new HashSet<>();
+		for (final String path : sourceClasses.keySet()) {
+			files.add(new File(path));
+		}
+		return files;
+	}
+
+	/**
+	 * Retrieves and clears page path of classes that have been
+	 * removed from their source file, so they could be deleted.
+	 *
+	 * @return Page path of forgotten classes, relative to output directory and without extension.
+	 */
+	public Set<String> drainForgottenPages() {
+		final Set<String> forgotten = new HashSet<>(forgottenPages);
+		forgottenPages.removeAll(forgotten);
+		return forgotten;
+	}
+
+	/**
+	 * Retrieves and clears packages which page is outdated.
+	 *
+	 * @return Names of stale packages.
+	 */
+	public Set<String> drainStalePackages() {
+		final Set<String> packages = new HashSet<>(stalePackages);
+		stalePackages.removeAll(packages);
+		return packages;
+	}
+
+	/**
+	 * Builds the first sentence of the given ``classDoc``.
+	 *
+	 * @param classDoc Class to get first sentence from.
+	 * @return First sentence text.
+	 */
+	private static String summary(final ClassDoc classDoc) {
+		final StringBuffer buffer = new StringBuffer();
+		for (final Tag tag : classDoc.firstSentenceTags()) {
+			buffer.append(tag.text());
+		}
+		return buffer.toString();
+	}
+
+}
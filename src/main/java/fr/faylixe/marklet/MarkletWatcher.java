@@ -0,0 +1,417 @@
+package fr.faylixe.marklet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Watch mode entry point. Documentation is generated
+ * once for the whole source tree, then source roots are
+ * watched and only changed compilation units are parsed
+ * again, within the same process, in order to regenerate
+ * their class pages. Package pages are regenerated, from
+ * the whole package, only when a class is added, removed,
+ * or when its first sentence changed. If some events are
+ * lost, source roots are scanned again and the whole tree
+ * is regenerated.
+ *
+ * ```
+ * $ java fr.faylixe.marklet.MarkletWatcher src/main/java -d docs/
+ * ```
+ *
+ * Usage pages, reports and API signatures need the whole
+ * model, so they are only generated by the first execution.
+ *
+ * @author fv
+ */
+public final class MarkletWatcher {
+
+	/** Extension of watched source files. **/
+	private static final String SOURCE_EXTENSION = ".java";
+
+	/** Delay in milliseconds without any event before changes are processed. **/
+	private static final long QUIET_DELAY = 50;
+
+	/** Source roots to watch. **/
+	private final List<Path> roots;
+
+	/** Options given to each javadoc execution. **/
+	private final List<String> options;
+
+	/** Output directory of generated pages. **/
+	private final Path outputDirectory;
+
+	/** Session shared by every execution. **/
+	private final MarkletSession session;
+
+	/** Documentation tool, kept across executions. **/
+	private final DocumentationTool tool;
+
+	/** File manager, kept across executions. **/
+	private final StandardJavaFileManager fileManager;
+
+	/** Service that watches source directories. **/
+	private final WatchService watchService;
+
+	/** Watched directory by key. **/
+	private final Map<WatchKey, Path> directories;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param roots Source roots to watch.
+	 * @param options Options given to each javadoc execution.
+	 * @throws IOException If the watch service could not be created.
+	 */
+	private MarkletWatcher(final List<Path> roots, final List<String> options) throws IOException {
+		this.roots = roots;
+		this.options = options;
+		this.outputDirectory = Paths.get(MarkletOptions.parse(MarkletOptions.split(markletArguments(options))).getOutputDirectory());
+		this.session = new MarkletSession();
+		this.tool = ToolProvider.getSystemDocumentationTool();
+		if (tool == null) {
+			throw new IOException("No documentation tool available, a JDK is required");
+		}
+		this.fileManager = tool.getStandardFileManager(null, null, null);
+		fileManager.setLocation(
+				StandardLocation.SOURCE_PATH,
+				roots.stream().map(Path::toFile).collect(Collectors.toList()));
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.directories = new HashMap<>();
+	}
+
+	/**
+	 * Filters the given javadoc ``options`` in order
+	 * to keep only the ones known by **Marklet**.
+	 *
+	 * @param options Javadoc options.
+	 * @return Marklet arguments.
+	 */
+	private static String [] markletArguments(final List<String> options) {
+		final List<String> arguments = new ArrayList<>();
+		int i = 0;
+		while (i < options.size()) {
+			final int length = MarkletOptions.optionLength(options.get(i));
+			if (length == 0) {
+				i++;
+				continue;
+			}
+			arguments.addAll(options.subList(i, Math.min(i + length, options.size())));
+			i += length;
+		}
+		return arguments.toArray(new String[arguments.size()]);
+	}
+
+	/**
+	 * Indicates if the given ``path`` denotes a source file.
+	 *
+	 * @param path Path to check.
+	 * @return ``true`` if the path is a source file, ``false`` otherwise.
+	 */
+	private static boolean isSource(final Path path) {
+		return path.getFileName().toString().endsWith(SOURCE_EXTENSION);
+	}
+
+	/**
+	 * Lists source files directly contained into the given ``directory``.
+	 *
+	 * @param directory Directory to list.
+	 * @return Source files.
+	 * @throws IOException If any error occurs while listing directory.
+	 */
+	private static List<Path> listSources(final Path directory) throws IOException {
+		final List<Path> sources = new ArrayList<>();
+		if (Files.isDirectory(directory)) {
+			try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SOURCE_EXTENSION)) {
+				stream.forEach(sources::add);
+			}
+		}
+		return sources;
+	}
+
+	/**
+	 * Registers the given ``directory`` and its sub directories
+	 * into the watch service, and collects their source files.
+	 *
+	 * @param directory Directory to register.
+	 * @param sources Collection to add found source files to.
+	 * @throws IOException If any error occurs while registering directories.
+	 */
+	private void register(final Path directory, final Set<Path> sources) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+			/** {@inheritDoc} **/
+			@Override
+			public FileVisitResult preVisitDirectory(final Path path, final BasicFileAttributes attributes) throws IOException {
+				final WatchKey key = path.register(
+						watchService,
+						StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE);
+				directories.put(key, path);
+				return FileVisitResult.CONTINUE;
+			}
+
+			/** {@inheritDoc} **/
+			@Override
+			public FileVisitResult visitFile(final Path path, final BasicFileAttributes attributes) {
+				if (isSource(path)) {
+					sources.add(path);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+		});
+	}
+
+	/**
+	 * Runs a javadoc execution over the given ``sources``,
+	 * with **Marklet** as doclet, in the given ``mode``.
+	 *
+	 * @param sources Source files to parse.
+	 * @param mode Kind of execution to perform.
+	 * @return ``true`` if the execution went well, ``false`` otherwise.
+	 */
+	private boolean generate(final Set<Path> sources, final MarkletSession.Mode mode) {
+		if (sources.isEmpty()) {
+			return true;
+		}
+		final List<File> files = sources
+				.stream()
+				.map(Path::toFile)
+				.collect(Collectors.toList());
+		final Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(files);
+		session.setMode(mode);
+		return tool
+				.getTask(null, fileManager, null, Marklet.class, options, units)
+				.call();
+	}
+
+	/**
+	 * Retrieves the package name of the given source ``directory``.
+	 *
+	 * @param directory Directory to get package name for.
+	 * @return Package name, ``null`` if the directory is not under a source root.
+	 */
+	private String getPackageName(final Path directory) {
+		for (final Path root : roots) {
+			if (directory.startsWith(root)) {
+				final String relative = root.relativize(directory).toString();
+				return relative.replace(File.separatorChar, '.');
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Retrieves the source directories of the package with the given ``name``.
+	 *
+	 * @param name Name of the package.
+	 * @return Existing directories of the package.
+	 */
+	private List<Path> getPackageDirectories(final String name) {
+		return roots
+				.stream()
+				.map(root -> name.isEmpty() ? root : root.resolve(name.replace('.', File.separatorChar)))
+				.filter(Files::isDirectory)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Deletes the given ``pages`` of forgotten classes,
+	 * sub pages included.
+	 *
+	 * @param pages Page path of forgotten classes, relative to output directory and without extension.
+	 * @throws IOException If any error occurs while deleting pages.
+	 */
+	private void deletePages(final Set<String> pages) throws IOException {
+		for (final String page : pages) {
+			final Path path = outputDirectory.resolve(page + MarkdownDocumentBuilder.FILE_EXTENSION);
+			final Path directory = path.getParent();
+			Files.deleteIfExists(path);
+			if (directory != null && Files.isDirectory(directory)) {
+				final String name = path.getFileName().toString();
+				final String prefix = name.substring(0, name.length() - MarkdownDocumentBuilder.FILE_EXTENSION.length()) + '-';
+				try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + MarkdownDocumentBuilder.FILE_EXTENSION)) {
+					for (final Path subPage : stream) {
+						Files.deleteIfExists(subPage);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Processes the given watch ``events``, which have been
+	 * collected until no more event was received for a while.
+	 *
+	 * @param events Events to process, with their directory.
+	 * @throws IOException If any error occurs while processing events.
+	 */
+	private void process(final List<Map.Entry<Path, WatchEvent<?>>> events) throws IOException {
+		final long start = System.currentTimeMillis();
+		final Set<Path> changed = new LinkedHashSet<>();
+		final Set<String> stalePackages = new LinkedHashSet<>();
+		for (final Map.Entry<Path, WatchEvent<?>> entry : events) {
+			final Path path = entry.getKey().resolve((Path) entry.getValue().context());
+			final WatchEvent.Kind<?> kind = entry.getValue().kind();
+			if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+				final Set<Path> sources = new LinkedHashSet<>();
+				register(path, sources);
+				sources.forEach(source -> stalePackages.add(getPackageName(source.getParent())));
+			}
+			else if (isSource(path)) {
+				if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+					deletePages(session.forget(path.toFile()));
+					stalePackages.add(getPackageName(path.getParent()));
+				}
+				else if (kind == StandardWatchEventKinds.ENTRY_CREATE && !session.isRecorded(path.toFile())) {
+					stalePackages.add(getPackageName(path.getParent()));
+				}
+				else if (Files.exists(path)) {
+					changed.add(path);
+				}
+			}
+		}
+		stalePackages.remove(null);
+		changed.removeIf(path -> stalePackages.contains(getPackageName(path.getParent())));
+		generate(changed, MarkletSession.Mode.CLASSES);
+		deletePages(session.drainForgottenPages());
+		stalePackages.addAll(session.drainStalePackages());
+		final Set<Path> packageSources = new LinkedHashSet<>();
+		for (final String name : stalePackages) {
+			for (final Path directory : getPackageDirectories(name)) {
+				packageSources.addAll(listSources(directory));
+			}
+		}
+		generate(packageSources, MarkletSession.Mode.PACKAGES);
+		deletePages(session.drainForgottenPages());
+		System.out.println("Documentation updated in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Scans source roots again once watch events have been
+	 * lost : directories are registered again, pages of
+	 * deleted source files are deleted, and the whole tree
+	 * is regenerated.
+	 *
+	 * @throws IOException If any error occurs while scanning roots or deleting pages.
+	 */
+	private void rescan() throws IOException {
+		final long start = System.currentTimeMillis();
+		for (final WatchKey key : directories.keySet()) {
+			key.cancel();
+		}
+		directories.clear();
+		final Set<Path> sources = new LinkedHashSet<>();
+		for (final Path root : roots) {
+			register(root, sources);
+		}
+		for (final File file : session.getRecordedFiles()) {
+			if (!file.exists()) {
+				deletePages(session.forget(file));
+			}
+		}
+		generate(sources, MarkletSession.Mode.FULL);
+		deletePages(session.drainForgottenPages());
+		System.out.println("Events lost, documentation regenerated in " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	/**
+	 * Generates the whole documentation, then watches
+	 * source roots until the process is stopped.
+	 *
+	 * @throws IOException If any error occurs while watching sources.
+	 * @throws InterruptedException If interrupted while waiting for changes.
+	 */
+	private void watch() throws IOException, InterruptedException {
+		session.bind(true);
+		final Set<Path> sources = new LinkedHashSet<>();
+		for (final Path root : roots) {
+			register(root, sources);
+		}
+		if (!generate(sources, MarkletSession.Mode.FULL)) {
+			System.err.println("Initial generation failed, waiting for changes");
+		}
+		System.out.println("Watching " + directories.size() + " directories for changes");
+		while (true) {
+			final List<Map.Entry<Path, WatchEvent<?>>> events = new ArrayList<>();
+			boolean overflow = false;
+			WatchKey key = watchService.take();
+			while (key != null) {
+				final Path directory = directories.get(key);
+				for (final WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						overflow = true;
+					}
+					else if (directory != null) {
+						events.add(new AbstractMap.SimpleImmutableEntry<>(directory, event));
+					}
+				}
+				if (!key.reset()) {
+					directories.remove(key);
+				}
+				key = watchService.poll(QUIET_DELAY, TimeUnit.MILLISECONDS);
+			}
+			try {
+				if (overflow) {
+					rescan();
+				}
+				else if (!events.isEmpty()) {
+					process(events);
+				}
+			}
+			catch (final IOException e) {
+				// NOTE : Next changes could still be processed, so watching goes on.
+				System.err.println("Unable to update documentation : " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Watcher entry point.
+	 *
+	 * @param args Source path followed by javadoc and **Marklet** options.
+	 * @throws Exception If any error occurs while watching sources.
+	 */
+	public static void main(final String [] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("Usage : MarkletWatcher <sourcepath> [options]");
+			System.exit(1);
+		}
+		final List<Path> roots = Arrays
+				.stream(args[0].split(File.pathSeparator))
+				.map(root -> Paths.get(root).toAbsolutePath().normalize())
+				.collect(Collectors.toList());
+		final List<String> options = Arrays.asList(args).subList(1, args.length);
+		new MarkletWatcher(roots, options).watch();
+	}
+
+}
@@ -0,0 +1,440 @@
+package fr.faylixe.marklet;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Adaptive limit of pages rendered at the same time, driven
+ * by heap occupancy. The heap is shared by every generation
+ * running in the virtual machine, such as modules of a
+ * {@link MarkletRunner}, so a single governor exists.
+ *
+ * Occupancy is watched through notifications only :
+ *
+ * * Old heap pools get a usage threshold, which marks the heap
+ *   as under pressure as soon as it is crossed, so generations
+ *   stop buffering.
+ * * Old heap pools get a collection usage threshold, crossed when
+ *   a collection could not free enough memory, which halves
+ *   the number of pages allowed in flight.
+ * * Each collection reports the heap occupancy it left, and
+ *   one more page is allowed in flight whenever it is below
+ *   the low watermark, until the initial limit is restored.
+ *
+ * Decisions are recorded so generations could report them.
+ * Thresholds of heap pools are global to the virtual machine,
+ * so they are overridden while any generation holds the governor,
+ * and restored along with listeners once the last one closes it.
+ *
+ * @author fv
+ */
+public final class MemoryGovernor {
+
+	/** Ratio of the threshold below which memory is considered freed. **/
+	private static final double LOW_WATERMARK = 0.75;
+
+	/** Maximum number of recorded decisions. **/
+	private static final int MAXIMUM_DECISIONS = 256;
+
+	/** Percent in a ratio. **/
+	private static final double PERCENT = 100;
+
+	/** Governor of this virtual machine, ``null`` while no generation holds it. **/
+	private static MemoryGovernor instance;
+
+	/** Number of generations that hold the governor. **/
+	private static int holders;
+
+	/** Heap occupancy percentage from which memory is under pressure. **/
+	private int percent;
+
+	/** Heap occupancy from which memory is under pressure. **/
+	private volatile double threshold;
+
+	/** Maximum number of pages in flight. **/
+	private final int maximum;
+
+	/** Names of heap pools. **/
+	private final Set<String> heapPools;
+
+	/** Usage and collection usage thresholds of heap pools before they were overridden, by pool name. **/
+	private final Map<String, long []> originalThresholds;
+
+	/** Listener of memory pool threshold notifications. **/
+	private final NotificationListener memoryListener;
+
+	/** Listener of garbage collection notifications. **/
+	private final NotificationListener collectionListener;
+
+	/** Recorded decisions, in order. **/
+	private final List<String> decisions;
+
+	/** Number of pages allowed in flight. **/
+	private int limit;
+
+	/** Number of pages in flight. **/
+	private int inFlight;
+
+	/** Lowest number of pages that has been allowed in flight. **/
+	private int lowest;
+
+	/** Indicates if the heap is under pressure. **/
+	private volatile boolean pressure;
+
+	/** Number of times the heap went under pressure. **/
+	private volatile long pressures;
+
+	/** Number of times the limit has been lowered. **/
+	private long throttles;
+
+	/** Number of times the limit has been raised. **/
+	private long relaxes;
+
+	/** Highest heap occupancy left by a collection. **/
+	private double peak;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param percent Heap occupancy percentage from which memory is under pressure.
+	 * @param maximum Maximum number of pages in flight.
+	 */
+	private MemoryGovernor(final int percent, final int maximum) {
+		this.percent = percent;
+		this.threshold = percent / PERCENT;
+		this.maximum = maximum;
+		this.limit = maximum;
+		this.lowest = maximum;
+		this.heapPools = new HashSet<>();
+		this.originalThresholds = new HashMap<>();
+		this.decisions = new ArrayList<>();
+		this.memoryListener = (notification, handback) -> onMemory(notification);
+		this.collectionListener = (notification, handback) -> onCollection(notification);
+	}
+
+	/**
+	 * Retrieves the governor of this virtual machine, creating
+	 * it with the given threshold if no generation holds it.
+	 * Otherwise the governor is shared, and its threshold is
+	 * changed to the given one if it differs, which is warned
+	 * as it applies to every generation that holds it.
+	 * Each call should be followed by {@link #close()}.
+	 *
+	 * @param percent Heap occupancy percentage from which memory is under pressure.
+	 * @param warnings Consumer of warning messages.
+	 * @return Governor of this virtual machine.
+	 */
+	public static synchronized MemoryGovernor get(final int percent, final Consumer<String> warnings) {
+		if (instance == null) {
+			instance = new MemoryGovernor(percent, Runtime.getRuntime().availableProcessors());
+			instance.listen();
+		}
+		else if (instance.percent != percent) {
+			warnings.accept("Memory threshold of running generations changed from " + instance.percent + "% to " + percent + "%");
+			instance.setThreshold(percent);
+		}
+		holders++;
+		return instance;
+	}
+
+	/**
+	 * Releases the governor for one generation. Once the last
+	 * generation closes it, thresholds of heap pools are restored
+	 * and notifications are not listened anymore.
+	 */
+	public void close() {
+		synchronized (MemoryGovernor.class) {
+			if (instance != this || --holders > 0) {
+				return;
+			}
+			instance = null;
+		}
+		restore();
+	}
+
+	/**
+	 * Saves thresholds of heap pools, sets them, and listens
+	 * to memory and garbage collector notifications.
+	 */
+	private void listen() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP) {
+				continue;
+			}
+			heapPools.add(pool.getName());
+			// NOTE : Young pools do not support usage threshold, their occupancy says nothing about live data.
+			if (pool.getUsage().getMax() > 0 && pool.isUsageThresholdSupported()) {
+				originalThresholds.put(pool.getName(), new long[] {
+					pool.getUsageThreshold(),
+					pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsageThreshold() : 0
+				});
+			}
+		}
+		applyThresholds();
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(memoryListener, null, null);
+		for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (bean instanceof NotificationEmitter) {
+				((NotificationEmitter) bean).addNotificationListener(collectionListener, null, null);
+			}
+		}
+	}
+
+	/**
+	 * Changes the heap occupancy from which memory is under
+	 * pressure, and sets thresholds of heap pools accordingly.
+	 *
+	 * @param percent Heap occupancy percentage from which memory is under pressure.
+	 */
+	private void setThreshold(final int percent) {
+		this.percent = percent;
+		this.threshold = percent / PERCENT;
+		synchronized (this) {
+			record("Threshold changed to " + percent + "%");
+		}
+		applyThresholds();
+	}
+
+	/**
+	 * Sets thresholds of saved heap pools from the current threshold.
+	 */
+	private void applyThresholds() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (!originalThresholds.containsKey(pool.getName())) {
+				continue;
+			}
+			final long value = (long) (pool.getUsage().getMax() * threshold);
+			pool.setUsageThreshold(value);
+			if (pool.isCollectionUsageThresholdSupported()) {
+				pool.setCollectionUsageThreshold(value);
+			}
+		}
+	}
+
+	/**
+	 * Restores saved thresholds of heap pools, and
+	 * removes memory and garbage collector listeners.
+	 */
+	private void restore() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			final long [] original = originalThresholds.get(pool.getName());
+			if (original == null) {
+				continue;
+			}
+			pool.setUsageThreshold(original[0]);
+			if (pool.isCollectionUsageThresholdSupported()) {
+				pool.setCollectionUsageThreshold(original[1]);
+			}
+		}
+		removeListener((NotificationEmitter) ManagementFactory.getMemoryMXBean(), memoryListener);
+		for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (bean instanceof NotificationEmitter) {
+				removeListener((NotificationEmitter) bean, collectionListener);
+			}
+		}
+	}
+
+	/**
+	 * Removes the given ``listener`` from the given ``emitter``.
+	 *
+	 * @param emitter Emitter to remove listener from.
+	 * @param listener Listener to remove.
+	 */
+	private static void removeListener(final NotificationEmitter emitter, final NotificationListener listener) {
+		try {
+			emitter.removeNotificationListener(listener);
+		}
+		catch (final ListenerNotFoundException e) {
+			// NOTE : Emitter was not listened, nothing to remove.
+		}
+	}
+
+	/**
+	 * Handles a memory pool threshold notification.
+	 *
+	 * @param notification Received notification.
+	 */
+	private void onMemory(final Notification notification) {
+		final MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+		final MemoryUsage usage = info.getUsage();
+		final long occupancy = usage.getMax() > 0 ? Math.round(usage.getUsed() * PERCENT / usage.getMax()) : 0;
+		if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+			enterPressure(info.getPoolName() + " reached " + occupancy + "%");
+		}
+		else if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+			enterPressure(info.getPoolName() + " still at " + occupancy + "% after collection");
+			throttle(info.getPoolName() + " still at " + occupancy + "% after collection");
+		}
+	}
+
+	/**
+	 * Handles a garbage collection notification, raising the
+	 * limit if the collection left the heap below the low watermark.
+	 *
+	 * @param notification Received notification.
+	 */
+	private void onCollection(final Notification notification) {
+		if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+			return;
+		}
+		final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+		long used = 0;
+		for (final Map.Entry<String, MemoryUsage> entry : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+			if (heapPools.contains(entry.getKey())) {
+				used += entry.getValue().getUsed();
+			}
+		}
+		final double occupancy = (double) used / Runtime.getRuntime().maxMemory();
+		synchronized (this) {
+			peak = Math.max(peak, occupancy);
+		}
+		if (occupancy < threshold * LOW_WATERMARK) {
+			relax(info.getGcName() + " left " + Math.round(occupancy * PERCENT) + "%");
+		}
+	}
+
+	/**
+	 * Marks the heap as under pressure.
+	 *
+	 * @param reason Reason of the decision.
+	 */
+	private synchronized void enterPressure(final String reason) {
+		if (!pressure) {
+			pressure = true;
+			pressures++;
+			record("Under pressure, " + reason);
+		}
+	}
+
+	/**
+	 * Halves the number of pages allowed in flight.
+	 *
+	 * @param reason Reason of the decision.
+	 */
+	private synchronized void throttle(final String reason) {
+		if (limit > 1) {
+			limit = Math.max(1, limit / 2);
+			lowest = Math.min(lowest, limit);
+			throttles++;
+			record("Throttled to " + limit + " pages in flight, " + reason);
+		}
+	}
+
+	/**
+	 * Ends pressure, and allows one more page in flight.
+	 *
+	 * @param reason Reason of the decision.
+	 */
+	private synchronized void relax(final String reason) {
+		if (pressure) {
+			pressure = false;
+			record("Pressure released, " + reason);
+		}
+		if (limit < maximum) {
+			limit++;
+			relaxes++;
+			record("Relaxed to " + limit + " pages in flight, " + reason);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Records the given decision.
+	 *
+	 * @param decision Decision to record.
+	 */
+	private void record(final String decision) {
+		if (decisions.size() < MAXIMUM_DECISIONS) {
+			decisions.add(decision);
+		}
+	}
+
+	/**
+	 * Waits until one more page is allowed in flight.
+	 * Each call should be followed by {@link #release()}.
+	 *
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public synchronized void acquire() throws InterruptedException {
+		while (inFlight >= limit) {
+			wait();
+		}
+		inFlight++;
+	}
+
+	/**
+	 * Releases a page acquired through {@link #acquire()}.
+	 */
+	public synchronized void release() {
+		inFlight--;
+		notifyAll();
+	}
+
+	/**
+	 * Indicates if the heap is under pressure, in which case
+	 * generations should avoid holding more memory than needed.
+	 *
+	 * @return ``true`` if under pressure, ``false`` otherwise.
+	 */
+	public boolean isUnderPressure() {
+		return pressure;
+	}
+
+	/**
+	 * Pressures getter, which lets a generation detect that
+	 * the heap went under pressure since it last checked.
+	 *
+	 * @return Number of times the heap went under pressure.
+	 */
+	public long getPressures() {
+		return pressures;
+	}
+
+	/**
+	 * Getter for the number of recorded decisions, which
+	 * lets a generation only report decisions made during it.
+	 *
+	 * @return Number of recorded decisions.
+	 */
+	public synchronized int getDecisionCount() {
+		return decisions.size();
+	}
+
+	/**
+	 * Reports decisions recorded since the given ``mark``,
+	 * along with the state of the governor.
+	 *
+	 * @param output Consumer of report lines.
+	 * @param mark Number of recorded decisions when the generation started.
+	 */
+	public synchronized void report(final Consumer<String> output, final int mark) {
+		for (final String decision : decisions.subList(Math.min(mark, decisions.size()), decisions.size())) {
+			output.accept("Memory pressure : " + decision);
+		}
+		output.accept("Memory pressure : "
+				+ pressures + " pressures, "
+				+ throttles + " throttles, "
+				+ relaxes + " relaxes, "
+				+ limit + "/" + maximum + " pages in flight (lowest " + lowest + "), "
+				+ Math.round(peak * PERCENT) + "% peak heap after collection");
+	}
+
+}
@@ -0,0 +1,114 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builder that aims to create the overview page
+ * at the root of the output directory. Such page
+ * lists every documented package, with its short
+ * description, and links to the alphabetical index
+ * when one has been generated.
+ * 
+ * @author fv
+ */
+public final class OverviewPageBuilder extends MarkletDocumentBuilder {
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param context Shared generation state.
+	 */
+	private OverviewPageBuilder(final MarkletContext context) {
+		super(context, null);
+	}
+
+	/**
+	 * Appends overview header to the current document.
+	 */
+	private void header() {
+		header(1);
+		text(MarkletConstant.OVERVIEW);
+		newLine();
+	}
+
+	/**
+	 * Appends a package index to the current document,
+	 * namely list each package in a markdown table.
+	 * 
+	 * @param packages Packages to list.
+	 */
+	private void packageIndex(final List<ShardIndex.Entry> packages) {
+		if (!packages.isEmpty()) {
+			header(2);
+			text(MarkletConstant.PACKAGES);
+			newLine();
+			tableHeader(MarkletConstant.NAME, MarkletConstant.DESCRIPTION);
+			for (final ShardIndex.Entry entry : packages) {
+				startTableRow();
+				link(entry.getName(), entry.getName().replace('.', '/') + '/' + MarkletConstant.README_LINK);
+				cell();
+				text(entry.getSummary());
+				endTableRow();
+				newLine();
+			}
+			newLine();
+		}
+	}
+
+	/**
+	 * Appends links to the alphabetical index pages
+	 * to the current document.
+	 * 
+	 * @param letters Letters of the index, empty if no index is generated.
+	 */
+	private void letterIndex(final Set<String> letters) {
+		if (!letters.isEmpty()) {
+			header(2);
+			text(MarkletConstant.INDEX);
+			newLine();
+			IndexPageBuilder.letters(this, letters);
+		}
+	}
+
+	/**
+	 * Builds and writes the overview page for the given
+	 * ``packages`` into the directory denoted by the given
+	 * ``directoryPath``.
+	 * 
+	 * @param context Shared generation state.
+	 * @param packages Packages to list, ordered by name.
+	 * @param directoryPath Path of the output directory.
+	 * @throws IOException If any error occurs while writing overview page.
+	 */
+	public static void build(final MarkletContext context, final List<ShardIndex.Entry> packages, final Path directoryPath) throws IOException {
+		build(context, packages, Collections.emptySet(), directoryPath);
+	}
+
+	/**
+	 * Builds and writes the overview page for the given
+	 * ``packages``, linking to the given index ``letters``,
+	 * into the directory denoted by the given ``directoryPath``.
+	 * 
+	 * @param context Shared generation state.
+	 * @param packages Packages to list, ordered by name.
+	 * @param letters Letters of the alphabetical index, in page order.
+	 * @param directoryPath Path of the output directory.
+	 * @throws IOException If any error occurs while writing overview page.
+	 */
+	public static void build(
+			final MarkletContext context,
+			final List<ShardIndex.Entry> packages,
+			final Set<String> letters,
+			final Path directoryPath) throws IOException {
+		final OverviewPageBuilder builder = new OverviewPageBuilder(context);
+		builder.header();
+		builder.packageIndex(packages);
+		builder.letterIndex(letters);
+		builder.build(directoryPath.resolve(MarkletConstant.README_FILE));
+	}
+
+}
@@ -2,7 +2,11 @@ package fr.faylixe.marklet;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 import com.sun.javadoc.ClassDoc;
@@ -18,22 +22,56 @@ import com.sun.javadoc.PackageDoc;
  * * Interfaces
  * * Enumerations
  * * Annotations
+ * * Exceptions
+ * * Errors
+ * 
+ * A category which exceeds page budgets is listed
+ * into alphabetical sub pages, linked from the
+ * package page.
  * 
  * @author fv
  */
 public final class PackagePageBuilder extends MarkletDocumentBuilder {
 
+	/** Estimated size in bytes of a type row, without its description. **/
+	private static final int ROW_OVERHEAD = 128;
+
+	/** Separator between page name and sub page suffix. **/
+	private static final char PAGE_SEPARATOR = '-';
+
+	/** Template operation by placeholder name. **/
+	private static final Map<String, PageTemplate.Operation<PackagePageBuilder>> PLACEHOLDERS = new HashMap<>();
+
+	static {
+		PLACEHOLDERS.put("name", builder -> builder.text(builder.packageDoc.name()));
+		PLACEHOLDERS.put("description", builder -> builder.description(builder.packageDoc));
+		PLACEHOLDERS.put("header", PackagePageBuilder::header);
+		PLACEHOLDERS.put("annotations", builder -> builder.classIndex(MarkletConstant.ANNOTATIONS, builder.packageDoc::annotationTypes));
+		PLACEHOLDERS.put("enumerations", builder -> builder.classIndex(MarkletConstant.ENUMERATIONS, builder.packageDoc::enums));
+		PLACEHOLDERS.put("interfaces", builder -> builder.classIndex(MarkletConstant.INTERFACES, builder.packageDoc::interfaces));
+		PLACEHOLDERS.put("classes", builder -> builder.classIndex(MarkletConstant.CLASSES, builder.packageDoc::ordinaryClasses));
+		PLACEHOLDERS.put("exceptions", builder -> builder.classIndex(MarkletConstant.EXCEPTIONS, builder.packageDoc::exceptions));
+		PLACEHOLDERS.put("errors", builder -> builder.classIndex(MarkletConstant.ERRORS, builder.packageDoc::errors));
+		PLACEHOLDERS.put("indexes", PackagePageBuilder::indexes);
+	}
+
 	/** Target package that page is built from. **/
 	private final PackageDoc packageDoc;
 
+	/** Path of the directory to write sub pages in. **/
+	private final Path directoryPath;
+
 	/**
 	 * Default constructor.
 	 * 
+	 * @param context Shared generation state.
 	 * @param packageDoc Target package that page is built from.
+	 * @param directoryPath Path of the directory to write sub pages in.
 	 */
-	private PackagePageBuilder(final PackageDoc packageDoc) {
-		super(packageDoc);
+	private PackagePageBuilder(final MarkletContext context, final PackageDoc packageDoc, final Path directoryPath) {
+		super(context, packageDoc);
 		this.packageDoc = packageDoc;
+		this.directoryPath = directoryPath;
 	}
 
 	/**
@@ -59,21 +97,96 @@ public final class PackagePageBuilder extends MarkletDocumentBuilder {
 	 * 
 	 * @param label Label of the type categories.
 	 * @param classSupplier Type supplier.
+	 * @throws IOException If any error occurs while writing sub pages.
 	 */
-	private void classIndex(final String label, final Supplier<ClassDoc[]> classSupplier) {
+	private void classIndex(final String label, final Supplier<ClassDoc[]> classSupplier) throws IOException {
 		final ClassDoc [] classDocs = classSupplier.get();
 		if (classDocs.length > 0) {
 			header(2);
 			text(label);
 			newLine();
-			tableHeader(MarkletConstant.NAME, "Description");
-			Arrays
-				.stream(classDocs)
-				.forEach(this::classRow);
+			final List<List<ClassDoc>> pages = split(classDocs);
+			if (pages.size() == 1) {
+				classTable(classDocs);
+				return;
+			}
+			for (int i = 0; i < pages.size(); i++) {
+				final List<ClassDoc> page = pages.get(i);
+				final String first = page.get(0).name();
+				final String last = page.get(page.size() - 1).name();
+				final String range = first.equals(last) ? first : first + " - " + last;
+				final String pageName = new StringBuffer()
+					.append(MarkletConstant.README)
+					.append(PAGE_SEPARATOR)
+					.append(label.toLowerCase())
+					.append(PAGE_SEPARATOR)
+					.append(i + 1)
+					.toString();
+				item();
+				link(range, pageName + MarkdownDocumentBuilder.LINK_EXTENSION);
+				text(" (" + page.size() + ")");
+				newLine();
+				final Path pagePath = directoryPath.resolve(pageName + MarkdownDocumentBuilder.FILE_EXTENSION);
+				final PackagePageBuilder pageBuilder = new PackagePageBuilder(getContext(), packageDoc, directoryPath);
+				pageBuilder.expect(pagePath, (long) ROW_OVERHEAD * page.size());
+				pageBuilder.header(1);
+				pageBuilder.text(MarkletConstant.PACKAGE);
+				pageBuilder.character(' ');
+				pageBuilder.link(packageDoc.name(), MarkletConstant.README_LINK);
+				pageBuilder.text(" : " + label + " (" + range + ")");
+				pageBuilder.newLine();
+				pageBuilder.classTable(page.toArray(new ClassDoc[page.size()]));
+				pageBuilder.build(pagePath);
+			}
 			newLine();
 		}
 	}
 
+	/**
+	 * Appends the given ``classDocs`` to the current
+	 * document as a markdown table.
+	 * 
+	 * @param classDocs Types to list.
+	 */
+	private void classTable(final ClassDoc [] classDocs) {
+		tableHeader(MarkletConstant.NAME, MarkletConstant.DESCRIPTION);
+		Arrays
+			.stream(classDocs)
+			.forEach(this::classRow);
+		newLine();
+	}
+
+	/**
+	 * Splits the given ``classDocs``, in alphabetical order,
+	 * into pages that fit into page budgets.
+	 * 
+	 * @param classDocs Types to split.
+	 * @return Types of each page, a single page if budgets are not exceeded.
+	 */
+	private List<List<ClassDoc>> split(final ClassDoc [] classDocs) {
+		final int memberBudget = getContext().getOptions().getPageMembers();
+		final long byteBudget = getContext().getOptions().getPageBytes();
+		final List<List<ClassDoc>> pages = new ArrayList<>();
+		final ClassDoc [] sorted = classDocs.clone();
+		Arrays.sort(sorted, (a, b) -> a.name().compareTo(b.name()));
+		List<ClassDoc> current = new ArrayList<>();
+		long size = 0;
+		for (final ClassDoc classDoc : sorted) {
+			final long rowSize = ROW_OVERHEAD + classDoc.commentText().length();
+			final boolean full = (memberBudget > 0 && current.size() >= memberBudget)
+					|| (byteBudget > 0 && size + rowSize > byteBudget);
+			if (full && !current.isEmpty()) {
+				pages.add(current);
+				current = new ArrayList<>();
+				size = 0;
+			}
+			current.add(classDoc);
+			size += rowSize;
+		}
+		pages.add(current);
+		return pages;
+	}
+
 	/**
 	 * Appends a class link row to the current
 	 * index built in the current document.
@@ -84,7 +197,7 @@ public final class PackagePageBuilder extends MarkletDocumentBuilder {
 		startTableRow();
 		classLink(packageDoc, classDoc);
 		cell();
-		text(classDoc.commentText().replaceAll("\\n"," ").replaceFirst("\\..*","."));
+		summary(classDoc);
 		endTableRow();
 		newLine();
 	}
@@ -97,28 +210,57 @@ public final class PackagePageBuilder extends MarkletDocumentBuilder {
 	 * * Interfaces
 	 * * Enumerations
 	 * * Annotations
+	 * * Exceptions
+	 * * Errors
+	 * 
+	 * @throws IOException If any error occurs while writing sub pages.
 	 */
-	private void indexes() {
+	private void indexes() throws IOException {
 		classIndex(MarkletConstant.ANNOTATIONS, packageDoc::annotationTypes);
 		classIndex(MarkletConstant.ENUMERATIONS, packageDoc::enums);
 		classIndex(MarkletConstant.INTERFACES, packageDoc::interfaces);
-		classIndex(MarkletConstant.CLASSES, packageDoc::allClasses);
+		classIndex(MarkletConstant.CLASSES, packageDoc::ordinaryClasses);
+		classIndex(MarkletConstant.EXCEPTIONS, packageDoc::exceptions);
+		classIndex(MarkletConstant.ERRORS, packageDoc::errors);
+	}
+
+	/**
+	 * Loads and compiles the package page template denoted
+	 * by the given ``path``. Available placeholders are
+	 * ``name``, ``description``, ``header``, ``indexes``,
+	 * and one per type category, such as ``classes``.
+	 * 
+	 * @param path Path of the template file.
+	 * @return Compiled template.
+	 * @throws IOException If any error occurs while reading the file, or if the template is invalid.
+	 */
+	public static PageTemplate<PackagePageBuilder> loadTemplate(final Path path) throws IOException {
+		return PageTemplate.load(path, PLACEHOLDERS);
 	}
 
 	/**
 	 * Builds and writes the documentation file associated
 	 * to the given ``packageDoc`` into the directory denoted
-	 * by the given ``directoryPath``.
+	 * by the given ``directoryPath``. If a package template
+	 * is given, the package page follows it.
 	 * 
+	 * @param context Shared generation state.
 	 * @param packageDoc Package to generated documentation for.
 	 * @param directoryPath Path of the directory to write documentation in.
 	 * @throws IOException If any error occurs while writing package page.
 	 */
-	public static void build(final PackageDoc packageDoc, final Path directoryPath) throws IOException {
-		final PackagePageBuilder packageBuilder = new PackagePageBuilder( packageDoc);
-		packageBuilder.header();
-		packageBuilder.indexes();
+	public static void build(final MarkletContext context, final PackageDoc packageDoc, final Path directoryPath) throws IOException {
 		final Path path = directoryPath.resolve(MarkletConstant.README_FILE);
+		final PackagePageBuilder packageBuilder = new PackagePageBuilder(context, packageDoc, directoryPath);
+		packageBuilder.expect(path, packageDoc.commentText().length() + (long) ROW_OVERHEAD * packageDoc.allClasses().length);
+		final PageTemplate<PackagePageBuilder> template = context.getPackageTemplate();
+		if (template != null) {
+			template.render(packageBuilder);
+		}
+		else {
+			packageBuilder.header();
+			packageBuilder.indexes();
+		}
 		packageBuilder.build(path);
 	}
 
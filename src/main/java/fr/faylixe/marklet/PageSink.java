@@ -0,0 +1,26 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Destination of rendered pages. Pages are written
+ * into files by default, but could be kept in memory,
+ * for instance in order to be served on request.
+ *
+ * @author fv
+ */
+@FunctionalInterface
+public interface PageSink {
+
+	/**
+	 * Writes the given encoded page content.
+	 *
+	 * @param path Path of the page, under the output directory.
+	 * @param buffers Encoded page content, in order.
+	 * @throws IOException If any error occurs while writing page.
+	 */
+	void write(Path path, ByteBuffer [] buffers) throws IOException;
+
+}
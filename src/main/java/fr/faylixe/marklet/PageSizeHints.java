@@ -0,0 +1,170 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size of pages written by the previous generation into
+ * the same output directory, used as initial capacity of
+ * page buffers so they do not have to grow while rendering.
+ * Sizes are counted in characters, and keyed by page path
+ * relative to the output directory.
+ *
+ * Sizes written by this generation are recorded as well, and
+ * saved back into the index directory once it is done. Pages
+ * that were not written keep their previous size, so a partial
+ * generation does not lose hints of other pages.
+ *
+ * @author fv
+ */
+public final class PageSizeHints {
+
+	/** Prefix of sizes file name. **/
+	private static final String FILE_PREFIX = "page";
+
+	/** Suffix of sizes file name. **/
+	private static final String FILE_SUFFIX = ".sizes";
+
+	/** Field separator. **/
+	private static final char SEPARATOR = '\t';
+
+	/** Absolute output directory, that page paths are relative to. **/
+	private final Path outputDirectory;
+
+	/** Path of the sizes file. **/
+	private final Path path;
+
+	/** Size in characters by page path. **/
+	private final Map<String, Integer> sizes;
+
+	/** Number of sizes loaded from the previous generation. **/
+	private final int loaded;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param outputDirectory Output directory, that page paths are relative to.
+	 * @param path Path of the sizes file.
+	 * @param sizes Sizes loaded from the previous generation.
+	 */
+	private PageSizeHints(final Path outputDirectory, final Path path, final Map<String, Integer> sizes) {
+		this.outputDirectory = outputDirectory;
+		this.path = path;
+		this.sizes = sizes;
+		this.loaded = sizes.size();
+	}
+
+	/**
+	 * Builds the sizes file name. Each shard has its own
+	 * file, as shards share the output directory.
+	 *
+	 * @param shardIndex Index of the shard, starting from 1.
+	 * @param shardCount Total number of shards.
+	 * @return Sizes file name.
+	 */
+	public static String getFileName(final int shardIndex, final int shardCount) {
+		if (shardCount == 1) {
+			return FILE_PREFIX + FILE_SUFFIX;
+		}
+		return FILE_PREFIX + "-" + shardIndex + "-of-" + shardCount + FILE_SUFFIX;
+	}
+
+	/**
+	 * Loads sizes of the given ``outputDirectory`` from the
+	 * file with the given ``name`` into its index directory,
+	 * if any.
+	 *
+	 * @param outputDirectory Output directory to load sizes of.
+	 * @param name Name of the sizes file.
+	 * @return Loaded sizes, empty if no file exists.
+	 * @throws IOException If any error occurs while reading sizes file.
+	 */
+	public static PageSizeHints load(final Path outputDirectory, final String name) throws IOException {
+		final Path directory = outputDirectory.toAbsolutePath().normalize();
+		final Path path = directory.resolve(ShardIndex.DIRECTORY).resolve(name);
+		final Map<String, Integer> sizes = new ConcurrentHashMap<>();
+		if (Files.isRegularFile(path)) {
+			try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final int index = line.indexOf(SEPARATOR);
+					if (index > 0) {
+						try {
+							sizes.put(line.substring(index + 1), Integer.valueOf(line.substring(0, index)));
+						}
+						catch (final NumberFormatException e) {
+							// NOTE : Hints are only an optimization, malformed lines are ignored.
+						}
+					}
+				}
+			}
+		}
+		return new PageSizeHints(directory, path, sizes);
+	}
+
+	/**
+	 * Builds the key of the page denoted by the given ``page`` path.
+	 *
+	 * @param page Path of the page.
+	 * @return Page path relative to output directory.
+	 */
+	private String key(final Path page) {
+		return outputDirectory
+				.relativize(page.toAbsolutePath().normalize())
+				.toString()
+				.replace(page.getFileSystem().getSeparator(), "/");
+	}
+
+	/**
+	 * Retrieves the size of the given ``page`` when previously written.
+	 *
+	 * @param page Path of the page.
+	 * @return Size in characters, ``-1`` if unknown.
+	 */
+	public int get(final Path page) {
+		final Integer size = sizes.get(key(page));
+		return size == null ? -1 : size;
+	}
+
+	/**
+	 * Records the size of the given written ``page``.
+	 *
+	 * @param page Path of the page.
+	 * @param size Size in characters.
+	 */
+	public void record(final Path page, final int size) {
+		sizes.put(key(page), size);
+	}
+
+	/**
+	 * Getter for the number of sizes loaded from the previous generation.
+	 *
+	 * @return Number of loaded sizes.
+	 */
+	public int getLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * Writes sizes into the index directory, ordered by page path.
+	 *
+	 * @throws IOException If any error occurs while writing sizes file.
+	 */
+	public void save() throws IOException {
+		Files.createDirectories(path.getParent());
+		try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (final Map.Entry<String, Integer> entry : new TreeMap<>(sizes).entrySet()) {
+				writer.write(String.valueOf(entry.getValue()) + SEPARATOR + entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+
+}
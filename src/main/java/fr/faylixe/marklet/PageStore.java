@@ -0,0 +1,282 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sink that writes each page once into a content addressed
+ * store, where pages are named after the hash of their
+ * content. Pages of the output directory are hard links to
+ * their stored content, so documentation of several versions
+ * sharing a store only takes disk space for pages that
+ * changed. When a link could not be created, for instance
+ * if the store is on another file system, the page is copied.
+ *
+ * A manifest that maps each page to its hash is written
+ * into the output directory, so output could also be
+ * rebuilt from the store alone. A partial generation loads
+ * the existing manifest first, so it keeps entries of pages
+ * it did not write. A full generation starts from an empty
+ * manifest, so pages that are gone are not listed anymore.
+ *
+ * Stored pages are read only, as they are shared across
+ * versions : output directories linked to a store should
+ * not be written in place by another sink.
+ *
+ * @author fv
+ */
+public final class PageStore implements PageSink {
+
+	/** Name of the manifest file, into index directory. **/
+	private static final String MANIFEST_FILE = "pages.manifest";
+
+	/** Digest algorithm used for naming stored pages. **/
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/** Number of hash characters used as store sub directory name. **/
+	private static final int PREFIX_LENGTH = 2;
+
+	/** Hexadecimal digits. **/
+	private static final char [] HEX = "0123456789abcdef".toCharArray();
+
+	/** Manifest field separator. **/
+	private static final char SEPARATOR = '\t';
+
+	/** Digest instance per thread. **/
+	private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		}
+		catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	/** Directory of stored pages. **/
+	private final Path storeDirectory;
+
+	/** Absolute output directory, that manifest paths are relative to. **/
+	private final Path outputDirectory;
+
+	/** Path of the manifest file. **/
+	private final Path manifestPath;
+
+	/** Hash by page path, relative to output directory. **/
+	private final Map<String, String> manifest;
+
+	/** Number of pages which content has been stored. **/
+	private final AtomicInteger stored;
+
+	/** Number of pages which content was already stored. **/
+	private final AtomicInteger shared;
+
+	/** Number of pages that have been copied rather than linked. **/
+	private final AtomicInteger copied;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param storeDirectory Directory of stored pages.
+	 * @param outputDirectory Output directory that pages are linked into.
+	 * @param partial ``true`` if the generation only writes some pages, ``false`` otherwise.
+	 * @throws IOException If store directory could not be created, or existing manifest could not be read.
+	 */
+	public PageStore(final Path storeDirectory, final Path outputDirectory, final boolean partial) throws IOException {
+		this.storeDirectory = Files.createDirectories(storeDirectory);
+		this.outputDirectory = outputDirectory.toAbsolutePath().normalize();
+		this.manifestPath = this.outputDirectory.resolve(ShardIndex.DIRECTORY).resolve(MANIFEST_FILE);
+		this.manifest = new ConcurrentHashMap<>();
+		this.stored = new AtomicInteger();
+		this.shared = new AtomicInteger();
+		this.copied = new AtomicInteger();
+		if (partial && Files.isRegularFile(manifestPath)) {
+			load();
+		}
+	}
+
+	/**
+	 * Loads entries of the existing manifest file.
+	 *
+	 * @throws IOException If any error occurs while reading manifest.
+	 */
+	private void load() throws IOException {
+		try (final BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final int index = line.indexOf(SEPARATOR);
+				if (index > 0) {
+					manifest.put(line.substring(index + 1), line.substring(0, index));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the hexadecimal hash of the given page content,
+	 * without consuming given buffers.
+	 *
+	 * @param buffers Encoded page content.
+	 * @return Hash of the content.
+	 */
+	private static String hash(final ByteBuffer [] buffers) {
+		final MessageDigest digest = DIGEST.get();
+		digest.reset();
+		for (final ByteBuffer buffer : buffers) {
+			digest.update(buffer.duplicate());
+		}
+		final byte [] bytes = digest.digest();
+		final char [] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Retrieves the path of the stored page with the given ``hash``.
+	 *
+	 * @param hash Hash of the page content.
+	 * @return Path of the stored page.
+	 */
+	private Path getBlob(final String hash) {
+		return storeDirectory
+				.resolve(hash.substring(0, PREFIX_LENGTH))
+				.resolve(hash.substring(PREFIX_LENGTH));
+	}
+
+	/**
+	 * Stores the given page content, if not stored yet. Content is
+	 * written into a temporary file which is then moved, so a stored
+	 * page is always complete even if several executions share the store.
+	 *
+	 * @param blob Path of the stored page.
+	 * @param buffers Encoded page content.
+	 * @throws IOException If any error occurs while writing content.
+	 */
+	private void store(final Path blob, final ByteBuffer [] buffers) throws IOException {
+		if (Files.exists(blob)) {
+			shared.incrementAndGet();
+			return;
+		}
+		final Path directory = Files.createDirectories(blob.getParent());
+		final Path temporary = Files.createTempFile(directory, null, null);
+		try {
+			long remaining = 0;
+			for (final ByteBuffer buffer : buffers) {
+				remaining += buffer.remaining();
+			}
+			try (final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (remaining > 0) {
+					remaining -= channel.write(buffers);
+				}
+			}
+			temporary.toFile().setReadOnly();
+			Files.move(temporary, blob, StandardCopyOption.ATOMIC_MOVE);
+			stored.incrementAndGet();
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Makes the page denoted by the given ``path`` point to the given
+	 * stored ``blob``, replacing any previous page.
+	 *
+	 * @param path Path of the page.
+	 * @param blob Path of the stored page.
+	 * @throws IOException If any error occurs while linking or copying page.
+	 */
+	private void link(final Path path, final Path blob) throws IOException {
+		if (Files.exists(path)) {
+			if (Files.isSameFile(path, blob)) {
+				return;
+			}
+			Files.delete(path);
+		}
+		try {
+			Files.createLink(path, blob);
+		}
+		catch (final UnsupportedOperationException | FileSystemException e) {
+			Files.copy(blob, path, StandardCopyOption.REPLACE_EXISTING);
+			copied.incrementAndGet();
+		}
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void write(final Path path, final ByteBuffer [] buffers) throws IOException {
+		final String hash = hash(buffers);
+		final Path blob = getBlob(hash);
+		store(blob, buffers);
+		link(path, blob);
+		final String page = outputDirectory
+				.relativize(path.toAbsolutePath().normalize())
+				.toString()
+				.replace(path.getFileSystem().getSeparator(), "/");
+		manifest.put(page, hash);
+	}
+
+	/**
+	 * Writes the manifest of pages into the index directory
+	 * of the output directory, ordered by page path.
+	 *
+	 * @throws IOException If any error occurs while writing manifest.
+	 */
+	public void save() throws IOException {
+		Files.createDirectories(manifestPath.getParent());
+		try (final BufferedWriter writer = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8)) {
+			for (final Map.Entry<String, String> entry : new TreeMap<>(manifest).entrySet()) {
+				writer.write(entry.getValue() + SEPARATOR + entry.getKey());
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Getter for the number of pages which content has been stored.
+	 *
+	 * @return Number of new pages.
+	 * @see #stored
+	 */
+	public int getStored() {
+		return stored.get();
+	}
+
+	/**
+	 * Getter for the number of pages which content was already stored.
+	 *
+	 * @return Number of shared pages.
+	 * @see #shared
+	 */
+	public int getShared() {
+		return shared.get();
+	}
+
+	/**
+	 * Getter for the number of pages copied rather than linked.
+	 *
+	 * @return Number of copied pages.
+	 * @see #copied
+	 */
+	public int getCopied() {
+		return copied.get();
+	}
+
+}
@@ -0,0 +1,157 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * User supplied page layout. A template is a markdown
+ * document with placeholders such as ``{{methods}}``,
+ * which are replaced by the matching page section :
+ *
+ * ```
+ * ---
+ * title: {{name}}
+ * ---
+ * {{header}}
+ * {{methods}}
+ * ```
+ *
+ * Templates are compiled once into a sequence of operations,
+ * constant text being appended as a shared segment and each
+ * placeholder being bound to its section, so applying a
+ * template does not parse it again.
+ *
+ * @param <B> Type of builder the template is applied to.
+ * @author fv
+ */
+public final class PageTemplate<B extends MarkdownDocumentBuilder> {
+
+	/**
+	 * Rendering operation of a compiled template.
+	 *
+	 * @param <B> Type of builder the operation is applied to.
+	 */
+	@FunctionalInterface
+	public interface Operation<B> {
+
+		/**
+		 * Renders this operation into the given ``builder``.
+		 *
+		 * @param builder Builder to render into.
+		 * @throws IOException If any error occurs while writing sub pages.
+		 */
+		void render(B builder) throws IOException;
+
+	}
+
+	/** Placeholder opening delimiter. **/
+	private static final String OPEN = "{{";
+
+	/** Placeholder closing delimiter. **/
+	private static final String CLOSE = "}}";
+
+	/** Length from which constant text is appended as its own segment rather than copied. **/
+	private static final int SEGMENT_LENGTH = 64;
+
+	/** Operations to apply, in template order. **/
+	private final List<Operation<B>> operations;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param operations Operations to apply, in template order.
+	 */
+	private PageTemplate(final List<Operation<B>> operations) {
+		this.operations = Collections.unmodifiableList(operations);
+	}
+
+	/**
+	 * Applies this template to the given ``builder``.
+	 *
+	 * @param builder Builder to render page into.
+	 * @throws IOException If any error occurs while writing sub pages.
+	 */
+	public void render(final B builder) throws IOException {
+		for (final Operation<B> operation : operations) {
+			operation.render(builder);
+		}
+	}
+
+	/**
+	 * Creates an operation that appends the given constant ``text``.
+	 *
+	 * @param text Constant text to append.
+	 * @return Created operation.
+	 */
+	private static <B extends MarkdownDocumentBuilder> Operation<B> constant(final String text) {
+		if (text.length() >= SEGMENT_LENGTH) {
+			return builder -> builder.segment(text);
+		}
+		return builder -> builder.raw(text);
+	}
+
+	/**
+	 * Compiles the given template ``source``.
+	 *
+	 * @param source Template content.
+	 * @param placeholders Operation by placeholder name.
+	 * @return Compiled template.
+	 * @throws IllegalArgumentException If a placeholder is unknown or not closed.
+	 */
+	public static <B extends MarkdownDocumentBuilder> PageTemplate<B> compile(
+			final String source,
+			final Map<String, Operation<B>> placeholders) {
+		final List<Operation<B>> operations = new ArrayList<>();
+		int position = 0;
+		while (position < source.length()) {
+			final int start = source.indexOf(OPEN, position);
+			if (start < 0) {
+				operations.add(constant(source.substring(position)));
+				break;
+			}
+			if (start > position) {
+				operations.add(constant(source.substring(position, start)));
+			}
+			final int end = source.indexOf(CLOSE, start + OPEN.length());
+			if (end < 0) {
+				throw new IllegalArgumentException("Placeholder not closed at offset " + start);
+			}
+			final String name = source.substring(start + OPEN.length(), end).trim();
+			final Operation<B> operation = placeholders.get(name);
+			if (operation == null) {
+				throw new IllegalArgumentException("Unknown placeholder " + name + ", expected one of " + new TreeSet<>(placeholders.keySet()));
+			}
+			operations.add(operation);
+			position = end + CLOSE.length();
+		}
+		return new PageTemplate<>(operations);
+	}
+
+	/**
+	 * Loads and compiles the template file denoted by the given ``path``.
+	 *
+	 * @param path Path of the template file, UTF-8 encoded.
+	 * @param placeholders Operation by placeholder name.
+	 * @return Compiled template.
+	 * @throws IOException If any error occurs while reading the file, or if the template is invalid.
+	 */
+	public static <B extends MarkdownDocumentBuilder> PageTemplate<B> load(
+			final Path path,
+			final Map<String, Operation<B>> placeholders) throws IOException {
+		final String source = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		try {
+			return compile(source, placeholders);
+		}
+		catch (final IllegalArgumentException e) {
+			throw new IOException("Invalid template " + path + " : " + e.getMessage(), e);
+		}
+	}
+
+}
@@ -0,0 +1,307 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server that renders pages on request
+ * rather than writing them. Pages are rendered by the
+ * usual builders, the server acting as their sink, and
+ * are kept into a cache bounded in size where least
+ * recently served pages are evicted first. Memory use
+ * is therefore proportional to browsed pages, not to
+ * the documented API.
+ *
+ * Requests are handled one at a time, on the server
+ * thread, as the documentation model is read lazily.
+ * Usage, report, index and API signature pages need the whole
+ * model, and are not available in preview.
+ *
+ * @author fv
+ */
+public final class PreviewServer implements PageSink, HttpHandler {
+
+	/** Path of the page that lists documented packages. **/
+	private static final String INDEX = "";
+
+	/** Content type of served pages. **/
+	private static final String CONTENT_TYPE = "text/plain; charset=";
+
+	/** Separator of page path elements. **/
+	private static final char SEPARATOR = '/';
+
+	/** HTTP status for a served page. **/
+	private static final int OK = 200;
+
+	/** HTTP status for an unknown page. **/
+	private static final int NOT_FOUND = 404;
+
+	/** HTTP status for a page that could not be rendered. **/
+	private static final int ERROR = 500;
+
+	/** Documentation root that pages are rendered from. **/
+	private final RootDoc root;
+
+	/** Absolute output directory, that page paths are relative to. **/
+	private final Path outputDirectory;
+
+	/** Class by path of its main page, without extension. **/
+	private final Map<String, ClassDoc> classes;
+
+	/** Package by path of its directory. **/
+	private final Map<String, PackageDoc> packages;
+
+	/** Rendered pages by path, in access order. **/
+	private final LinkedHashMap<String, byte []> cache;
+
+	/** Maximum size in bytes of cached pages. **/
+	private final long cacheSize;
+
+	/** Current size in bytes of cached pages. **/
+	private long size;
+
+	/** Pages written by the current rendering. **/
+	private Map<String, byte []> rendered;
+
+	/** Shared generation state, that pages are rendered with. **/
+	private MarkletContext context;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param root Documentation root that pages are rendered from.
+	 * @param options Options to use for rendering.
+	 */
+	public PreviewServer(final RootDoc root, final MarkletOptions options) {
+		this.root = root;
+		this.outputDirectory = Paths.get(options.getOutputDirectory()).toAbsolutePath().normalize();
+		this.classes = new HashMap<>();
+		this.packages = new TreeMap<>();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true);
+		this.cacheSize = options.getPreviewCacheSize();
+	}
+
+	/**
+	 * Builds the path of the given ``packageDoc`` directory.
+	 *
+	 * @param packageDoc Package to get directory path for.
+	 * @return Directory path, relative to output directory.
+	 */
+	private static String getDirectory(final PackageDoc packageDoc) {
+		return packageDoc.name().replace('.', SEPARATOR);
+	}
+
+	/**
+	 * Builds the page path of the given ``name`` into the given ``directory``.
+	 *
+	 * @param directory Directory path.
+	 * @param name Page name, without extension.
+	 * @return Page path, relative to output directory.
+	 */
+	private static String getPage(final String directory, final String name) {
+		return directory.isEmpty() ? name : directory + SEPARATOR + name;
+	}
+
+	/**
+	 * Indexes main pages of every documented class and package.
+	 * Sub pages of classes that exceed page budgets are resolved
+	 * through their main page name, so layouts are only computed
+	 * for requested classes.
+	 */
+	private void index() {
+		for (final ClassDoc classDoc : root.classes()) {
+			final PackageDoc packageDoc = classDoc.containingPackage();
+			final String directory = getDirectory(packageDoc);
+			if (!packageDoc.name().isEmpty()) {
+				packages.put(directory, packageDoc);
+			}
+			classes.put(getPage(directory, classDoc.simpleTypeName()), classDoc);
+		}
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void write(final Path path, final ByteBuffer [] buffers) throws IOException {
+		int length = 0;
+		for (final ByteBuffer buffer : buffers) {
+			length += buffer.remaining();
+		}
+		final byte [] content = new byte[length];
+		int offset = 0;
+		for (final ByteBuffer buffer : buffers) {
+			final int remaining = buffer.remaining();
+			buffer.get(content, offset, remaining);
+			offset += remaining;
+		}
+		String page = outputDirectory
+				.relativize(path.toAbsolutePath().normalize())
+				.toString()
+				.replace(path.getFileSystem().getSeparator(), String.valueOf(SEPARATOR));
+		if (page.endsWith(MarkdownDocumentBuilder.FILE_EXTENSION)) {
+			page = page.substring(0, page.length() - MarkdownDocumentBuilder.FILE_EXTENSION.length());
+		}
+		rendered.put(page, content);
+	}
+
+	/**
+	 * Adds the given rendered ``page`` to the cache, evicting
+	 * least recently served pages until it fits.
+	 *
+	 * @param page Page path.
+	 * @param content Page content.
+	 */
+	private void cache(final String page, final byte [] content) {
+		final byte [] previous = cache.put(page, content);
+		if (previous != null) {
+			size -= previous.length;
+		}
+		size += content.length;
+		while (size > cacheSize && cache.size() > 1) {
+			final Map.Entry<String, byte []> eldest = cache.entrySet().iterator().next();
+			size -= eldest.getValue().length;
+			cache.remove(eldest.getKey());
+		}
+	}
+
+	/**
+	 * Renders the given ``page``, along with pages that are
+	 * rendered with it, such as sub pages of a class.
+	 *
+	 * @param page Page path, without extension.
+	 * @return Page content, ``null`` if the page does not exist.
+	 * @throws IOException If any error occurs while rendering page.
+	 */
+	private byte [] render(final String page) throws IOException {
+		rendered = new HashMap<>();
+		try {
+			final int index = page.lastIndexOf(SEPARATOR);
+			final String directory = index < 0 ? "" : page.substring(0, index);
+			final String name = page.substring(index + 1);
+			final Path directoryPath = outputDirectory.resolve(directory);
+			final ClassDoc classDoc = classes.get(getPage(directory, ClassPageLayout.getMainPage(name)));
+			final PackageDoc packageDoc = packages.get(directory);
+			if (INDEX.equals(page)) {
+				renderIndex();
+			}
+			else if (classDoc != null) {
+				ClassPageBuilder.build(context, classDoc, directoryPath);
+			}
+			else if (packageDoc != null && name.startsWith(MarkletConstant.README)) {
+				PackagePageBuilder.build(context, packageDoc, directoryPath);
+			}
+			rendered.forEach(this::cache);
+			return rendered.get(page);
+		}
+		finally {
+			rendered = null;
+		}
+	}
+
+	/**
+	 * Renders the page that lists documented packages.
+	 *
+	 * @throws IOException If any error occurs while rendering page.
+	 */
+	private void renderIndex() throws IOException {
+		final MarkdownDocumentBuilder builder = new MarkdownDocumentBuilder();
+		builder.header(1);
+		builder.text(MarkletConstant.PACKAGES);
+		builder.newLine();
+		for (final Map.Entry<String, PackageDoc> entry : packages.entrySet()) {
+			builder.item();
+			builder.link(entry.getValue().name(), entry.getKey() + SEPARATOR + MarkletConstant.README_LINK);
+			builder.newLine();
+		}
+		final ByteBuffer content = Charset.defaultCharset().encode(builder.build());
+		write(outputDirectory.resolve(INDEX), new ByteBuffer [] { content });
+	}
+
+	/**
+	 * Converts the given request ``uri`` into a page path.
+	 *
+	 * @param uri Requested URI.
+	 * @return Page path, without extension.
+	 */
+	private static String getPage(final URI uri) {
+		String page = uri.getPath();
+		while (page.startsWith(String.valueOf(SEPARATOR))) {
+			page = page.substring(1);
+		}
+		if (page.endsWith(MarkdownDocumentBuilder.FILE_EXTENSION)) {
+			page = page.substring(0, page.length() - MarkdownDocumentBuilder.FILE_EXTENSION.length());
+		}
+		else if (page.endsWith(MarkdownDocumentBuilder.LINK_EXTENSION)) {
+			page = page.substring(0, page.length() - MarkdownDocumentBuilder.LINK_EXTENSION.length());
+		}
+		else if (!page.isEmpty() && page.charAt(page.length() - 1) == SEPARATOR) {
+			page = page + MarkletConstant.README;
+		}
+		return page;
+	}
+
+	/** {@inheritDoc} **/
+	@Override
+	public void handle(final HttpExchange exchange) throws IOException {
+		final String page = getPage(exchange.getRequestURI());
+		byte [] content = cache.get(page);
+		int status = OK;
+		if (content == null) {
+			try {
+				content = render(page);
+				if (content == null) {
+					status = NOT_FOUND;
+					content = ("Page not found : " + page).getBytes(Charset.defaultCharset());
+				}
+			}
+			catch (final IOException | RuntimeException e) {
+				root.printError("Unable to render " + page + " : " + e.getMessage());
+				status = ERROR;
+				content = ("Unable to render " + page + " : " + e).getBytes(Charset.defaultCharset());
+			}
+		}
+		exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE + Charset.defaultCharset().name());
+		exchange.sendResponseHeaders(status, content.length);
+		try (final OutputStream stream = exchange.getResponseBody()) {
+			stream.write(content);
+		}
+	}
+
+	/**
+	 * Starts serving pages on the given ``port``, rendered
+	 * with the given ``context``, until the process is stopped.
+	 *
+	 * @param context Shared generation state, which sink should be this server.
+	 * @param port Local port to listen on.
+	 * @throws IOException If the server could not be started.
+	 * @throws InterruptedException If interrupted while serving.
+	 */
+	public void serve(final MarkletContext context, final int port) throws IOException, InterruptedException {
+		this.context = context;
+		index();
+		final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext(String.valueOf(SEPARATOR), this);
+		server.start();
+		root.printNotice("Serving documentation of " + root.classes().length + " classes at http://localhost:" + port + SEPARATOR);
+		new CountDownLatch(1).await();
+	}
+
+}
@@ -0,0 +1,154 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder that aims to create report pages at the
+ * root of the output directory, from block tags that
+ * have been aggregated into a {@link TagIndex} during
+ * generation, or merged from shards. Available reports are :
+ * 
+ * * Deprecated API
+ * * New API by version
+ * * API inventory
+ * 
+ * @author fv
+ */
+public final class ReportPageBuilder extends MarkletDocumentBuilder {
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param context Shared generation state.
+	 */
+	private ReportPageBuilder(final MarkletContext context) {
+		super(context, null);
+	}
+
+	/**
+	 * Appends report title to the current document.
+	 * 
+	 * @param title Title of the report.
+	 */
+	private void title(final String title) {
+		header(1);
+		text(title);
+		newLine();
+	}
+
+	/**
+	 * Appends to the current document a link
+	 * to the given ``element``.
+	 * 
+	 * @param element Class or member to link.
+	 */
+	private void elementLink(final TagIndex.Element element) {
+		if (element.getUrl() == null) {
+			italic(element.getLabel());
+		}
+		else {
+			link(element.getLabel(), element.getUrl());
+		}
+	}
+
+	/**
+	 * Appends the given ``elements`` as a markdown list.
+	 * 
+	 * @param elements Elements to list.
+	 */
+	private void elementList(final List<TagIndex.Element> elements) {
+		for (final TagIndex.Element element : elements) {
+			item();
+			elementLink(element);
+			newLine();
+		}
+		newLine();
+	}
+
+	/**
+	 * Appends deprecated elements with their
+	 * deprecation comment.
+	 * 
+	 * @param index Index to get elements from.
+	 */
+	private void deprecated(final TagIndex index) {
+		title(MarkletConstant.DEPRECATED_API);
+		for (final Map.Entry<TagIndex.Element, String> entry : index.getDeprecated()) {
+			item();
+			elementLink(entry.getKey());
+			text(" : ");
+			if (entry.getValue().isEmpty()) {
+				text(MarkletConstant.NO_DESCRIPTION);
+			}
+			raw(entry.getValue());
+			newLine();
+		}
+		newLine();
+	}
+
+	/**
+	 * Appends elements grouped by version they
+	 * were introduced in.
+	 * 
+	 * @param index Index to get elements from.
+	 */
+	private void since(final TagIndex index) {
+		title(MarkletConstant.NEW_API);
+		for (final Map.Entry<String, List<TagIndex.Element>> entry : index.getSince().entrySet()) {
+			header(2);
+			text(entry.getKey());
+			newLine();
+			elementList(entry.getValue());
+		}
+	}
+
+	/**
+	 * Appends block tag usage and classes by author.
+	 * 
+	 * @param index Index to get elements from.
+	 */
+	private void inventory(final TagIndex index) {
+		title(MarkletConstant.API_INVENTORY);
+		header(2);
+		text(MarkletConstant.TAGS);
+		newLine();
+		tableHeader(MarkletConstant.NAME, MarkletConstant.OCCURRENCES);
+		index.getOccurrences().forEach((name, count) -> tableRow(name, String.valueOf(count)));
+		newLine();
+		header(2);
+		text(MarkletConstant.AUTHORS);
+		newLine();
+		for (final Map.Entry<String, List<TagIndex.Element>> entry : index.getAuthors().entrySet()) {
+			header(3);
+			text(entry.getKey());
+			newLine();
+			elementList(entry.getValue());
+		}
+	}
+
+	/**
+	 * Builds and writes every report page from the given
+	 * ``index`` into the directory denoted by the given
+	 * ``directoryPath``.
+	 * 
+	 * @param context Shared generation state.
+	 * @param index Index to build reports from.
+	 * @param directoryPath Path of the output directory.
+	 * @throws IOException If any error occurs while writing report pages.
+	 */
+	public static void build(final MarkletContext context, final TagIndex index, final Path directoryPath) throws IOException {
+		final ReportPageBuilder deprecated = new ReportPageBuilder(context);
+		deprecated.deprecated(index);
+		deprecated.build(directoryPath.resolve(MarkletConstant.DEPRECATED_FILE));
+		final ReportPageBuilder since = new ReportPageBuilder(context);
+		since.since(index);
+		since.build(directoryPath.resolve(MarkletConstant.SINCE_FILE));
+		final ReportPageBuilder inventory = new ReportPageBuilder(context);
+		inventory.inventory(index);
+		inventory.build(directoryPath.resolve(MarkletConstant.INVENTORY_FILE));
+	}
+
+}
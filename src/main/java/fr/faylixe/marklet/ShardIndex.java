@@ -0,0 +1,432 @@
+package fr.faylixe.marklet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Tag;
+
+/**
+ * Partial index written by a shard execution. It lists
+ * packages rendered by the shard, with their first sentence,
+ * and the classes they contain which acts as a cross reference
+ * of pages available from this shard. Partial indexes are
+ * combined by {@link MarkletMerge} once every shard is done.
+ *
+ * Every partial file written by a shard, this index and the
+ * ones of global pages, starts with a fingerprint of the
+ * generation options and of the documented classes. The merge
+ * step rejects partial files with different fingerprints, which
+ * would come from another generation.
+ *
+ * @author fv
+ */
+public final class ShardIndex {
+
+	/** Directory in which partial indexes are written, relative to output directory. **/
+	public static final String DIRECTORY = ".marklet";
+
+	/** Prefix of partial index file name. **/
+	private static final String FILE_PREFIX = "shard-";
+
+	/** Suffix of partial index file name. **/
+	private static final String FILE_SUFFIX = ".index";
+
+	/** Line prefix for package entry. **/
+	private static final String PACKAGE_ENTRY = "package";
+
+	/** Line prefix for class entry. **/
+	private static final String CLASS_ENTRY = "class";
+
+	/** Line prefix for fingerprint entry. **/
+	private static final String FINGERPRINT_ENTRY = "fingerprint";
+
+	/** Field separator. **/
+	private static final char SEPARATOR = '\t';
+
+	/**
+	 * Indexed package.
+	 */
+	public static final class Entry {
+
+		/** Name of the package. **/
+		private final String name;
+
+		/** First sentence of the package description. **/
+		private final String summary;
+
+		/** Qualified name of documented classes. **/
+		private final List<String> classes;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param name Name of the package.
+		 * @param summary First sentence of the package description.
+		 */
+		private Entry(final String name, final String summary) {
+			this.name = name;
+			this.summary = summary;
+			this.classes = new ArrayList<>();
+		}
+
+		/**
+		 * Name getter.
+		 *
+		 * @return Name of the package.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Summary getter.
+		 *
+		 * @return First sentence of the package description.
+		 */
+		public String getSummary() {
+			return summary;
+		}
+
+		/**
+		 * Classes getter.
+		 *
+		 * @return Qualified name of documented classes.
+		 */
+		public List<String> getClasses() {
+			return classes;
+		}
+
+	}
+
+	/** Indexed packages by name. **/
+	private final Map<String, Entry> packages;
+
+	/** Fingerprint of the generation this index belongs to. **/
+	private final String fingerprint;
+
+	/** Number of shards of the generation, known once partial indexes are combined. **/
+	private int count;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param fingerprint Fingerprint of the generation this index belongs to.
+	 */
+	public ShardIndex(final String fingerprint) {
+		this.packages = new TreeMap<>();
+		this.fingerprint = fingerprint;
+		this.count = 1;
+	}
+
+	/**
+	 * Computes the fingerprint of the generation of the given
+	 * ``root``, from its options except the ones that differ
+	 * between shards or executions, and from its documented classes.
+	 *
+	 * @param root Documentation root to compute fingerprint for.
+	 * @return Computed fingerprint.
+	 */
+	public static String getFingerprint(final RootDoc root) {
+		final String [][] options = Arrays
+				.stream(root.options())
+				.filter(option -> !MarkletOptions.isShardOption(option[0]) && !MarkletOptions.isResumeOption(option[0]))
+				.toArray(String [][]::new);
+		final String [] classes = Arrays
+				.stream(root.classes())
+				.map(ClassDoc::qualifiedName)
+				.sorted()
+				.toArray(String []::new);
+		return Integer.toHexString(Arrays.deepHashCode(new Object [] { options, classes }));
+	}
+
+	/**
+	 * Fingerprint getter.
+	 *
+	 * @return Fingerprint of the generation this index belongs to.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Shard count getter.
+	 *
+	 * @return Number of shards of the generation.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Indexed packages getter.
+	 *
+	 * @return Indexed packages, ordered by name.
+	 */
+	public synchronized List<Entry> getPackages() {
+		return new ArrayList<>(packages.values());
+	}
+
+	/**
+	 * Adds the given ``packageDoc`` and its classes to this index.
+	 *
+	 * @param packageDoc Package to index.
+	 */
+	public synchronized void add(final PackageDoc packageDoc) {
+		final Entry entry = new Entry(packageDoc.name(), plainText(packageDoc.firstSentenceTags()));
+		for (final ClassDoc classDoc : packageDoc.allClasses()) {
+			entry.classes.add(classDoc.qualifiedName());
+		}
+		packages.put(entry.name, entry);
+	}
+
+	/**
+	 * Merges the given ``index`` into this one.
+	 *
+	 * @param index Index to merge.
+	 */
+	public synchronized void merge(final ShardIndex index) {
+		for (final Entry entry : index.getPackages()) {
+			packages.put(entry.name, entry);
+		}
+	}
+
+	/**
+	 * Converts the given ``tags`` into a single line plain text.
+	 *
+	 * @param tags Tags to convert.
+	 * @return Plain text.
+	 */
+	private static String plainText(final Tag [] tags) {
+		final StringBuffer buffer = new StringBuffer();
+		for (final Tag tag : tags) {
+			buffer.append(tag.text());
+		}
+		return buffer.toString().replace(SEPARATOR, ' ').replace('\n', ' ').trim();
+	}
+
+	/**
+	 * Builds the partial index file name of the given shard.
+	 *
+	 * @param index Index of the shard, starting from 1.
+	 * @param count Total number of shards.
+	 * @return Built file name.
+	 */
+	public static String getFileName(final int index, final int count) {
+		return getFileName(index, count, FILE_SUFFIX);
+	}
+
+	/**
+	 * Builds the name of the partial file with the given
+	 * ``suffix`` written by the given shard.
+	 *
+	 * @param index Index of the shard, starting from 1.
+	 * @param count Total number of shards.
+	 * @param suffix Suffix of the file, such as ``.usage``.
+	 * @return Built file name.
+	 */
+	public static String getFileName(final int index, final int count, final String suffix) {
+		return FILE_PREFIX + index + "-of-" + count + suffix;
+	}
+
+	/**
+	 * Retrieves partial files with the given ``suffix`` written
+	 * by every shard into the given output ``directory``.
+	 *
+	 * @param directory Output directory to look partial files for.
+	 * @param count Total number of shards.
+	 * @param suffix Suffix of partial files.
+	 * @return Paths of partial files, ordered by shard, empty if no shard wrote one.
+	 * @throws IOException If only some shards wrote one.
+	 */
+	public static List<Path> getPartials(final Path directory, final int count, final String suffix) throws IOException {
+		final List<Path> partials = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			final Path path = directory.resolve(DIRECTORY).resolve(getFileName(i, count, suffix));
+			if (Files.exists(path)) {
+				partials.add(path);
+			}
+		}
+		if (!partials.isEmpty() && partials.size() != count) {
+			throw new IOException("Expected " + count + " partial " + suffix + " files in " + directory.resolve(DIRECTORY) + ", found " + partials.size());
+		}
+		return partials;
+	}
+
+	/**
+	 * Creates the binary partial file denoted by the given
+	 * ``path``, starting with the given ``fingerprint``.
+	 *
+	 * @param path Path of the file to create.
+	 * @param fingerprint Fingerprint of the generation.
+	 * @return Stream to write partial content to.
+	 * @throws IOException If any error occurs while creating file.
+	 */
+	public static DataOutputStream createPartial(final Path path, final String fingerprint) throws IOException {
+		Files.createDirectories(path.getParent());
+		final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+		output.writeUTF(fingerprint);
+		return output;
+	}
+
+	/**
+	 * Opens the binary partial file denoted by the given
+	 * ``path``, ensuring it belongs to the generation with
+	 * the given ``fingerprint``.
+	 *
+	 * @param path Path of the file to open.
+	 * @param fingerprint Expected fingerprint of the generation.
+	 * @return Stream to read partial content from.
+	 * @throws IOException If any error occurs while opening file, or if fingerprint differs.
+	 */
+	public static DataInputStream openPartial(final Path path, final String fingerprint) throws IOException {
+		final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+		final String found = input.readUTF();
+		if (!fingerprint.equals(found)) {
+			input.close();
+			throw new IOException(path + " comes from another generation, expected fingerprint " + fingerprint + ", found " + found);
+		}
+		return input;
+	}
+
+	/**
+	 * Writes the given ``text`` into the given ``output``,
+	 * without the length limit of modified UTF-8 strings.
+	 *
+	 * @param output Stream to write text to.
+	 * @param text Text to write.
+	 * @throws IOException If any error occurs while writing text.
+	 */
+	public static void writeText(final DataOutputStream output, final String text) throws IOException {
+		final byte [] bytes = text.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Reads a text written by {@link #writeText(DataOutputStream, String)}.
+	 *
+	 * @param input Stream to read text from.
+	 * @return Read text.
+	 * @throws IOException If any error occurs while reading text.
+	 */
+	public static String readText(final DataInputStream input) throws IOException {
+		final byte [] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes this index into the file denoted by the given ``path``.
+	 *
+	 * @param path Path of the file to write.
+	 * @throws IOException If any error occurs while writing index.
+	 */
+	public synchronized void write(final Path path) throws IOException {
+		Files.createDirectories(path.getParent());
+		try (final BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write(FINGERPRINT_ENTRY + SEPARATOR + fingerprint);
+			writer.newLine();
+			for (final Entry entry : packages.values()) {
+				writer.write(PACKAGE_ENTRY + SEPARATOR + entry.name + SEPARATOR + entry.summary);
+				writer.newLine();
+				for (final String name : entry.classes) {
+					writer.write(CLASS_ENTRY + SEPARATOR + entry.name + SEPARATOR + name);
+					writer.newLine();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Static factory that reads the partial index file
+	 * denoted by the given ``path``.
+	 *
+	 * @param path Path of the file to read.
+	 * @return Read index.
+	 * @throws IOException If any error occurs while reading index.
+	 */
+	public static ShardIndex read(final Path path) throws IOException {
+		try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			final String header = reader.readLine();
+			if (header == null || !header.startsWith(FINGERPRINT_ENTRY + SEPARATOR)) {
+				throw new IOException(path + " has no generation fingerprint, its shard should be generated again");
+			}
+			final ShardIndex index = new ShardIndex(header.substring(FINGERPRINT_ENTRY.length() + 1));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String [] fields = line.split(String.valueOf(SEPARATOR), 3);
+				if (fields.length < 3) {
+					continue;
+				}
+				if (PACKAGE_ENTRY.equals(fields[0])) {
+					index.packages.put(fields[1], new Entry(fields[1], fields[2]));
+				}
+				else if (CLASS_ENTRY.equals(fields[0]) && index.packages.containsKey(fields[1])) {
+					index.packages.get(fields[1]).classes.add(fields[2]);
+				}
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Reads and combines every partial index available into the
+	 * given output ``directory``, ensuring all shards are done
+	 * and belong to the same generation.
+	 *
+	 * @param directory Output directory to read partial indexes from.
+	 * @return Combined index.
+	 * @throws IOException If any error occurs while reading indexes, if a shard is missing or comes from another generation.
+	 */
+	public static ShardIndex readAll(final Path directory) throws IOException {
+		final Path indexDirectory = directory.resolve(DIRECTORY);
+		ShardIndex combined = null;
+		int count = -1;
+		int found = 0;
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(indexDirectory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (final Path path : stream) {
+				final String name = path.getFileName().toString();
+				final String [] bounds = name
+						.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())
+						.split("-of-");
+				final int shardCount = Integer.parseInt(bounds[1]);
+				if (count != -1 && count != shardCount) {
+					throw new IOException("Partial indexes from different shard count found in " + indexDirectory);
+				}
+				count = shardCount;
+				final ShardIndex index = read(path);
+				if (combined == null) {
+					combined = new ShardIndex(index.fingerprint);
+				}
+				else if (!combined.fingerprint.equals(index.fingerprint)) {
+					throw new IOException(path + " comes from another generation, its shard should be generated again");
+				}
+				combined.merge(index);
+				found++;
+			}
+		}
+		if (found == 0 || found != count) {
+			throw new IOException("Expected " + count + " partial indexes in " + indexDirectory + ", found " + found);
+		}
+		combined.count = count;
+		return combined;
+	}
+
+}
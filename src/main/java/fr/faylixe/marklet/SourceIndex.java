@@ -0,0 +1,221 @@
+package fr.faylixe.marklet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Index of documented source files, used for extracting
+ * declaration excerpts. Each source file is memory-mapped
+ * once, when first requested, and the offsets of its lines
+ * are computed in a single pass. Any line is then decoded
+ * directly from the mapped content, whatever the number of
+ * members declared in the file.
+ *
+ * @author fv
+ */
+public final class SourceIndex {
+
+	/** Maximum number of lines of an excerpt. **/
+	private static final int MAXIMUM_EXCERPT_LINES = 5;
+
+	/**
+	 * Memory-mapped source file with its line offsets.
+	 */
+	private static final class SourceFile {
+
+		/** Mapped content of the file. **/
+		private final MappedByteBuffer mapped;
+
+		/** Offset of each line start, followed by the content length. **/
+		private final int [] lines;
+
+		/** Number of lines. **/
+		private final int count;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param mapped Mapped content of the file.
+		 */
+		private SourceFile(final MappedByteBuffer mapped) {
+			this.mapped = mapped;
+			int [] offsets = new int[Math.max(16, mapped.limit() / 32)];
+			int count = 0;
+			offsets[count++] = 0;
+			for (int i = 0; i < mapped.limit(); i++) {
+				if (mapped.get(i) == '\n') {
+					if (count == offsets.length) {
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					offsets[count++] = i + 1;
+				}
+			}
+			this.lines = Arrays.copyOf(offsets, count + 1);
+			this.lines[count] = mapped.limit();
+			this.count = count;
+		}
+
+		/**
+		 * Decodes the line with the given ``number``.
+		 *
+		 * @param number Number of the line to decode, starting from 1.
+		 * @param charset Charset of the file.
+		 * @return Decoded line, without line terminator.
+		 */
+		private String line(final int number, final Charset charset) {
+			int end = lines[number];
+			final int start = lines[number - 1];
+			while (end > start && (mapped.get(end - 1) == '\n' || mapped.get(end - 1) == '\r')) {
+				end--;
+			}
+			final ByteBuffer slice = mapped.duplicate();
+			slice.position(start);
+			slice.limit(end);
+			return charset.decode(slice).toString();
+		}
+
+	}
+
+	/** Mapped source files by path, empty if a file could not be read. **/
+	private final ConcurrentMap<String, Optional<SourceFile>> files;
+
+	/** Charset of source files. **/
+	private final Charset charset;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param charset Charset of source files.
+	 */
+	public SourceIndex(final Charset charset) {
+		this.files = new ConcurrentHashMap<>();
+		this.charset = charset;
+	}
+
+	/**
+	 * Maps the given ``file`` and indexes its lines.
+	 *
+	 * @param file File to map.
+	 * @return Mapped file, empty if it could not be read.
+	 */
+	private static Optional<SourceFile> map(final File file) {
+		try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return Optional.of(new SourceFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+		}
+		catch (final IOException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Retrieves the declaration starting at the given ``line``
+	 * of the given ``file``. Lines are taken until the declaration
+	 * body or terminator is reached, which is excluded.
+	 *
+	 * @param file Source file to read declaration from.
+	 * @param line Line the declaration starts at, starting from 1.
+	 * @return Declaration excerpt, ``null`` if not available.
+	 */
+	public String excerpt(final File file, final int line) {
+		final SourceFile source = files
+				.computeIfAbsent(file.getPath(), path -> map(file))
+				.orElse(null);
+		if (source == null || line < 1 || line > source.count) {
+			return null;
+		}
+		final StringBuffer buffer = new StringBuffer();
+		final int last = Math.min(source.count, line + MAXIMUM_EXCERPT_LINES - 1);
+		int end = -1;
+		for (int i = line; i <= last && end < 0; i++) {
+			if (buffer.length() > 0) {
+				buffer.append('\n');
+			}
+			buffer.append(source.line(i, charset));
+			// NOTE : A block comment could span lines, so the scan restarts from the declaration start.
+			end = terminator(buffer);
+		}
+		if (end >= 0) {
+			buffer.setLength(end);
+		}
+		return trimIndentation(buffer.toString());
+	}
+
+	/**
+	 * Finds where the given ``declaration`` ends, which is
+	 * either a body opening brace or a statement terminator.
+	 * Comments, string and character literals are skipped.
+	 *
+	 * @param declaration Declaration to search.
+	 * @return Index of the terminator, ``-1`` if not found.
+	 */
+	private static int terminator(final CharSequence declaration) {
+		final int length = declaration.length();
+		int i = 0;
+		while (i < length) {
+			final char c = declaration.charAt(i);
+			final char next = i + 1 < length ? declaration.charAt(i + 1) : 0;
+			if (c == '/' && next == '/') {
+				while (i < length && declaration.charAt(i) != '\n') {
+					i++;
+				}
+			}
+			else if (c == '/' && next == '*') {
+				i += 3;
+				while (i < length && !(declaration.charAt(i - 1) == '*' && declaration.charAt(i) == '/')) {
+					i++;
+				}
+				i++;
+			}
+			else if (c == '"' || c == '\'') {
+				i++;
+				while (i < length && declaration.charAt(i) != c && declaration.charAt(i) != '\n') {
+					i += declaration.charAt(i) == '\\' ? 2 : 1;
+				}
+				i++;
+			}
+			else if (c == '{' || c == ';') {
+				return i;
+			}
+			else {
+				i++;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the indentation of the first line of the given
+	 * ``excerpt`` from each of its lines, and trailing spaces.
+	 *
+	 * @param excerpt Excerpt to trim.
+	 * @return Trimmed excerpt.
+	 */
+	private static String trimIndentation(final String excerpt) {
+		int indentation = 0;
+		while (indentation < excerpt.length() && Character.isWhitespace(excerpt.charAt(indentation))) {
+			indentation++;
+		}
+		final StringBuffer buffer = new StringBuffer();
+		for (final String line : excerpt.split("\n")) {
+			int start = 0;
+			while (start < indentation && start < line.length() && Character.isWhitespace(line.charAt(start))) {
+				start++;
+			}
+			if (buffer.length() > 0) {
+				buffer.append('\n');
+			}
+			buffer.append(line.substring(start));
+		}
+		return buffer.toString().trim();
+	}
+
+}
@@ -0,0 +1,370 @@
+package fr.faylixe.marklet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.ProgramElementDoc;
+import com.sun.javadoc.Tag;
+
+/**
+ * Aggregates block tags of every documented element while
+ * pages are built, in order to generate deprecated list,
+ * since version and API inventory pages in the same run.
+ *
+ * Accumulators are concurrent so that elements could be
+ * collected from any rendering thread without locking.
+ * Elements are kept as links rendered from the output root,
+ * so that indexes of a sharded generation could be written
+ * and merged once every shard is done.
+ *
+ * @author fv
+ */
+public final class TagIndex {
+
+	/** Suffix of partial tag files written by shards. **/
+	public static final String PARTIAL_SUFFIX = ".tags";
+
+	/** Name of the deprecated tag. **/
+	private static final String DEPRECATED_TAG = "@deprecated";
+
+	/** Name of the since tag. **/
+	private static final String SINCE_TAG = "@since";
+
+	/** Name of the author tag. **/
+	private static final String AUTHOR_TAG = "@author";
+
+	/**
+	 * Documented class or member, linked from the output root.
+	 */
+	public static final class Element {
+
+		/** Qualified name of the element. **/
+		private final String qualifiedName;
+
+		/** Label of the link to the element. **/
+		private final String label;
+
+		/** URL of the element from the output root, ``null`` if not documented. **/
+		private final String url;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param qualifiedName Qualified name of the element.
+		 * @param label Label of the link to the element.
+		 * @param url URL of the element from the output root, ``null`` if not documented.
+		 */
+		private Element(final String qualifiedName, final String label, final String url) {
+			this.qualifiedName = qualifiedName;
+			this.label = label;
+			this.url = url;
+		}
+
+		/**
+		 * Creates the element of the given documented ``element``.
+		 *
+		 * @param context Shared generation state, that gives page layouts.
+		 * @param element Documented class or member.
+		 * @return Created element.
+		 */
+		private static Element of(final MarkletContext context, final ProgramElementDoc element) {
+			if (!(element instanceof ClassDoc)) {
+				final String label = element.containingClass().name() + '.' + element.name();
+				return new Element(element.qualifiedName(), label, MarkletDocumentBuilder.getMemberUrl(context, "", element));
+			}
+			final ClassDoc classDoc = (ClassDoc) element;
+			if (!context.isDocumented(classDoc)) {
+				return new Element(classDoc.qualifiedName(), classDoc.qualifiedName(), null);
+			}
+			return new Element(classDoc.qualifiedName(), classDoc.simpleTypeName(), MarkletDocumentBuilder.getClassUrl("", classDoc));
+		}
+
+		/**
+		 * Qualified name getter.
+		 *
+		 * @return Qualified name of the element.
+		 */
+		public String getQualifiedName() {
+			return qualifiedName;
+		}
+
+		/**
+		 * Label getter.
+		 *
+		 * @return Label of the link to the element.
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * URL getter.
+		 *
+		 * @return URL of the element from the output root, ``null`` if not documented.
+		 */
+		public String getUrl() {
+			return url;
+		}
+
+		/**
+		 * Writes this element into the given ``output``.
+		 *
+		 * @param output Stream to write element to.
+		 * @throws IOException If any error occurs while writing element.
+		 */
+		private void write(final DataOutputStream output) throws IOException {
+			output.writeUTF(qualifiedName);
+			output.writeUTF(label);
+			output.writeUTF(url == null ? "" : url);
+		}
+
+		/**
+		 * Reads an element from the given ``input``.
+		 *
+		 * @param input Stream to read element from.
+		 * @return Read element.
+		 * @throws IOException If any error occurs while reading element.
+		 */
+		private static Element read(final DataInputStream input) throws IOException {
+			final String qualifiedName = input.readUTF();
+			final String label = input.readUTF();
+			final String url = input.readUTF();
+			return new Element(qualifiedName, label, url.isEmpty() ? null : url);
+		}
+
+	}
+
+	/** Comparator that orders elements by qualified name. **/
+	public static final Comparator<Element> QUALIFIED_NAME_ORDER = Comparator.comparing(Element::getQualifiedName);
+
+	/**
+	 * Comparator that orders versions by their numerical
+	 * parts first, such as ``1.10`` comes after ``1.9``.
+	 */
+	public static final Comparator<String> VERSION_ORDER = (a, b) -> {
+		final String [] left = a.split("[^0-9]+");
+		final String [] right = b.split("[^0-9]+");
+		for (int i = 0; i < Math.min(left.length, right.length); i++) {
+			if (!left[i].isEmpty() && !right[i].isEmpty() && !left[i].equals(right[i])) {
+				return Long.compare(Long.parseLong(left[i]), Long.parseLong(right[i]));
+			}
+		}
+		return a.compareTo(b);
+	};
+
+	/** Deprecated elements with their rendered deprecation comment, empty if none. **/
+	private final Queue<Map.Entry<Element, String>> deprecated;
+
+	/** Elements by version they were introduced in. **/
+	private final ConcurrentMap<String, Queue<Element>> since;
+
+	/** Classes by author. **/
+	private final ConcurrentMap<String, Queue<Element>> authors;
+
+	/** Number of occurrences by block tag name. **/
+	private final ConcurrentMap<String, LongAdder> occurrences;
+
+	/**
+	 * Default constructor.
+	 */
+	public TagIndex() {
+		this.deprecated = new ConcurrentLinkedQueue<>();
+		this.since = new ConcurrentHashMap<>();
+		this.authors = new ConcurrentHashMap<>();
+		this.occurrences = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Collects block tags of the given ``element``.
+	 *
+	 * @param context Shared generation state, that renders links and comments.
+	 * @param element Documented element to collect tags from.
+	 */
+	public void collect(final MarkletContext context, final ProgramElementDoc element) {
+		Element collected = null;
+		for (final Tag tag : element.tags()) {
+			final String name = tag.name();
+			occurrences.computeIfAbsent(name, key -> new LongAdder()).increment();
+			final boolean author = AUTHOR_TAG.equals(name) && element instanceof ClassDoc;
+			if (collected == null && (DEPRECATED_TAG.equals(name) || SINCE_TAG.equals(name) || author)) {
+				collected = Element.of(context, element);
+			}
+			if (DEPRECATED_TAG.equals(name)) {
+				final String comment = MarkletDocumentBuilder.renderDescription(context, tag.inlineTags());
+				deprecated.add(new AbstractMap.SimpleImmutableEntry<>(collected, comment));
+			}
+			else if (SINCE_TAG.equals(name)) {
+				since.computeIfAbsent(tag.text().trim(), key -> new ConcurrentLinkedQueue<>()).add(collected);
+			}
+			else if (author) {
+				authors.computeIfAbsent(tag.text().trim(), key -> new ConcurrentLinkedQueue<>()).add(collected);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves deprecated elements.
+	 *
+	 * @return Deprecated elements with their rendered deprecation comment, ordered by qualified name.
+	 */
+	public List<Map.Entry<Element, String>> getDeprecated() {
+		final List<Map.Entry<Element, String>> elements = new ArrayList<>(deprecated);
+		elements.sort(Map.Entry.comparingByKey(QUALIFIED_NAME_ORDER));
+		return elements;
+	}
+
+	/**
+	 * Retrieves elements by version they were introduced in.
+	 *
+	 * @return Elements ordered by qualified name, by version from the latest one.
+	 */
+	public Map<String, List<Element>> getSince() {
+		return sorted(since, VERSION_ORDER.reversed(), QUALIFIED_NAME_ORDER);
+	}
+
+	/**
+	 * Retrieves classes by author.
+	 *
+	 * @return Classes ordered by qualified name, by author.
+	 */
+	public Map<String, List<Element>> getAuthors() {
+		return sorted(authors, Comparator.naturalOrder(), QUALIFIED_NAME_ORDER);
+	}
+
+	/**
+	 * Retrieves number of occurrences by block tag name.
+	 *
+	 * @return Number of occurrences, by tag name.
+	 */
+	public Map<String, Long> getOccurrences() {
+		final Map<String, Long> counts = new TreeMap<>();
+		occurrences.forEach((name, count) -> counts.put(name, count.sum()));
+		return counts;
+	}
+
+	/**
+	 * Builds a sorted copy of the given accumulator.
+	 *
+	 * @param accumulator Accumulator to copy.
+	 * @param keyOrder Order of accumulator keys.
+	 * @param valueOrder Order of accumulated values.
+	 * @return Sorted copy.
+	 */
+	private static <T> Map<String, List<T>> sorted(
+			final Map<String, Queue<T>> accumulator,
+			final Comparator<String> keyOrder,
+			final Comparator<? super T> valueOrder) {
+		final Map<String, List<T>> copy = new TreeMap<>(keyOrder);
+		accumulator.forEach((key, values) -> {
+			final List<T> list = new ArrayList<>(values);
+			list.sort(valueOrder);
+			copy.put(key, list);
+		});
+		return copy;
+	}
+
+	/**
+	 * Writes the given grouped ``elements`` into the given ``output``.
+	 *
+	 * @param output Stream to write elements to.
+	 * @param elements Elements to write, by group.
+	 * @throws IOException If any error occurs while writing elements.
+	 */
+	private static void write(final DataOutputStream output, final Map<String, Queue<Element>> elements) throws IOException {
+		output.writeInt(elements.size());
+		for (final Map.Entry<String, Queue<Element>> entry : elements.entrySet()) {
+			final List<Element> values = new ArrayList<>(entry.getValue());
+			output.writeUTF(entry.getKey());
+			output.writeInt(values.size());
+			for (final Element element : values) {
+				element.write(output);
+			}
+		}
+	}
+
+	/**
+	 * Reads grouped elements from the given ``input``
+	 * into the given ``elements`` accumulator.
+	 *
+	 * @param input Stream to read elements from.
+	 * @param elements Accumulator to add elements to, by group.
+	 * @throws IOException If any error occurs while reading elements.
+	 */
+	private static void read(final DataInputStream input, final ConcurrentMap<String, Queue<Element>> elements) throws IOException {
+		final int groups = input.readInt();
+		for (int i = 0; i < groups; i++) {
+			final Queue<Element> group = elements.computeIfAbsent(input.readUTF(), key -> new ConcurrentLinkedQueue<>());
+			final int count = input.readInt();
+			for (int j = 0; j < count; j++) {
+				group.add(Element.read(input));
+			}
+		}
+	}
+
+	/**
+	 * Writes collected tags into the partial file denoted
+	 * by the given ``path``.
+	 *
+	 * @param path Path of the file to write.
+	 * @param fingerprint Fingerprint of the generation.
+	 * @throws IOException If any error occurs while writing file.
+	 */
+	public void write(final Path path, final String fingerprint) throws IOException {
+		try (final DataOutputStream output = ShardIndex.createPartial(path, fingerprint)) {
+			final List<Map.Entry<Element, String>> elements = new ArrayList<>(deprecated);
+			output.writeInt(elements.size());
+			for (final Map.Entry<Element, String> entry : elements) {
+				entry.getKey().write(output);
+				ShardIndex.writeText(output, entry.getValue());
+			}
+			write(output, since);
+			write(output, authors);
+			final Map<String, Long> counts = getOccurrences();
+			output.writeInt(counts.size());
+			for (final Map.Entry<String, Long> entry : counts.entrySet()) {
+				output.writeUTF(entry.getKey());
+				output.writeLong(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Reads tags from the partial file denoted by the
+	 * given ``path``, and adds them to this index.
+	 *
+	 * @param path Path of the file to read.
+	 * @param fingerprint Expected fingerprint of the generation.
+	 * @throws IOException If any error occurs while reading file, or if it comes from another generation.
+	 */
+	public void read(final Path path, final String fingerprint) throws IOException {
+		try (final DataInputStream input = ShardIndex.openPartial(path, fingerprint)) {
+			final int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				final Element element = Element.read(input);
+				deprecated.add(new AbstractMap.SimpleImmutableEntry<>(element, ShardIndex.readText(input)));
+			}
+			read(input, since);
+			read(input, authors);
+			final int names = input.readInt();
+			for (int i = 0; i < names; i++) {
+				final String name = input.readUTF();
+				occurrences.computeIfAbsent(name, key -> new LongAdder()).add(input.readLong());
+			}
+		}
+	}
+
+}
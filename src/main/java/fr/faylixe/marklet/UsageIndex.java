@@ -0,0 +1,240 @@
+package fr.faylixe.marklet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sun.javadoc.ClassDoc;
+
+/**
+ * Reverse reference index, that records which classes
+ * use a given type through their fields, parameters,
+ * return types, exceptions or supertypes. Edges are
+ * recorded while type links are rendered, so the index
+ * does not require any additional traversal.
+ *
+ * To keep memory bounded, the number of users recorded
+ * for a single type is limited. Types and users are kept
+ * by name, so that indexes of a sharded generation could
+ * be written and merged once every shard is done.
+ *
+ * @author fv
+ */
+public final class UsageIndex {
+
+	/** Suffix of partial usage files written by shards. **/
+	public static final String PARTIAL_SUFFIX = ".usage";
+
+	/**
+	 * Class that uses a type.
+	 */
+	public static final class User {
+
+		/** Qualified name of the class. **/
+		private final String qualifiedName;
+
+		/** Name of the class package. **/
+		private final String packageName;
+
+		/** Simple type name of the class, which is also its page name. **/
+		private final String simpleTypeName;
+
+		/**
+		 * Default constructor.
+		 *
+		 * @param qualifiedName Qualified name of the class.
+		 * @param packageName Name of the class package.
+		 * @param simpleTypeName Simple type name of the class, which is also its page name.
+		 */
+		private User(final String qualifiedName, final String packageName, final String simpleTypeName) {
+			this.qualifiedName = qualifiedName;
+			this.packageName = packageName;
+			this.simpleTypeName = simpleTypeName;
+		}
+
+		/**
+		 * Qualified name getter.
+		 *
+		 * @return Qualified name of the class.
+		 */
+		public String getQualifiedName() {
+			return qualifiedName;
+		}
+
+		/**
+		 * Package name getter.
+		 *
+		 * @return Name of the class package.
+		 */
+		public String getPackageName() {
+			return packageName;
+		}
+
+		/**
+		 * Simple type name getter.
+		 *
+		 * @return Simple type name of the class, which is also its page name.
+		 */
+		public String getSimpleTypeName() {
+			return simpleTypeName;
+		}
+
+	}
+
+	/**
+	 * Users of a single type.
+	 */
+	private static final class Usage {
+
+		/** Classes that use the type, by qualified name. **/
+		private final ConcurrentMap<String, User> users;
+
+		/** Indicates if some users have been dropped due to the limit. **/
+		private volatile boolean truncated;
+
+		/**
+		 * Default constructor.
+		 */
+		private Usage() {
+			this.users = new ConcurrentHashMap<>();
+		}
+
+	}
+
+	/** Recorded usages by qualified name of used type. **/
+	private final ConcurrentMap<String, Usage> usages;
+
+	/** Maximum number of users recorded for a single type. **/
+	private final int limit;
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param limit Maximum number of users recorded for a single type.
+	 */
+	public UsageIndex(final int limit) {
+		this.usages = new ConcurrentHashMap<>();
+		this.limit = limit;
+	}
+
+	/**
+	 * Records that the given ``user`` class uses the given ``used`` type.
+	 *
+	 * @param user Class that uses the type.
+	 * @param used Type that is used.
+	 */
+	public void record(final ClassDoc user, final ClassDoc used) {
+		if (user == used || !used.isIncluded()) {
+			return;
+		}
+		record(used.qualifiedName(), new User(user.qualifiedName(), user.containingPackage().name(), user.simpleTypeName()));
+	}
+
+	/**
+	 * Records that the given ``user`` class uses the type
+	 * denoted by the given ``used`` qualified name.
+	 *
+	 * @param used Qualified name of the type that is used.
+	 * @param user Class that uses the type.
+	 */
+	private void record(final String used, final User user) {
+		final Usage usage = usages.computeIfAbsent(used, key -> new Usage());
+		if (usage.users.size() < limit) {
+			usage.users.putIfAbsent(user.qualifiedName, user);
+		}
+		else if (!usage.users.containsKey(user.qualifiedName)) {
+			usage.truncated = true;
+		}
+	}
+
+	/**
+	 * Retrieves classes that use the type denoted by
+	 * the given ``used`` qualified name.
+	 *
+	 * @param used Qualified name of the type to get users for.
+	 * @return Users ordered by qualified name.
+	 */
+	public List<User> getUsers(final String used) {
+		final Usage usage = usages.get(used);
+		if (usage == null) {
+			return Collections.emptyList();
+		}
+		final List<User> users = new ArrayList<>(usage.users.values());
+		users.sort(Comparator.comparing(User::getQualifiedName));
+		return users;
+	}
+
+	/**
+	 * Indicates if some users of the type denoted by the
+	 * given ``used`` qualified name have been dropped due
+	 * to the limit.
+	 *
+	 * @param used Qualified name of the type to check.
+	 * @return ``true`` if users have been dropped, ``false`` otherwise.
+	 */
+	public boolean isTruncated(final String used) {
+		final Usage usage = usages.get(used);
+		return usage != null && usage.truncated;
+	}
+
+	/**
+	 * Writes recorded usages into the partial file denoted
+	 * by the given ``path``.
+	 *
+	 * @param path Path of the file to write.
+	 * @param fingerprint Fingerprint of the generation.
+	 * @throws IOException If any error occurs while writing file.
+	 */
+	public void write(final Path path, final String fingerprint) throws IOException {
+		try (final DataOutputStream output = ShardIndex.createPartial(path, fingerprint)) {
+			output.writeInt(usages.size());
+			for (final Map.Entry<String, Usage> entry : usages.entrySet()) {
+				final Usage usage = entry.getValue();
+				output.writeUTF(entry.getKey());
+				output.writeBoolean(usage.truncated);
+				final List<User> users = new ArrayList<>(usage.users.values());
+				output.writeInt(users.size());
+				for (final User user : users) {
+					output.writeUTF(user.qualifiedName);
+					output.writeUTF(user.packageName);
+					output.writeUTF(user.simpleTypeName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads usages from the partial file denoted by the
+	 * given ``path``, and records them into this index.
+	 *
+	 * @param path Path of the file to read.
+	 * @param fingerprint Expected fingerprint of the generation.
+	 * @throws IOException If any error occurs while reading file, or if it comes from another generation.
+	 */
+	public void read(final Path path, final String fingerprint) throws IOException {
+		try (final DataInputStream input = ShardIndex.openPartial(path, fingerprint)) {
+			final int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				final String used = input.readUTF();
+				final boolean truncated = input.readBoolean();
+				final int users = input.readInt();
+				final Usage usage = usages.computeIfAbsent(used, key -> new Usage());
+				for (int j = 0; j < users; j++) {
+					record(used, new User(input.readUTF(), input.readUTF(), input.readUTF()));
+				}
+				if (truncated) {
+					usage.truncated = true;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Builder that aims to create the usage page
+ * for a given ``package``. Such page consists in
+ * a section per type of the package, that lists
+ * classes which use it. Page is built from names
+ * only, so it could be written once every shard of
+ * a sharded generation is done.
+ * 
+ * @author fv
+ */
+public final class UsagePageBuilder extends MarkletDocumentBuilder {
+
+	/** Target package that page is built from. **/
+	private final ShardIndex.Entry packageEntry;
+
+	/**
+	 * Default constructor.
+	 * 
+	 * @param context Shared generation state.
+	 * @param packageEntry Target package that page is built from.
+	 */
+	private UsagePageBuilder(final MarkletContext context, final ShardIndex.Entry packageEntry) {
+		super(context, null);
+		this.packageEntry = packageEntry;
+	}
+
+	/**
+	 * Appends usage page header to the current document.
+	 */
+	private void header() {
+		header(1);
+		text(MarkletConstant.USAGE_OF_PACKAGE);
+		character(' ');
+		link(packageEntry.getName(), MarkletConstant.README_LINK);
+		newLine();
+	}
+
+	/**
+	 * Retrieves the name of the class denoted by the given
+	 * ``qualifiedName`` into the target package, which
+	 * includes its enclosing classes.
+	 * 
+	 * @param qualifiedName Qualified name of the class.
+	 * @return Name of the class.
+	 */
+	private String getName(final String qualifiedName) {
+		return qualifiedName.substring(packageEntry.getName().length() + 1);
+	}
+
+	/**
+	 * Appends the usage section of the class denoted
+	 * by the given ``qualifiedName``.
+	 * 
+	 * @param qualifiedName Qualified name of the type to append usage section for.
+	 */
+	private void usage(final String qualifiedName) {
+		final UsageIndex index = getContext().getUsageIndex();
+		final List<UsageIndex.User> users = index.getUsers(qualifiedName);
+		header(2);
+		text(getName(qualifiedName));
+		newLine();
+		if (users.isEmpty()) {
+			text(MarkletConstant.NO_USAGE);
+			newLine();
+		}
+		for (final UsageIndex.User user : users) {
+			item();
+			final String url = getPath(packageEntry.getName(), user.getPackageName()) + user.getSimpleTypeName() + MarkdownDocumentBuilder.LINK_EXTENSION;
+			link(user.getSimpleTypeName(), url);
+			if (!user.getPackageName().equals(packageEntry.getName())) {
+				character(' ');
+				italic(user.getPackageName());
+			}
+			newLine();
+		}
+		if (index.isTruncated(qualifiedName)) {
+			item();
+			text(MarkletConstant.MORE_USAGE);
+			newLine();
+		}
+		newLine();
+	}
+
+	/**
+	 * Builds and writes the usage page associated to the
+	 * given ``packageEntry`` into the directory denoted by
+	 * the given ``directoryPath``.
+	 * 
+	 * @param context Shared generation state.
+	 * @param packageEntry Package to generate usage page for.
+	 * @param directoryPath Path of the directory to write page in.
+	 * @throws IOException If any error occurs while writing usage page.
+	 */
+	public static void build(final MarkletContext context, final ShardIndex.Entry packageEntry, final Path directoryPath) throws IOException {
+		final UsagePageBuilder builder = new UsagePageBuilder(context, packageEntry);
+		builder.header();
+		packageEntry
+			.getClasses()
+			.stream()
+			.sorted((a, b) -> builder.getName(a).compareTo(builder.getName(b)))
+			.forEach(builder::usage);
+		builder.build(directoryPath.resolve(MarkletConstant.USAGE_FILE));
+	}
+
+}
@@ -0,0 +1,101 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of API signature files, and of the API
+ * changes page computed against a previous one.
+ *
+ * @author fv
+ */
+public final class ApiSignaturesTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Copy of the test corpus, modified by tests. **/
+	private Path corpus;
+
+	/** Signature file of the unmodified test corpus. **/
+	private Path previous;
+
+	/**
+	 * Generates documentation of the unmodified test corpus,
+	 * so that its signature file could be compared with.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		corpus = TestGeneration.copyCorpus();
+		final Path output = directory.resolve("previous");
+		final MarkletRunner.Result result = TestGeneration.generate(corpus, output);
+		assertTrue(result.getOutput(), result.isSuccess());
+		previous = directory.resolve(ApiSignatures.FILE_NAME);
+		Files.copy(output.resolve(ShardIndex.DIRECTORY).resolve(ApiSignatures.FILE_NAME), previous);
+	}
+
+	/**
+	 * Deletes the temporary directories of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directories.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+		TestGeneration.delete(corpus);
+	}
+
+	/**
+	 * Generates documentation of the corpus copy against
+	 * the previous signature file, and reads the API changes page.
+	 *
+	 * @return Content of the API changes page.
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	private String generateChanges() throws Exception {
+		final Path output = directory.resolve("current");
+		final MarkletRunner.Result result = TestGeneration.generate(corpus, output, "-apidiff", previous.toString());
+		assertTrue(result.getOutput(), result.isSuccess());
+		return TestGeneration.read(output.resolve(MarkletConstant.API_CHANGES_FILE));
+	}
+
+	/**
+	 * Ensures that an unchanged API reports no change.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testUnchangedApi() throws Exception {
+		assertTrue(generateChanges().contains(MarkletConstant.NO_CHANGE));
+	}
+
+	/**
+	 * Ensures that added, removed and changed members
+	 * are reported with their signature.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testChangedApi() throws Exception {
+		final Path widget = corpus.resolve("demo/Widget.java");
+		final String source = new String(Files.readAllBytes(widget), StandardCharsets.UTF_8)
+				.replace("public void draw() {}", "public void erase() {}")
+				.replace("public Color color;", "public final Color color = null;");
+		Files.write(widget, source.getBytes(StandardCharsets.UTF_8));
+		final String page = generateChanges();
+		assertTrue(page.contains("* [Widget.erase()](demo/Widget.html#erase) : `public void erase()`"));
+		assertTrue(page.contains("* *demo.Widget.draw()* : `public void draw()`"));
+		assertTrue(page.contains("* [Widget.color](demo/Widget.html#color) : `public demo.Color color`" + MarkletConstant.CHANGED_TO + "`public final demo.Color color`"));
+	}
+
+}
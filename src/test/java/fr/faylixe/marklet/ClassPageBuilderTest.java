@@ -0,0 +1,79 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+
+/**
+ * Tests of class page rendering, against the test
+ * corpus documentation model.
+ *
+ * @author fv
+ */
+public final class ClassPageBuilderTest {
+
+	/**
+	 * Builds the page of the given ``classDoc`` using
+	 * the given ``context``, whose sink always fails.
+	 *
+	 * @param context Context to build page with.
+	 * @param classDoc Class to build page for.
+	 */
+	private static void buildFailing(final MarkletContext context, final ClassDoc classDoc) {
+		try {
+			ClassPageBuilder.build(context, classDoc, Paths.get("unused"));
+			fail("Page should not be written");
+		}
+		catch (final IOException e) {
+			assertEquals("Sink failure", e.getMessage());
+		}
+	}
+
+	/**
+	 * Ensures that pooled buffers are given back to the
+	 * context pool when a class page could not be written,
+	 * so that building it again does not allocate any.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testReleasesBuffersOnFailure() throws Exception {
+		final ClassDoc classDoc = TestGeneration.getClass("demo.Widget");
+		final MarkletOptions options = MarkletOptions.parse(new String[][] {{"-d", "unused"}});
+		final PageSink sink = (path, buffers) -> {
+			throw new IOException("Sink failure");
+		};
+		final MarkletContext context = new MarkletContext(options, null, null, null, null, null, null, null, sink, null, null);
+		final BufferPool pool = context.getBufferPool();
+		buildFailing(context, classDoc);
+		final long acquired = pool.getAcquired();
+		final long reused = pool.getReused();
+		buildFailing(context, classDoc);
+		assertTrue(pool.getAcquired() > acquired);
+		assertEquals(pool.getAcquired() - acquired, pool.getReused() - reused);
+	}
+
+	/**
+	 * Ensures that documents appended to a page keep their
+	 * content, in appending order.
+	 */
+	@Test
+	public void testAppendedDocumentsAreJoined() {
+		final BufferPool pool = new BufferPool();
+		final MarkdownDocumentBuilder page = new MarkdownDocumentBuilder(pool);
+		final MarkdownDocumentBuilder section = new MarkdownDocumentBuilder(pool);
+		page.text("head ");
+		section.text("section ");
+		page.append(section);
+		page.text("tail");
+		assertEquals("head section tail", page.build());
+	}
+
+}
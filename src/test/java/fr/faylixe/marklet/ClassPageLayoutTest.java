@@ -0,0 +1,98 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
+
+/**
+ * Tests of class page layouts, which split oversized
+ * class pages into sub pages.
+ *
+ * @author fv
+ */
+public final class ClassPageLayoutTest {
+
+	/**
+	 * Retrieves the method of the given ``classDoc``
+	 * with the given ``name``.
+	 *
+	 * @param classDoc Class to get method from.
+	 * @param name Name of the method.
+	 * @return Retrieved method.
+	 */
+	private static MethodDoc getMethod(final ClassDoc classDoc, final String name) {
+		return Arrays
+				.stream(classDoc.methods())
+				.filter(method -> method.name().equals(name))
+				.findFirst()
+				.orElseThrow(IllegalArgumentException::new);
+	}
+
+	/**
+	 * Ensures that members are split by kind, then into
+	 * ranges that fit into the member budget.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testSplitByMemberBudget() throws Exception {
+		final ClassDoc widget = TestGeneration.getClass("demo.Widget");
+		final ClassPageLayout layout = ClassPageLayout.of(widget, 2, 0);
+		assertTrue(layout.isSplit());
+		final List<String> names = layout
+				.getPages()
+				.stream()
+				.map(ClassPageLayout.Page::getName)
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList("Widget-constructors", "Widget-fields", "Widget-methods", "Widget-methods-2"), names);
+		assertEquals("Widget-methods-2", layout.getPageName(getMethod(widget, "paint")));
+		assertEquals("Widget", ClassPageLayout.getMainPage("Widget-methods-2"));
+	}
+
+	/**
+	 * Ensures that a page within budget is not split.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testNotSplitWithinBudget() throws Exception {
+		final ClassDoc widget = TestGeneration.getClass("demo.Widget");
+		final ClassPageLayout layout = ClassPageLayout.of(widget, 10, 0);
+		assertFalse(layout.isSplit());
+		assertEquals("Widget", layout.getPageName(getMethod(widget, "paint")));
+	}
+
+	/**
+	 * Ensures that split pages are written, listed on the
+	 * main page, and linked from the index.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testSplitPagesAreLinked() throws Exception {
+		final Path directory = TestGeneration.createDirectory();
+		try {
+			final MarkletRunner.Result result = TestGeneration.generate(directory, "-pagemembers", "2");
+			assertTrue(result.getOutput(), result.isSuccess());
+			final Map<String, String> pages = TestGeneration.readPages(directory);
+			assertTrue(pages.get("demo/Widget.html.md").contains("* Methods : [paint](Widget-methods-2.html) (1)"));
+			assertTrue(pages.get("demo/Widget-methods-2.html.md").contains("paint"));
+			assertTrue(pages.get("INDEX-P.html.md").contains("[paint](demo/Widget-methods-2.html#paintcolor)"));
+		}
+		finally {
+			TestGeneration.delete(directory);
+		}
+	}
+
+}
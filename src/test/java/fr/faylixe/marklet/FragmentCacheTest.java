@@ -0,0 +1,130 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FragmentCache}.
+ *
+ * @author fv
+ */
+public final class FragmentCacheTest {
+
+	/** Maximum size of tested caches. **/
+	private static final long MAXIMUM_SIZE = 1024 * 1024;
+
+	/** Cache hits reported by a generation. **/
+	private static final Pattern HITS = Pattern.compile("Fragment cache : (\\d+) hits");
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Builds a cache key filled with the given ``value``.
+	 *
+	 * @param value Byte to fill key with.
+	 * @return Built key.
+	 */
+	private static ByteBuffer key(final int value) {
+		final byte [] key = new byte[20];
+		Arrays.fill(key, (byte) value);
+		return ByteBuffer.wrap(key);
+	}
+
+	/**
+	 * Ensures that a loaded cache still reads its fragments once
+	 * its file has been replaced, and saves them back.
+	 *
+	 * @throws Exception If any error occurs while using cache.
+	 */
+	@Test
+	public void testSaveReplacesLoadedFile() throws Exception {
+		final Path cacheDirectory = directory.resolve("cache");
+		final FragmentCache first = FragmentCache.load(cacheDirectory, MAXIMUM_SIZE);
+		first.put(key(1), "first fragment");
+		first.save();
+		final FragmentCache second = FragmentCache.load(cacheDirectory, MAXIMUM_SIZE);
+		second.put(key(2), "second fragment");
+		second.save();
+		assertEquals("first fragment", second.get(key(1)));
+		second.save();
+		final FragmentCache third = FragmentCache.load(cacheDirectory, MAXIMUM_SIZE);
+		assertEquals("first fragment", third.get(key(1)));
+		assertEquals("second fragment", third.get(key(2)));
+		assertNull(third.get(key(3)));
+		assertEquals(2, third.getHits());
+		assertEquals(1, third.getMisses());
+	}
+
+	/**
+	 * Ensures that least recently used fragments are evicted
+	 * first once the cache is full.
+	 *
+	 * @throws Exception If any error occurs while using cache.
+	 */
+	@Test
+	public void testLeastRecentlyUsedEviction() throws Exception {
+		final FragmentCache cache = FragmentCache.load(directory, 3 * (20 + 4 + 10));
+		cache.put(key(1), "0123456789");
+		cache.put(key(2), "0123456789");
+		cache.put(key(3), "0123456789");
+		cache.get(key(1));
+		cache.put(key(4), "0123456789");
+		assertEquals("0123456789", cache.get(key(1)));
+		assertNull(cache.get(key(2)));
+		assertEquals("0123456789", cache.get(key(4)));
+	}
+
+	/**
+	 * Ensures that a generation using the cache of a previous
+	 * one hits it, and writes the same pages.
+	 *
+	 * @throws Exception If any error occurs during generation.
+	 */
+	@Test
+	public void testCachedGenerationWritesSamePages() throws Exception {
+		final String cache = directory.resolve("cache").toString();
+		final MarkletRunner.Result cold = TestGeneration.generate(directory.resolve("cold"), "-cache", cache);
+		assertTrue(cold.getOutput(), cold.isSuccess());
+		final MarkletRunner.Result warm = TestGeneration.generate(directory.resolve("warm"), "-cache", cache);
+		assertTrue(warm.getOutput(), warm.isSuccess());
+		final Matcher matcher = HITS.matcher(warm.getOutput());
+		assertTrue(warm.getOutput(), matcher.find());
+		assertTrue(warm.getOutput(), Long.parseLong(matcher.group(1)) > 0);
+		assertEquals(
+				TestGeneration.readPages(directory.resolve("cold")),
+				TestGeneration.readPages(directory.resolve("warm")));
+	}
+
+}
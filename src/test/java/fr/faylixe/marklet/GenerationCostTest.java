@@ -0,0 +1,81 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests of the rendering cost measured by a dry run.
+ *
+ * @author fv
+ */
+public final class GenerationCostTest {
+
+	/**
+	 * Writes a page of the given ``size`` into the given ``sink``.
+	 *
+	 * @param sink Sink to write page into.
+	 * @param size Size of the page in bytes.
+	 */
+	private static void write(final CountingPageSink sink, final int size) {
+		sink.write(Paths.get("unused"), new ByteBuffer [] { ByteBuffer.allocate(size) });
+	}
+
+	/**
+	 * Ensures that pages and bytes are reported for
+	 * each phase, and summed into the total.
+	 */
+	@Test
+	public void testPhasesAreReported() {
+		final CountingPageSink sink = new CountingPageSink();
+		final GenerationCost cost = new GenerationCost(sink, 100);
+		cost.start("package pages");
+		write(sink, 1024);
+		write(sink, 1024);
+		cost.start("class pages");
+		write(sink, 3072);
+		final List<String> lines = new ArrayList<>();
+		cost.report(lines::add, "class pages");
+		assertEquals(3, lines.size());
+		assertTrue(lines.get(0), lines.get(0).startsWith("Dry run, package pages : 2 pages, 2 KB, "));
+		assertTrue(lines.get(1), lines.get(1).startsWith("Dry run, class pages : 1 pages, 3 KB, "));
+		assertTrue(lines.get(2), lines.get(2).startsWith("Dry run, total : 3 pages, 5 KB, "));
+		assertEquals(3, sink.getPages());
+		assertEquals(5120, sink.getBytes());
+	}
+
+	/**
+	 * Ensures that a dry run renders as many pages as a
+	 * real generation, without writing any of them.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testDryRunWritesNothing() throws Exception {
+		final Path directory = TestGeneration.createDirectory();
+		try {
+			final Path plain = directory.resolve("plain");
+			final Path dry = directory.resolve("dry");
+			final MarkletRunner.Result plainResult = TestGeneration.generate(plain);
+			assertTrue(plainResult.getOutput(), plainResult.isSuccess());
+			final MarkletRunner.Result dryResult = TestGeneration.generate(dry, "-dryrun");
+			assertTrue(dryResult.getOutput(), dryResult.isSuccess());
+			final int pages = TestGeneration.readPages(plain).size();
+			assertTrue(dryResult.getOutput(), dryResult.getOutput().contains("Dry run, total : " + pages + " pages, "));
+			assertFalse(Files.exists(dry));
+		}
+		finally {
+			TestGeneration.delete(directory);
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the generation journal, that lets a failed
+ * or interrupted generation be resumed.
+ *
+ * @author fv
+ */
+public final class GenerationJournalTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that completed entries are only resumed
+	 * with the options they have been written with.
+	 *
+	 * @throws Exception If any error occurs while writing journal.
+	 */
+	@Test
+	public void testEntriesAreBoundToOptions() throws Exception {
+		final Path path = directory.resolve(GenerationJournal.getFileName(1, 1));
+		try (final GenerationJournal journal = GenerationJournal.open(path, "a", false)) {
+			journal.complete(GenerationJournal.CLASS, "demo.Widget");
+		}
+		try (final GenerationJournal journal = GenerationJournal.open(path, "a", true)) {
+			assertEquals(1, journal.getResumed());
+			assertTrue(journal.isCompleted(GenerationJournal.CLASS, "demo.Widget"));
+			assertFalse(journal.isCompleted(GenerationJournal.PACKAGE, "demo.Widget"));
+		}
+		try (final GenerationJournal journal = GenerationJournal.open(path, "b", true)) {
+			assertEquals(0, journal.getResumed());
+			assertFalse(journal.isCompleted(GenerationJournal.CLASS, "demo.Widget"));
+		}
+	}
+
+	/**
+	 * Ensures that a page that could not be written does not
+	 * stop the generation, and that resuming it only
+	 * generates that page before deleting the journal.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testFailedPageIsResumed() throws Exception {
+		final Path output = directory.resolve("javadoc");
+		final Path journal = output.resolve(ShardIndex.DIRECTORY).resolve(GenerationJournal.getFileName(1, 1));
+		// NOTE : A directory in place of the page makes its writing fail.
+		final Path widget = Files.createDirectories(output.resolve("demo/Widget.html.md"));
+		final MarkletRunner.Result failed = TestGeneration.generate(output);
+		assertFalse(failed.isSuccess());
+		assertTrue(failed.getOutput(), failed.getOutput().contains("Unable to generate documentation for class demo.Widget"));
+		assertTrue(Files.isRegularFile(output.resolve("demo/Base.html.md")));
+		assertTrue(Files.exists(journal));
+		Files.delete(widget);
+		final MarkletRunner.Result resumed = TestGeneration.generate(output, "-resume");
+		assertTrue(resumed.getOutput(), resumed.isSuccess());
+		assertTrue(resumed.getOutput().contains("Generates documentation for Widget"));
+		assertFalse(resumed.getOutput().contains("Generates documentation for Base"));
+		assertTrue(Files.isRegularFile(widget));
+		assertFalse(Files.exists(journal));
+	}
+
+}
@@ -0,0 +1,104 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+
+/**
+ * Tests of the order of class pages generated
+ * under a deadline, and of the deadline itself.
+ *
+ * @author fv
+ */
+public final class GenerationOrderTest {
+
+	/**
+	 * Sorts classes of the test corpus with the given ``priority``.
+	 *
+	 * @param priority Priority to sort classes with.
+	 * @return Simple names of sorted classes.
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	private static List<String> sort(final GenerationOrder.Priority priority) throws Exception {
+		return GenerationOrder
+				.sort(TestGeneration.getRoot().classes(), priority)
+				.stream()
+				.map(ClassDoc::name)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Ensures that the most referenced classes come first,
+	 * the enumeration being used by both widget members and
+	 * the base class by the widget declaration.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testReferencesPriority() throws Exception {
+		assertEquals(Arrays.asList("Color", "Base", "Widget", "Helper", "Marker"), sort(GenerationOrder.Priority.REFERENCES));
+	}
+
+	/**
+	 * Ensures that classes with most members come first.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testSizePriority() throws Exception {
+		assertEquals(Arrays.asList("Color", "Widget", "Base", "Helper", "Marker"), sort(GenerationOrder.Priority.SIZE));
+	}
+
+	/**
+	 * Ensures that source priority keeps javadoc order.
+	 *
+	 * @throws Exception If any error occurs while reading corpus model.
+	 */
+	@Test
+	public void testSourcePriority() throws Exception {
+		final List<String> expected = Arrays
+				.stream(TestGeneration.getRoot().classes())
+				.map(ClassDoc::name)
+				.collect(Collectors.toList());
+		assertEquals(expected, sort(GenerationOrder.Priority.SOURCE));
+	}
+
+	/**
+	 * Ensures that a generation within its deadline writes
+	 * every page and does not list any skipped one, and that
+	 * an unknown priority is rejected.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testGenerationWithinDeadline() throws Exception {
+		final Path directory = TestGeneration.createDirectory();
+		try {
+			final Path plain = directory.resolve("plain");
+			final Path bounded = directory.resolve("bounded");
+			final MarkletRunner.Result plainResult = TestGeneration.generate(plain);
+			assertTrue(plainResult.getOutput(), plainResult.isSuccess());
+			final MarkletRunner.Result boundedResult = TestGeneration.generate(bounded, "-deadline", "600", "-priority", "size");
+			assertTrue(boundedResult.getOutput(), boundedResult.isSuccess());
+			assertEquals(TestGeneration.readPages(plain).keySet(), TestGeneration.readPages(bounded).keySet());
+			assertFalse(Files.exists(bounded.resolve(ShardIndex.DIRECTORY).resolve("skipped.list")));
+			final MarkletRunner.Result invalid = TestGeneration.generate(directory.resolve("invalid"), "-deadline", "600", "-priority", "alphabetical");
+			assertFalse(invalid.isSuccess());
+			assertTrue(invalid.getOutput(), invalid.getOutput().contains("Invalid priority"));
+		}
+		finally {
+			TestGeneration.delete(directory);
+		}
+	}
+
+}
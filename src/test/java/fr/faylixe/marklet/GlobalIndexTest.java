@@ -0,0 +1,76 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the alphabetical index and usage pages,
+ * generated from the test corpus.
+ *
+ * @author fv
+ */
+public final class GlobalIndexTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Pages generated from the test corpus. **/
+	private Map<String, String> pages;
+
+	/**
+	 * Generates the test corpus documentation, with usages.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		final MarkletRunner.Result result = TestGeneration.generate(directory, "-usage");
+		assertTrue(result.getOutput(), result.isSuccess());
+		pages = TestGeneration.readPages(directory);
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that enum constants are indexed, linking
+	 * to the anchor of their row in the enumeration page.
+	 */
+	@Test
+	public void testEnumConstantIsIndexed() {
+		assertTrue(pages.get("INDEX-R.html.md").contains("| [RED](demo/Color.html#red) | Enum constant | demo.Color | The red one. |"));
+		assertTrue(pages.get("demo/Color.html.md").contains("| <a name=\"red\"></a>`RED` | The red one. |"));
+	}
+
+	/**
+	 * Ensures that annotation type elements are indexed.
+	 */
+	@Test
+	public void testAnnotationElementIsIndexed() {
+		assertTrue(pages.get("INDEX-C.html.md").contains("| [count](demo/Marker.html#count) | Element | demo.Marker | Count. |"));
+	}
+
+	/**
+	 * Ensures that a class referenced by the default value
+	 * of an annotation element is used by the annotation.
+	 */
+	@Test
+	public void testElementDefaultValueIsUsage() {
+		assertTrue(pages.get("demo/USAGE.html.md").contains("## Base\n* [Marker](Marker.html)\n"));
+	}
+
+}
@@ -0,0 +1,122 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests of precompressed sidecars written
+ * along with pages by a {@link GzipPageSink}.
+ *
+ * @author fv
+ */
+public final class GzipPageSinkTest {
+
+	/**
+	 * Decompresses the given gzip ``content``.
+	 *
+	 * @param content Compressed content.
+	 * @return Decompressed content.
+	 * @throws IOException If the content is not a valid gzip member.
+	 */
+	private static byte [] decompress(final byte [] content) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (final InputStream stream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+			final byte [] buffer = new byte[4096];
+			int read;
+			while ((read = stream.read(buffer)) > 0) {
+				output.write(buffer, 0, read);
+			}
+		}
+		return output.toByteArray();
+	}
+
+	/**
+	 * Ensures that a page made of several buffers, some of them
+	 * direct, is written as is along with a sidecar that
+	 * decompresses to the page, and which only depends on
+	 * the page content.
+	 *
+	 * @throws Exception If any error occurs while writing page.
+	 */
+	@Test
+	public void testSidecarDecompressesToPage() throws Exception {
+		final Map<Path, byte []> written = new HashMap<>();
+		final PageSink delegate = (path, buffers) -> {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			for (final ByteBuffer buffer : buffers) {
+				final byte [] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				content.write(bytes);
+			}
+			written.put(path, content.toByteArray());
+		};
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("| `paint(Color)` | Paints ").append(i).append(". |\n");
+		}
+		final byte [] head = "# Widget\n".getBytes(StandardCharsets.UTF_8);
+		final byte [] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(body.length);
+		direct.put(body).flip();
+		final Path page = Paths.get("demo", "Widget.html.md");
+		final Path other = Paths.get("demo", "Copy.html.md");
+		try (final GzipPageSink sink = new GzipPageSink(delegate, 9)) {
+			sink.write(page, new ByteBuffer [] { ByteBuffer.wrap(head), direct.duplicate() });
+			sink.write(other, new ByteBuffer [] { ByteBuffer.wrap(head), direct.duplicate() });
+			assertEquals(2, sink.getPages());
+		}
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.write(head);
+		expected.write(body);
+		assertArrayEquals(expected.toByteArray(), written.get(page));
+		final byte [] sidecar = written.get(GzipPageSink.getSidecar(page));
+		assertTrue(sidecar.length < body.length);
+		assertArrayEquals(expected.toByteArray(), decompress(sidecar));
+		assertArrayEquals(sidecar, written.get(GzipPageSink.getSidecar(other)));
+	}
+
+	/**
+	 * Ensures that a generation with sidecars writes one
+	 * next to each page, which decompresses to the page.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testGenerationWritesSidecars() throws Exception {
+		final Path directory = TestGeneration.createDirectory();
+		try {
+			final MarkletRunner.Result result = TestGeneration.generate(directory, "-gzip", "6");
+			assertTrue(result.getOutput(), result.isSuccess());
+			int pages = 0;
+			for (final String name : TestGeneration.readPages(directory).keySet()) {
+				if (!name.endsWith(GzipPageSink.EXTENSION)) {
+					final Path page = directory.resolve(name);
+					final byte [] sidecar = Files.readAllBytes(GzipPageSink.getSidecar(page));
+					assertArrayEquals(name, Files.readAllBytes(page), decompress(sidecar));
+					pages++;
+				}
+			}
+			assertTrue(pages > 0);
+		}
+		finally {
+			TestGeneration.delete(directory);
+		}
+	}
+
+}
@@ -0,0 +1,85 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests of reference style links written by
+ * a {@link MarkdownDocumentBuilder}.
+ *
+ * @author fv
+ */
+public final class MarkdownDocumentBuilderTest {
+
+	/** Link target that pays for its reference once written twice. **/
+	private static final String METHOD = "demo/Widget.html#getName()";
+
+	/** Other link target that pays for its reference once written twice. **/
+	private static final String HELPER = "demo/sub/Helper.html#help()";
+
+	/** Short link target that only pays for its reference once written three times. **/
+	private static final String BASE = "demo/Base.html#x";
+
+	/**
+	 * Creates a document with references enabled.
+	 *
+	 * @param prefix Prefix of reference identifiers.
+	 * @return Created document.
+	 */
+	private static MarkdownDocumentBuilder createDocument(final String prefix) {
+		final MarkdownDocumentBuilder document = new MarkdownDocumentBuilder();
+		document.enableReferences(prefix);
+		return document;
+	}
+
+	/**
+	 * Ensures that a target written twice is kept inline
+	 * when its reference does not pay for its definition,
+	 * and that no characters are reported as lost.
+	 */
+	@Test
+	public void testTargetWrittenTwiceIsKeptInline() {
+		final MarkdownDocumentBuilder document = createDocument("ref");
+		document.link("a", BASE);
+		document.link("b", BASE);
+		document.definitions();
+		assertEquals("[a](" + BASE + ")[b](" + BASE + ")", document.build());
+		assertEquals(0, document.getSavedCharacters());
+	}
+
+	/**
+	 * Ensures that once a target pays for its reference,
+	 * its earlier inline occurrences are rewritten too.
+	 */
+	@Test
+	public void testEarlierOccurrencesAreRewritten() {
+		final MarkdownDocumentBuilder document = createDocument("ref");
+		document.link("a", BASE);
+		document.link("b", BASE);
+		document.link("c", BASE);
+		document.definitions();
+		assertEquals("[a][ref1][b][ref1][c][ref1]\n[ref1]: " + BASE + "\n", document.build());
+		assertEquals(3 * (BASE.length() - 4) - (4 + BASE.length() + 5), document.getSavedCharacters());
+	}
+
+	/**
+	 * Ensures that rewriting an occurrence keeps inline
+	 * occurrences of other targets written after it in place.
+	 */
+	@Test
+	public void testInterleavedTargetsAreRewritten() {
+		final MarkdownDocumentBuilder document = createDocument("");
+		document.link("a", METHOD);
+		document.link("b", HELPER);
+		document.text(" ");
+		document.link("c", METHOD);
+		document.link("d", HELPER);
+		document.definitions();
+		final String expected = "[a][1][b][2] [c][1][d][2]\n[1]: " + METHOD + "\n[2]: " + HELPER + "\n";
+		assertEquals(expected, document.build());
+		final long saved = 2 * (METHOD.length() - 1) - (1 + METHOD.length() + 5) + 2 * (HELPER.length() - 1) - (1 + HELPER.length() + 5);
+		assertEquals(saved, document.getSavedCharacters());
+	}
+
+}
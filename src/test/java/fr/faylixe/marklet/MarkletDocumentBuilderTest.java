@@ -0,0 +1,69 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of first sentence summaries, as written in
+ * package and index tables of the test corpus.
+ *
+ * @author fv
+ */
+public final class MarkletDocumentBuilderTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Pages generated from the test corpus. **/
+	private Map<String, String> pages;
+
+	/**
+	 * Generates the test corpus documentation.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		final MarkletRunner.Result result = TestGeneration.generate(directory);
+		assertTrue(result.getOutput(), result.isSuccess());
+		pages = TestGeneration.readPages(directory);
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that a summary is not cut after an abbreviation,
+	 * and that its table cell separators are escaped.
+	 */
+	@Test
+	public void testSummaryKeepsTableRow() {
+		final String row = "| [Marker](Marker.html) | A marker annotation, e.g. for tests \\| tools. |\n";
+		assertTrue(pages.get("demo/README.html.md").contains(row));
+		assertTrue(pages.get("INDEX-M.html.md").contains("| Annotation | demo | A marker annotation, e.g. for tests \\| tools. |\n"));
+	}
+
+	/**
+	 * Ensures that a summary written over several lines
+	 * is written on a single line with collapsed whitespaces.
+	 */
+	@Test
+	public void testSummaryCollapsesWhitespaces() {
+		assertTrue(pages.get("demo/README.html.md").contains("| [Base](Base.html) | Base class, extended by widgets. |\n"));
+	}
+
+}
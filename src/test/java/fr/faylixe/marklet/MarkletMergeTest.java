@@ -0,0 +1,100 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MarkletMerge}, completing
+ * sharded generations.
+ *
+ * @author fv
+ */
+public final class MarkletMergeTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Generates the given ``shard`` of the test corpus
+	 * into the given ``output`` directory.
+	 *
+	 * @param output Output directory.
+	 * @param shard Shard to generate, as ``i/N``.
+	 * @param usage ``true`` if usages should be recorded, ``false`` otherwise.
+	 * @throws Exception If any error occurs during generation.
+	 */
+	private static void generateShard(final Path output, final String shard, final boolean usage) throws Exception {
+		final MarkletRunner.Result result = usage
+				? TestGeneration.generate(output, "-shard", shard, "-usage", "-reports")
+				: TestGeneration.generate(output, "-shard", shard, "-reports");
+		assertTrue(result.getOutput(), result.isSuccess());
+	}
+
+	/**
+	 * Ensures that merging every shard writes the same pages
+	 * as a single generation, including index, usage and
+	 * report pages that need the whole model.
+	 *
+	 * @throws Exception If any error occurs during generation.
+	 */
+	@Test
+	public void testMergedShardsMatchSingleGeneration() throws Exception {
+		final Path single = directory.resolve("single");
+		final MarkletRunner.Result result = TestGeneration.generate(single, "-usage", "-reports");
+		assertTrue(result.getOutput(), result.isSuccess());
+		final Path sharded = directory.resolve("sharded");
+		generateShard(sharded, "1/2", true);
+		generateShard(sharded, "2/2", true);
+		MarkletMerge.main(new String[] {"-d", sharded.toString()});
+		assertEquals(TestGeneration.readPages(single), TestGeneration.readPages(sharded));
+	}
+
+	/**
+	 * Ensures that partial files of shards generated with
+	 * different options are not merged together.
+	 *
+	 * @throws Exception If any error occurs during generation.
+	 */
+	@Test
+	public void testRejectsShardsOfAnotherGeneration() throws Exception {
+		final Path sharded = directory.resolve("sharded");
+		generateShard(sharded, "1/2", true);
+		generateShard(sharded, "2/2", false);
+		try {
+			MarkletMerge.main(new String[] {"-d", sharded.toString()});
+			fail("Shards of different generations should not be merged");
+		}
+		catch (final IOException e) {
+			// Expected.
+		}
+	}
+
+}
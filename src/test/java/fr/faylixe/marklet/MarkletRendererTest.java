@@ -0,0 +1,82 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link MarkletRenderer}, rendering pages
+ * from a documentation model snapshot.
+ *
+ * @author fv
+ */
+public final class MarkletRendererTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Snapshot written by the javadoc generation. **/
+	private Path snapshot;
+
+	/**
+	 * Generates documentation of the test corpus
+	 * along with its model snapshot.
+	 *
+	 * @throws Exception If any error occurs during generation.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		snapshot = directory.resolve("model.snapshot");
+		final MarkletRunner.Result result = TestGeneration.generate(directory.resolve("javadoc"), "-snapshot", snapshot.toString());
+		assertTrue(result.getOutput(), result.isSuccess());
+	}
+
+	/**
+	 * Deletes the temporary directory.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that pages rendered from the snapshot are
+	 * the ones written by the javadoc generation.
+	 *
+	 * @throws Exception If any error occurs during rendering.
+	 */
+	@Test
+	public void testRendersSamePages() throws Exception {
+		final Path output = directory.resolve("snapshot");
+		assertTrue(MarkletRenderer.run(new String[] {snapshot.toString(), "-d", output.toString()}));
+		assertEquals(
+				TestGeneration.readPages(directory.resolve("javadoc")),
+				TestGeneration.readPages(output));
+	}
+
+	/**
+	 * Ensures that invalid options are rejected
+	 * before any page is rendered.
+	 *
+	 * @throws Exception If any error occurs while reading snapshot.
+	 */
+	@Test
+	public void testRejectsInvalidOptions() throws Exception {
+		final Path output = directory.resolve("invalid");
+		assertFalse(MarkletRenderer.run(new String[] {snapshot.toString(), "-d", output.toString(), "-shard", "3/2"}));
+		assertFalse(MarkletRenderer.run(new String[] {snapshot.toString(), "-d", output.toString(), "-deadline", "-1"}));
+		assertFalse(MarkletRenderer.run(new String[] {snapshot.toString(), "-d", output.toString(), "-gzip", "12"}));
+		assertFalse(Files.exists(output));
+	}
+
+}
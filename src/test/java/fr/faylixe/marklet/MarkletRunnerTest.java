@@ -0,0 +1,115 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of in process generation of several
+ * modules by a {@link MarkletRunner}.
+ *
+ * @author fv
+ */
+public final class MarkletRunnerTest {
+
+	/** Charset of the source file written with accented characters. **/
+	private static final String LATIN = "ISO-8859-1";
+
+	/** Source file content with accented characters, formatted with the class name. **/
+	private static final String LATIN_SOURCE = "package demo;\n/** Café class. */\npublic class %s {}\n";
+
+	/** Part of the diagnostic reported when a source file is not decoded with its charset. **/
+	private static final String UNMAPPABLE = "unmappable character";
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Creates a module named ``name`` whose single source
+	 * file ``demo/{name}.java`` has the given ``content``,
+	 * formatted with the module name.
+	 *
+	 * @param name Name of the module and of its class.
+	 * @param content Source file content.
+	 * @param charset Charset source file is written with.
+	 * @param encoding Source file encoding given to javadoc.
+	 * @return Created module.
+	 * @throws Exception If any error occurs while writing source file.
+	 */
+	private MarkletRunner.Module createModule(final String name, final String content, final String charset, final String encoding) throws Exception {
+		final Path root = directory.resolve(name + "-src");
+		final Path source = root.resolve("demo").resolve(name + ".java");
+		Files.createDirectories(source.getParent());
+		Files.write(source, String.format(content, name).getBytes(charset));
+		final List<String> options = Arrays.asList("-encoding", encoding, "-d", directory.resolve(name).toString());
+		return new MarkletRunner.Module(name, Collections.singletonList(root), Collections.emptyList(), options);
+	}
+
+	/**
+	 * Ensures that modules generated concurrently keep their
+	 * own output directory, source encoding and outcome, and
+	 * that results are given in the order of modules.
+	 *
+	 * @throws Exception If any error occurs while generating modules.
+	 */
+	@Test
+	public void testModulesAreIsolated() throws Exception {
+		final MarkletRunner.Module corpus = new MarkletRunner.Module(
+				"corpus",
+				Collections.singletonList(TestGeneration.getCorpus()),
+				Collections.emptyList(),
+				Arrays.asList("-encoding", "UTF-8", "-d", directory.resolve("corpus").toString()));
+		final MarkletRunner.Module latin = createModule("Latin", LATIN_SOURCE, LATIN, LATIN);
+		final MarkletRunner.Module mislabeled = createModule("Mislabeled", LATIN_SOURCE, LATIN, "UTF-8");
+		final MarkletRunner.Module broken = createModule("Broken", "package demo;\npublic class Broken {\n", "UTF-8", "UTF-8");
+		final List<MarkletRunner.Result> results;
+		try (final MarkletRunner runner = new MarkletRunner(2)) {
+			results = runner.run(Arrays.asList(corpus, latin, broken, mislabeled));
+		}
+		assertEquals(4, results.size());
+		assertEquals("corpus", results.get(0).getModule().getName());
+		assertEquals("Latin", results.get(1).getModule().getName());
+		assertEquals("Broken", results.get(2).getModule().getName());
+		assertTrue(results.get(0).getOutput(), results.get(0).isSuccess());
+		assertTrue(results.get(1).getOutput(), results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertTrue(results.get(2).getOutput().contains("Broken.java"));
+		assertFalse(results.get(0).getOutput().contains("Broken.java"));
+		assertFalse(results.get(1).getOutput(), results.get(1).getOutput().contains(UNMAPPABLE));
+		assertTrue(results.get(3).getOutput(), results.get(3).getOutput().contains(UNMAPPABLE));
+		assertTrue(Files.exists(directory.resolve("corpus/demo/Widget.html.md")));
+		assertTrue(Files.exists(directory.resolve("Latin/demo/Latin.html.md")));
+		assertFalse(Files.exists(directory.resolve("Latin/demo/Widget.html.md")));
+	}
+
+}
@@ -0,0 +1,109 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the watch mode, which regenerates pages
+ * of the test corpus as its sources change.
+ *
+ * @author fv
+ */
+public final class MarkletWatcherTest {
+
+	/** Delay in milliseconds between two checks of the output directory. **/
+	private static final long POLL_DELAY = 50;
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Copy of the test corpus, modified by tests. **/
+	private Path corpus;
+
+	/** Thread running the watcher. **/
+	private Thread watcher;
+
+	/**
+	 * Creates the temporary directories of the test.
+	 *
+	 * @throws Exception If any error occurs while copying corpus.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		corpus = TestGeneration.copyCorpus();
+	}
+
+	/**
+	 * Stops the watcher and deletes the temporary directories of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directories.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		if (watcher != null) {
+			watcher.interrupt();
+			watcher.join();
+		}
+		TestGeneration.delete(directory);
+		TestGeneration.delete(corpus);
+	}
+
+	/**
+	 * Waits until the given ``condition`` holds.
+	 *
+	 * @param condition Condition to wait for.
+	 * @throws Exception If any error occurs while checking condition.
+	 */
+	private static void await(final Callable<Boolean> condition) throws Exception {
+		while (!condition.call()) {
+			Thread.sleep(POLL_DELAY);
+		}
+	}
+
+	/**
+	 * Ensures that the page of a modified source is regenerated,
+	 * and that the page of a deleted source is deleted.
+	 *
+	 * @throws Exception If any error occurs while watching sources.
+	 */
+	@Test(timeout = 60000)
+	public void testChangedSourcesAreRegenerated() throws Exception {
+		final String [] arguments = {corpus.toString(), "-encoding", "UTF-8", "-d", directory.toString()};
+		watcher = new Thread(() -> {
+			try {
+				MarkletWatcher.main(arguments);
+			}
+			catch (final InterruptedException e) {
+				// Watcher stopped by the test.
+			}
+			catch (final Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		watcher.start();
+		final Path widgetPage = directory.resolve("demo/Widget.html.md");
+		final Path helperPage = directory.resolve("demo/sub/Helper.html.md");
+		await(() -> Files.exists(widgetPage) && Files.exists(helperPage));
+		assertFalse(TestGeneration.read(widgetPage).contains("A gadget"));
+		// NOTE : Leaves time for the watcher to wait for events once initial generation is done.
+		Thread.sleep(POLL_DELAY * 10);
+		final Path widget = corpus.resolve("demo/Widget.java");
+		final String source = new String(Files.readAllBytes(widget), StandardCharsets.UTF_8);
+		Files.write(widget, source.replace("A widget", "A gadget").getBytes(StandardCharsets.UTF_8));
+		await(() -> TestGeneration.read(widgetPage).contains("A gadget"));
+		Files.delete(corpus.resolve("demo/sub/Helper.java"));
+		await(() -> !Files.exists(helperPage));
+		assertTrue(watcher.isAlive());
+	}
+
+}
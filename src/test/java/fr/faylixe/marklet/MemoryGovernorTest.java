@@ -0,0 +1,127 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the memory governor shared by generations
+ * of the same virtual machine.
+ *
+ * @author fv
+ */
+public final class MemoryGovernorTest {
+
+	/** Memory threshold used by tests. **/
+	private static final String THRESHOLD = "99";
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Documentation model snapshot of the test corpus. **/
+	private Path snapshot;
+
+	/**
+	 * Creates the temporary directory of the test,
+	 * along with its model snapshot.
+	 *
+	 * @throws Exception If any error occurs while generating snapshot.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		snapshot = directory.resolve("model.snapshot");
+		final MarkletRunner.Result result = TestGeneration.generate(directory.resolve("javadoc"), "-snapshot", snapshot.toString());
+		assertTrue(result.getOutput(), result.isSuccess());
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that generations share the same governor, and
+	 * that changing its threshold is warned.
+	 */
+	@Test
+	public void testGovernorIsShared() {
+		final List<String> warnings = new ArrayList<>();
+		final MemoryGovernor governor = MemoryGovernor.get(90, warnings::add);
+		try {
+			final MemoryGovernor shared = MemoryGovernor.get(80, warnings::add);
+			assertSame(governor, shared);
+			assertEquals(1, warnings.size());
+			shared.close();
+		}
+		finally {
+			governor.close();
+		}
+	}
+
+	/**
+	 * Ensures that a generation interrupted while waiting for
+	 * memory fails, and keeps its journal so that it could be
+	 * resumed.
+	 *
+	 * @throws Exception If any error occurs while rendering snapshot.
+	 */
+	@Test
+	public void testInterruptedGenerationKeepsJournal() throws Exception {
+		final Path output = directory.resolve("interrupted");
+		final Path journal = output.resolve(ShardIndex.DIRECTORY).resolve(GenerationJournal.getFileName(1, 1));
+		final String [] arguments = {snapshot.toString(), "-d", output.toString(), "-memorythreshold", THRESHOLD};
+		final MemoryGovernor governor = MemoryGovernor.get(Integer.parseInt(THRESHOLD), warning -> { });
+		final int permits = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < permits; i++) {
+			governor.acquire();
+		}
+		final AtomicBoolean success = new AtomicBoolean(true);
+		final Thread generation = new Thread(() -> {
+			try {
+				success.set(MarkletRenderer.run(arguments));
+			}
+			catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		try {
+			generation.start();
+			while (generation.getState() != Thread.State.WAITING) {
+				Thread.sleep(10);
+			}
+			generation.interrupt();
+			generation.join();
+		}
+		finally {
+			for (int i = 0; i < permits; i++) {
+				governor.release();
+			}
+			governor.close();
+		}
+		assertFalse(success.get());
+		assertTrue(Files.exists(journal));
+		final String [] resume = {snapshot.toString(), "-d", output.toString(), "-memorythreshold", THRESHOLD, "-resume"};
+		assertTrue(MarkletRenderer.run(resume));
+		assertFalse(Files.exists(journal));
+	}
+
+}
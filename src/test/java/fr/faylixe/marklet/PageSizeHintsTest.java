@@ -0,0 +1,99 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of page sizes learned from the previous
+ * generation into the same output directory.
+ *
+ * @author fv
+ */
+public final class PageSizeHintsTest {
+
+	/** Name of the sizes file of an unsharded generation. **/
+	private static final String FILE_NAME = PageSizeHints.getFileName(1, 1);
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that saved sizes are loaded back, malformed lines
+	 * being ignored, and that sizes which have not been recorded
+	 * again are kept.
+	 *
+	 * @throws Exception If any error occurs while reading or writing sizes.
+	 */
+	@Test
+	public void testSizesAreKeptAcrossGenerations() throws Exception {
+		final Path widget = directory.resolve("demo/Widget.html.md");
+		final Path base = directory.resolve("demo/Base.html.md");
+		final PageSizeHints first = PageSizeHints.load(directory, FILE_NAME);
+		assertEquals(0, first.getLoaded());
+		assertEquals(-1, first.get(widget));
+		first.record(widget, 1200);
+		first.record(base, 300);
+		first.save();
+		final Path path = directory.resolve(ShardIndex.DIRECTORY).resolve(FILE_NAME);
+		Files.write(path, Arrays.asList("large\tdemo/Color.html.md"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+		final PageSizeHints second = PageSizeHints.load(directory, FILE_NAME);
+		assertEquals(2, second.getLoaded());
+		assertEquals(1200, second.get(widget));
+		second.record(widget, 1500);
+		second.save();
+		final PageSizeHints third = PageSizeHints.load(directory, FILE_NAME);
+		assertEquals(1500, third.get(widget));
+		assertEquals(300, third.get(base));
+	}
+
+	/**
+	 * Ensures that a generation into the output directory of a
+	 * previous one reserves page buffers from learned sizes.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testSecondGenerationUsesHints() throws Exception {
+		final Path output = directory.resolve("javadoc");
+		final MarkletRunner.Result first = TestGeneration.generate(output);
+		assertTrue(first.getOutput(), first.isSuccess());
+		assertTrue(first.getOutput(), first.getOutput().contains("Page sizes : 0 hinted, "));
+		final Path widget = output.resolve("demo/Widget.html.md");
+		assertEquals(TestGeneration.read(widget).length(), PageSizeHints.load(output, FILE_NAME).get(widget));
+		final MarkletRunner.Result second = TestGeneration.generate(output);
+		assertTrue(second.getOutput(), second.isSuccess());
+		assertTrue(second.getOutput(), second.getOutput().contains("page sizes from previous generation"));
+		assertTrue(second.getOutput(), second.getOutput().contains(" hinted, 0 estimated, 0 undersized"));
+	}
+
+}
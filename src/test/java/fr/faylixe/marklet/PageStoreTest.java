@@ -0,0 +1,148 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the content addressed page store shared
+ * by documentation of several versions.
+ *
+ * @author fv
+ */
+public final class PageStoreTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Directory of stored pages. **/
+	private Path store;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		store = directory.resolve("store");
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Writes a page with the given ``content`` into the given ``pageStore``.
+	 *
+	 * @param pageStore Store to write page into.
+	 * @param page Path of the page.
+	 * @param content Page content.
+	 * @throws Exception If any error occurs while writing page.
+	 */
+	private static void write(final PageStore pageStore, final Path page, final String content) throws Exception {
+		Files.createDirectories(page.getParent());
+		pageStore.write(page, new ByteBuffer [] { ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)) });
+	}
+
+	/**
+	 * Reads the manifest of the given ``output`` directory.
+	 *
+	 * @param output Output directory.
+	 * @return Manifest lines.
+	 * @throws Exception If any error occurs while reading manifest.
+	 */
+	private static List<String> readManifest(final Path output) throws Exception {
+		return Files.readAllLines(output.resolve(ShardIndex.DIRECTORY).resolve("pages.manifest"), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Ensures that identical pages of two versions share
+	 * their stored content, while changed pages do not.
+	 *
+	 * @throws Exception If any error occurs while writing pages.
+	 */
+	@Test
+	public void testIdenticalPagesAreShared() throws Exception {
+		final Path first = directory.resolve("1.0");
+		final Path second = directory.resolve("1.1");
+		final PageStore firstStore = new PageStore(store, first, false);
+		write(firstStore, first.resolve("demo/Base.html.md"), "# Base");
+		write(firstStore, first.resolve("demo/Widget.html.md"), "# Widget");
+		final PageStore secondStore = new PageStore(store, second, false);
+		write(secondStore, second.resolve("demo/Base.html.md"), "# Base");
+		write(secondStore, second.resolve("demo/Widget.html.md"), "# Widget 1.1");
+		assertEquals(2, firstStore.getStored());
+		assertEquals(1, secondStore.getStored());
+		assertEquals(1, secondStore.getShared());
+		assertTrue(Files.isSameFile(first.resolve("demo/Base.html.md"), second.resolve("demo/Base.html.md")));
+		assertFalse(Files.isSameFile(first.resolve("demo/Widget.html.md"), second.resolve("demo/Widget.html.md")));
+		assertEquals("# Widget", TestGeneration.read(first.resolve("demo/Widget.html.md")));
+		assertEquals("# Widget 1.1", TestGeneration.read(second.resolve("demo/Widget.html.md")));
+	}
+
+	/**
+	 * Ensures that a partial generation keeps manifest entries
+	 * of pages it did not write, while a full one drops them.
+	 *
+	 * @throws Exception If any error occurs while writing pages.
+	 */
+	@Test
+	public void testManifestOfPartialGeneration() throws Exception {
+		final Path output = directory.resolve("javadoc");
+		final PageStore full = new PageStore(store, output, false);
+		write(full, output.resolve("demo/Base.html.md"), "# Base");
+		write(full, output.resolve("demo/Widget.html.md"), "# Widget");
+		full.save();
+		final List<String> manifest = readManifest(output);
+		assertEquals(2, manifest.size());
+		assertTrue(manifest.get(0).endsWith("\tdemo/Base.html.md"));
+		assertTrue(manifest.get(1).endsWith("\tdemo/Widget.html.md"));
+		final PageStore partial = new PageStore(store, output, true);
+		write(partial, output.resolve("demo/Widget.html.md"), "# Widget 1.1");
+		partial.save();
+		final List<String> partialManifest = readManifest(output);
+		assertEquals(manifest.get(0), partialManifest.get(0));
+		assertFalse(manifest.get(1).equals(partialManifest.get(1)));
+		final PageStore next = new PageStore(store, output, false);
+		write(next, output.resolve("demo/Widget.html.md"), "# Widget 1.1");
+		next.save();
+		assertEquals(1, readManifest(output).size());
+	}
+
+	/**
+	 * Ensures that pages generated with a store match
+	 * the ones generated without it.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testStoredGenerationMatchesPlainOne() throws Exception {
+		final Path plain = directory.resolve("plain");
+		final Path stored = directory.resolve("stored");
+		final MarkletRunner.Result plainResult = TestGeneration.generate(plain);
+		assertTrue(plainResult.getOutput(), plainResult.isSuccess());
+		final MarkletRunner.Result storedResult = TestGeneration.generate(stored, "-store", store.toString());
+		assertTrue(storedResult.getOutput(), storedResult.isSuccess());
+		assertEquals(TestGeneration.readPages(plain), TestGeneration.readPages(stored));
+		assertEquals(TestGeneration.readPages(stored).size(), readManifest(stored).size());
+	}
+
+}
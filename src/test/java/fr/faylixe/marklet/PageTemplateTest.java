@@ -0,0 +1,125 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of user supplied class and package page templates.
+ *
+ * @author fv
+ */
+public final class PageTemplateTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Writes a template file with the given ``name`` and ``content``.
+	 *
+	 * @param name Name of the template file.
+	 * @param content Template content.
+	 * @return Path of the written template.
+	 * @throws Exception If any error occurs while writing template.
+	 */
+	private Path writeTemplate(final String name, final String content) throws Exception {
+		final Path template = directory.resolve(name);
+		Files.write(template, content.getBytes(StandardCharsets.UTF_8));
+		return template;
+	}
+
+	/**
+	 * Ensures that constant text and placeholders are
+	 * rendered in template order.
+	 *
+	 * @throws Exception If any error occurs while rendering template.
+	 */
+	@Test
+	public void testPlaceholdersAreReplaced() throws Exception {
+		final Map<String, PageTemplate.Operation<MarkdownDocumentBuilder>> placeholders = new HashMap<>();
+		placeholders.put("name", builder -> builder.text("Widget"));
+		placeholders.put("kind", builder -> builder.text("Class"));
+		final PageTemplate<MarkdownDocumentBuilder> template = PageTemplate.compile("# {{ name }} ({{kind}})\n{{name}}", placeholders);
+		final MarkdownDocumentBuilder builder = new MarkdownDocumentBuilder();
+		template.render(builder);
+		assertEquals("# Widget (Class)\nWidget", builder.build());
+	}
+
+	/**
+	 * Ensures that an unknown placeholder is rejected when compiling.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownPlaceholderIsRejected() {
+		PageTemplate.compile("{{unknown}}", new HashMap<String, PageTemplate.Operation<MarkdownDocumentBuilder>>());
+	}
+
+	/**
+	 * Ensures that class and package pages are generated
+	 * using their template.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testPagesUseTemplates() throws Exception {
+		final Path classTemplate = writeTemplate("class.md", "---\ntitle: {{name}}\npackage: {{package}}\n---\n{{methods}}");
+		final Path packageTemplate = writeTemplate("package.md", "---\ntitle: {{name}}\n---\n{{classes}}");
+		final Path output = directory.resolve("javadoc");
+		final MarkletRunner.Result result = TestGeneration.generate(
+				output,
+				"-classtemplate", classTemplate.toString(),
+				"-packagetemplate", packageTemplate.toString());
+		assertTrue(result.getOutput(), result.isSuccess());
+		final String widget = TestGeneration.read(output.resolve("demo/Widget.html.md"));
+		assertTrue(widget.startsWith("---\ntitle: Widget\npackage: demo\n---\n"));
+		assertTrue(widget.contains("paint"));
+		assertFalse(widget.contains("Color of widget."));
+		final String demo = TestGeneration.read(output.resolve("demo/README.html.md"));
+		assertTrue(demo.startsWith("---\ntitle: demo\n---\n"));
+		assertTrue(demo.contains("Widget"));
+	}
+
+	/**
+	 * Ensures that a template with an unknown placeholder
+	 * stops the generation.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testInvalidTemplateFails() throws Exception {
+		final Path classTemplate = writeTemplate("class.md", "{{name}} {{unknown}}");
+		final MarkletRunner.Result result = TestGeneration.generate(directory.resolve("javadoc"), "-classtemplate", classTemplate.toString());
+		assertFalse(result.isSuccess());
+		assertTrue(result.getOutput(), result.getOutput().contains("unknown"));
+	}
+
+}
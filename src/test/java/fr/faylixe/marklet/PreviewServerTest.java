@@ -0,0 +1,129 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of pages rendered on request by a {@link PreviewServer}.
+ *
+ * @author fv
+ */
+public final class PreviewServerTest {
+
+	/** Delay in milliseconds between two connection attempts. **/
+	private static final long RETRY_DELAY = 50;
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Port the server listens on. **/
+	private int port;
+
+	/**
+	 * Starts a preview server of the test corpus on a free port.
+	 *
+	 * @throws Exception If any error occurs while starting server.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		try (final ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		final MarkletOptions options = MarkletOptions.parse(new String[][] {
+			{"-d", directory.toString()},
+			{"-preview", String.valueOf(port)}
+		});
+		final PreviewServer server = new PreviewServer(TestGeneration.getRoot(), options);
+		final MarkletContext context = new MarkletContext(options, null, null, null, null, null, null, null, server, null, null);
+		final Thread thread = new Thread(() -> {
+			try {
+				server.serve(context, port);
+			}
+			catch (final IOException | InterruptedException e) {
+				// Server stopped.
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Requests the given ``page`` to the server,
+	 * waiting for the server to be started.
+	 *
+	 * @param page Path of the page to request.
+	 * @param status Expected response status.
+	 * @return Response content.
+	 * @throws Exception If any error occurs while requesting page.
+	 */
+	private String request(final String page, final int status) throws Exception {
+		final URL url = new URL("http://localhost:" + port + "/" + page);
+		while (true) {
+			final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			try {
+				assertEquals(status, connection.getResponseCode());
+				final ByteArrayOutputStream content = new ByteArrayOutputStream();
+				try (final InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+					final byte [] buffer = new byte[4096];
+					int read;
+					while ((read = stream.read(buffer)) > 0) {
+						content.write(buffer, 0, read);
+					}
+				}
+				return new String(content.toByteArray(), Charset.defaultCharset());
+			}
+			catch (final ConnectException e) {
+				Thread.sleep(RETRY_DELAY);
+			}
+			finally {
+				connection.disconnect();
+			}
+		}
+	}
+
+	/**
+	 * Ensures that class, sub and package pages are rendered
+	 * on request, that unknown pages are not found, and that
+	 * no page is written into the output directory.
+	 *
+	 * @throws Exception If any error occurs while requesting pages.
+	 */
+	@Test(timeout = 60000)
+	public void testPagesAreRenderedOnRequest() throws Exception {
+		assertTrue(request("", 200).contains("[demo](demo/" + MarkletConstant.README_LINK + ")"));
+		final String widget = request("demo/Widget.html", 200);
+		assertTrue(widget.contains("A widget, i.e. a thing."));
+		assertEquals(widget, request("demo/Widget" + MarkdownDocumentBuilder.FILE_EXTENSION, 200));
+		assertTrue(request("demo/", 200).contains("Widget"));
+		assertTrue(request("demo/Missing.html", 404).contains("demo/Missing"));
+		assertFalse(Files.exists(directory.resolve("demo")));
+	}
+
+}
@@ -0,0 +1,109 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of declaration excerpts taken from source files.
+ *
+ * @author fv
+ */
+public final class SourceIndexTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Writes the given ``lines`` into a source file.
+	 *
+	 * @param lines Lines of the source file.
+	 * @return Written file.
+	 * @throws Exception If any error occurs while writing file.
+	 */
+	private File write(final String... lines) throws Exception {
+		final Path path = directory.resolve("Source.java");
+		Files.write(path, Arrays.asList(lines), StandardCharsets.UTF_8);
+		return path.toFile();
+	}
+
+	/**
+	 * Ensures that braces and terminators within comments
+	 * and literals do not end the excerpt.
+	 *
+	 * @throws Exception If any error occurs while writing source.
+	 */
+	@Test
+	public void testCommentsAndLiteralsAreSkipped() throws Exception {
+		final File file = write(
+				"@Named(\"a;{b}\") // Not a body {",
+				"public void run(final char c /* } ; */, final String s) {",
+				"\tchar brace = '{';",
+				"}");
+		final SourceIndex index = new SourceIndex(StandardCharsets.UTF_8);
+		assertEquals("@Named(\"a;{b}\") // Not a body {\npublic void run(final char c /* } ; */, final String s)", index.excerpt(file, 1));
+		assertEquals("char brace = '{'", index.excerpt(file, 3));
+	}
+
+	/**
+	 * Ensures that a block comment spanning several lines
+	 * does not end the excerpt.
+	 *
+	 * @throws Exception If any error occurs while writing source.
+	 */
+	@Test
+	public void testBlockCommentSpansLines() throws Exception {
+		final File file = write(
+				"void draw(/* first;",
+				"  second { */ int x);");
+		final SourceIndex index = new SourceIndex(StandardCharsets.UTF_8);
+		assertEquals("void draw(/* first;\n  second { */ int x)", index.excerpt(file, 1));
+	}
+
+	/**
+	 * Ensures that implicitly declared enumeration methods
+	 * do not link to the enumeration declaration.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testImplicitMembersHaveNoSource() throws Exception {
+		final Path output = directory.resolve("javadoc");
+		final MarkletRunner.Result result = TestGeneration.generate(output, "-sourcelink", "https://example.org/src/", "-excerpts");
+		assertTrue(result.getOutput(), result.isSuccess());
+		final String page = TestGeneration.read(output.resolve("demo/Color.html.md"));
+		assertTrue(page.contains("[Source](https://example.org/src/demo/Color.java#L14)"));
+		assertFalse(page.contains("Color.java#L7"));
+	}
+
+}
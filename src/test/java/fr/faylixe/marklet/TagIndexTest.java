@@ -0,0 +1,90 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of tag report pages, generated from the test corpus.
+ *
+ * @author fv
+ */
+public final class TagIndexTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/** Pages generated from the test corpus. **/
+	private Map<String, String> pages;
+
+	/**
+	 * Generates the test corpus documentation, with reports.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+		final MarkletRunner.Result result = TestGeneration.generate(directory, "-reports");
+		assertTrue(result.getOutput(), result.isSuccess());
+		pages = TestGeneration.readPages(directory);
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that deprecated elements are reported
+	 * with their deprecation comment.
+	 */
+	@Test
+	public void testDeprecatedReport() {
+		assertTrue(pages.get(MarkletConstant.DEPRECATED_FILE).contains("* [Widget.draw](demo/Widget.html#draw) : use "));
+	}
+
+	/**
+	 * Ensures that versions are ordered from the latest
+	 * one, comparing their numbers rather than their text.
+	 */
+	@Test
+	public void testSinceReportOrder() {
+		final String page = pages.get(MarkletConstant.SINCE_FILE);
+		final int latest = page.indexOf("## 1.10\n* [Widget](demo/Widget.html)");
+		final int middle = page.indexOf("## 1.9\n* [Widget.paint](demo/Widget.html#paintcolor)");
+		final int oldest = page.indexOf("## 1.2\n* [Color](demo/Color.html)");
+		assertTrue(latest >= 0 && latest < middle && middle < oldest);
+	}
+
+	/**
+	 * Ensures that tag occurrences and authors are counted
+	 * over every documented element.
+	 */
+	@Test
+	public void testInventoryReport() {
+		final String page = pages.get(MarkletConstant.INVENTORY_FILE);
+		assertTrue(page.contains("| @since | 3 |"));
+		assertTrue(page.contains("### fv\n* [Widget](demo/Widget.html)"));
+	}
+
+	/**
+	 * Ensures that an enumeration, which interfaces have
+	 * recursive type variable bounds, is documented.
+	 */
+	@Test
+	public void testRecursiveBoundIsRendered() {
+		assertTrue(pages.get("demo/Color.html.md").contains("*java.lang.Comparable*<? extends *java.lang.Enum*<E>>"));
+	}
+
+}
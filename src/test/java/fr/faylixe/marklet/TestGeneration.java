@@ -0,0 +1,219 @@
+package fr.faylixe.marklet;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.RootDoc;
+
+/**
+ * Test helpers that generate documentation of the test
+ * corpus within the current process, using a
+ * {@link MarkletRunner}, and read generated pages.
+ *
+ * @author fv
+ */
+public final class TestGeneration {
+
+	/** Resource name of the test corpus source root. **/
+	private static final String CORPUS = "/corpus";
+
+	/** Documentation model of the test corpus, recorded once. **/
+	private static RootDoc root;
+
+	/**
+	 * Private constructor for avoiding instantiation.
+	 */
+	private TestGeneration() {
+		// Do nothing.
+	}
+
+	/**
+	 * Retrieves the source root of the test corpus.
+	 *
+	 * @return Path of the test corpus source root.
+	 */
+	public static Path getCorpus() {
+		try {
+			return Paths.get(TestGeneration.class.getResource(CORPUS).toURI());
+		}
+		catch (final URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates a temporary directory.
+	 *
+	 * @return Path of the created directory.
+	 * @throws IOException If any error occurs while creating directory.
+	 */
+	public static Path createDirectory() throws IOException {
+		return Files.createTempDirectory("marklet");
+	}
+
+	/**
+	 * Copies the test corpus into a temporary directory,
+	 * so that a test could modify sources.
+	 *
+	 * @return Path of the copied source root.
+	 * @throws IOException If any error occurs while copying corpus.
+	 */
+	public static Path copyCorpus() throws IOException {
+		final Path corpus = getCorpus();
+		final Path copy = createDirectory();
+		try (final Stream<Path> stream = Files.walk(corpus)) {
+			for (final Path path : stream.collect(Collectors.toList())) {
+				final Path target = copy.resolve(corpus.relativize(path).toString());
+				if (Files.isDirectory(path)) {
+					Files.createDirectories(target);
+				}
+				else {
+					Files.copy(path, target);
+				}
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Deletes the given ``directory`` along with its content.
+	 *
+	 * @param directory Directory to delete, ignored if ``null``.
+	 * @throws IOException If any error occurs while deleting files.
+	 */
+	public static void delete(final Path directory) throws IOException {
+		if (directory == null || !Files.exists(directory)) {
+			return;
+		}
+		try (final Stream<Path> stream = Files.walk(directory)) {
+			for (final Path path : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	/**
+	 * Generates documentation of the test corpus into the
+	 * given ``output`` directory.
+	 *
+	 * @param output Output directory.
+	 * @param options Additional **Marklet** options.
+	 * @return Generation outcome.
+	 * @throws IOException If any error occurs while listing sources.
+	 * @throws InterruptedException If interrupted while waiting for generation.
+	 */
+	public static MarkletRunner.Result generate(final Path output, final String... options) throws IOException, InterruptedException {
+		return generate(getCorpus(), output, options);
+	}
+
+	/**
+	 * Generates documentation of the sources under the given
+	 * ``sourceRoot`` into the given ``output`` directory.
+	 *
+	 * @param sourceRoot Source root to document.
+	 * @param output Output directory.
+	 * @param options Additional **Marklet** options.
+	 * @return Generation outcome.
+	 * @throws IOException If any error occurs while listing sources.
+	 * @throws InterruptedException If interrupted while waiting for generation.
+	 */
+	public static MarkletRunner.Result generate(final Path sourceRoot, final Path output, final String... options) throws IOException, InterruptedException {
+		final List<String> arguments = new ArrayList<>(Arrays.asList("-encoding", "UTF-8", "-d", output.toString()));
+		arguments.addAll(Arrays.asList(options));
+		final MarkletRunner.Module module = new MarkletRunner.Module("corpus", Collections.singletonList(sourceRoot), Collections.emptyList(), arguments);
+		try (final MarkletRunner runner = new MarkletRunner(1)) {
+			return runner.run(Collections.singletonList(module)).get(0);
+		}
+	}
+
+	/**
+	 * Retrieves the documentation model of the test corpus,
+	 * replayed from a snapshot recorded on first call.
+	 *
+	 * @return Documentation model of the test corpus.
+	 * @throws IOException If any error occurs while recording snapshot.
+	 * @throws InterruptedException If interrupted while waiting for generation.
+	 */
+	public static synchronized RootDoc getRoot() throws IOException, InterruptedException {
+		if (root == null) {
+			final Path directory = createDirectory();
+			try {
+				final Path snapshot = directory.resolve("model.snapshot");
+				final MarkletRunner.Result result = generate(directory.resolve("javadoc"), "-snapshot", snapshot.toString());
+				if (!result.isSuccess()) {
+					throw new IOException(result.getOutput());
+				}
+				root = DocSnapshot.read(snapshot).getRoot();
+			}
+			finally {
+				delete(directory);
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Retrieves the class of the test corpus denoted
+	 * by the given qualified ``name``.
+	 *
+	 * @param name Qualified name of the class to retrieve.
+	 * @return Retrieved class.
+	 * @throws IOException If any error occurs while recording snapshot.
+	 * @throws InterruptedException If interrupted while waiting for generation.
+	 */
+	public static ClassDoc getClass(final String name) throws IOException, InterruptedException {
+		for (final ClassDoc classDoc : getRoot().classes()) {
+			if (classDoc.qualifiedName().equals(name)) {
+				return classDoc;
+			}
+		}
+		throw new IllegalArgumentException("No such class in corpus : " + name);
+	}
+
+	/**
+	 * Reads the page denoted by the given ``path``.
+	 *
+	 * @param path Path of the page to read.
+	 * @return Page content.
+	 * @throws IOException If any error occurs while reading page.
+	 */
+	public static String read(final Path path) throws IOException {
+		return new String(Files.readAllBytes(path), Charset.defaultCharset());
+	}
+
+	/**
+	 * Reads every page generated into the given ``output``
+	 * directory, index directory excluded.
+	 *
+	 * @param output Output directory to read pages from.
+	 * @return Page contents by path relative to the output directory.
+	 * @throws IOException If any error occurs while reading pages.
+	 */
+	public static Map<String, String> readPages(final Path output) throws IOException {
+		final Map<String, String> pages = new TreeMap<>();
+		try (final Stream<Path> stream = Files.walk(output)) {
+			for (final Path path : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				final String name = output.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+				if (!name.startsWith(ShardIndex.DIRECTORY + "/")) {
+					pages.put(name, read(path));
+				}
+			}
+		}
+		return pages;
+	}
+
+}
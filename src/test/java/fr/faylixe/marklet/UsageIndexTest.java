@@ -0,0 +1,102 @@
+package fr.faylixe.marklet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the reverse reference index and
+ * of usage pages of the test corpus.
+ *
+ * @author fv
+ */
+public final class UsageIndexTest {
+
+	/** Temporary directory of the test. **/
+	private Path directory;
+
+	/**
+	 * Creates the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while creating directory.
+	 */
+	@Before
+	public void setUp() throws Exception {
+		directory = TestGeneration.createDirectory();
+	}
+
+	/**
+	 * Deletes the temporary directory of the test.
+	 *
+	 * @throws Exception If any error occurs while deleting directory.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		TestGeneration.delete(directory);
+	}
+
+	/**
+	 * Ensures that users are listed across packages,
+	 * with the package of users from another one.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testUsagePages() throws Exception {
+		final MarkletRunner.Result result = TestGeneration.generate(directory, "-usage");
+		assertTrue(result.getOutput(), result.isSuccess());
+		final Map<String, String> pages = TestGeneration.readPages(directory);
+		assertTrue(pages.get("demo/USAGE.html.md").contains("## Widget\n* [Helper](sub/Helper.html) *demo.sub*\n"));
+		assertTrue(pages.get("demo/USAGE.html.md").contains("## Marker\n" + MarkletConstant.NO_USAGE));
+		assertTrue(pages.get("demo/Widget.html.md").contains("[Widget](USAGE.html#widget)"));
+	}
+
+	/**
+	 * Ensures that users over the limit are dropped, and
+	 * that the usage page tells so.
+	 *
+	 * @throws Exception If any error occurs while generating documentation.
+	 */
+	@Test
+	public void testUsageLimit() throws Exception {
+		final MarkletRunner.Result result = TestGeneration.generate(directory, "-usage", "-usagelimit", "1");
+		assertTrue(result.getOutput(), result.isSuccess());
+		final String page = TestGeneration.read(directory.resolve("demo/USAGE.html.md"));
+		final String base = page.substring(page.indexOf("## Base"), page.indexOf("## Color"));
+		assertEquals(1, base.split("\\]\\(").length - 1);
+		assertTrue(base.contains(MarkletConstant.MORE_USAGE));
+	}
+
+	/**
+	 * Ensures that usages written into a partial file are
+	 * read back, users and truncation included.
+	 *
+	 * @throws Exception If any error occurs while writing partial file.
+	 */
+	@Test
+	public void testPartialRoundTrip() throws Exception {
+		final UsageIndex index = new UsageIndex(1);
+		index.record(TestGeneration.getClass("demo.Widget"), TestGeneration.getClass("demo.Base"));
+		index.record(TestGeneration.getClass("demo.Marker"), TestGeneration.getClass("demo.Base"));
+		index.record(TestGeneration.getClass("demo.sub.Helper"), TestGeneration.getClass("demo.Widget"));
+		final Path partial = directory.resolve(UsageIndex.PARTIAL_SUFFIX);
+		index.write(partial, "fingerprint");
+		final UsageIndex read = new UsageIndex(1);
+		read.read(partial, "fingerprint");
+		assertTrue(read.isTruncated("demo.Base"));
+		assertFalse(read.isTruncated("demo.Widget"));
+		final List<UsageIndex.User> users = read.getUsers("demo.Widget");
+		assertEquals(1, users.size());
+		assertEquals("demo.sub.Helper", users.get(0).getQualifiedName());
+		assertEquals("demo.sub", users.get(0).getPackageName());
+	}
+
+}
@@ -0,0 +1,9 @@
+package demo;
+/**
+ * Base   class,
+ * extended by widgets.
+ */
+public abstract class Base {
+	/** Base method. */
+	public void base() {}
+}
@@ -0,0 +1,15 @@
+package demo;
+
+/**
+ * Colors, e.g. red. Used by {@link Widget}.
+ * @since 1.2
+ */
+public enum Color {
+	/** The red one. Quite red. */
+	RED,
+	/** The green one. */
+	GREEN;
+
+	/** Some field. */
+	public int value;
+}
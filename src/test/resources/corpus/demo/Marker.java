@@ -0,0 +1,12 @@
+package demo;
+/** A marker annotation, e.g. for tests | tools. Not inherited. */
+public @interface Marker {
+	/** Value. @return the value */
+	String value() default "x";
+	/** Count. */
+	int count();
+	/** Color of the marked element. */
+	Color color() default Color.RED;
+	/** Type of the marked element. */
+	Class<?> type() default Base.class;
+}
@@ -0,0 +1,31 @@
+package demo;
+
+import java.util.List;
+
+/**
+ * A widget, i.e. a thing. See {@link demo.sub.Helper}.
+ * @author fv
+ * @since 1.10
+ */
+public class Widget extends Base implements Comparable<Widget> {
+	/** Color of widget. */
+	public Color color;
+	/** Create. @param name the name */
+	public Widget(String name) {}
+	/**
+	 * Old method.
+	 * @deprecated use {@link #paint(Color)} instead.
+	 */
+	@Deprecated
+	public void draw() {}
+	/**
+	 * Paints.
+	 * @param c color
+	 * @return helpers
+	 * @throws IllegalStateException when bad
+	 * @since 1.9
+	 * @custom hello
+	 */
+	public List<demo.sub.Helper> paint(Color c) { return null; }
+	public int compareTo(Widget o) { return 0; }
+}
@@ -0,0 +1,2 @@
+/** Demo package. Second sentence. */
+package demo;
@@ -0,0 +1,6 @@
+package demo.sub;
+/** Helps {@link demo.Widget}. */
+public interface Helper {
+	/** Help. @param w the widget */
+	void help(demo.Widget w);
+}